@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2009-2020  Syed Asad Rahman <asad at ebi.ac.uk>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ * All we ask is that proper credit is given for our work, which includes
+ * - but is not limited to - adding the above copyright notice to the beginning
+ * of your source code files, and to any copyright notice that you may distribute
+ * with programs based on this work.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.smsd.benchmark;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IReaction;
+import static org.openscience.cdk.tools.manipulator.AtomContainerManipulator.suppressHydrogens;
+import org.openscience.smsd.AtomAtomMapping;
+import org.openscience.smsd.Isomorphism;
+import org.openscience.smsd.algorithm.matchers.AtomBondMatcher;
+import org.openscience.smsd.algorithm.matchers.AtomMatcher;
+import org.openscience.smsd.algorithm.matchers.BondMatcher;
+import org.openscience.smsd.helper.MoleculeInitializer;
+import org.openscience.smsd.interfaces.Algorithm;
+import uk.ac.ebi.reactionblast.benchmark.Fixtures;
+
+/**
+ * MCS of the largest reactant and the largest product of a reaction (heavy
+ * atoms) with each {@link Algorithm}.
+ *
+ * @author Syed Asad Rahman <asad at ebi.ac.uk>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class IsomorphismBenchmark {
+
+    @Param({Fixtures.KEGG, Fixtures.RHEA, Fixtures.MACIE, Fixtures.BRENDA})
+    public String fixture;
+
+    @Param({"DEFAULT", "VFLibMCS", "MCSPlus", "CDKMCS"})
+    public Algorithm algorithm;
+
+    private IAtomContainer query;
+    private IAtomContainer target;
+    private AtomMatcher atomMatcher;
+    private BondMatcher bondMatcher;
+
+    @Setup
+    public void read() throws Exception {
+        IReaction reaction = Fixtures.reaction(fixture);
+        query = suppressHydrogens(Fixtures.largestReactant(reaction));
+        target = suppressHydrogens(Fixtures.largestProduct(reaction));
+        MoleculeInitializer.initializeMolecule(query);
+        MoleculeInitializer.initializeMolecule(target);
+        atomMatcher = AtomBondMatcher.atomMatcher(false, false);
+        bondMatcher = AtomBondMatcher.bondMatcher(false, false);
+    }
+
+    @Benchmark
+    public AtomAtomMapping mcs() throws Exception {
+        Isomorphism isomorphism = new Isomorphism(query, target, algorithm, atomMatcher, bondMatcher);
+        return isomorphism.getFirstAtomMapping();
+    }
+}
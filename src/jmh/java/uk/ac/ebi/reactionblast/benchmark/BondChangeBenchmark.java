@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2007-2020 Syed Asad Rahman <asad at ebi.ac.uk>.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package uk.ac.ebi.reactionblast.benchmark;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openscience.cdk.interfaces.IReaction;
+import uk.ac.ebi.reactionblast.fingerprints.PatternFingerprinter;
+import uk.ac.ebi.reactionblast.fingerprints.interfaces.IPatternFingerprinter;
+import uk.ac.ebi.reactionblast.mechanism.BondChangeCalculator;
+import uk.ac.ebi.reactionblast.mechanism.ReactionMechanismTool;
+import uk.ac.ebi.reactionblast.tools.StandardizeReaction;
+
+/**
+ * Bond change computation ({@link BondChangeCalculator#computeBondChanges})
+ * and the bond change fingerprints ({@link PatternFingerprinter}) of a
+ * reaction mapped once in the setup (the mapped reaction is reused, a clone
+ * would lose the atom-atom mapping).
+ *
+ * @author Syed Asad Rahman <asad at ebi.ac.uk>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class BondChangeBenchmark {
+
+    @Param({Fixtures.KEGG, Fixtures.RHEA, Fixtures.MACIE, Fixtures.BRENDA})
+    public String fixture;
+
+    private IReaction reaction;
+    private BondChangeCalculator bcc;
+
+    @Setup
+    public void map() throws Exception {
+        ReactionMechanismTool rmt = new ReactionMechanismTool(Fixtures.reaction(fixture),
+                true, false, false, true, false, new StandardizeReaction());
+        reaction = rmt.getSelectedSolution().getReactor().getReactionWithAtomAtomMapping();
+        bcc = rmt.getSelectedSolution().getBondChangeCalculator();
+    }
+
+    @Benchmark
+    public BondChangeCalculator computeBondChanges() throws Exception {
+        BondChangeCalculator calculator = new BondChangeCalculator(reaction);
+        calculator.computeBondChanges(false, false);
+        return calculator;
+    }
+
+    @Benchmark
+    public int fingerprints() throws Exception {
+        IPatternFingerprinter fp = new PatternFingerprinter();
+        fp.add(bcc.getFormedCleavedWFingerprint());
+        fp.add(bcc.getOrderChangesWFingerprint());
+        fp.add(bcc.getStereoChangesWFingerprint());
+        fp.add(bcc.getReactionCenterWFingerprint());
+        return fp.getHashedFingerPrint().cardinality()
+                + fp.compareTo(bcc.getFormedCleavedWFingerprint());
+    }
+}
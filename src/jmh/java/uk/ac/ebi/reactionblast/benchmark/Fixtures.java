@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2007-2020 Syed Asad Rahman <asad at ebi.ac.uk>.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package uk.ac.ebi.reactionblast.benchmark;
+
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IReaction;
+import static org.openscience.cdk.tools.manipulator.AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms;
+import static org.openscience.cdk.tools.manipulator.AtomContainerManipulator.percieveAtomTypesAndConfigureUnsetProperties;
+import uk.ac.ebi.reactionblast.tools.ExtReactionManipulatorTool;
+import uk.ac.ebi.reactionblast.tools.MappingUtility;
+
+/**
+ * Reactions of the test resources ({@code rxn/kegg}, {@code rxn/rhea},
+ * {@code rxn/macie}, {@code rxn/brenda}) used by the benchmarks. A fixture is
+ * named by its directory and file name, e.g. {@code kegg/R01081}.
+ *
+ * @author Syed Asad Rahman <asad at ebi.ac.uk>
+ */
+public final class Fixtures {
+
+    /**
+     * One reaction of each source, used by default.
+     */
+    public static final String KEGG = "kegg/R01081";
+    public static final String RHEA = "rhea/10001";
+    public static final String MACIE = "macie/0001.stg02";
+    public static final String BRENDA = "brenda/204";
+
+    private static final MappingUtility UTILITY = new MappingUtility();
+
+    private Fixtures() {
+    }
+
+    /**
+     * Read a fixture as the mapping tests do (unmapped, explicit hydrogens,
+     * perceived atom types).
+     *
+     * @param fixture directory/name of the reaction
+     * @return reaction
+     * @throws Exception
+     */
+    public static IReaction reaction(String fixture) throws Exception {
+        int split = fixture.indexOf('/');
+        String dir = "rxn/" + fixture.substring(0, split + 1);
+        String name = fixture.substring(split + 1);
+        IReaction reaction = UTILITY.readReaction(name, dir, false);
+        if (reaction == null) {
+            throw new IllegalArgumentException("Unable to read the reaction " + fixture);
+        }
+        ExtReactionManipulatorTool.addExplicitH(reaction);
+        for (IAtomContainer a : reaction.getReactants().atomContainers()) {
+            percieveAtomTypesAndConfigureAtoms(a);
+            percieveAtomTypesAndConfigureUnsetProperties(a);
+        }
+        for (IAtomContainer a : reaction.getProducts().atomContainers()) {
+            percieveAtomTypesAndConfigureAtoms(a);
+            percieveAtomTypesAndConfigureUnsetProperties(a);
+        }
+        return reaction;
+    }
+
+    /**
+     * @param reaction
+     * @return largest reactant
+     */
+    public static IAtomContainer largestReactant(IReaction reaction) {
+        return largest(reaction.getReactants().atomContainers());
+    }
+
+    /**
+     * @param reaction
+     * @return largest product
+     */
+    public static IAtomContainer largestProduct(IReaction reaction) {
+        return largest(reaction.getProducts().atomContainers());
+    }
+
+    private static IAtomContainer largest(Iterable<IAtomContainer> molecules) {
+        IAtomContainer largest = null;
+        for (IAtomContainer ac : molecules) {
+            if (largest == null || ac.getAtomCount() > largest.getAtomCount()) {
+                largest = ac;
+            }
+        }
+        return largest;
+    }
+}
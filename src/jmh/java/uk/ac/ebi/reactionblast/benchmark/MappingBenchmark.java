@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2007-2020 Syed Asad Rahman <asad at ebi.ac.uk>.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package uk.ac.ebi.reactionblast.benchmark;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openscience.cdk.interfaces.IReaction;
+import uk.ac.ebi.reactionblast.mapping.algorithm.checks.RuleLibrary;
+import uk.ac.ebi.reactionblast.mapping.cache.MCSSolutionCache;
+import uk.ac.ebi.reactionblast.mapping.cache.PerceptionCache;
+import uk.ac.ebi.reactionblast.mechanism.MappingSolution;
+import uk.ac.ebi.reactionblast.mechanism.ReactionMechanismTool;
+import uk.ac.ebi.reactionblast.tools.StandardizeReaction;
+
+/**
+ * End to end mapping of a reaction ({@link ReactionMechanismTool}, all the
+ * mapping models and the bond change scoring). The MCS, perception and rule
+ * caches are cleared before each call so that every call maps from scratch.
+ *
+ * @author Syed Asad Rahman <asad at ebi.ac.uk>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class MappingBenchmark {
+
+    @Param({Fixtures.KEGG, Fixtures.RHEA, Fixtures.MACIE, Fixtures.BRENDA})
+    public String fixture;
+
+    private IReaction reaction;
+
+    @Setup(Level.Invocation)
+    public void read() throws Exception {
+        reaction = Fixtures.reaction(fixture);
+        MCSSolutionCache.getInstance().cleanup();
+        PerceptionCache.getInstance().cleanup();
+        RuleLibrary.getInstance().cleanup();
+    }
+
+    @Benchmark
+    public MappingSolution mapReaction() throws Exception {
+        ReactionMechanismTool rmt = new ReactionMechanismTool(reaction,
+                true, false, false, true, false, new StandardizeReaction());
+        return rmt.getSelectedSolution();
+    }
+}
@@ -115,6 +115,7 @@ public final class Isomorphism extends BaseMapping implements Serializable {
     private final Algorithm algorithmType;
     private double bondSensitiveMcGregorOut = -1;//mins
     private double bondInSensitiveMcGregor = -1;//mins
+    private boolean timeout = false;
 
     /**
      *
@@ -274,7 +275,8 @@ public final class Isomorphism extends BaseMapping implements Serializable {
         }
         clearMaps();
         getMCSList().addAll(mcs.getAllAtomMapping());
-        return mcs.isTimeout();
+        timeout = mcs.isTimeout();
+        return timeout;
     }
 
     private synchronized boolean mcsPlusAlgorithm() throws CDKException {
@@ -284,26 +286,38 @@ public final class Isomorphism extends BaseMapping implements Serializable {
             if (DEBUG) {
                 System.out.println("org.openscience.smsd.algorithm.mcsplus2.MCSPlusMapper");
             }
-            mcs = new org.openscience.smsd.algorithm.mcsplus2.MCSPlusMapper((IQueryAtomContainer) getQuery(), getTarget(), atomMatcher, bondMatcher);
+            org.openscience.smsd.algorithm.mcsplus2.MCSPlusMapper mapper
+                    = new org.openscience.smsd.algorithm.mcsplus2.MCSPlusMapper((IQueryAtomContainer) getQuery(), getTarget(), atomMatcher, bondMatcher);
+            timeout = mapper.isTimeout();
+            mcs = mapper;
         } else if (expectedMaxGraphmatch < 3) {
             if (DEBUG) {
                 System.out.println("org.openscience.smsd.algorithm.mcsplus1.MCSPlusMapper");
             }
-            mcs = new org.openscience.smsd.algorithm.mcsplus1.MCSPlusMapper(getQuery(), getTarget(), atomMatcher, bondMatcher);
+            org.openscience.smsd.algorithm.mcsplus1.MCSPlusMapper mapper
+                    = new org.openscience.smsd.algorithm.mcsplus1.MCSPlusMapper(getQuery(), getTarget(), atomMatcher, bondMatcher);
+            timeout = mapper.isTimeout();
+            mcs = mapper;
         } else if (expectedMaxGraphmatch > 3) {
             if (DEBUG) {
                 System.out.println("org.openscience.smsd.algorithm.mcsplus.MCSPlusMapper");
             }
-            mcs = new org.openscience.smsd.algorithm.mcsplus.MCSPlusMapper(getQuery(), getTarget(), atomMatcher, bondMatcher);
+            org.openscience.smsd.algorithm.mcsplus.MCSPlusMapper mapper
+                    = new org.openscience.smsd.algorithm.mcsplus.MCSPlusMapper(getQuery(), getTarget(), atomMatcher, bondMatcher);
+            timeout = mapper.isTimeout();
+            mcs = mapper;
         } else {
             if (DEBUG) {
                 System.out.println("org.openscience.smsd.algorithm.mcsplus2.MCSPlusMapper");
             }
-            mcs = new org.openscience.smsd.algorithm.mcsplus2.MCSPlusMapper(getQuery(), getTarget(), atomMatcher, bondMatcher);
+            org.openscience.smsd.algorithm.mcsplus2.MCSPlusMapper mapper
+                    = new org.openscience.smsd.algorithm.mcsplus2.MCSPlusMapper(getQuery(), getTarget(), atomMatcher, bondMatcher);
+            timeout = mapper.isTimeout();
+            mcs = mapper;
         }
         clearMaps();
         getMCSList().addAll(mcs.getAllAtomMapping());
-        return false;
+        return timeout;
     }
 
     private synchronized boolean substructureAlgorithm() throws CDKException {
@@ -416,6 +430,14 @@ public final class Isomorphism extends BaseMapping implements Serializable {
         return false;
     }
 
+    /**
+     * @return true if the MCS search hit its time limit, the mappings found
+     * may then not be the maximum ones
+     */
+    public synchronized boolean isTimeout() {
+        return timeout;
+    }
+
     /**
      * @return the bondSensitiveMcGregorOut
      */
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package org.openscience.smsd.algorithm.matchers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openscience.cdk.CDKConstants;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.interfaces.IPseudoAtom;
+import org.openscience.cdk.isomorphism.matchers.IQueryAtom;
+import org.openscience.cdk.isomorphism.matchers.IQueryBond;
+
+/**
+ * Atom and bond invariants of a molecule packed into ints and longs, so that
+ * the matchers compare integers instead of reading the atom properties on
+ * every call: element, aromaticity and ring membership, a bit mask of the
+ * {@link CDKConstants#RING_SIZES}, an id of the atom type name, and the bond
+ * order and aromaticity. Atoms and bonds are referred to by their index in the
+ * container.
+ *
+ * The invariants are a snapshot, they are computed once the molecule is
+ * perceived. Query atoms and bonds, unset atomic numbers or atom types and
+ * rings larger than 63 atoms are not compiled, the matchers fall back to the
+ * properties of the atom or bond for them.
+ *
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public final class AtomBondInvariants {
+
+    static final int AROMATIC = 1;
+    static final int IN_RING = 1 << 1;
+    static final int RING_SIZES = 1 << 2;
+    static final int ELEMENT_SHIFT = 3;
+    static final int UNKNOWN = -1;
+
+    /*
+     * Ids of the atom type names, shared by all the molecules so that they
+     * can be compared across them
+     */
+    private static final Map<String, Integer> ATOM_TYPES = new ConcurrentHashMap<>();
+    private static final AtomicInteger ATOM_TYPE_COUNT = new AtomicInteger();
+
+    private final IAtomContainer container;
+    private final int[] atomCode;
+    private final int[] atomType;
+    private final long[] ringSizes;
+    private final int[] bondCode;
+    private final int[] bondBegin;
+    private final int[] bondEnd;
+    private final int[][] neighbours;
+    private final int[][] neighbourBonds;
+
+    /**
+     * Compile the invariants of a molecule.
+     *
+     * @param container the molecule
+     */
+    public AtomBondInvariants(IAtomContainer container) {
+        this.container = container;
+        int atomCount = container.getAtomCount();
+        int bondCount = container.getBondCount();
+        this.atomCode = new int[atomCount];
+        this.atomType = new int[atomCount];
+        this.ringSizes = new long[atomCount];
+        for (int i = 0; i < atomCount; i++) {
+            compile(i, container.getAtom(i));
+        }
+        this.bondCode = new int[bondCount];
+        this.bondBegin = new int[bondCount];
+        this.bondEnd = new int[bondCount];
+        int[] degree = new int[atomCount];
+        for (int k = 0; k < bondCount; k++) {
+            IBond bond = container.getBond(k);
+            bondBegin[k] = container.indexOf(bond.getBegin());
+            bondEnd[k] = container.indexOf(bond.getEnd());
+            if (bondBegin[k] >= 0 && bondEnd[k] >= 0) {
+                degree[bondBegin[k]]++;
+                degree[bondEnd[k]]++;
+            }
+            if (bond instanceof IQueryBond) {
+                bondCode[k] = UNKNOWN;
+            } else {
+                int order = bond.getOrder() == null ? 0 : bond.getOrder().ordinal() + 1;
+                bondCode[k] = order << 1 | (bond.isAromatic() ? AROMATIC : 0);
+            }
+        }
+        this.neighbours = new int[atomCount][];
+        this.neighbourBonds = new int[atomCount][];
+        for (int i = 0; i < atomCount; i++) {
+            neighbours[i] = new int[degree[i]];
+            neighbourBonds[i] = new int[degree[i]];
+            degree[i] = 0;
+        }
+        for (int k = 0; k < bondCount; k++) {
+            int u = bondBegin[k];
+            int v = bondEnd[k];
+            if (u >= 0 && v >= 0) {
+                neighbours[u][degree[u]] = v;
+                neighbourBonds[u][degree[u]++] = k;
+                neighbours[v][degree[v]] = u;
+                neighbourBonds[v][degree[v]++] = k;
+            }
+        }
+    }
+
+    private void compile(int i, IAtom atom) {
+        atomCode[i] = UNKNOWN;
+        atomType[i] = UNKNOWN;
+        if (atom instanceof IQueryAtom) {
+            return;
+        }
+        Integer element = atom.getAtomicNumber();
+        if (element == null) {
+            if (!(atom instanceof IPseudoAtom)) {
+                return;
+            }
+            element = 0;
+        }
+        int flags = (atom.isAromatic() ? AROMATIC : 0) | (atom.isInRing() ? IN_RING : 0);
+        List<Integer> sizes = atom.getProperty(CDKConstants.RING_SIZES);
+        if (sizes != null) {
+            long mask = 0L;
+            for (Integer size : sizes) {
+                if (size == null || size < 0 || size > 63) {
+                    return;
+                }
+                mask |= 1L << size;
+            }
+            ringSizes[i] = mask;
+            flags |= RING_SIZES;
+        }
+        String name = atom.getAtomTypeName() == null ? atom.getSymbol() : atom.getAtomTypeName();
+        if (name != null) {
+            atomType[i] = ATOM_TYPES.computeIfAbsent(name, k -> ATOM_TYPE_COUNT.getAndIncrement());
+        }
+        atomCode[i] = element << ELEMENT_SHIFT | flags;
+    }
+
+    /**
+     * @return the molecule
+     */
+    public IAtomContainer getContainer() {
+        return container;
+    }
+
+    /**
+     * @param i atom index
+     * @return the atom
+     */
+    public IAtom getAtom(int i) {
+        return container.getAtom(i);
+    }
+
+    /**
+     * @param k bond index
+     * @return the bond
+     */
+    public IBond getBond(int k) {
+        return container.getBond(k);
+    }
+
+    /**
+     * Index of the bond between two atoms, the first one in the container if
+     * there are several.
+     *
+     * @param i atom index
+     * @param j atom index
+     * @return the bond index, -1 if the atoms are not bonded
+     */
+    public int getBondIndex(int i, int j) {
+        int[] adjacent = neighbours[i];
+        for (int n = 0; n < adjacent.length; n++) {
+            if (adjacent[n] == j) {
+                return neighbourBonds[i][n];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param k bond index
+     * @return index of the first atom of the bond
+     */
+    public int getBegin(int k) {
+        return bondBegin[k];
+    }
+
+    /**
+     * @param k bond index
+     * @return index of the second atom of the bond
+     */
+    public int getEnd(int k) {
+        return bondEnd[k];
+    }
+
+    /**
+     * Element, aromatic, ring and ring size flags of an atom,
+     * {@link #UNKNOWN} if the atom is not compiled.
+     */
+    int atomCode(int i) {
+        return atomCode[i];
+    }
+
+    /**
+     * Id of the atom type name (or symbol), {@link #UNKNOWN} if not set.
+     */
+    int atomType(int i) {
+        return atomType[i];
+    }
+
+    /**
+     * Bit mask of the ring sizes of an atom.
+     */
+    long ringSizes(int i) {
+        return ringSizes[i];
+    }
+
+    /**
+     * Bond order and aromatic flag of a bond, {@link #UNKNOWN} if the bond is
+     * not compiled.
+     */
+    int bondCode(int k) {
+        return bondCode[k];
+    }
+}
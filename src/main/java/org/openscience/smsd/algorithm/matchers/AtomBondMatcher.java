@@ -82,6 +82,43 @@ public class AtomBondMatcher {
         return atomMatch && bondMatch;
     }
 
+    /**
+     * Same as {@link #matchAtomAndBond(IBond, IBond, AtomMatcher, BondMatcher, boolean)}
+     * on the compiled invariants of the molecules.
+     *
+     * @param query compiled query container
+     * @param b1 bond index in the query
+     * @param target compiled target container
+     * @param b2 bond index in the target
+     * @param atomMatcher
+     * @param bondMatcher
+     * @param undirected
+     * @return
+     */
+    public static boolean matchAtomAndBond(
+            AtomBondInvariants query,
+            int b1,
+            AtomBondInvariants target,
+            int b2,
+            AtomMatcher atomMatcher,
+            BondMatcher bondMatcher,
+            boolean undirected) {
+        if (!bondMatcher.matches(query, b1, target, b2)) {
+            return false;
+        }
+        int q0 = query.getBegin(b1);
+        int q1 = query.getEnd(b1);
+        int t0 = target.getBegin(b2);
+        int t1 = target.getEnd(b2);
+        if (atomMatcher.matches(query, q0, target, t0)
+                && atomMatcher.matches(query, q1, target, t1)) {
+            return true;
+        }
+        return undirected
+                && atomMatcher.matches(query, q0, target, t1)
+                && atomMatcher.matches(query, q1, target, t0);
+    }
+
     /**
      *
      * @param bondA1
@@ -10,6 +10,11 @@ import org.openscience.cdk.CDKConstants;
 import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IPseudoAtom;
 import org.openscience.cdk.isomorphism.matchers.IQueryAtom;
+import static org.openscience.smsd.algorithm.matchers.AtomBondInvariants.AROMATIC;
+import static org.openscience.smsd.algorithm.matchers.AtomBondInvariants.ELEMENT_SHIFT;
+import static org.openscience.smsd.algorithm.matchers.AtomBondInvariants.IN_RING;
+import static org.openscience.smsd.algorithm.matchers.AtomBondInvariants.RING_SIZES;
+import static org.openscience.smsd.algorithm.matchers.AtomBondInvariants.UNKNOWN;
 
 /**
  * CDK class adapted SMSD
@@ -31,6 +36,52 @@ public abstract class AtomMatcher {
      */
     public abstract boolean matches(IAtom atom1, IAtom atom2);
 
+    /**
+     * Are the atoms {@code i} of the query and {@code j} of the target
+     * compatible, compared on their compiled invariants. Atoms which are not
+     * compiled are compared by {@link #matches(IAtom, IAtom)}.
+     *
+     * @param query compiled query container
+     * @param i atom index in the query
+     * @param target compiled target container
+     * @param j atom index in the target
+     * @return the atoms can be paired
+     */
+    public boolean matches(AtomBondInvariants query, int i, AtomBondInvariants target, int j) {
+        return matches(query.getAtom(i), target.getAtom(j));
+    }
+
+    private static boolean isCompiled(AtomBondInvariants query, int i, AtomBondInvariants target, int j) {
+        return query.atomCode(i) != UNKNOWN && target.atomCode(j) != UNKNOWN;
+    }
+
+    private static boolean isTypeCompiled(AtomBondInvariants query, int i, AtomBondInvariants target, int j) {
+        return isCompiled(query, i, target, j)
+                && query.atomType(i) != UNKNOWN && target.atomType(j) != UNKNOWN;
+    }
+
+    private static boolean isElementMatch(AtomBondInvariants query, int i, AtomBondInvariants target, int j) {
+        return query.atomCode(i) >> ELEMENT_SHIFT == target.atomCode(j) >> ELEMENT_SHIFT;
+    }
+
+    /*
+     * Both in a ring: the ring sizes of one contain the other's, else neither
+     * may be aromatic
+     */
+    private static boolean isRingSizesMatch(AtomBondInvariants query, int i, AtomBondInvariants target, int j) {
+        int q = query.atomCode(i);
+        int t = target.atomCode(j);
+        if ((q & t & IN_RING) != 0) {
+            if ((q & t & RING_SIZES) == 0) {
+                return false;
+            }
+            long sq = query.ringSizes(i);
+            long st = target.ringSizes(j);
+            return (sq & ~st) == 0 || (st & ~sq) == 0;
+        }
+        return ((q | t) & AROMATIC) == 0;
+    }
+
     /**
      * Atoms are always compatible.
      *
@@ -100,6 +151,11 @@ public abstract class AtomMatcher {
             return true;
         }
 
+        @Override
+        public boolean matches(AtomBondInvariants query, int i, AtomBondInvariants target, int j) {
+            return true;
+        }
+
         @Override
         public String toString() {
             return "AnyMatcher";
@@ -141,6 +197,14 @@ public abstract class AtomMatcher {
             return atomicNumber(atom1) == atomicNumber(atom2);
         }
 
+        @Override
+        public boolean matches(AtomBondInvariants query, int i, AtomBondInvariants target, int j) {
+            if (!isCompiled(query, i, target, j)) {
+                return matches(query.getAtom(i), target.getAtom(j));
+            }
+            return isElementMatch(query, i, target, j);
+        }
+
         /**
          * Null safe atomic number access.
          *
@@ -179,6 +243,15 @@ public abstract class AtomMatcher {
                     && isRingSizeMatch(atom1, atom2);
         }
 
+        @Override
+        public boolean matches(AtomBondInvariants query, int i, AtomBondInvariants target, int j) {
+            if (!isCompiled(query, i, target, j)) {
+                return matches(query.getAtom(i), target.getAtom(j));
+            }
+            return isElementMatch(query, i, target, j)
+                    && isRingSizesMatch(query, i, target, j);
+        }
+
         /**
          * Null safe atomic number access.
          *
@@ -231,6 +304,15 @@ public abstract class AtomMatcher {
                     && matchAtomType(atom1, atom2);
         }
 
+        @Override
+        public boolean matches(AtomBondInvariants query, int i, AtomBondInvariants target, int j) {
+            if (!isTypeCompiled(query, i, target, j)) {
+                return matches(query.getAtom(i), target.getAtom(j));
+            }
+            return isElementMatch(query, i, target, j)
+                    && query.atomType(i) == target.atomType(j);
+        }
+
         /**
          * Null safe atomic number access.
          *
@@ -278,6 +360,16 @@ public abstract class AtomMatcher {
                     && isRingSizeMatch(atom1, atom2);
         }
 
+        @Override
+        public boolean matches(AtomBondInvariants query, int i, AtomBondInvariants target, int j) {
+            if (!isTypeCompiled(query, i, target, j)) {
+                return matches(query.getAtom(i), target.getAtom(j));
+            }
+            return isElementMatch(query, i, target, j)
+                    && query.atomType(i) == target.atomType(j)
+                    && isRingSizesMatch(query, i, target, j);
+        }
+
         /**
          * Null safe atomic number access.
          *
@@ -7,6 +7,8 @@ package org.openscience.smsd.algorithm.matchers;
 
 import org.openscience.cdk.interfaces.IBond;
 import org.openscience.cdk.isomorphism.matchers.IQueryBond;
+import static org.openscience.smsd.algorithm.matchers.AtomBondInvariants.AROMATIC;
+import static org.openscience.smsd.algorithm.matchers.AtomBondInvariants.UNKNOWN;
 
 /**
  * CDK class adapted SMSD
@@ -28,6 +30,25 @@ public abstract class BondMatcher {
      */
     public abstract boolean matches(IBond bond1, IBond bond2);
 
+    /**
+     * Are the bonds {@code i} of the query and {@code j} of the target
+     * compatible, compared on their compiled invariants. Bonds which are not
+     * compiled are compared by {@link #matches(IBond, IBond)}.
+     *
+     * @param query compiled query container
+     * @param i bond index in the query
+     * @param target compiled target container
+     * @param j bond index in the target
+     * @return the bonds are compatible
+     */
+    public boolean matches(AtomBondInvariants query, int i, AtomBondInvariants target, int j) {
+        return matches(query.getBond(i), target.getBond(j));
+    }
+
+    private static boolean isCompiled(AtomBondInvariants query, int i, AtomBondInvariants target, int j) {
+        return query.bondCode(i) != UNKNOWN && target.bondCode(j) != UNKNOWN;
+    }
+
     /**
      * All bonds are compatible.
      *
@@ -91,6 +112,16 @@ public abstract class BondMatcher {
                     || bond1.getOrder() == bond2.getOrder();
         }
 
+        @Override
+        public boolean matches(AtomBondInvariants query, int i, AtomBondInvariants target, int j) {
+            if (!isCompiled(query, i, target, j)) {
+                return matches(query.getBond(i), target.getBond(j));
+            }
+            int q = query.bondCode(i);
+            int t = target.bondCode(j);
+            return (q & t & AROMATIC) != 0 || q >> 1 == t >> 1;
+        }
+
         @Override
         public String toString() {
             return "OrderMatcher";
@@ -114,6 +145,14 @@ public abstract class BondMatcher {
                     || (!bond1.isAromatic() && !bond2.isAromatic());
         }
 
+        @Override
+        public boolean matches(AtomBondInvariants query, int i, AtomBondInvariants target, int j) {
+            if (!isCompiled(query, i, target, j)) {
+                return matches(query.getBond(i), target.getBond(j));
+            }
+            return (query.bondCode(i) & AROMATIC) == (target.bondCode(j) & AROMATIC);
+        }
+
         @Override
         public String toString() {
             return "RingMatcher";
@@ -138,6 +177,17 @@ public abstract class BondMatcher {
                     || bond1.isAromatic() && bond2.isAromatic());
         }
 
+        @Override
+        public boolean matches(AtomBondInvariants query, int i, AtomBondInvariants target, int j) {
+            if (!isCompiled(query, i, target, j)) {
+                return matches(query.getBond(i), target.getBond(j));
+            }
+            int q = query.bondCode(i);
+            int t = target.bondCode(j);
+            return (q & AROMATIC) == (t & AROMATIC)
+                    && (q >> 1 == t >> 1 || (q & t & AROMATIC) != 0);
+        }
+
         @Override
         public String toString() {
             return "StrictOrderMatcher";
@@ -158,6 +208,11 @@ public abstract class BondMatcher {
             return true;
         }
 
+        @Override
+        public boolean matches(AtomBondInvariants query, int i, AtomBondInvariants target, int j) {
+            return true;
+        }
+
         @Override
         public String toString() {
             return "AnyMatcher";
@@ -30,10 +30,9 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
-import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
-import org.openscience.cdk.interfaces.IBond;
 import org.openscience.cdk.isomorphism.matchers.IQueryAtomContainer;
+import org.openscience.smsd.algorithm.matchers.AtomBondInvariants;
 import org.openscience.smsd.algorithm.matchers.AtomBondMatcher;
 import org.openscience.smsd.algorithm.matchers.AtomMatcher;
 import org.openscience.smsd.algorithm.matchers.BondMatcher;
@@ -97,6 +96,8 @@ public final class McGregor {
      * McGregor starts
      */
     private final IAtomContainer target;
+    private final AtomBondInvariants targetInvariants;
+    private AtomBondInvariants sourceInvariants;
     private BinaryTree last = null;
     private BinaryTree first = null;
     private final Stack<List<Integer>> bestARCS;
@@ -132,6 +133,7 @@ public final class McGregor {
         this.bondMatcher = bondMatcher;
 
         this.target = target;
+        this.targetInvariants = new AtomBondInvariants(target);
         this.mappings = Collections.synchronizedList(mappings);
         this.bestarcsleft = 0;
         //setIterationManager(new IterationManager((source.getAtomCount() + this.target.getAtomCount()) * 1000));
@@ -160,6 +162,7 @@ public final class McGregor {
         this.bondMatcher = BondMatcher.forQuery();
 
         this.target = target;
+        this.targetInvariants = new AtomBondInvariants(target);
         this.mappings = Collections.synchronizedList(mappings);
         this.bestarcsleft = 0;
         //setIterationManager(new IterationManager((source.getAtomCount() + this.target.getAtomCount()) * 1000));
@@ -186,6 +189,7 @@ public final class McGregor {
     public synchronized void startMcGregorIteration(IAtomContainer source, int largestMappingSize, Map<Integer, Integer> present_Mapping) throws IOException {
 
         this.globalMCSSize = (largestMappingSize / 2);
+        this.sourceInvariants = new AtomBondInvariants(source);
 //        System.out.println("globalMCSSize " + globalMCSSize);
         List<String> c_tab1_copy = McGregorChecks.generateCTabCopy(source);
         List<String> c_tab2_copy = McGregorChecks.generateCTabCopy(target);
@@ -317,12 +321,8 @@ public final class McGregor {
         int neighborBondNumB = mcGregorHelper.getNeighborBondNumB();
 
 //        //check possible mappings:
-        boolean furtherMappingFlag;
-        if (source instanceof IQueryAtomContainer) {
-            furtherMappingFlag = McGregorChecks.isFurtherMappingPossible((IQueryAtomContainer) source, target, mcGregorHelper, atomMatcher, bondMatcher);
-        } else {
-            furtherMappingFlag = McGregorChecks.isFurtherMappingPossible(source, target, mcGregorHelper, atomMatcher, bondMatcher);
-        }
+        boolean furtherMappingFlag = McGregorChecks.isFurtherMappingPossible(sourceInvariants, targetInvariants,
+                mcGregorHelper, atomMatcher, bondMatcher);
 
         if (neighborBondNumA == 0 || neighborBondNumB == 0 || mappingCheckFlag || !furtherMappingFlag) {
             setFinalMappings(mappedAtoms, mappedAtomCount);
@@ -564,34 +564,28 @@ public final class McGregor {
                     int Index_I = iBondNeighborAtomsA.get(row * 3 + 0);
                     int Index_IPlus1 = iBondNeighborAtomsA.get(row * 3 + 1);
 
-                    IAtom R1_A = source.getAtom(Index_I);
-                    IAtom R2_A = source.getAtom(Index_IPlus1);
-                    IBond reactantBond = source.getBond(R1_A, R2_A);
+                    int reactantBond = sourceInvariants.getBondIndex(Index_I, Index_IPlus1);
 
                     int Index_J = iBondNeighborAtomsB.get(column * 3 + 0);
                     int Index_JPlus1 = iBondNeighborAtomsB.get(column * 3 + 1);
 
-                    IAtom P1_B = target.getAtom(Index_J);
-                    IAtom P2_B = target.getAtom(Index_JPlus1);
-                    IBond productBond = target.getBond(P1_B, P2_B);
-                    if (AtomBondMatcher.matchAtomAndBond(reactantBond, productBond, atomMatcher, bondMatcher, true)) {
+                    int productBond = targetInvariants.getBondIndex(Index_J, Index_JPlus1);
+                    if (AtomBondMatcher.matchAtomAndBond(sourceInvariants, reactantBond,
+                            targetInvariants, productBond, atomMatcher, bondMatcher, true)) {
                         modifiedARCS.set(row * neighborBondNumB + column, 1);
                     }
                 } else if (source instanceof IQueryAtomContainer) {
                     int Index_I = iBondNeighborAtomsA.get(row * 3 + 0);
                     int Index_IPlus1 = iBondNeighborAtomsA.get(row * 3 + 1);
 
-                    IAtom R1_A = source.getAtom(Index_I);
-                    IAtom R2_A = source.getAtom(Index_IPlus1);
-                    IBond reactantBond = source.getBond(R1_A, R2_A);
+                    int reactantBond = sourceInvariants.getBondIndex(Index_I, Index_IPlus1);
 
                     int Index_J = iBondNeighborAtomsB.get(column * 3 + 0);
                     int Index_JPlus1 = iBondNeighborAtomsB.get(column * 3 + 1);
 
-                    IAtom P1_B = target.getAtom(Index_J);
-                    IAtom P2_B = target.getAtom(Index_JPlus1);
-                    IBond productBond = target.getBond(P1_B, P2_B);
-                    if (AtomBondMatcher.matchAtomAndBond(reactantBond, productBond, atomMatcher, bondMatcher, true)) {
+                    int productBond = targetInvariants.getBondIndex(Index_J, Index_JPlus1);
+                    if (AtomBondMatcher.matchAtomAndBond(sourceInvariants, reactantBond,
+                            targetInvariants, productBond, atomMatcher, bondMatcher, true)) {
                         modifiedARCS.set(row * neighborBondNumB + column, 1);
                     }
                 }
@@ -835,16 +829,13 @@ public final class McGregor {
         int atom1_moleculeB = mcGregorHelper.getiBondNeighborAtomsB().get(yIndex * 3 + 0);
         int atom2_moleculeB = mcGregorHelper.getiBondNeighborAtomsB().get(yIndex * 3 + 1);
 
-        IAtom R1_A = source.getAtom(atom1_moleculeA);
-        IAtom R2_A = source.getAtom(atom2_moleculeA);
-        IBond reactantBond = source.getBond(R1_A, R2_A);
+        int reactantBond = sourceInvariants.getBondIndex(atom1_moleculeA, atom2_moleculeA);
 
-        IAtom P1_B = target.getAtom(atom1_moleculeB);
-        IAtom P2_B = target.getAtom(atom2_moleculeB);
-        IBond productBond = target.getBond(P1_B, P2_B);
+        int productBond = targetInvariants.getBondIndex(atom1_moleculeB, atom2_moleculeB);
 
 //      Bond Order Check Introduced by Asad
-        if (AtomBondMatcher.matchAtomAndBond(reactantBond, productBond, atomMatcher, bondMatcher, true)) {
+        if (AtomBondMatcher.matchAtomAndBond(sourceInvariants, reactantBond,
+                targetInvariants, productBond, atomMatcher, bondMatcher, true)) {
 
             for (int indexZ = 0; indexZ < mcGregorHelper.getMappedAtomCount(); indexZ++) {
 
@@ -30,6 +30,7 @@ import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.interfaces.IBond;
 import org.openscience.cdk.isomorphism.matchers.IQueryAtomContainer;
+import org.openscience.smsd.algorithm.matchers.AtomBondInvariants;
 import org.openscience.smsd.algorithm.matchers.AtomBondMatcher;
 import org.openscience.smsd.algorithm.matchers.AtomMatcher;
 import org.openscience.smsd.algorithm.matchers.BondMatcher;
@@ -530,7 +531,7 @@ public class McGregorChecks {
         return 0;
     }
 
-    static boolean isFurtherMappingPossible(IAtomContainer source, IAtomContainer target,
+    static boolean isFurtherMappingPossible(AtomBondInvariants source, AtomBondInvariants target,
             McgregorHelper mcGregorHelper,
             AtomMatcher atomMatcher,
             BondMatcher bondMatcher) {
@@ -552,7 +553,7 @@ public class McGregorChecks {
                 String G1B = cBondNeighborsB.get(column * 4 + 0);
                 String G2B = cBondNeighborsB.get(column * 4 + 1);
 
-                if (source instanceof IQueryAtomContainer) {
+                if (source.getContainer() instanceof IQueryAtomContainer) {
                     try {
 
                         int Index_I = iBondNeighborAtomsA.get(row * 3 + 0);
@@ -561,22 +562,18 @@ public class McGregorChecks {
                         int Index_J = iBondNeighborAtomsB.get(column * 3 + 0);
                         int Index_JPlus1 = iBondNeighborAtomsB.get(column * 3 + 1);
 
-                        IAtom r1_A = source.getAtom(Index_I);
-                        IAtom r2_A = source.getAtom(Index_IPlus1);
-                        IBond reactantBond = source.getBond(r1_A, r2_A);
+                        int reactantBond = source.getBondIndex(Index_I, Index_IPlus1);
 
-                        IAtom p1_B = target.getAtom(Index_J);
-                        IAtom p2_B = target.getAtom(Index_JPlus1);
-                        IBond productBond = target.getBond(p1_B, p2_B);
+                        int productBond = target.getBondIndex(Index_J, Index_JPlus1);
 
-                        if (AtomBondMatcher.
-                                matchAtomAndBond(reactantBond, productBond, atomMatcher, bondMatcher, true)) {
+                        if (AtomBondMatcher.matchAtomAndBond(source, reactantBond, target, productBond,
+                                atomMatcher, bondMatcher, true)) {
                             return true;
                         }
                     } catch (Exception e) {
                         e.printStackTrace();
                     }
-                } else if (!(source instanceof IQueryAtomContainer) && isAtomMatch(G1A, G2A, G1B, G2B)) {
+                } else if (!(source.getContainer() instanceof IQueryAtomContainer) && isAtomMatch(G1A, G2A, G1B, G2B)) {
                     try {
 
                         int Index_I = iBondNeighborAtomsA.get(row * 3 + 0);
@@ -585,15 +582,12 @@ public class McGregorChecks {
                         int Index_J = iBondNeighborAtomsB.get(column * 3 + 0);
                         int Index_JPlus1 = iBondNeighborAtomsB.get(column * 3 + 1);
 
-                        IAtom r1_A = source.getAtom(Index_I);
-                        IAtom r2_A = source.getAtom(Index_IPlus1);
-                        IBond reactantBond = source.getBond(r1_A, r2_A);
+                        int reactantBond = source.getBondIndex(Index_I, Index_IPlus1);
 
-                        IAtom p1_B = target.getAtom(Index_J);
-                        IAtom p2_B = target.getAtom(Index_JPlus1);
-                        IBond productBond = target.getBond(p1_B, p2_B);
+                        int productBond = target.getBondIndex(Index_J, Index_JPlus1);
 
-                        if (AtomBondMatcher.matchAtomAndBond(reactantBond, productBond, atomMatcher, bondMatcher, true)) {
+                        if (AtomBondMatcher.matchAtomAndBond(source, reactantBond, target, productBond,
+                                atomMatcher, bondMatcher, true)) {
                             return true;
                         }
                     } catch (Exception e) {
@@ -0,0 +1,790 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package org.openscience.smsd.algorithm.mcgregor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.isomorphism.matchers.IQueryAtomContainer;
+import org.openscience.smsd.algorithm.matchers.AtomBondInvariants;
+import org.openscience.smsd.algorithm.matchers.AtomBondMatcher;
+import org.openscience.smsd.algorithm.matchers.AtomMatcher;
+import org.openscience.smsd.algorithm.matchers.BondMatcher;
+import org.openscience.smsd.tools.IterationManager;
+
+/**
+ * McGregor extension of the MCS seeds over int arrays, it reports the same
+ * mappings as {@link McGregor} in the same order.
+ *
+ * Bonds are referred to by their index in the container and the atom labels
+ * of the connection tables (symbols, the "X" placeholder and the signs of the
+ * mapped neighbours) are interned as int codes, compared as
+ * {@link String#compareToIgnoreCase(String)} compares the labels. The arc
+ * matrix of a search level is a single byte array, the arcs removed while
+ * going down are written to an undo log and restored on the way back instead
+ * of copying the matrix at each step. The bond matches are computed once per
+ * pair of bonds.
+ *
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public final class McGregorEngine {
+
+    private static final String PLACEHOLDER = "X";
+    /*
+     * Same signs as the list based engine
+     */
+    private static final String[] SIGNS = {
+        "$1", "$2", "$3", "$4", "$5", "$6", "$7", "$8", "$9", "$10", "$11", "$12",
+        "$13", "$15", "$16", "$17", "$18", "$19", "$20", "$21", "$22", "$23", "$24",
+        "$25", "$26", "$27", "$28", "$29", "$30", "$31", "$32", "$33", "$34", "$35",
+        "$36", "$37", "$38", "$39", "$40", "$41", "$42", "$43", "$44", "$45", "$46",
+        "$47", "$48", "$49", "$50", "$51", "$52", "$53", "$54", "$55"
+    };
+    private static final int NONE = -1;
+    private static final byte UNKNOWN = 0;
+    private static final byte MATCH = 1;
+    private static final byte MISMATCH = 2;
+
+    private IterationManager iterationManager;
+    private boolean timeout = false;
+    final AtomMatcher atomMatcher;
+    final BondMatcher bondMatcher;
+
+    private final IAtomContainer target;
+    private final List<List<Integer>> mappings;
+    private int globalMCSSize;
+
+    private final Map<String, Integer> labelCodes = new HashMap<>();
+    private final int placeholder;
+    private final int[] signs;
+
+    /*
+     * Molecules of the current search
+     */
+    private IAtomContainer source;
+    private AtomBondInvariants sourceInvariants;
+    private AtomBondInvariants targetInvariants;
+    private boolean query;
+    private int[] sourceBondRef;
+    private int[] targetBondRef;
+    private byte[] bondMatches;
+
+    /*
+     * Arc matrix of the current level with its undo log
+     */
+    private byte[] arcs;
+    private int rows;
+    private int columns;
+    private int arcsLeft;
+    private int[] undoLog;
+    private int undoSize;
+    private Level level;
+
+    private int bestArcsLeft;
+    private final List<byte[]> bestArcs = new ArrayList<>();
+
+    /*
+     * Tree of the stored arc matrices (value, equal and not equal child)
+     */
+    private int[] treeValue = new int[64];
+    private int[] treeEqual = new int[64];
+    private int[] treeNotEqual = new int[64];
+    private int treeSize;
+    private boolean newMatrix = false;
+
+    /**
+     * Constructor for the McGregor algorithm.
+     *
+     * @param source
+     * @param target
+     * @param mappings
+     * @param atomMatcher
+     * @param bondMatcher
+     */
+    public McGregorEngine(IAtomContainer source,
+            IAtomContainer target,
+            List<List<Integer>> mappings,
+            AtomMatcher atomMatcher,
+            BondMatcher bondMatcher) {
+        this.atomMatcher = atomMatcher;
+        this.bondMatcher = bondMatcher;
+        this.target = target;
+        this.mappings = mappings;
+        this.iterationManager = new IterationManager(30000);
+        this.globalMCSSize = mappings.isEmpty() ? 0 : mappings.get(0).size();
+        this.placeholder = code(PLACEHOLDER);
+        this.signs = new int[SIGNS.length];
+        for (int i = 0; i < SIGNS.length; i++) {
+            signs[i] = code(SIGNS[i]);
+        }
+    }
+
+    /**
+     * Constructor for the McGregor algorithm.
+     *
+     * @param source
+     * @param target
+     * @param mappings
+     */
+    public McGregorEngine(IQueryAtomContainer source, IAtomContainer target, List<List<Integer>> mappings) {
+        this(source, target, mappings, AtomMatcher.forQuery(), BondMatcher.forQuery());
+    }
+
+    /**
+     * @return the timeout
+     */
+    public boolean isTimeout() {
+        return timeout;
+    }
+
+    /**
+     * @return the iterationManager
+     */
+    public IterationManager getIterationManager() {
+        return iterationManager;
+    }
+
+    /**
+     * @param iterationManager the iterationManager to set
+     */
+    public void setIterationManager(IterationManager iterationManager) {
+        this.iterationManager = iterationManager;
+    }
+
+    /**
+     * Returns computed mappings.
+     *
+     * @return mappings
+     */
+    public List<List<Integer>> getMappings() {
+        return mappings;
+    }
+
+    /**
+     * Returns MCS size.
+     *
+     * @return MCS size
+     */
+    public int getMCSSize() {
+        return this.globalMCSSize;
+    }
+
+    /**
+     * Start McGregor search and extend the mappings if possible.
+     *
+     * @param source
+     * @param largestMappingSize
+     * @param present_Mapping
+     */
+    public void startMcGregorIteration(IAtomContainer source, int largestMappingSize, Map<Integer, Integer> present_Mapping) {
+        this.globalMCSSize = largestMappingSize / 2;
+        this.source = source;
+        this.query = source instanceof IQueryAtomContainer;
+        this.sourceInvariants = new AtomBondInvariants(source);
+        this.targetInvariants = new AtomBondInvariants(target);
+        this.sourceBondRef = bondRefs(source);
+        this.targetBondRef = bondRefs(target);
+        this.bondMatches = new byte[source.getBondCount() * target.getBondCount()];
+
+        int[] mapping = new int[present_Mapping.size() * 2];
+        int n = 0;
+        for (Map.Entry<Integer, Integer> e : present_Mapping.entrySet()) {
+            mapping[n++] = e.getKey();
+            mapping[n++] = e.getValue();
+        }
+        iterator(nextLevel(mapping, false, allBonds(source), allBonds(target)));
+    }
+
+    private int code(String label) {
+        String key = null;
+        if (label != null) {
+            char[] c = label.toCharArray();
+            for (int i = 0; i < c.length; i++) {
+                c[i] = Character.toLowerCase(Character.toUpperCase(c[i]));
+            }
+            key = new String(c);
+        }
+        return labelCodes.computeIfAbsent(key, k -> labelCodes.size());
+    }
+
+    /*
+     * Index of the first bond between the atoms of each bond, the bond the
+     * atoms are matched on
+     */
+    private static int[] bondRefs(IAtomContainer container) {
+        int[] ref = new int[container.getBondCount()];
+        for (int k = 0; k < ref.length; k++) {
+            IBond bond = container.getBond(k);
+            ref[k] = container.indexOf(container.getBond(bond.getBegin(), bond.getEnd()));
+        }
+        return ref;
+    }
+
+    private BondList allBonds(IAtomContainer container) {
+        BondList bonds = new BondList(2, container.getBondCount());
+        for (int k = 0; k < container.getBondCount(); k++) {
+            IBond bond = container.getBond(k);
+            bonds.add(container.indexOf(bond.getBegin()), container.indexOf(bond.getEnd()), k,
+                    code(bond.getBegin().getSymbol()), code(bond.getEnd().getSymbol()),
+                    NONE, NONE);
+        }
+        return bonds;
+    }
+
+    private boolean isBondMatch(int sourceBond, int targetBond) {
+        int a = sourceBondRef[sourceBond];
+        int b = targetBondRef[targetBond];
+        int key = a * targetBondRef.length + b;
+        if (bondMatches[key] == UNKNOWN) {
+            boolean match = AtomBondMatcher.matchAtomAndBond(sourceInvariants, a, targetInvariants, b,
+                    atomMatcher, bondMatcher, true);
+            bondMatches[key] = match ? MATCH : MISMATCH;
+        }
+        return bondMatches[key] == MATCH;
+    }
+
+    private boolean checkTimeout() {
+        if (iterationManager.isMaxIteration()) {
+            this.timeout = true;
+            return true;
+        }
+        iterationManager.increment();
+        return false;
+    }
+
+    /*
+     * Split the remaining bonds of both molecules into the neighbours of the
+     * mapping and the rest. The mapped atoms at the neighbour bonds are
+     * relabelled with a sign in both molecules, a neighbour bond can only be
+     * mapped on a bond with the same labels.
+     */
+    private Level nextLevel(int[] mapping, boolean noFurtherMappings, BondList setA, BondList setB) {
+        int mapped = mapping.length / 2;
+        int[] ctabA = setA.connectionTable(placeholder);
+        int[] ctabB = setB.connectionTable(placeholder);
+        boolean[] mappedA = mappedAtoms(mapping, 0, source.getAtomCount());
+        boolean[] mappedB = mappedAtoms(mapping, 1, target.getAtomCount());
+
+        BondList neighborsA = new BondList(4, setA.size);
+        BondList restA = new BondList(2, setA.size);
+        for (int k = 0; k < setA.size; k++) {
+            int i = setA.atoms[k * 2];
+            int j = setA.atoms[k * 2 + 1];
+            if (!mappedA[i]) {
+                if (mappedA[j]) {
+                    mappedNeighbor(mapping, mapped, 0, setA, ctabA, k, true, neighborsA,
+                            setB.size, setB.atoms, ctabB);
+                } else {
+                    restA.add(i, j, setA.bonds[k], ctabA[k * 4], ctabA[k * 4 + 1], NONE, NONE);
+                }
+            } else if (!mappedA[j]) {
+                mappedNeighbor(mapping, mapped, 0, setA, ctabA, k, false, neighborsA,
+                        setB.size, setB.atoms, ctabB);
+            }
+        }
+
+        BondList neighborsB = new BondList(4, setB.size);
+        BondList restB = new BondList(2, setB.size);
+        for (int k = 0; k < setB.size; k++) {
+            int i = setB.atoms[k * 2];
+            int j = setB.atoms[k * 2 + 1];
+            if (!mappedB[i]) {
+                if (mappedB[j]) {
+                    mappedNeighbor(mapping, mapped, 1, setB, ctabB, k, true, neighborsB,
+                            neighborsA.size, neighborsA.atoms, neighborsA.labels);
+                } else {
+                    restB.add(i, j, setB.bonds[k], ctabB[k * 4], ctabB[k * 4 + 1], NONE, NONE);
+                }
+            } else if (!mappedB[j]) {
+                mappedNeighbor(mapping, mapped, 1, setB, ctabB, k, false, neighborsB,
+                        neighborsA.size, neighborsA.atoms, neighborsA.labels);
+            }
+        }
+        return new Level(mapping, noFurtherMappings, neighborsA, neighborsB, restA, restB);
+    }
+
+    private static boolean[] mappedAtoms(int[] mapping, int side, int atomCount) {
+        boolean[] mapped = new boolean[atomCount];
+        for (int c = side; c < mapping.length; c += 2) {
+            if (mapping[c] >= 0 && mapping[c] < atomCount) {
+                mapped[mapping[c]] = true;
+            }
+        }
+        return mapped;
+    }
+
+    /*
+     * Bond k of a molecule with one mapped atom, at its end or at its
+     * beginning. The first time the mapped atom is seen it is relabelled in
+     * this molecule and its partner in the other one.
+     */
+    private void mappedNeighbor(int[] mapping, int mapped, int side,
+            BondList bonds, int[] ctab, int k, boolean mappedEnd, BondList neighbors,
+            int otherSize, int[] otherAtoms, int[] otherLabels) {
+        int i = bonds.atoms[k * 2];
+        int j = bonds.atoms[k * 2 + 1];
+        int atom = mappedEnd ? j : i;
+        int column = mappedEnd ? 3 : 2;
+        int counter = 0;
+        for (int c = 0; c < mapped; c++) {
+            if (mapping[c * 2 + side] != atom) {
+                continue;
+            }
+            int b = k * 4;
+            if (ctab[b + column] == placeholder) {
+                int sign = signs[counter];
+                if (mappedEnd) {
+                    neighbors.add(i, j, bonds.bonds[k], ctab[b], sign, placeholder, ctab[b + 1]);
+                } else {
+                    neighbors.add(i, j, bonds.bonds[k], sign, ctab[b + 1], ctab[b], placeholder);
+                }
+                relabel(atom, sign, bonds.size, bonds.atoms, ctab);
+                int partner = correspondingAtom(mapping, mapped, atom, side);
+                relabel(partner, sign, otherSize, otherAtoms, otherLabels);
+                counter++;
+            } else if (mappedEnd) {
+                neighbors.add(i, j, bonds.bonds[k], ctab[b], ctab[b + 1], placeholder, ctab[b + 3]);
+            } else {
+                neighbors.add(i, j, bonds.bonds[k], ctab[b], ctab[b + 1], ctab[b + 2], placeholder);
+            }
+        }
+    }
+
+    private static int correspondingAtom(int[] mapping, int mapped, int atom, int side) {
+        int partner = 0;
+        for (int a = 0; a < mapped; a++) {
+            if (mapping[a * 2 + side] == atom) {
+                partner = mapping[a * 2 + 1 - side];
+            }
+        }
+        return partner;
+    }
+
+    private void relabel(int atom, int sign, int size, int[] atoms, int[] labels) {
+        for (int k = 0; k < size; k++) {
+            if (atoms[k * 2] == atom && labels[k * 4 + 2] == placeholder) {
+                labels[k * 4 + 2] = labels[k * 4];
+                labels[k * 4] = sign;
+            }
+            if (atoms[k * 2 + 1] == atom && labels[k * 4 + 3] == placeholder) {
+                labels[k * 4 + 3] = labels[k * 4 + 1];
+                labels[k * 4 + 1] = sign;
+            }
+        }
+    }
+
+    private void iterator(Level current) {
+        BondList neighborsA = current.neighborsA;
+        BondList neighborsB = current.neighborsB;
+        if (neighborsA.size == 0 || neighborsB.size == 0 || current.noFurtherMappings) {
+            setFinalMappings(current.mapping);
+            return;
+        }
+
+        byte[] modifiedArcs = new byte[neighborsA.size * neighborsB.size];
+        int arcCount = 0;
+        for (int row = 0; row < neighborsA.size; row++) {
+            for (int column = 0; column < neighborsB.size; column++) {
+                if ((query || neighborsA.isLabelMatch(row, neighborsB, column))
+                        && isBondMatch(neighborsA.bonds[row], neighborsB.bonds[column])) {
+                    modifiedArcs[row * neighborsB.size + column] = 1;
+                    arcCount++;
+                }
+            }
+        }
+
+        if (arcCount == 0) {
+            setFinalMappings(current.mapping);
+            return;
+        }
+
+        this.level = current;
+        this.arcs = modifiedArcs;
+        this.rows = neighborsA.size;
+        this.columns = neighborsB.size;
+        this.arcsLeft = arcCount;
+        this.undoLog = new int[modifiedArcs.length];
+        this.undoSize = 0;
+        resetTree();
+        bestArcsLeft = 0;
+
+        startsearch();
+        List<byte[]> best = new ArrayList<>(bestArcs);
+        bestArcs.clear();
+        for (int i = best.size() - 1; i >= 0; i--) {
+            int[] mapping = findMcGregorMapping(current, best.get(i));
+            boolean noFurtherMappings = current.mapping.length == mapping.length;
+            iterator(nextLevel(mapping, noFurtherMappings, current.setA, current.setB));
+        }
+    }
+
+    private void startsearch() {
+        int x = 0;
+        int y = 0;
+        while (x < rows && arcs[x * columns + y] != 1) {
+            y++;
+            if (y == columns) {
+                y = 0;
+                x++;
+            }
+        }
+        if (x == rows) {
+            y = columns - 1;
+            x -= 1;
+        }
+        int position = x * columns + y;
+        if (arcs[position] == 0) {
+            partsearch(x, y);
+        }
+        if (arcs[position] != 0) {
+            partsearch(x, y);
+            removeArc(position);
+            partsearch(x, y);
+        }
+    }
+
+    /*
+     * Branch on the arcs after (xstart, ystart), with and without the next
+     * arc. The arcs removed here are restored before returning.
+     */
+    private void partsearch(int xstart, int ystart) {
+        if (checkTimeout()) {
+            return;
+        }
+        int mark = undoSize;
+        if (arcs[xstart * columns + ystart] == 1) {
+            removeRedundantArcs(xstart, ystart);
+            if (arcsLeft < bestArcsLeft) {
+                undo(mark);
+                return;
+            }
+        }
+        int x = xstart;
+        int y = ystart;
+        do {
+            y++;
+            if (y == columns) {
+                y = 0;
+                x++;
+            }
+        } while (x < rows && arcs[x * columns + y] != 1);
+
+        if (x < rows) {
+            partsearch(x, y);
+            removeArc(x * columns + y);
+            partsearch(x, y);
+        } else if (arcsLeft >= bestArcsLeft) {
+            popBestArcs(arcsLeft);
+            if (checkMARCS()) {
+                bestArcs.add(arcs.clone());
+            }
+        }
+        undo(mark);
+    }
+
+    /*
+     * Keep the arc (row, column) and remove the arcs in its row and column
+     * and the arcs which map the atoms of the two bonds inconsistently.
+     */
+    private void removeRedundantArcs(int row, int column) {
+        int[] atomsA = level.neighborsA.atoms;
+        int[] atomsB = level.neighborsB.atoms;
+        int g1 = atomsA[row * 2];
+        int g2 = atomsA[row * 2 + 1];
+        int g3 = atomsB[column * 2];
+        int g4 = atomsB[column * 2 + 1];
+        for (int x = 0; x < rows; x++) {
+            int rowAtom1 = atomsA[x * 2];
+            int rowAtom2 = atomsA[x * 2 + 1];
+            for (int y = 0; y < columns; y++) {
+                if (x == row && y == column) {
+                    continue;
+                }
+                if (arcs[x * columns + y] == 1
+                        && McGregorChecks.cases(g1, g2, g3, g4, rowAtom1, rowAtom2,
+                                atomsB[y * 2], atomsB[y * 2 + 1])) {
+                    removeArc(x * columns + y);
+                }
+            }
+        }
+        for (int x = 0; x < rows; x++) {
+            if (x != row) {
+                removeArc(x * columns + column);
+            }
+        }
+        for (int y = 0; y < columns; y++) {
+            if (y != column) {
+                removeArc(row * columns + y);
+            }
+        }
+    }
+
+    private void removeArc(int position) {
+        if (arcs[position] == 1) {
+            arcs[position] = 0;
+            undoLog[undoSize++] = position;
+            arcsLeft--;
+        }
+    }
+
+    private void undo(int mark) {
+        while (undoSize > mark) {
+            arcs[undoLog[--undoSize]] = 1;
+            arcsLeft++;
+        }
+    }
+
+    private void popBestArcs(int count) {
+        if (count > bestArcsLeft) {
+            resetTree();
+            bestArcs.clear();
+        }
+        bestArcsLeft = count;
+    }
+
+    private void resetTree() {
+        treeSize = 0;
+        newNode(-1);
+    }
+
+    private int newNode(int value) {
+        if (treeSize == treeValue.length) {
+            int capacity = treeSize * 2;
+            treeValue = Arrays.copyOf(treeValue, capacity);
+            treeEqual = Arrays.copyOf(treeEqual, capacity);
+            treeNotEqual = Arrays.copyOf(treeNotEqual, capacity);
+        }
+        treeValue[treeSize] = value;
+        treeEqual[treeSize] = NONE;
+        treeNotEqual[treeSize] = NONE;
+        return treeSize++;
+    }
+
+    /*
+     * Look the positions of the arcs up in the tree of the stored matrices
+     * and add them if they are new. As in the list based engine the flag is
+     * left as it was when the positions end on a stored path.
+     */
+    private boolean checkMARCS() {
+        int[] positions = new int[arcsLeft];
+        int length = 0;
+        for (int p = 0; p < arcs.length; p++) {
+            if (arcs[p] == 1) {
+                positions[length++] = p;
+            }
+        }
+        int node = 0;
+        int index = 0;
+        while (index < length) {
+            if (positions[index] == treeValue[node]) {
+                if (treeEqual[node] == NONE) {
+                    break;
+                }
+                newMatrix = false;
+                node = treeEqual[node];
+                index++;
+            } else if (treeNotEqual[node] != NONE) {
+                node = treeNotEqual[node];
+            } else {
+                int last = newNode(positions[index]);
+                treeNotEqual[node] = last;
+                for (int i = index + 1; i < length; i++) {
+                    int next = newNode(positions[i]);
+                    treeEqual[last] = next;
+                    last = next;
+                }
+                newMatrix = true;
+                break;
+            }
+        }
+        return newMatrix;
+    }
+
+    private int[] findMcGregorMapping(Level current, byte[] marcs) {
+        BondList neighborsA = current.neighborsA;
+        BondList neighborsB = current.neighborsB;
+        int[] mapping = current.mapping;
+        int mapped = mapping.length / 2;
+        int arcCount = 0;
+        for (byte arc : marcs) {
+            arcCount += arc == 1 ? 1 : 0;
+        }
+        /*
+         * An arc extends at most the two mapped atoms of its bonds
+         */
+        int[] extended = Arrays.copyOf(mapping, mapping.length + 4 * arcCount);
+        int size = mapping.length;
+        for (int x = 0; x < neighborsA.size; x++) {
+            for (int y = 0; y < neighborsB.size; y++) {
+                if (marcs[x * neighborsB.size + y] != 1
+                        || !isBondMatch(neighborsA.bonds[x], neighborsB.bonds[y])) {
+                    continue;
+                }
+                int a1 = neighborsA.atoms[x * 2];
+                int a2 = neighborsA.atoms[x * 2 + 1];
+                int b1 = neighborsB.atoms[y * 2];
+                int b2 = neighborsB.atoms[y * 2 + 1];
+                for (int z = 0; z < mapped; z++) {
+                    int m1 = mapping[z * 2];
+                    int m2 = mapping[z * 2 + 1];
+                    int u = NONE;
+                    int v = NONE;
+                    if (m1 == a1 && m2 == b1) {
+                        u = a2;
+                        v = b2;
+                    } else if (m1 == a1 && m2 == b2) {
+                        u = a2;
+                        v = b1;
+                    } else if (m1 == a2 && m2 == b1) {
+                        u = a1;
+                        v = b2;
+                    } else if (m1 == a2 && m2 == b2) {
+                        u = a1;
+                        v = b1;
+                    }
+                    if (u != NONE) {
+                        extended[size++] = u;
+                        extended[size++] = v;
+                    }
+                }
+            }
+        }
+        return removeRecurringMappings(extended, size);
+    }
+
+    /*
+     * Keep the last pair of each source atom, in the order of the pairs
+     */
+    private static int[] removeRecurringMappings(int[] mapping, int size) {
+        boolean[] keep = new boolean[size / 2];
+        int kept = 0;
+        for (int x = size - 2; x >= 0; x -= 2) {
+            boolean last = true;
+            for (int y = x + 2; y < size; y += 2) {
+                if (mapping[y] == mapping[x]) {
+                    last = false;
+                    break;
+                }
+            }
+            if (last) {
+                keep[x / 2] = true;
+                kept++;
+            }
+        }
+        int[] unique = new int[kept * 2];
+        int n = 0;
+        for (int x = 0; x < size; x += 2) {
+            if (keep[x / 2]) {
+                unique[n++] = mapping[x];
+                unique[n++] = mapping[x + 1];
+            }
+        }
+        return unique;
+    }
+
+    private void setFinalMappings(int[] mapping) {
+        int mappedAtomCount = mapping.length / 2;
+        if (mappedAtomCount >= globalMCSSize) {
+            if (mappedAtomCount > globalMCSSize) {
+                this.globalMCSSize = mappedAtomCount;
+                mappings.clear();
+            }
+            List<Integer> atoms = new ArrayList<>(mapping.length);
+            for (int atom : mapping) {
+                atoms.add(atom);
+            }
+            mappings.add(atoms);
+        }
+    }
+
+    /**
+     * Bonds with their atoms, bond index in the container and atom labels
+     * (two per bond for the remaining bonds, four for the neighbours of the
+     * mapping).
+     */
+    private static final class BondList {
+
+        private final int stride;
+        private int size;
+        private int[] atoms;
+        private int[] bonds;
+        private int[] labels;
+
+        BondList(int stride, int capacity) {
+            this.stride = stride;
+            this.size = 0;
+            this.atoms = new int[Math.max(capacity, 1) * 2];
+            this.bonds = new int[Math.max(capacity, 1)];
+            this.labels = new int[Math.max(capacity, 1) * stride];
+        }
+
+        void add(int i, int j, int bond, int l0, int l1, int l2, int l3) {
+            if (size == bonds.length) {
+                atoms = Arrays.copyOf(atoms, size * 4);
+                bonds = Arrays.copyOf(bonds, size * 2);
+                labels = Arrays.copyOf(labels, size * 2 * stride);
+            }
+            atoms[size * 2] = i;
+            atoms[size * 2 + 1] = j;
+            bonds[size] = bond;
+            labels[size * stride] = l0;
+            labels[size * stride + 1] = l1;
+            if (stride == 4) {
+                labels[size * 4 + 2] = l2;
+                labels[size * 4 + 3] = l3;
+            }
+            size++;
+        }
+
+        /*
+         * The labels of the bonds with the placeholder for the relabelled
+         * atoms
+         */
+        int[] connectionTable(int placeholder) {
+            int[] ctab = new int[size * 4];
+            for (int k = 0; k < size; k++) {
+                ctab[k * 4] = labels[k * stride];
+                ctab[k * 4 + 1] = labels[k * stride + 1];
+                ctab[k * 4 + 2] = placeholder;
+                ctab[k * 4 + 3] = placeholder;
+            }
+            return ctab;
+        }
+
+        boolean isLabelMatch(int row, BondList other, int column) {
+            int a1 = labels[row * stride];
+            int a2 = labels[row * stride + 1];
+            int b1 = other.labels[column * other.stride];
+            int b2 = other.labels[column * other.stride + 1];
+            return (a1 == b1 && a2 == b2) || (a1 == b2 && a2 == b1);
+        }
+    }
+
+    /**
+     * A mapping with the bonds at its border and the rest of the bonds.
+     */
+    private static final class Level {
+
+        private final int[] mapping;
+        private final boolean noFurtherMappings;
+        private final BondList neighborsA;
+        private final BondList neighborsB;
+        private final BondList setA;
+        private final BondList setB;
+
+        Level(int[] mapping, boolean noFurtherMappings,
+                BondList neighborsA, BondList neighborsB, BondList setA, BondList setB) {
+            this.mapping = mapping;
+            this.noFurtherMappings = noFurtherMappings;
+            this.neighborsA = neighborsA;
+            this.neighborsB = neighborsB;
+            this.setA = setA;
+            this.setB = setB;
+        }
+    }
+}
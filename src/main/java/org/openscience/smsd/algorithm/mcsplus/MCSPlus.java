@@ -39,13 +39,13 @@ import org.openscience.cdk.tools.ILoggingTool;
 import org.openscience.cdk.tools.LoggingToolFactory;
 import org.openscience.smsd.algorithm.matchers.AtomMatcher;
 import org.openscience.smsd.algorithm.matchers.BondMatcher;
-import org.openscience.smsd.algorithm.mcgregor.McGregor;
+import org.openscience.smsd.algorithm.mcgregor.McGregorEngine;
 import org.openscience.smsd.graph.EdgeProductGraph;
 import org.openscience.smsd.graph.EdgeType;
 import org.openscience.smsd.graph.Graph;
 import org.openscience.smsd.graph.IClique;
 import org.openscience.smsd.graph.Vertex;
-import org.openscience.smsd.graph.algorithm.GraphKoch;
+import org.openscience.smsd.graph.algorithm.ParallelCliqueFinder;
 import org.openscience.smsd.tools.IterationManager;
 
 /**
@@ -164,7 +164,7 @@ public final class MCSPlus {
             IClique init = null;
             boolean connected = ConnectivityChecker.isConnected(ac1)
                     && ConnectivityChecker.isConnected(ac2);
-            init = new GraphKoch(comp_graph_nodes);
+            init = ParallelCliqueFinder.create(comp_graph_nodes);
             init.findMaximalCliques();
 
             Stack<Set<Vertex>> maxCliqueSet = init.getMaxCliquesSet();
@@ -241,13 +241,13 @@ public final class MCSPlus {
         boolean ROPFlag = true;
         for (Map<Integer, Integer> firstPassMappings : allMCSCopy) {
             Map<Integer, Integer> extendMapping = new TreeMap<>(firstPassMappings);
-            McGregor mgit;
+            McGregorEngine mgit;
             if (ac1.getAtomCount() >= ac2.getAtomCount()
                     && extendMapping.size() < ac2.getAtomCount()) {
                 if (DEBUG) {
                     System.out.println("McGregor 1");
                 }
-                mgit = new McGregor(ac1, ac2, cliques, atomMatcher, bondMatcher);
+                mgit = new McGregorEngine(ac1, ac2, cliques, atomMatcher, bondMatcher);
                 mgit.startMcGregorIteration(ac1, mgit.getMCSSize(), extendMapping);
                 cliques = mgit.getMappings();
             } else if (ac1.getAtomCount() < ac2.getAtomCount()
@@ -260,7 +260,7 @@ public final class MCSPlus {
                 firstPassMappings.entrySet().stream().forEach((map) -> {
                     extendMapping.put(map.getValue(), map.getKey());
                 });
-                mgit = new McGregor(ac2, ac1, cliques, atomMatcher, bondMatcher);
+                mgit = new McGregorEngine(ac2, ac1, cliques, atomMatcher, bondMatcher);
                 mgit.startMcGregorIteration(ac2, mgit.getMCSSize(), extendMapping);
                 cliques = mgit.getMappings();
             } else {
@@ -303,8 +303,8 @@ public final class MCSPlus {
         boolean ROPFlag = true;
         for (Map<Integer, Integer> firstPassMappings : allMCSCopy) {
             Map<Integer, Integer> extendMapping = new TreeMap<>(firstPassMappings);
-            McGregor mgit;
-            mgit = new McGregor((IQueryAtomContainer) ac1, ac2, cliques, atomMatcher, bondMatcher);
+            McGregorEngine mgit;
+            mgit = new McGregorEngine((IQueryAtomContainer) ac1, ac2, cliques, atomMatcher, bondMatcher);
             mgit.startMcGregorIteration((IQueryAtomContainer) ac1, mgit.getMCSSize(), extendMapping);
 //            System.out.println("\nStart McGregor search");
             //Start McGregor search
@@ -28,6 +28,7 @@ import java.util.Stack;
 import org.openscience.cdk.tools.ILoggingTool;
 import org.openscience.cdk.tools.LoggingToolFactory;
 import org.openscience.smsd.graph.Edge;
+import org.openscience.smsd.tools.Deadline;
 import uk.ac.ebi.reactionblast.graphics.direct.MoleculeLabelDrawer;
 
 /**
@@ -53,6 +54,7 @@ public class BKKCKCF {
     private final List<Integer> d_edges;
     private final Stack<List<Integer>> max_Cliques_Set;
     private int best_clique_size;
+    private final Deadline deadline;
 
     /*
      *T: is a set of vertices which have already been used for the
@@ -90,6 +92,7 @@ public class BKKCKCF {
         this.best_clique_size = 0;
         this.max_Cliques_Set = new Stack<>();
         this.T = new Stack<>();
+        this.deadline = Deadline.current();
     }
 
     /*
@@ -130,7 +133,7 @@ public class BKKCKCF {
 
         int b = 0;
 
-        while (V.get(b) != 0) { // V[b] is node u
+        while (V.get(b) != 0 && !deadline.isExpired()) { // V[b] is node u
             int central_node = V.get(b);
 
             P.clear();
@@ -228,7 +231,7 @@ public class BKKCKCF {
             }
         }
         int a = 0;
-        while (P_Prime.get(a) != 0) { // P[a] is node ut
+        while (P_Prime.get(a) != 0 && !deadline.isExpired()) { // P[a] is node ut
 
             int ui = P_Prime.get(a);
             //remove P_Prime[a] from P
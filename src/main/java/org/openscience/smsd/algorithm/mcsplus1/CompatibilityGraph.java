@@ -11,7 +11,7 @@ import java.util.Map;
 import java.util.TreeMap;
 import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
-import org.openscience.cdk.interfaces.IBond;
+import org.openscience.smsd.algorithm.matchers.AtomBondInvariants;
 import org.openscience.smsd.algorithm.matchers.AtomBondMatcher;
 import org.openscience.smsd.algorithm.matchers.AtomMatcher;
 import org.openscience.smsd.algorithm.matchers.BondMatcher;
@@ -73,6 +73,8 @@ public class CompatibilityGraph {
 
     private final IAtomContainer ac1;
     private final IAtomContainer ac2;
+    private final AtomBondInvariants invariants1;
+    private final AtomBondInvariants invariants2;
 
     private final List<IAtom> atomstr1;
     private final List<IAtom> atomstr2;
@@ -111,6 +113,8 @@ public class CompatibilityGraph {
         this.c_tab2 = file2.charTable;
         this.ac1 = file1.getAtomContainer();
         this.ac2 = file2.getAtomContainer();
+        this.invariants1 = new AtomBondInvariants(ac1);
+        this.invariants2 = new AtomBondInvariants(ac2);
 
         this.comp_graph_nodes = new ArrayList<>();
         this.comp_graph_nodes_C_zero = new ArrayList<>();//Initialize the comp_graph_nodes_C_zero Vector
@@ -366,8 +370,8 @@ public class CompatibilityGraph {
                     boolean molecule1_pair_connected = false;
                     boolean molecule2_pair_connected = false;
 
-                    IBond bond1 = null;
-                    IBond bond2 = null;
+                    int bond1 = -1;
+                    int bond2 = -1;
 
                     //exists a bond in molecule 2, so that molecule 1 pair is connected?
                     for (int x = 0; x < bond_number1; x++) {
@@ -379,11 +383,9 @@ public class CompatibilityGraph {
 //                                System.out.println("comp_graph_nodes.get(a) " + comp_graph_nodes.get(b) + ", i_tab1.get(x * 3 + 1) " + i_tab1.get(x * 3 + 1));
 //                                System.out.println("BOND " + i_tab1.get(x * 3 + 2));
 //                            }
-                            IAtom a1 = this.ac1.getAtom(getCompGraphNodes().get(a) - 1);
-                            IAtom a2 = this.ac1.getAtom(getCompGraphNodes().get(b) - 1);
-                            bond1 = this.ac1.getBond(a1, a2);
+                            bond1 = invariants1.getBondIndex(getCompGraphNodes().get(a) - 1, getCompGraphNodes().get(b) - 1);
                             molecule1_pair_connected = true;
-                            if (bond1 != null) {
+                            if (bond1 >= 0) {
                                 break;
                             }
                         } else if ((getCompGraphNodes().get(a).equals(i_tab1.get(x * 3 + 1))
@@ -394,11 +396,9 @@ public class CompatibilityGraph {
 //                                System.out.println("comp_graph_nodes.get(a) " + comp_graph_nodes.get(b) + ", i_tab1.get(x * 3 + 0) " + i_tab1.get(x * 3 + 0));
 //                                System.out.println("BOND " + i_tab1.get(x * 3 + 2));
 //                            }
-                            IAtom a1 = this.ac1.getAtom(getCompGraphNodes().get(a) - 1);
-                            IAtom a2 = this.ac1.getAtom(getCompGraphNodes().get(b) - 1);
-                            bond1 = this.ac1.getBond(a1, a2);
+                            bond1 = invariants1.getBondIndex(getCompGraphNodes().get(a) - 1, getCompGraphNodes().get(b) - 1);
                             molecule1_pair_connected = true;
-                            if (bond1 != null) {
+                            if (bond1 >= 0) {
                                 break;
                             }
                         }
@@ -412,11 +412,9 @@ public class CompatibilityGraph {
 //                                System.out.println("comp_graph_nodes.get(a+1) " + comp_graph_nodes.get(b + 1) + ", i_tab2.get(x * 3 + 1) " + i_tab2.get(y * 3 + 1));
 //                                System.out.println("BOND " + i_tab2.get(y * 3 + 2));
 //                            }
-                            IAtom a1 = this.ac2.getAtom(getCompGraphNodes().get(a + 1) - 1);
-                            IAtom a2 = this.ac2.getAtom(getCompGraphNodes().get(b + 1) - 1);
-                            bond2 = this.ac2.getBond(a1, a2);
+                            bond2 = invariants2.getBondIndex(getCompGraphNodes().get(a + 1) - 1, getCompGraphNodes().get(b + 1) - 1);
                             molecule2_pair_connected = true;
-                            if (bond2 != null) {
+                            if (bond2 >= 0) {
                                 break;
                             }
 
@@ -427,11 +425,9 @@ public class CompatibilityGraph {
 //                                System.out.println("comp_graph_nodes.get(a+1) " + comp_graph_nodes.get(b + 1) + ", i_tab2.get(x * 3 + 0) " + i_tab2.get(y * 3 + 0));
 //                                System.out.println("BOND " + i_tab2.get(y * 3 + 2));
 //                            }
-                            IAtom a1 = this.ac2.getAtom(getCompGraphNodes().get(a + 1) - 1);
-                            IAtom a2 = this.ac2.getAtom(getCompGraphNodes().get(b + 1) - 1);
-                            bond2 = this.ac2.getBond(a1, a2);
+                            bond2 = invariants2.getBondIndex(getCompGraphNodes().get(a + 1) - 1, getCompGraphNodes().get(b + 1) - 1);
                             molecule2_pair_connected = true;
-                            if (bond2 != null) {
+                            if (bond2 >= 0) {
                                 break;
                             }
 
@@ -453,7 +449,7 @@ public class CompatibilityGraph {
                     }
 
                     if (connectedFlag
-                            && AtomBondMatcher.matchAtomAndBond(bond1, bond2, atomMatcher, bondMatcher, true)) {
+                            && AtomBondMatcher.matchAtomAndBond(invariants1, bond1, invariants2, bond2, atomMatcher, bondMatcher, true)) {
                         matchBondFlag = true;
                     }
 
@@ -554,16 +550,14 @@ public class CompatibilityGraph {
                     boolean molecule1_pair_connected = false;
                     boolean molecule2_pair_connected = false;
 
-                    IBond bond1 = null;
-                    IBond bond2 = null;
+                    int bond1 = -1;
+                    int bond2 = -1;
                     //exists a bond in molecule 2, so that molecule 1 pair is connected?
                     for (int x = 0; x < bond_number1; x++) {
                         if ((comp_graph_nodes_C_zero.get(a).equals(i_tab1.get(x * 3 + 0))
                                 && comp_graph_nodes_C_zero.get(b).equals(i_tab1.get(x * 3 + 1)))) {
                             molecule1_pair_connected = true;
-                            IAtom a1 = this.ac1.getAtom(comp_graph_nodes_C_zero.get(a) - 1);
-                            IAtom a2 = this.ac1.getAtom(comp_graph_nodes_C_zero.get(b) - 1);
-                            bond1 = this.ac1.getBond(a1, a2);
+                            bond1 = invariants1.getBondIndex(comp_graph_nodes_C_zero.get(a) - 1, comp_graph_nodes_C_zero.get(b) - 1);
 
 //                            if (DEBUG) {
 //                                System.out.println("comp_graph_nodes_C_zero.get(a) " + comp_graph_nodes_C_zero.get(a) + ", i_tab1.get(x * 3 + 0) " + i_tab1.get(x * 3 + 0));
@@ -574,9 +568,7 @@ public class CompatibilityGraph {
                         } else if ((comp_graph_nodes_C_zero.get(a).equals(i_tab1.get(x * 3 + 1))
                                 && comp_graph_nodes_C_zero.get(b).equals(i_tab1.get(x * 3 + 0)))) {
                             molecule1_pair_connected = true;
-                            IAtom a1 = this.ac1.getAtom(comp_graph_nodes_C_zero.get(a) - 1);
-                            IAtom a2 = this.ac1.getAtom(comp_graph_nodes_C_zero.get(b) - 1);
-                            bond1 = this.ac1.getBond(a1, a2);
+                            bond1 = invariants1.getBondIndex(comp_graph_nodes_C_zero.get(a) - 1, comp_graph_nodes_C_zero.get(b) - 1);
 
 //                            if (DEBUG) {
 //                                System.out.println("comp_graph_nodes_C_zero.get(a) " + comp_graph_nodes_C_zero.get(a) + ", i_tab1.get(x * 3 + 1) " + i_tab1.get(x * 3 + 1));
@@ -591,9 +583,7 @@ public class CompatibilityGraph {
                         if ((comp_graph_nodes_C_zero.get(a + 1).equals(i_tab2.get(y * 3 + 0))
                                 && comp_graph_nodes_C_zero.get(b + 1).equals(i_tab2.get(y * 3 + 1)))) {
                             molecule2_pair_connected = true;
-                            IAtom a1 = this.ac2.getAtom(comp_graph_nodes_C_zero.get(a + 1) - 1);
-                            IAtom a2 = this.ac2.getAtom(comp_graph_nodes_C_zero.get(b + 1) - 1);
-                            bond2 = this.ac2.getBond(a1, a2);
+                            bond2 = invariants2.getBondIndex(comp_graph_nodes_C_zero.get(a + 1) - 1, comp_graph_nodes_C_zero.get(b + 1) - 1);
 
 //                            if (DEBUG) {
 //                                System.out.println("comp_graph_nodes_C_zero.get(a+1) " + comp_graph_nodes_C_zero.get(a + 1) + ", i_tab2.get(x * 3 + 0) " + i_tab2.get(y * 3 + 0));
@@ -603,9 +593,7 @@ public class CompatibilityGraph {
                         } else if ((comp_graph_nodes_C_zero.get(a + 1).equals(i_tab2.get(y * 3 + 1))
                                 && comp_graph_nodes_C_zero.get(b + 1).equals(i_tab2.get(y * 3 + 0)))) {
                             molecule2_pair_connected = true;
-                            IAtom a1 = this.ac2.getAtom(comp_graph_nodes_C_zero.get(a + 1) - 1);
-                            IAtom a2 = this.ac2.getAtom(comp_graph_nodes_C_zero.get(b + 1) - 1);
-                            bond2 = this.ac2.getBond(a1, a2);
+                            bond2 = invariants2.getBondIndex(comp_graph_nodes_C_zero.get(a + 1) - 1, comp_graph_nodes_C_zero.get(b + 1) - 1);
 
 //                            if (DEBUG) {
 //                                System.out.println("comp_graph_nodes_C_zero.get(a+1) " + comp_graph_nodes_C_zero.get(a + 1) + ", i_tab2.get(x * 3 + 1) " + i_tab2.get(y * 3 + 1));
@@ -630,7 +618,7 @@ public class CompatibilityGraph {
                     }
 
                     if (connectedFlag
-                            && AtomBondMatcher.matchAtomAndBond(bond1, bond2, atomMatcher, bondMatcher, true)) {
+                            && AtomBondMatcher.matchAtomAndBond(invariants1, bond1, invariants2, bond2, atomMatcher, bondMatcher, true)) {
                         matchBondFlag = true;
                     }
 
@@ -28,7 +28,6 @@ import java.util.HashSet;
 import java.util.List;
 import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
-import org.openscience.cdk.interfaces.IBond;
 import org.openscience.smsd.algorithm.matchers.AtomBondMatcher;
 import org.openscience.smsd.algorithm.matchers.AtomMatcher;
 import org.openscience.smsd.algorithm.matchers.BondMatcher;
@@ -273,8 +272,8 @@ public class MCSPlus extends Filter {
                     boolean molecule1_pair_connected = false;
                     boolean molecule2_pair_connected = false;
 
-                    IBond bond1 = null;
-                    IBond bond2 = null;
+                    int bond1 = -1;
+                    int bond2 = -1;
 
                     //exists a bond in molecule 2, so that molecule 1 pair is connected?
                     for (int x = 0; x < bond_number1; x++) {
@@ -286,11 +285,9 @@ public class MCSPlus extends Filter {
 //                                System.out.println("comp_graph_nodes.get(a) " + comp_graph_nodes.get(b) + ", i_tab1.get(x * 3 + 1) " + i_tab1.get(x * 3 + 1));
 //                                System.out.println("BOND " + i_tab1.get(x * 3 + 2));
 //                            }
-                            IAtom a1 = this.ac1.getAtom(comp_graph_nodes.get(a) - 1);
-                            IAtom a2 = this.ac1.getAtom(comp_graph_nodes.get(b) - 1);
-                            bond1 = this.ac1.getBond(a1, a2);
+                            bond1 = invariants1.getBondIndex(comp_graph_nodes.get(a) - 1, comp_graph_nodes.get(b) - 1);
                             molecule1_pair_connected = true;
-                            if (bond1 != null) {
+                            if (bond1 >= 0) {
                                 break;
                             }
                         } else if ((comp_graph_nodes.get(a).equals(i_tab1.get(x * 3 + 1))
@@ -301,11 +298,9 @@ public class MCSPlus extends Filter {
 //                                System.out.println("comp_graph_nodes.get(a) " + comp_graph_nodes.get(b) + ", i_tab1.get(x * 3 + 0) " + i_tab1.get(x * 3 + 0));
 //                                System.out.println("BOND " + i_tab1.get(x * 3 + 2));
 //                            }
-                            IAtom a1 = this.ac1.getAtom(comp_graph_nodes.get(a) - 1);
-                            IAtom a2 = this.ac1.getAtom(comp_graph_nodes.get(b) - 1);
-                            bond1 = this.ac1.getBond(a1, a2);
+                            bond1 = invariants1.getBondIndex(comp_graph_nodes.get(a) - 1, comp_graph_nodes.get(b) - 1);
                             molecule1_pair_connected = true;
-                            if (bond1 != null) {
+                            if (bond1 >= 0) {
                                 break;
                             }
                         }
@@ -319,11 +314,9 @@ public class MCSPlus extends Filter {
 //                                System.out.println("comp_graph_nodes.get(a+1) " + comp_graph_nodes.get(b + 1) + ", i_tab2.get(x * 3 + 1) " + i_tab2.get(y * 3 + 1));
 //                                System.out.println("BOND " + i_tab2.get(y * 3 + 2));
 //                            }
-                            IAtom a1 = this.ac2.getAtom(comp_graph_nodes.get(a + 1) - 1);
-                            IAtom a2 = this.ac2.getAtom(comp_graph_nodes.get(b + 1) - 1);
-                            bond2 = this.ac2.getBond(a1, a2);
+                            bond2 = invariants2.getBondIndex(comp_graph_nodes.get(a + 1) - 1, comp_graph_nodes.get(b + 1) - 1);
                             molecule2_pair_connected = true;
-                            if (bond2 != null) {
+                            if (bond2 >= 0) {
                                 break;
                             }
 
@@ -334,11 +327,9 @@ public class MCSPlus extends Filter {
 //                                System.out.println("comp_graph_nodes.get(a+1) " + comp_graph_nodes.get(b + 1) + ", i_tab2.get(x * 3 + 0) " + i_tab2.get(y * 3 + 0));
 //                                System.out.println("BOND " + i_tab2.get(y * 3 + 2));
 //                            }
-                            IAtom a1 = this.ac2.getAtom(comp_graph_nodes.get(a + 1) - 1);
-                            IAtom a2 = this.ac2.getAtom(comp_graph_nodes.get(b + 1) - 1);
-                            bond2 = this.ac2.getBond(a1, a2);
+                            bond2 = invariants2.getBondIndex(comp_graph_nodes.get(a + 1) - 1, comp_graph_nodes.get(b + 1) - 1);
                             molecule2_pair_connected = true;
-                            if (bond2 != null) {
+                            if (bond2 >= 0) {
                                 break;
                             }
 
@@ -360,7 +351,7 @@ public class MCSPlus extends Filter {
                     }
 
                     if (connectedFlag
-                            && AtomBondMatcher.matchAtomAndBond(bond1, bond2, atomMatcher, bondMatcher, true)) {
+                            && AtomBondMatcher.matchAtomAndBond(invariants1, bond1, invariants2, bond2, atomMatcher, bondMatcher, true)) {
                         matchBondFlag = true;
                     }
 
@@ -438,16 +429,14 @@ public class MCSPlus extends Filter {
                     boolean molecule1_pair_connected = false;
                     boolean molecule2_pair_connected = false;
 
-                    IBond bond1 = null;
-                    IBond bond2 = null;
+                    int bond1 = -1;
+                    int bond2 = -1;
                     //exists a bond in molecule 2, so that molecule 1 pair is connected?
                     for (int x = 0; x < bond_number1; x++) {
                         if ((comp_graph_nodes_C_zero.get(a).equals(i_tab1.get(x * 3 + 0))
                                 && comp_graph_nodes_C_zero.get(b).equals(i_tab1.get(x * 3 + 1)))) {
                             molecule1_pair_connected = true;
-                            IAtom a1 = this.ac1.getAtom(comp_graph_nodes_C_zero.get(a) - 1);
-                            IAtom a2 = this.ac1.getAtom(comp_graph_nodes_C_zero.get(b) - 1);
-                            bond1 = this.ac1.getBond(a1, a2);
+                            bond1 = invariants1.getBondIndex(comp_graph_nodes_C_zero.get(a) - 1, comp_graph_nodes_C_zero.get(b) - 1);
 
 //                            if (DEBUG) {
 //                                System.out.println("comp_graph_nodes_C_zero.get(a) " + comp_graph_nodes_C_zero.get(a) + ", i_tab1.get(x * 3 + 0) " + i_tab1.get(x * 3 + 0));
@@ -458,9 +447,7 @@ public class MCSPlus extends Filter {
                         } else if ((comp_graph_nodes_C_zero.get(a).equals(i_tab1.get(x * 3 + 1))
                                 && comp_graph_nodes_C_zero.get(b).equals(i_tab1.get(x * 3 + 0)))) {
                             molecule1_pair_connected = true;
-                            IAtom a1 = this.ac1.getAtom(comp_graph_nodes_C_zero.get(a) - 1);
-                            IAtom a2 = this.ac1.getAtom(comp_graph_nodes_C_zero.get(b) - 1);
-                            bond1 = this.ac1.getBond(a1, a2);
+                            bond1 = invariants1.getBondIndex(comp_graph_nodes_C_zero.get(a) - 1, comp_graph_nodes_C_zero.get(b) - 1);
 
 //                            if (DEBUG) {
 //                                System.out.println("comp_graph_nodes_C_zero.get(a) " + comp_graph_nodes_C_zero.get(a) + ", i_tab1.get(x * 3 + 1) " + i_tab1.get(x * 3 + 1));
@@ -475,9 +462,7 @@ public class MCSPlus extends Filter {
                         if ((comp_graph_nodes_C_zero.get(a + 1).equals(i_tab2.get(y * 3 + 0))
                                 && comp_graph_nodes_C_zero.get(b + 1).equals(i_tab2.get(y * 3 + 1)))) {
                             molecule2_pair_connected = true;
-                            IAtom a1 = this.ac2.getAtom(comp_graph_nodes_C_zero.get(a + 1) - 1);
-                            IAtom a2 = this.ac2.getAtom(comp_graph_nodes_C_zero.get(b + 1) - 1);
-                            bond2 = this.ac2.getBond(a1, a2);
+                            bond2 = invariants2.getBondIndex(comp_graph_nodes_C_zero.get(a + 1) - 1, comp_graph_nodes_C_zero.get(b + 1) - 1);
 
 //                            if (DEBUG) {
 //                                System.out.println("comp_graph_nodes_C_zero.get(a+1) " + comp_graph_nodes_C_zero.get(a + 1) + ", i_tab2.get(x * 3 + 0) " + i_tab2.get(y * 3 + 0));
@@ -487,9 +472,7 @@ public class MCSPlus extends Filter {
                         } else if ((comp_graph_nodes_C_zero.get(a + 1).equals(i_tab2.get(y * 3 + 1))
                                 && comp_graph_nodes_C_zero.get(b + 1).equals(i_tab2.get(y * 3 + 0)))) {
                             molecule2_pair_connected = true;
-                            IAtom a1 = this.ac2.getAtom(comp_graph_nodes_C_zero.get(a + 1) - 1);
-                            IAtom a2 = this.ac2.getAtom(comp_graph_nodes_C_zero.get(b + 1) - 1);
-                            bond2 = this.ac2.getBond(a1, a2);
+                            bond2 = invariants2.getBondIndex(comp_graph_nodes_C_zero.get(a + 1) - 1, comp_graph_nodes_C_zero.get(b + 1) - 1);
 
 //                            if (DEBUG) {
 //                                System.out.println("comp_graph_nodes_C_zero.get(a+1) " + comp_graph_nodes_C_zero.get(a + 1) + ", i_tab2.get(x * 3 + 1) " + i_tab2.get(y * 3 + 1));
@@ -514,7 +497,7 @@ public class MCSPlus extends Filter {
                     }
 
                     if (connectedFlag
-                            && AtomBondMatcher.matchAtomAndBond(bond1, bond2, atomMatcher, bondMatcher, true)) {
+                            && AtomBondMatcher.matchAtomAndBond(invariants1, bond1, invariants2, bond2, atomMatcher, bondMatcher, true)) {
                         matchBondFlag = true;
                     }
 
@@ -147,8 +147,11 @@ public final class MCSPlusMapper implements IResults {
         }
         setAllMapping(solutions);
         setAllAtomMapping();
-
-        return !mappings.isEmpty();
+        /*
+         * The clique search has no limit of its own, it stops at the
+         * deadline of the thread
+         */
+        return false;
     }
 
     private synchronized void setAllMapping(List<Map<Integer, Integer>> solutions) {
@@ -237,7 +240,7 @@ public final class MCSPlusMapper implements IResults {
     }
 
     /**
-     * @return the timeout
+     * @return false, the search is only bounded by the deadline of the thread
      */
     public synchronized boolean isTimeout() {
         return timeout;
@@ -33,7 +33,7 @@ import java.util.Stack;
 import java.util.TreeMap;
 import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
-import org.openscience.cdk.interfaces.IBond;
+import org.openscience.smsd.algorithm.matchers.AtomBondInvariants;
 import org.openscience.smsd.algorithm.matchers.AtomBondMatcher;
 import org.openscience.smsd.algorithm.matchers.AtomMatcher;
 import org.openscience.smsd.algorithm.matchers.BondMatcher;
@@ -107,6 +107,8 @@ public class McGregor extends Utility {
     private final List<String> SignROW;
     protected final IAtomContainer ac1;
     protected final IAtomContainer ac2;
+    protected final AtomBondInvariants invariants1;
+    protected final AtomBondInvariants invariants2;
     protected final Map<String, Integer> SYMBOL_VALUE;
     final AtomMatcher atomMatcher;
     final BondMatcher bondMatcher;
@@ -145,6 +147,8 @@ public class McGregor extends Utility {
         this.c_tab2 = file2.charTable;
         this.ac1 = file1.getAtomContainer();
         this.ac2 = file2.getAtomContainer();
+        this.invariants1 = new AtomBondInvariants(ac1);
+        this.invariants2 = new AtomBondInvariants(ac2);
 
         this.comp_graph_nodes = new ArrayList<>();
         this.comp_graph_nodes_C_zero = new ArrayList<>();//Initialize the comp_graph_nodes_C_zero Vector
@@ -643,9 +647,7 @@ public class McGregor extends Utility {
         for (int row = 0; row < neighbor_bondnum_A; row++) {
             String G1A = c_bond_neighborsA.get(row * 4 + 0);
             String G2A = c_bond_neighborsA.get(row * 4 + 1);
-            IAtom a1 = this.ac1.getAtom(i_bond_neighborsA.get(row * 3 + 0) - 1);
-            IAtom a2 = this.ac1.getAtom(i_bond_neighborsA.get(row * 3 + 1) - 1);
-            IBond bond1 = this.ac1.getBond(a1, a2);
+            int bond1 = invariants1.getBondIndex(i_bond_neighborsA.get(row * 3 + 0) - 1, i_bond_neighborsA.get(row * 3 + 1) - 1);
 
             for (int column = 0; column < neighbor_bondnum_B; column++) {
 //                System.out.println("c_bond_neighborsA  " + c_bond_neighborsA);
@@ -659,15 +661,13 @@ public class McGregor extends Utility {
                 String G1B = c_bond_neighborsB.get(column * 4 + 0);
                 String G2B = c_bond_neighborsB.get(column * 4 + 1);
 
-                IAtom b1 = this.ac2.getAtom(i_bond_neighborsB.get(column * 3 + 0) - 1);
-                IAtom b2 = this.ac2.getAtom(i_bond_neighborsB.get(column * 3 + 1) - 1);
-                IBond bond2 = this.ac2.getBond(b1, b2);
+                int bond2 = invariants2.getBondIndex(i_bond_neighborsB.get(column * 3 + 0) - 1, i_bond_neighborsB.get(column * 3 + 1) - 1);
 
                 /*
                  * Check if bond matching also possible
                  */
                 boolean flag
-                        = AtomBondMatcher.matchAtomAndBond(bond1, bond2, atomMatcher, bondMatcher, true);
+                        = AtomBondMatcher.matchAtomAndBond(invariants1, bond1, invariants2, bond2, atomMatcher, bondMatcher, true);
 
                 if ((G1A.equals(G1B)) && (G2A.equals(G2B)) && flag) {
                     no_Map = false;
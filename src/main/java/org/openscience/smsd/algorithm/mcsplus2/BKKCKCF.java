@@ -31,6 +31,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.Stack;
 import org.openscience.smsd.graph.Edge;
+import org.openscience.smsd.tools.Deadline;
 
 /**
  * This class implements Bron-Kerbosch clique detection algorithm as it is
@@ -87,6 +88,7 @@ public final class BKKCKCF {
     private final List<Integer> comp_graph_nodes;
 
     private int best_clique_size;
+    private final Deadline deadline;
     private List<Integer> C_copy;
     private Stack<Integer> P_copy;
     private Stack<Integer> D_copy;
@@ -121,6 +123,7 @@ public final class BKKCKCF {
         });
         best_clique_size = 0;
         max_Cliques_Set = new HashSet<>();
+        this.deadline = Deadline.current();
 
         T = new ArrayList<>(); //Initialize the T Vector
         C = new ArrayList<>();
@@ -152,7 +155,7 @@ public final class BKKCKCF {
          */
         T.clear();
 
-        while (V.get(b) != 0) {
+        while (V.get(b) != 0 && !deadline.isExpired()) {
 
             int central_node = V.get(b);
 
@@ -248,7 +251,7 @@ public final class BKKCKCF {
         }
         int a = 0;
 
-        while (P_Prime.elementAt(a) != 0) {
+        while (P_Prime.elementAt(a) != 0 && !deadline.isExpired()) {
             int ui = P_Prime.get(a);
             //remove P_Prime[a] from P
             //find position of P_Prime node in P
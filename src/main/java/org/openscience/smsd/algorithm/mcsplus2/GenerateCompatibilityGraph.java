@@ -36,8 +36,8 @@ import java.util.Objects;
 import java.util.Set;
 import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
-import org.openscience.cdk.interfaces.IBond;
 import org.openscience.cdk.isomorphism.matchers.IQueryAtom;
+import org.openscience.smsd.algorithm.matchers.AtomBondInvariants;
 import org.openscience.smsd.algorithm.matchers.AtomBondMatcher;
 import org.openscience.smsd.algorithm.matchers.AtomMatcher;
 import org.openscience.smsd.algorithm.matchers.BondMatcher;
@@ -66,6 +66,8 @@ public final class GenerateCompatibilityGraph implements Serializable {
     private final IAtomContainer target;
     private final AtomMatcher atomMatcher;
     private final BondMatcher bondMatcher;
+    private final transient AtomBondInvariants sourceInvariants;
+    private final transient AtomBondInvariants targetInvariants;
 
     /**
      * Generates a compatibility graph between two molecules
@@ -85,6 +87,8 @@ public final class GenerateCompatibilityGraph implements Serializable {
         this.bondMatcher = bm;
         this.source = source;
         this.target = target;
+        this.sourceInvariants = new AtomBondInvariants(source);
+        this.targetInvariants = new AtomBondInvariants(target);
         compGraphNodes = new ArrayList<>();
         compGraphNodesCZero = new ArrayList<>();
         cEdges = Collections.synchronizedList(new ArrayList<>());
@@ -248,17 +252,14 @@ public final class GenerateCompatibilityGraph implements Serializable {
                         && (!Objects.equals(compGraphNodes.get(a), compGraphNodes.get(b)))
                         && (!Objects.equals(compGraphNodes.get(a + 1), compGraphNodes.get(b + 1)))) {
 
-                    IBond reactantBond;
-                    IBond productBond;
-
 //                    System.out.println("a " + compGraphNodes.get(a) + " b " + compGraphNodes.get(b));
                     //exists a bond in molecule 2, so that molecule 1 pair is connected?
-                    reactantBond = source.getBond(source.getAtom(compGraphNodes.get(a)), source.getAtom(compGraphNodes.get(b)));
-                    productBond = target.getBond(target.getAtom(compGraphNodes.get(a + 1)), target.getAtom(compGraphNodes.get(b + 1)));
+                    int reactantBond = sourceInvariants.getBondIndex(compGraphNodes.get(a), compGraphNodes.get(b));
+                    int productBond = targetInvariants.getBondIndex(compGraphNodes.get(a + 1), compGraphNodes.get(b + 1));
 
-                    if (reactantBond != null && productBond != null) {
+                    if (reactantBond >= 0 && productBond >= 0) {
                         addEdges(reactantBond, productBond, a, b);
-                    } else if (reactantBond == null && productBond == null) {
+                    } else if (reactantBond < 0 && productBond < 0) {
                         Edge edge = new Edge(((a / 3) + 1), ((b / 3) + 1));
                         dEdges.add(edge);
                     }
@@ -270,8 +271,8 @@ public final class GenerateCompatibilityGraph implements Serializable {
         return 0;
     }
 
-    private void addEdges(IBond reactantBond, IBond productBond, int iIndex, int jIndex) {
-        if (AtomBondMatcher.matchAtomAndBond(reactantBond, productBond, atomMatcher, bondMatcher, true)) {
+    private void addEdges(int reactantBond, int productBond, int iIndex, int jIndex) {
+        if (isMatch(reactantBond, productBond)) {
             Edge edge = new Edge(((iIndex / 3) + 1), ((jIndex / 3) + 1));
             cEdges.add(edge);
         } else {
@@ -354,19 +355,16 @@ public final class GenerateCompatibilityGraph implements Serializable {
                 if ((a != b) && (index_a != index_b)
                         && (index_aPlus1 != index_bPlus1)) {
 
-                    IBond reactantBond;
-                    IBond productBond;
-
-                    reactantBond = source.getBond(source.getAtom(index_a), source.getAtom(index_b));
-                    productBond = target.getBond(target.getAtom(index_aPlus1), target.getAtom(index_bPlus1));
+                    int reactantBond = sourceInvariants.getBondIndex(index_a, index_b);
+                    int productBond = targetInvariants.getBondIndex(index_aPlus1, index_bPlus1);
 
-                    if (reactantBond != null && productBond != null) {
+                    if (reactantBond >= 0 && productBond >= 0) {
                         addZeroEdges(reactantBond, productBond, a, b);
-                    } else if (reactantBond == null && productBond == null
+                    } else if (reactantBond < 0 && productBond < 0
                             && dEdges.size() < compGraphNodes.size()) {
                         Edge edge = new Edge(((a / 4) + 1), ((b / 4) + 1));
                         dEdges.add(edge);
-                    } else if (reactantBond == null && productBond == null
+                    } else if (reactantBond < 0 && productBond < 0
                             && source.getAtomCount() < 50 && target.getAtomCount() < 50) {
                         //50 unique condition to speed up the AAM
                         Edge edge = new Edge(((a / 4) + 1), ((b / 4) + 1));
@@ -385,8 +383,8 @@ public final class GenerateCompatibilityGraph implements Serializable {
         return 0;
     }
 
-    private void addZeroEdges(IBond reactantBond, IBond productBond, int indexI, int indexJ) {
-        if (AtomBondMatcher.matchAtomAndBond(reactantBond, productBond, atomMatcher, bondMatcher, true)) {
+    private void addZeroEdges(int reactantBond, int productBond, int indexI, int indexJ) {
+        if (isMatch(reactantBond, productBond)) {
             Edge edge = new Edge(((indexI / 4) + 1), ((indexJ / 4) + 1));
             cEdges.add(edge);
         } else {
@@ -395,6 +393,14 @@ public final class GenerateCompatibilityGraph implements Serializable {
         }
     }
 
+    /*
+     * Match on the compiled invariants of the bonds
+     */
+    private boolean isMatch(int reactantBond, int productBond) {
+        return AtomBondMatcher.matchAtomAndBond(sourceInvariants, reactantBond,
+                targetInvariants, productBond, atomMatcher, bondMatcher, true);
+    }
+
     public synchronized List<Edge> getCEdges() {
         return Collections.synchronizedList(cEdges);
     }
@@ -14,10 +14,10 @@ import java.util.Set;
 import java.util.concurrent.RecursiveTask;
 import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
-import org.openscience.cdk.interfaces.IBond;
 import org.openscience.cdk.isomorphism.matchers.IQueryAtom;
 import org.openscience.cdk.tools.ILoggingTool;
 import org.openscience.cdk.tools.LoggingToolFactory;
+import org.openscience.smsd.algorithm.matchers.AtomBondInvariants;
 import org.openscience.smsd.algorithm.matchers.AtomBondMatcher;
 import org.openscience.smsd.algorithm.matchers.AtomMatcher;
 import org.openscience.smsd.algorithm.matchers.BondMatcher;
@@ -47,6 +47,8 @@ public class GenerateCompatibilityGraphFJ extends RecursiveTask<List<Result>> {
     private final IAtomContainer target;
     private final AtomMatcher atomMatcher;
     private final BondMatcher bondMatcher;
+    private final AtomBondInvariants sourceInvariants;
+    private final AtomBondInvariants targetInvariants;
 
     /**
      *
@@ -63,9 +65,24 @@ public class GenerateCompatibilityGraphFJ extends RecursiveTask<List<Result>> {
             IAtomContainer target,
             AtomMatcher atomMatcher,
             BondMatcher bondMatcher) {
+        this(startIndex, endIndex, new AtomBondInvariants(source), new AtomBondInvariants(target),
+                atomMatcher, bondMatcher);
+    }
+
+    /*
+     * The subtasks share the compiled molecules
+     */
+    private GenerateCompatibilityGraphFJ(int startIndex,
+            int endIndex,
+            AtomBondInvariants sourceInvariants,
+            AtomBondInvariants targetInvariants,
+            AtomMatcher atomMatcher,
+            BondMatcher bondMatcher) {
         this.endIndex = endIndex;
-        this.source = source;
-        this.target = target;
+        this.source = sourceInvariants.getContainer();
+        this.target = targetInvariants.getContainer();
+        this.sourceInvariants = sourceInvariants;
+        this.targetInvariants = targetInvariants;
         this.startIndex = startIndex;
         this.atomMatcher = atomMatcher;
         this.bondMatcher = bondMatcher;
@@ -106,8 +123,8 @@ public class GenerateCompatibilityGraphFJ extends RecursiveTask<List<Result>> {
         List<GenerateCompatibilityGraphFJ> dividedTasks = new ArrayList<>();
         int middle = (endIndex + startIndex) / 2;
 
-        GenerateCompatibilityGraphFJ partOne = new GenerateCompatibilityGraphFJ(startIndex, middle, source, target, atomMatcher, bondMatcher);
-        GenerateCompatibilityGraphFJ partTwo = new GenerateCompatibilityGraphFJ(middle, endIndex, source, target, atomMatcher, bondMatcher);
+        GenerateCompatibilityGraphFJ partOne = new GenerateCompatibilityGraphFJ(startIndex, middle, sourceInvariants, targetInvariants, atomMatcher, bondMatcher);
+        GenerateCompatibilityGraphFJ partTwo = new GenerateCompatibilityGraphFJ(middle, endIndex, sourceInvariants, targetInvariants, atomMatcher, bondMatcher);
         dividedTasks.add(partOne);
         dividedTasks.add(partTwo);
 
@@ -233,13 +250,10 @@ public class GenerateCompatibilityGraphFJ extends RecursiveTask<List<Result>> {
                 if ((a != b) && (index_a != index_b)
                         && (index_aPlus1 != index_bPlus1)) {
 
-                    IBond reactantBond;
-                    IBond productBond;
-
-                    reactantBond = source.getBond(source.getAtom(index_a), source.getAtom(index_b));
-                    productBond = target.getBond(target.getAtom(index_aPlus1), target.getAtom(index_bPlus1));
+                    int reactantBond = sourceInvariants.getBondIndex(index_a, index_b);
+                    int productBond = targetInvariants.getBondIndex(index_aPlus1, index_bPlus1);
 
-                    if (reactantBond != null && productBond != null) {
+                    if (reactantBond >= 0 && productBond >= 0) {
                         addZeroEdges(result.cEdges, result.dEdges, reactantBond, productBond, a, b);
                     } //                    else if (reactantBond == null && productBond == null
                     //                            && ((source.getAtomCount() < (COMPLEX_MAX_GRAPH_NODE_COUNT)
@@ -251,7 +265,7 @@ public class GenerateCompatibilityGraphFJ extends RecursiveTask<List<Result>> {
                     //                            result.dEdges.add(edge);
                     //                        }
                     //                    }
-                    else if (reactantBond == null && productBond == null) {
+                    else if (reactantBond < 0 && productBond < 0) {
                         //50 unique condition to speed up the AAM
                         Edge edge = new Edge(((a / 4) + 1), ((b / 4) + 1));
                         if (!result.dEdges.contains(edge)) {
@@ -272,9 +286,10 @@ public class GenerateCompatibilityGraphFJ extends RecursiveTask<List<Result>> {
     }
 
     private void addZeroEdges(List<Edge> cEdges, List<Edge> dEdges,
-            IBond reactantBond, IBond productBond,
+            int reactantBond, int productBond,
             int indexI, int indexJ) {
-        if (AtomBondMatcher.matchAtomAndBond(reactantBond, productBond, atomMatcher, bondMatcher, true)) {
+        if (AtomBondMatcher.matchAtomAndBond(sourceInvariants, reactantBond,
+                targetInvariants, productBond, atomMatcher, bondMatcher, true)) {
             Edge edge = new Edge(((indexI / 4) + 1), ((indexJ / 4) + 1));
             if (!cEdges.contains(edge)) {
                 cEdges.add(edge);
@@ -418,31 +433,29 @@ public class GenerateCompatibilityGraphFJ extends RecursiveTask<List<Result>> {
                         && (!Objects.equals(result.compGraphNodes.get(a), result.compGraphNodes.get(b)))
                         && (!Objects.equals(result.compGraphNodes.get(a + 1), result.compGraphNodes.get(b + 1)))) {
 
-                    IBond reactantBond;
-                    IBond productBond;
                     if (DEBUG) {
                         System.out.println("a " + result.compGraphNodes.get(a) + " b " + result.compGraphNodes.get(b));
                     }//exists a bond in molecule 2, so that molecule 1 pair is connected?
-                    reactantBond = source.getBond(source.getAtom(result.compGraphNodes.get(a)), source.getAtom(result.compGraphNodes.get(b)));
-                    productBond = target.getBond(target.getAtom(result.compGraphNodes.get(a + 1)), target.getAtom(result.compGraphNodes.get(b + 1)));
+                    int reactantBond = sourceInvariants.getBondIndex(result.compGraphNodes.get(a), result.compGraphNodes.get(b));
+                    int productBond = targetInvariants.getBondIndex(result.compGraphNodes.get(a + 1), result.compGraphNodes.get(b + 1));
 
                     boolean connectedFlag = false;
                     boolean disConnectedFlag = false;
                     boolean matchBondFlag = false;
 
-                    if (reactantBond != null
-                            && productBond != null) {
+                    if (reactantBond >= 0
+                            && productBond >= 0) {
                         connectedFlag = true;
                     }
 
-                    if (reactantBond == null
-                            && productBond == null) {
+                    if (reactantBond < 0
+                            && productBond < 0) {
                         disConnectedFlag = true;
                     }
 
                     if (connectedFlag
-                            && AtomBondMatcher.
-                                    matchAtomAndBond(reactantBond, productBond, atomMatcher, bondMatcher, true)) {
+                            && AtomBondMatcher.matchAtomAndBond(sourceInvariants, reactantBond,
+                                    targetInvariants, productBond, atomMatcher, bondMatcher, true)) {
                         matchBondFlag = true;
                     }
 
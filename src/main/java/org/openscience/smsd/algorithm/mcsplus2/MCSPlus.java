@@ -37,7 +37,7 @@ import org.openscience.cdk.tools.ILoggingTool;
 import org.openscience.cdk.tools.LoggingToolFactory;
 import org.openscience.smsd.algorithm.matchers.AtomMatcher;
 import org.openscience.smsd.algorithm.matchers.BondMatcher;
-import org.openscience.smsd.algorithm.mcgregor.McGregor;
+import org.openscience.smsd.algorithm.mcgregor.McGregorEngine;
 import org.openscience.smsd.graph.Edge;
 import org.openscience.smsd.tools.IterationManager;
 
@@ -195,9 +195,9 @@ public final class MCSPlus {
         boolean ROPFlag = true;
         for (Map<Integer, Integer> firstPassMappings : allMCSCopy) {
             Map<Integer, Integer> extendMapping = new TreeMap<>(firstPassMappings);
-            McGregor mgit;
+            McGregorEngine mgit;
             if (ac1.getAtomCount() > ac2.getAtomCount()) {
-                mgit = new McGregor(ac1, ac2, cliques, am, bm);
+                mgit = new McGregorEngine(ac1, ac2, cliques, am, bm);
                 mgit.startMcGregorIteration(ac1, mgit.getMCSSize(), extendMapping);
             } else {
                 extendMapping.clear();
@@ -205,7 +205,7 @@ public final class MCSPlus {
                 firstPassMappings.entrySet().stream().forEach((map) -> {
                     extendMapping.put(map.getValue(), map.getKey());
                 });
-                mgit = new McGregor(ac2, ac1, cliques, am, bm);
+                mgit = new McGregorEngine(ac2, ac1, cliques, am, bm);
                 mgit.startMcGregorIteration(ac2, mgit.getMCSSize(), extendMapping);
             }
 //            System.out.println("\nStart McGregor search");
@@ -231,8 +231,8 @@ public final class MCSPlus {
         boolean ROPFlag = true;
         for (Map<Integer, Integer> firstPassMappings : allMCSCopy) {
             Map<Integer, Integer> extendMapping = new TreeMap<>(firstPassMappings);
-            McGregor mgit;
-            mgit = new McGregor((IQueryAtomContainer) ac1, ac2, cliques, am, bm);
+            McGregorEngine mgit;
+            mgit = new McGregorEngine((IQueryAtomContainer) ac1, ac2, cliques, am, bm);
             mgit.startMcGregorIteration((IQueryAtomContainer) ac1, mgit.getMCSSize(), extendMapping);
 //            System.out.println("\nStart McGregor search");
             //Start McGregor search
@@ -125,7 +125,7 @@ public final class MCSPlusMapper implements IResults {
 //        System.out.println("PostFilter.filter " + solutions);
         setAllMapping(solutions);
         setAllAtomMapping();
-        return mappings.isEmpty();
+        return mcsplus.isTimeout();
     }
 
     private synchronized void setAllMapping(List<Map<Integer, Integer>> solutions) {
@@ -203,7 +203,7 @@ public final class MCSPlusMapper implements IResults {
     }
 
     /**
-     * @return the timeout
+     * @return true if the search stopped at its iteration limit
      */
     public synchronized boolean isTimeout() {
         return timeout;
@@ -74,10 +74,13 @@ import org.openscience.smsd.tools.IterationManager;
  */
 final public class CDKMCS {
 
-    protected static boolean timeout = false;
+    /*
+     * Search state of the calling thread, searches run concurrently
+     */
+    private final static ThreadLocal<Boolean> TIMEOUT = ThreadLocal.withInitial(() -> false);
     protected final static int ID1 = 0;
     protected final static int ID2 = 1;
-    private static IterationManager iterationManager = null;
+    private final static ThreadLocal<IterationManager> ITERATION_MANAGER = new ThreadLocal<>();
 
     ///////////////////////////////////////////////////////////////////////////
     //                            Query Methods
@@ -390,6 +393,23 @@ final public class CDKMCS {
         return getMaximum(graphList, am, bm);
     }
 
+    /**
+     * Returns all the 'mappings' of the maximum common substructures between
+     * two atom containers, the mappings with the largest number of bonds. The
+     * branches of the search which can not reach that size are not parsed.
+     *
+     * @param g1 first molecule. Must not be an {@link IQueryAtomContainer}.
+     * @param g2 second molecule. May be an {@link IQueryAtomContainer}.
+     * @param am
+     * @param bm
+     * @return the list of all the maximum 'mappings' found
+     * @throws CDKException
+     */
+    static List<List<CDKRMap>> getMaximumMaps(IAtomContainer g1, IAtomContainer g2,
+            AtomMatcher am, BondMatcher bm) throws CDKException {
+        return search(g1, g2, new BitSet(), new BitSet(), true, true, true, am, bm);
+    }
+
     /**
      * Transforms an GraphAtomContainer into a {@link BitSet} (which's size =
      * number of bondA in the atomContainer, all the bit are set to true).
@@ -459,6 +479,12 @@ final public class CDKMCS {
     static List<List<CDKRMap>> search(IAtomContainer g1, IAtomContainer g2, BitSet c1,
             BitSet c2, boolean findAllStructure, boolean findAllMap,
             AtomMatcher am, BondMatcher bm) throws CDKException {
+        return search(g1, g2, c1, c2, findAllStructure, findAllMap, false, am, bm);
+    }
+
+    private static List<List<CDKRMap>> search(IAtomContainer g1, IAtomContainer g2, BitSet c1,
+            BitSet c2, boolean findAllStructure, boolean findAllMap, boolean findMaximum,
+            AtomMatcher am, BondMatcher bm) throws CDKException {
         // handle single query atom case separately
 
         if (g2.getAtomCount() == 1) {
@@ -481,7 +507,9 @@ final public class CDKMCS {
         CDKRGraph rGraph = buildRGraph(g1, g2, am, bm);
         // Set time data
         setIterationManager(new IterationManager((g1.getAtomCount() + g2.getAtomCount())));
+        setTimeout(false);
         // parse the CDKRGraph with the given constrains and options
+        rGraph.setMaximum(findMaximum);
         rGraph.parse(c1, c2, findAllStructure, findAllMap);
         List<BitSet> solutionList = rGraph.getSolutions();
 
@@ -1137,20 +1165,27 @@ final public class CDKMCS {
      * @return the timeout
      */
     public static boolean isTimeout() {
-        return timeout;
+        return TIMEOUT.get();
+    }
+
+    /**
+     * @param timeout the timeout to set
+     */
+    static void setTimeout(boolean timeout) {
+        TIMEOUT.set(timeout);
     }
 
     /**
      * @return the iterationManager
      */
     protected static IterationManager getIterationManager() {
-        return iterationManager;
+        return ITERATION_MANAGER.get();
     }
 
     /**
      * @param aIterationManager the iterationManager to set
      */
     private static void setIterationManager(IterationManager aIterationManager) {
-        iterationManager = aIterationManager;
+        ITERATION_MANAGER.set(aIterationManager);
     }
 }
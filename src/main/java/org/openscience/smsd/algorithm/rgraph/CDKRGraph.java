@@ -31,6 +31,7 @@ package org.openscience.smsd.algorithm.rgraph;
 
 import static java.lang.System.getProperty;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Iterator;
 import java.util.List;
@@ -90,10 +91,11 @@ import org.openscience.cdk.exception.CDKException;
  * may be reused in other graph context (conceptual graphs,....)
  *
  * <p>
- * <bitSet>Important note</bitSet>: This implementation of the algorithm has not
- * been optimized for speed at this stage. It has been written with the goal to
- * clearly retrace the principle of the underlined search method. There is room
- * for optimization in many ways including the the algorithm itself.
+ * <bitSet>Important note</bitSet>: The search works on the node sets packed
+ * into long words, the extension and forbidden sets of the nodes are copied
+ * from the {@link CDKRNode}s when the parsing starts. With the maximum option
+ * only the solutions of the largest size found so far are kept, and a branch
+ * is cut as soon as the nodes it can still reach map fewer bonds than them.
  *
  * <p>
  * This algorithm derives from the algorithm described in {
@@ -113,27 +115,51 @@ public class CDKRGraph {
 
     static final String NEW_LINE = getProperty("line.separator");
 
-    private List<CDKRNode> graph = null;
+    private final List<CDKRNode> graph;
     // maximal number of iterations before
     // search break
     private int maxIteration = -1;
     // dimensions of the compared graphs
     private int firstGraphSize = 0;
     private int secondGraphSize = 0;
-    // constrains
-    private BitSet sourceBitSet = null;
-    private BitSet targetBitSet = null;
     // current solution list
-    private List<BitSet> solutionList = null;
+    private final List<BitSet> solutionList;
     // flag to define if we want to get all possible 'mappings'
     private boolean findAllMap = false;
     // flag to define if we want to get all possible 'structures'
     private boolean findAllStructure = true;
+    // flag to keep only the solutions of the maximum size
+    private boolean findMaximum = false;
     // working variables
     private boolean stop = false;
     private int nbIteration = 0;
-    private BitSet graphBitSet = null;
-    // -1 for infinite search and one min is 1
+    private final BitSet graphBitSet;
+
+    /*
+     * The graph packed into long words for the parsing: node sets of
+     * nodeWords words, bond sets of G1 and G2 of g1Words and g2Words words
+     */
+    private int nodeWords;
+    private int g1Words;
+    private int g2Words;
+    private int[] id1;
+    private int[] id2;
+    private long[][] extensions;
+    private long[][] forbiddens;
+    private long[] allNodes;
+    // constrains on G1 and G2
+    private long[] sourceWords;
+    private long[] targetWords;
+    // partial solution, extension and forbidden sets per depth
+    private long[][] traversedAt;
+    private long[][] extensionAt;
+    private long[][] forbiddenAt;
+    private long[] potential;
+    private long[] potentialG1;
+    private long[] potentialG2;
+    // solutions with their projections, and the size of the largest one
+    private List<Solution> solutions;
+    private int maximumSize;
 
     /**
      * Constructor for the CDKRGraph object and creates an empty CDKRGraph.
@@ -149,7 +175,7 @@ public class CDKRGraph {
      *
      * @return The size of the first of the two compared graphs
      */
-    public synchronized int getFirstGraphSize() {
+    public int getFirstGraphSize() {
         return firstGraphSize;
     }
 
@@ -158,7 +184,7 @@ public class CDKRGraph {
      *
      * @return The size of the second of the two compared graphs
      */
-    public synchronized int getSecondGraphSize() {
+    public int getSecondGraphSize() {
         return secondGraphSize;
     }
 
@@ -167,7 +193,7 @@ public class CDKRGraph {
      *
      * @param graphSize The size of the second of the two compared graphs
      */
-    public synchronized void setFirstGraphSize(int graphSize) {
+    public void setFirstGraphSize(int graphSize) {
         firstGraphSize = graphSize;
     }
 
@@ -176,16 +202,16 @@ public class CDKRGraph {
      *
      * @param graphSize The size of the second of the two compared graphs
      */
-    public synchronized void setSecondGraphSize(int graphSize) {
+    public void setSecondGraphSize(int graphSize) {
         secondGraphSize = graphSize;
     }
 
     /**
      * Re initialisation of the TGraph.
      */
-    public synchronized void clear() {
-        getGraph().clear();
-        getGraphBitSet().clear();
+    public void clear() {
+        graph.clear();
+        graphBitSet.clear();
     }
 
     /**
@@ -193,7 +219,7 @@ public class CDKRGraph {
      *
      * @return The graph object, a list
      */
-    public synchronized List<CDKRNode> getGraph() {
+    public List<CDKRNode> getGraph() {
         return this.graph;
     }
 
@@ -202,9 +228,9 @@ public class CDKRGraph {
      *
      * @param newNode The node to add to the graph
      */
-    public synchronized void addNode(CDKRNode newNode) {
-        getGraph().add(newNode);
-        getGraphBitSet().set(getGraph().size() - 1);
+    public void addNode(CDKRNode newNode) {
+        graph.add(newNode);
+        graphBitSet.set(graph.size() - 1);
     }
 
     /**
@@ -220,20 +246,77 @@ public class CDKRGraph {
      * @param findAllMap true is we want all possible 'mappings'
      * @throws CDKException
      */
-    public synchronized void parse(BitSet sourceBitSet, BitSet targetBitSet, boolean findAllStructure, boolean findAllMap) throws CDKException {
+    public void parse(BitSet sourceBitSet, BitSet targetBitSet, boolean findAllStructure, boolean findAllMap) throws CDKException {
         // initialize the list of solution
-        getSolutionList().clear();
-
-        // builds the set of starting nodes
-        // according to the constrains
-        BitSet bitSet = buildB(sourceBitSet, targetBitSet);
+        solutionList.clear();
 
         // setup options
         setAllStructure(findAllStructure);
         setAllMap(findAllMap);
 
+        // packs the graph and builds the set of starting nodes
+        // according to the constrains
+        compile(sourceBitSet, targetBitSet);
+        buildB(sourceBitSet, targetBitSet, extensionAt[0]);
+
         // parse recursively the CDKRGraph
-        parseRec(new BitSet(bitSet.size()), bitSet, new BitSet(bitSet.size()));
+        parseRec(0);
+
+        for (Solution solution : solutions) {
+            solutionList.add(BitSet.valueOf(solution.nodes));
+        }
+        solutions = null;
+        traversedAt = null;
+        extensionAt = null;
+        forbiddenAt = null;
+    }
+
+    /**
+     * Packs the nodes, their extension and forbidden sets and the constrains
+     * into long words.
+     */
+    private void compile(BitSet sourceBitSet, BitSet targetBitSet) {
+        int n = graph.size();
+        nodeWords = Math.max(words(n), words(graphBitSet.length()));
+        id1 = new int[n];
+        id2 = new int[n];
+        extensions = new long[n][];
+        forbiddens = new long[n][];
+        int size1 = sourceBitSet.length();
+        int size2 = targetBitSet.length();
+        for (int x = 0; x < n; x++) {
+            CDKRNode node = graph.get(x);
+            id1[x] = node.getRMap().getId1();
+            id2[x] = node.getRMap().getId2();
+            size1 = Math.max(size1, id1[x] + 1);
+            size2 = Math.max(size2, id2[x] + 1);
+            extensions[x] = toWords(node.getExtension(), nodeWords);
+            forbiddens[x] = toWords(node.getForbidden(), nodeWords);
+        }
+        g1Words = words(size1);
+        g2Words = words(size2);
+        allNodes = toWords(graphBitSet, nodeWords);
+        sourceWords = toWords(sourceBitSet, g1Words);
+        targetWords = toWords(targetBitSet, g2Words);
+
+        int depth = n + 2;
+        traversedAt = new long[depth][];
+        extensionAt = new long[depth][];
+        forbiddenAt = new long[depth][];
+        level(0);
+        potential = new long[nodeWords];
+        potentialG1 = new long[g1Words];
+        potentialG2 = new long[g2Words];
+        solutions = new ArrayList<>();
+        maximumSize = -1;
+    }
+
+    private void level(int depth) {
+        if (traversedAt[depth] == null) {
+            traversedAt[depth] = new long[nodeWords];
+            extensionAt[depth] = new long[nodeWords];
+            forbiddenAt[depth] = new long[nodeWords];
+        }
     }
 
     /**
@@ -241,78 +324,74 @@ public class CDKRGraph {
      * query. The method will recursively parse the CDKRGraph thru connected
      * nodes and visiting the CDKRGraph using allowed adjacency relationship.
      *
-     * @param traversed node already parsed
-     * @param extension possible extension node (allowed neighbors)
-     * @param forbiden node forbidden (set of node incompatible with the current
-     * solution)
+     * The node already parsed, the possible extension nodes (allowed
+     * neighbors) and the forbidden nodes (incompatible with the current
+     * solution) are the sets of the depth, the number of nodes parsed.
+     *
+     * @param depth number of nodes in the current solution
      */
-    private void parseRec(BitSet traversed, BitSet extension, BitSet forbidden) throws CDKException {
-        BitSet newTraversed;
-        BitSet newExtension;
-        BitSet newForbidden;
-        BitSet potentialNode;
+    private void parseRec(int depth) throws CDKException {
+        long[] traversed = traversedAt[depth];
+        long[] extension = extensionAt[depth];
+        long[] forbidden = forbiddenAt[depth];
 
         boolean timeOut = checkTimeout();
         if (timeOut) {
-//            System.out.println(timeOut + ", is Timeout ");
             this.stop = true;
             return;
         }
 
         // if there is no more extension possible we
         // have reached a potential new solution
-        if (extension.isEmpty()) {
-            solution(traversed);
+        if (isEmpty(extension)) {
+            solution(traversed, depth);
         } // carry on with each possible extension
         else {
             // calculates the set of nodes that may still
             // be reached at this stage (not forbidden)
-            potentialNode = ((BitSet) getGraphBitSet().clone());
-            potentialNode.andNot(forbidden);
-            potentialNode.or(traversed);
+            for (int w = 0; w < nodeWords; w++) {
+                potential[w] = (allNodes[w] & ~forbidden[w]) | traversed[w];
+            }
 
             // checks if we must continue the search
             // according to the potential node set
-            if (mustContinue(potentialNode)) {
+            if (mustContinue(potential)) {
                 // carry on research and update iteration count
-                setNbIteration(getNbIteration() + 1);
+                nbIteration++;
+
+                level(depth + 1);
+                long[] newTraversed = traversedAt[depth + 1];
+                long[] newExtension = extensionAt[depth + 1];
+                long[] newForbidden = forbiddenAt[depth + 1];
 
                 // for each node in the set of possible extension (neighbors of
                 // the current partial solution, include the node to the solution
                 // and parse recursively the CDKRGraph with the new context.
-                for (int x = extension.nextSetBit(0); x >= 0 && !this.stop; x = extension.nextSetBit(x + 1)) {
-                    // evaluates the new set of forbidden nodes
-                    // by including the nodes not compatible with the
-                    // newly accepted node.
-                    newForbidden = (BitSet) forbidden.clone();
-                    newForbidden.or((getGraph().get(x)).getForbidden());
-
-                    // if maxIterator is the first time we are here then
-                    // traversed is empty and we initialize the set of
-                    // possible extensions to the extension of the first
-                    // accepted node in the solution.
-                    if (traversed.isEmpty()) {
-                        newExtension = (BitSet) ((getGraph().get(x)).getExtension().clone());
-                    } // else we simply update the set of solution by
-                    // including the neighbors of the newly accepted node
-                    else {
-                        newExtension = (BitSet) extension.clone();
-                        newExtension.or((getGraph().get(x)).getExtension());
+                for (int x = nextSetBit(extension, 0); x >= 0 && !this.stop; x = nextSetBit(extension, x + 1)) {
+                    long[] xForbidden = forbiddens[x];
+                    long[] xExtension = extensions[x];
+                    for (int w = 0; w < nodeWords; w++) {
+                        // evaluates the new set of forbidden nodes
+                        // by including the nodes not compatible with the
+                        // newly accepted node.
+                        newForbidden[w] = forbidden[w] | xForbidden[w];
+                        // the first accepted node gives the extensions,
+                        // else the neighbors of the newly accepted node are
+                        // added, and the extension may not contain
+                        // forbidden nodes
+                        newExtension[w] = (depth == 0 ? xExtension[w] : extension[w] | xExtension[w])
+                                & ~newForbidden[w];
+                        newTraversed[w] = traversed[w];
                     }
 
-                    // extension my not contain forbidden nodes
-                    newExtension.andNot(newForbidden);
-
-                    // create the new set of traversed node
-                    // (update current partial solution)
-                    // and add x to the set of forbidden node
-                    // (a node may only appear once in a solution)
-                    newTraversed = (BitSet) traversed.clone();
-                    newTraversed.set(x);
-                    forbidden.set(x);
+                    // add x to the current partial solution and to the set
+                    // of forbidden node (a node may only appear once in a
+                    // solution)
+                    newTraversed[x >>> 6] |= 1L << x;
+                    forbidden[x >>> 6] |= 1L << x;
 
                     // parse recursively the CDKRGraph
-                    parseRec(newTraversed, newExtension, newForbidden);
+                    parseRec(depth + 1);
                 }
             }
         }
@@ -323,30 +402,38 @@ public class CDKRGraph {
      * solution) and add this solution to the solution list in case of success.
      *
      * @param traversed new potential solution
+     * @param size number of nodes in the solution
      */
-    private void solution(BitSet traversed) throws CDKException {
+    private void solution(long[] traversed, int size) throws CDKException {
         boolean included = false;
-        BitSet projG1 = projectG1(traversed);
-        BitSet projG2 = projectG2(traversed);
+        long[] projG1 = project(traversed, id1, new long[g1Words]);
+        long[] projG2 = project(traversed, id2, new long[g2Words]);
 
         // the solution must follows the search constrains
         // (must contain the mandatory elements in G1 an G2)
-        if (isContainedIn(getSourceBitSet(), projG1) && isContainedIn(getTargetBitSet(), projG2)) {
+        if (isContainedIn(sourceWords, projG1) && isContainedIn(targetWords, projG2)) {
+            // only the solutions of the maximum size are kept
+            if (isFindMaximum() && size < maximumSize) {
+                included = true;
+            } else if (isFindMaximum() && size > maximumSize) {
+                solutions.clear();
+            }
+
             // the solution should not be included in a previous solution
             // at the CDKRGraph level. So we check against all previous solution
             // On the other hand if a previous solution is included in the
             // new one, the previous solution is removed.
-            for (Iterator<BitSet> i = getSolutionList().listIterator(); i.hasNext() && !included;) {
-                BitSet sol = i.next();
-                if (!sol.equals(traversed)) {
+            for (Iterator<Solution> i = solutions.iterator(); i.hasNext() && !included;) {
+                Solution sol = i.next();
+                if (!Arrays.equals(sol.nodes, traversed)) {
                     // if we asked to save all 'mappings' then keep this mapping
-                    if (isFindAllMap() && (projG1.equals(projectG1(sol)) || projG2.equals(projectG2(sol)))) {
+                    if (isFindAllMap() && (Arrays.equals(projG1, sol.g1) || Arrays.equals(projG2, sol.g2))) {
                         // do nothing
                     } // if the new solution is included mark maxIterator as included
-                    else if (isContainedIn(projG1, projectG1(sol)) || isContainedIn(projG2, projectG2(sol))) {
+                    else if (isContainedIn(projG1, sol.g1) || isContainedIn(projG2, sol.g2)) {
                         included = true;
                     } // if the previous solution is contained in the new one, remove the previous solution
-                    else if (isContainedIn(projectG1(sol), projG1) || isContainedIn(projectG2(sol), projG2)) {
+                    else if (isContainedIn(sol.g1, projG1) || isContainedIn(sol.g2, projG2)) {
                         i.remove();
                     }
                 } else {
@@ -358,7 +445,8 @@ public class CDKRGraph {
             if (included == false) {
                 // if maxIterator is really a new solution add maxIterator to the
                 // list of current solution
-                getSolutionList().add(traversed);
+                solutions.add(new Solution(traversed.clone(), projG1, projG2));
+                maximumSize = Math.max(maximumSize, size);
             }
 
             if (!isFindAllStructure()) {
@@ -376,39 +464,39 @@ public class CDKRGraph {
      * @param potentialNode set of remaining potential nodes
      * @return true if maxIterator is worse to continue the search
      */
-    private boolean mustContinue(BitSet potentialNode) {
-        boolean result = true;
-        boolean cancel = false;
-        BitSet projG1 = projectG1(potentialNode);
-        BitSet projG2 = projectG2(potentialNode);
-
+    private boolean mustContinue(long[] potentialNode) {
         // if we reached the maximum number of
         // search iterations than do not continue
-        if (getMaxIteration() != -1 && getNbIteration() >= getMaxIteration()) {
+        if (getMaxIteration() != -1 && nbIteration >= getMaxIteration()) {
             return false;
         }
 
+        long[] projG1 = project(potentialNode, id1, potentialG1);
+        long[] projG2 = project(potentialNode, id2, potentialG2);
+
         // if constrains may no more be fulfilled then stop.
-        if (!isContainedIn(sourceBitSet, projG1) || !isContainedIn(targetBitSet, projG2)) {
+        if (!isContainedIn(sourceWords, projG1) || !isContainedIn(targetWords, projG2)) {
+            return false;
+        }
+
+        // a solution maps each bond once, it can not be larger than the
+        // bonds the potential nodes map in G1 or in G2
+        if (isFindMaximum() && Math.min(cardinality(projG1), cardinality(projG2)) < maximumSize) {
             return false;
         }
 
         // check if the solution potential is not included in an already
         // existing solution
-        for (Iterator<BitSet> i = getSolutionList().iterator(); i.hasNext() && !cancel;) {
-            BitSet sol = i.next();
-
+        for (Solution sol : solutions) {
             // if we want every 'mappings' do not stop
-            if (isFindAllMap() && (projG1.equals(projectG1(sol)) || projG2.equals(projectG2(sol)))) {
+            if (isFindAllMap() && (Arrays.equals(projG1, sol.g1) || Arrays.equals(projG2, sol.g2))) {
                 // do nothing
             } // if maxIterator is not possible to do better than an already existing solution than stop.
-            else if (isContainedIn(projG1, projectG1(sol)) || isContainedIn(projG2, projectG2(sol))) {
-                result = false;
-                cancel = true;
+            else if (isContainedIn(projG1, sol.g1) || isContainedIn(projG2, sol.g2)) {
+                return false;
             }
         }
-
-        return result;
+        return true;
     }
 
     /**
@@ -418,22 +506,17 @@ public class CDKRGraph {
      *
      * @param sourceBitSet constraint in the graph G1
      * @param targetBitSet constraint in the graph G2
-     * @return
+     * @param seeds the initial extension set
      */
-    private BitSet buildB(BitSet sourceBitSet, BitSet targetBitSet) throws CDKException {
-        this.setSourceBitSet(sourceBitSet);
-        this.setTargetBitSet(targetBitSet);
-
-        BitSet bistSet = new BitSet();
-
+    private void buildB(BitSet sourceBitSet, BitSet targetBitSet, long[] seeds) {
         // only nodes that fulfill the initial constrains
         // are allowed in the initial extension set : targetBitSet
-        getGraph().stream().filter((rNode) -> ((sourceBitSet.get(rNode.getRMap().getId1())
-                || sourceBitSet.isEmpty()) && (targetBitSet.get(rNode.getRMap().getId2())
-                || targetBitSet.isEmpty()))).forEachOrdered((rNode) -> {
-            bistSet.set(getGraph().indexOf(rNode));
-        });
-        return bistSet;
+        for (int x = 0; x < graph.size(); x++) {
+            if ((sourceBitSet.isEmpty() || sourceBitSet.get(id1[x]))
+                    && (targetBitSet.isEmpty() || targetBitSet.get(id2[x]))) {
+                seeds[x >>> 6] |= 1L << x;
+            }
+        }
     }
 
     /**
@@ -441,8 +524,8 @@ public class CDKRGraph {
      *
      * @return The solution list
      */
-    public synchronized List<BitSet> getSolutions() {
-        return getSolutionList();
+    public List<BitSet> getSolutions() {
+        return solutionList;
     }
 
     /**
@@ -453,11 +536,11 @@ public class CDKRGraph {
      * @param set the BitSet
      * @return the CDKRMap list
      */
-    synchronized List<CDKRMap> bitSetToRMap(BitSet set) {
+    List<CDKRMap> bitSetToRMap(BitSet set) {
         List<CDKRMap> rMapList = new ArrayList<>();
 
         for (int x = set.nextSetBit(0); x >= 0; x = set.nextSetBit(x + 1)) {
-            CDKRNode xNode = getGraph().get(x);
+            CDKRNode xNode = graph.get(x);
             rMapList.add(xNode.getRMap());
         }
         return rMapList;
@@ -471,7 +554,7 @@ public class CDKRGraph {
      * @param findAllStructure
      */
     public void setAllStructure(boolean findAllStructure) {
-        this.setFindAllStructure(findAllStructure);
+        this.findAllStructure = findAllStructure;
     }
 
     /**
@@ -482,7 +565,19 @@ public class CDKRGraph {
      * @param findAllMap
      */
     public void setAllMap(boolean findAllMap) {
-        this.setFindAllMap(findAllMap);
+        this.findAllMap = findAllMap;
+    }
+
+    /**
+     * Sets the 'maximum' option. If true only the solutions with the largest
+     * number of nodes are kept, and the branches which can not reach that
+     * size are not parsed. Solutions of the same size are kept as with the
+     * other options.
+     *
+     * @param findMaximum
+     */
+    public void setMaximum(boolean findMaximum) {
+        this.findMaximum = findMaximum;
     }
 
     /**
@@ -505,7 +600,7 @@ public class CDKRGraph {
         String message = "";
         int jIndex = 0;
 
-        for (CDKRNode rNode : getGraph()) {
+        for (CDKRNode rNode : graph) {
             message += "-------------" + NEW_LINE + "CDKRNode " + jIndex + NEW_LINE + rNode.toString() + NEW_LINE;
             jIndex++;
         }
@@ -525,7 +620,7 @@ public class CDKRGraph {
         CDKRNode xNode;
 
         for (int x = set.nextSetBit(0); x >= 0; x = set.nextSetBit(x + 1)) {
-            xNode = getGraph().get(x);
+            xNode = graph.get(x);
             projection.set(xNode.getRMap().getId1());
         }
         return projection;
@@ -542,83 +637,97 @@ public class CDKRGraph {
         CDKRNode xNode;
 
         for (int x = set.nextSetBit(0); x >= 0; x = set.nextSetBit(x + 1)) {
-            xNode = getGraph().get(x);
+            xNode = graph.get(x);
             projection.set(xNode.getRMap().getId2());
         }
         return projection;
     }
 
     /**
-     * Test if set sourceBitSet is contained in set targetBitSet.
+     * Projects a set of nodes on G1 or G2.
      *
-     * @param sourceBitSet a bitSet
-     * @param targetBitSet a bitSet
-     * @return true if sourceBitSet is contained in targetBitSet
-     */
-    private boolean isContainedIn(BitSet sourceBitSet, BitSet targetBitSet) {
-        boolean result = false;
-
-        if (sourceBitSet.isEmpty()) {
-            return true;
-        }
-
-        BitSet setA = (BitSet) sourceBitSet.clone();
-        setA.and(targetBitSet);
-
-        if (setA.equals(sourceBitSet)) {
-            result = true;
+     * @param set the nodes
+     * @param ids bond of each node in the graph
+     * @param projection cleared and filled with the bonds
+     * @return the projection
+     */
+    private static long[] project(long[] set, int[] ids, long[] projection) {
+        Arrays.fill(projection, 0L);
+        for (int x = nextSetBit(set, 0); x >= 0; x = nextSetBit(set, x + 1)) {
+            projection[ids[x] >>> 6] |= 1L << ids[x];
         }
-
-        return result;
+        return projection;
     }
 
     /**
-     * @return the findAllStructure
+     * Test if set sourceBitSet is contained in set targetBitSet, both have the
+     * same number of words.
+     *
+     * @param sourceBitSet a set
+     * @param targetBitSet a set
+     * @return true if sourceBitSet is contained in targetBitSet
      */
-    private boolean isFindAllStructure() {
-        return findAllStructure;
+    private static boolean isContainedIn(long[] sourceBitSet, long[] targetBitSet) {
+        for (int w = 0; w < sourceBitSet.length; w++) {
+            if ((sourceBitSet[w] & ~targetBitSet[w]) != 0L) {
+                return false;
+            }
+        }
+        return true;
     }
 
-    /**
-     * @param findAllStructure the findAllStructure to set
-     */
-    private void setFindAllStructure(boolean findAllStructure) {
-        this.findAllStructure = findAllStructure;
+    private static boolean isEmpty(long[] set) {
+        for (long word : set) {
+            if (word != 0L) {
+                return false;
+            }
+        }
+        return true;
     }
 
-    /**
-     * @return the solutionList
-     */
-    private List<BitSet> getSolutionList() {
-        return solutionList;
+    private static int cardinality(long[] set) {
+        int count = 0;
+        for (long word : set) {
+            count += Long.bitCount(word);
+        }
+        return count;
     }
 
-    /**
-     * @return the targetBitSet
-     */
-    private BitSet getTargetBitSet() {
-        return targetBitSet;
+    private static int nextSetBit(long[] set, int from) {
+        int w = from >>> 6;
+        if (w >= set.length) {
+            return -1;
+        }
+        long word = set[w] & (-1L << from);
+        while (word == 0L) {
+            if (++w == set.length) {
+                return -1;
+            }
+            word = set[w];
+        }
+        return (w << 6) + Long.numberOfTrailingZeros(word);
     }
 
-    /**
-     * @param targetBitSet the targetBitSet to set
-     */
-    private void setTargetBitSet(BitSet targetBitSet) {
-        this.targetBitSet = targetBitSet;
+    private static int words(int bits) {
+        return Math.max(1, (bits + 63) >>> 6);
+    }
+
+    private static long[] toWords(BitSet set, int words) {
+        return Arrays.copyOf(set.toLongArray(), words);
     }
 
     /**
-     * @return the sourceBitSet
+     * @return the findAllStructure
      */
-    private BitSet getSourceBitSet() {
-        return sourceBitSet;
+    private boolean isFindAllStructure() {
+        return findAllStructure;
     }
 
     /**
-     * @param sourceBitSet the sourceBitSet to set
+     * @return the findMaximum
      */
-    private void setSourceBitSet(BitSet sourceBitSet) {
-        this.sourceBitSet = sourceBitSet;
+    private boolean isFindMaximum() {
+        return findMaximum;
     }
 
     /**
@@ -635,40 +744,28 @@ public class CDKRGraph {
         return findAllMap;
     }
 
-    /**
-     * @param findAllMap the findAllMap to set
-     */
-    private void setFindAllMap(boolean findAllMap) {
-        this.findAllMap = findAllMap;
-    }
-
-    /**
-     * @return the nbIteration
-     */
-    private int getNbIteration() {
-        return nbIteration;
+    private boolean checkTimeout() {
+        if (CDKMCS.getIterationManager().isMaxIteration()) {
+            CDKMCS.setTimeout(true);
+            return true;
+        }
+        CDKMCS.getIterationManager().increment();
+        return false;
     }
 
     /**
-     * @param nbIteration the nbIteration to set
+     * A solution with its projections on G1 and G2.
      */
-    private void setNbIteration(int nbIteration) {
-        this.nbIteration = nbIteration;
-    }
+    private static final class Solution {
 
-    /**
-     * @return the graphBitSet
-     */
-    private BitSet getGraphBitSet() {
-        return graphBitSet;
-    }
+        private final long[] nodes;
+        private final long[] g1;
+        private final long[] g2;
 
-    private boolean checkTimeout() {
-        if (CDKMCS.getIterationManager().isMaxIteration()) {
-            CDKMCS.timeout = true;
-            return true;
+        Solution(long[] nodes, long[] g1, long[] g2) {
+            this.nodes = nodes;
+            this.g1 = g1;
+            this.g2 = g2;
         }
-        CDKMCS.getIterationManager().increment();
-        return false;
     }
 }
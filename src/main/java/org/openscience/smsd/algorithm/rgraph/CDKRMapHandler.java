@@ -23,7 +23,6 @@
 package org.openscience.smsd.algorithm.rgraph;
 
 import java.util.ArrayList;
-import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -127,7 +126,7 @@ public final class CDKRMapHandler {
             }
 
         } else {
-            List<List<CDKRMap>> overlaps = CDKMCS.search(getSource(), getTarget(), new BitSet(), new BitSet(), true, true, am, bm);
+            List<List<CDKRMap>> overlaps = CDKMCS.getMaximumMaps(getSource(), getTarget(), am, bm);
             this.setTimeout(CDKMCS.isTimeout());
             List<List<CDKRMap>> reducedList = removeSubGraph(overlaps);
             Stack<List<CDKRMap>> allMaxOverlaps = getAllMaximum(reducedList);
@@ -172,7 +171,7 @@ public final class CDKRMapHandler {
             }
 
         } else {
-            List<List<CDKRMap>> overlaps = CDKMCS.search(getSource(), (IQueryAtomContainer) getTarget(), new BitSet(), new BitSet(), true, true,
+            List<List<CDKRMap>> overlaps = CDKMCS.getMaximumMaps(getSource(), (IQueryAtomContainer) getTarget(),
                     AtomMatcher.forQuery(), BondMatcher.forQuery());
             this.setTimeout(CDKMCS.isTimeout());
             List<List<CDKRMap>> reducedList = removeSubGraph(overlaps);
@@ -226,8 +225,7 @@ public final class CDKRMapHandler {
         } else {
 
             List<List<CDKRMap>> overlaps
-                    = CDKMCS.search(getSource(), getTarget(), new BitSet(), new BitSet(), true, true,
-                            am, bm);
+                    = CDKMCS.getMaximumMaps(getSource(), getTarget(), am, bm);
             this.setTimeout(CDKMCS.isTimeout());
             List<List<CDKRMap>> reducedList = removeSubGraph(overlaps);
             Stack<List<CDKRMap>> allMaxOverlaps = getAllMaximum(reducedList);
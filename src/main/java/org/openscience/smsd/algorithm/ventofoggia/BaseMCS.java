@@ -39,7 +39,7 @@ import org.openscience.cdk.tools.LoggingToolFactory;
 import org.openscience.smsd.AtomAtomMapping;
 import org.openscience.smsd.algorithm.matchers.AtomMatcher;
 import org.openscience.smsd.algorithm.matchers.BondMatcher;
-import org.openscience.smsd.algorithm.mcgregor.McGregor;
+import org.openscience.smsd.algorithm.mcgregor.McGregorEngine;
 
 /**
  * This class should be used to find MCS between source graph and target graph.
@@ -132,19 +132,19 @@ public class BaseMCS {
         boolean ROPFlag = true;
         for (Map<Integer, Integer> firstPassMappings : refinedMCSSeeds) {
             Map<Integer, Integer> extendMapping = new TreeMap<>(firstPassMappings);
-            McGregor mgit;
+            McGregorEngine mgit;
             if (source instanceof IQueryAtomContainer) {
-                mgit = new McGregor((IQueryAtomContainer) source, target, mappings, atomMatcher, bondMatcher);
+                mgit = new McGregorEngine((IQueryAtomContainer) source, target, mappings, atomMatcher, bondMatcher);
                 //Start McGregor search
                 mgit.startMcGregorIteration((IQueryAtomContainer) source, mgit.getMCSSize(), extendMapping);
             } else if (countR > countP) {
-                mgit = new McGregor(source, target, mappings, atomMatcher, bondMatcher);
+                mgit = new McGregorEngine(source, target, mappings, atomMatcher, bondMatcher);
 
                 //Start McGregor search
                 mgit.startMcGregorIteration(source, mgit.getMCSSize(), extendMapping);
             } else {
                 extendMapping.clear();
-                mgit = new McGregor(target, source, mappings, atomMatcher, bondMatcher);
+                mgit = new McGregorEngine(target, source, mappings, atomMatcher, bondMatcher);
                 ROPFlag = false;
                 firstPassMappings.entrySet().stream().forEach((map) -> {
                     extendMapping.put(map.getValue(), map.getKey());
@@ -43,7 +43,7 @@ import org.openscience.smsd.graph.EdgeProductGraph;
 import org.openscience.smsd.graph.Graph;
 import org.openscience.smsd.graph.IClique;
 import org.openscience.smsd.graph.Vertex;
-import org.openscience.smsd.graph.algorithm.GraphKoch;
+import org.openscience.smsd.graph.algorithm.ParallelCliqueFinder;
 import org.openscience.smsd.interfaces.Algorithm;
 
 /**
@@ -172,7 +172,7 @@ public class MCSSeedGenerator implements Callable<List<AtomAtomMapping>> {
         boolean disconnected = ConnectivityChecker.isConnected(ac1)
                 && ConnectivityChecker.isConnected(ac2);
 
-        init = new GraphKoch(comp_graph_nodes);
+        init = ParallelCliqueFinder.create(comp_graph_nodes);
         init.findMaximalCliques();
 
         Stack<Set<Vertex>> maxCliqueSet = init.getMaxCliquesSet();
@@ -25,11 +25,8 @@ package org.openscience.smsd.algorithm.ventofoggia;
 import java.io.IOException;
 import static java.lang.Runtime.getRuntime;
 import java.util.*;
-import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorCompletionService;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import org.openscience.cdk.exception.CDKException;
@@ -44,6 +41,7 @@ import org.openscience.cdk.isomorphism.matchers.IQueryBond;
 import org.openscience.cdk.tools.ILoggingTool;
 import org.openscience.cdk.tools.LoggingToolFactory;
 import org.openscience.smsd.AtomAtomMapping;
+import org.openscience.smsd.algorithm.matchers.AtomBondInvariants;
 import org.openscience.smsd.algorithm.matchers.AtomBondMatcher;
 import org.openscience.smsd.algorithm.matchers.AtomMatcher;
 import org.openscience.smsd.algorithm.matchers.BondMatcher;
@@ -51,6 +49,7 @@ import org.openscience.smsd.graph.algorithm.VentoFoggia;
 import org.openscience.smsd.helper.Mappings;
 import org.openscience.smsd.interfaces.Algorithm;
 import org.openscience.smsd.interfaces.IResults;
+import org.openscience.smsd.tools.SharedExecutor;
 
 /**
  * This class should be used to find MCS between source graph and target graph.
@@ -132,15 +131,8 @@ public final class VF2MCS extends BaseMCS implements IResults {
             /*
              *   Assign the threads
              */
-            // int threadsAvailable = getRuntime().availableProcessors() - 1;
-            // if (threadsAvailable == 0) {
-            //     threadsAvailable = 1;
-            // } else if (threadsAvailable > 2) {
-            //     threadsAvailable = 2;
-            // }
-			int threadsAvailable = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
-            ExecutorService executor = Executors.newFixedThreadPool(threadsAvailable);
-            CompletionService<List<AtomAtomMapping>> cs = new ExecutorCompletionService<>(executor);
+            SharedExecutor executor = SharedExecutor.getInstance();
+            List<Future<List<AtomAtomMapping>>> futures = new ArrayList<>();
 
             /*
              * Reduce the target size by removing bonds which do not share 
@@ -150,16 +142,19 @@ public final class VF2MCS extends BaseMCS implements IResults {
             try {
                 targetClone = target.clone();
                 Set<IBond> bondRemovedT = new HashSet<>();
-                for (IBond b1 : targetClone.bonds()) {
+                AtomBondInvariants targetInvariants = new AtomBondInvariants(targetClone);
+                AtomBondInvariants sourceInvariants = new AtomBondInvariants(source);
+                for (int b1 = 0; b1 < targetClone.getBondCount(); b1++) {
                     boolean flag = false;
-                    for (IBond b2 : source.bonds()) {
-                        if (AtomBondMatcher.matchAtomAndBond(b1, b2, atomMatcher, bondMatcher, true)) {
+                    for (int b2 = 0; b2 < source.getBondCount(); b2++) {
+                        if (AtomBondMatcher.matchAtomAndBond(targetInvariants, b1, sourceInvariants, b2,
+                                atomMatcher, bondMatcher, true)) {
                             flag = true;
                             break;
                         }
                     }
                     if (!flag) {
-                        bondRemovedT.add(b1);
+                        bondRemovedT.add(targetClone.getBond(b1));
                     }
                 }
 
@@ -185,7 +180,7 @@ public final class VF2MCS extends BaseMCS implements IResults {
                     System.out.println(" CALLING UIT ");
                 }
                 MCSSeedGenerator mcsSeedGeneratorUIT = new MCSSeedGenerator(source, targetClone, Algorithm.CDKMCS, am, bm);
-                cs.submit(mcsSeedGeneratorUIT);
+                futures.add(executor.submit(mcsSeedGeneratorUIT));
                 jobCounter++;
             }
 
@@ -195,7 +190,7 @@ public final class VF2MCS extends BaseMCS implements IResults {
             MCSSeedGenerator mcsSeedGeneratorKoch
                     = new MCSSeedGenerator(source, targetClone,
                             Algorithm.MCSPlus, atomMatcher, bondMatcher);
-            cs.submit(mcsSeedGeneratorKoch);
+            futures.add(executor.submit(mcsSeedGeneratorKoch));
             jobCounter++;
 
             /*
@@ -207,8 +202,12 @@ public final class VF2MCS extends BaseMCS implements IResults {
              */
             for (int i = 0; i < jobCounter; i++) {
                 try {
-                    List<AtomAtomMapping> chosen = cs.take().get();
+                    List<AtomAtomMapping> chosen = SharedExecutor.get(futures.get(i));
                     chosen.stream().map(mapping -> new TreeMap<>(mapping.getMappingsByIndex())).forEach(mcsSeeds::add);
+                } catch (InterruptedException ex) {
+                    SharedExecutor.cancel(futures);
+                    Thread.currentThread().interrupt();
+                    break;
                 } catch (Exception ex) {
                     if (DEBUG) {
                         ex.printStackTrace();
@@ -216,20 +215,6 @@ public final class VF2MCS extends BaseMCS implements IResults {
                     LOGGER.error(Level.SEVERE, null, ex);
                 }
             }
-            executor.shutdown();
-            /*
-             Wait until all threads are finish
-             */
-
-            // while (!executor.isTerminated()) {
-            // }
-            // System.gc();
-			try {
-                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-            System.gc();
 
             long stopTimeSeeds = System.nanoTime();
             if (DEBUG) {
@@ -405,11 +390,8 @@ public final class VF2MCS extends BaseMCS implements IResults {
 
             long startTimeSeeds = System.nanoTime();
 
-            // ExecutorService executor = Executors.newCachedThreadPool();
-            // CompletionService<List<AtomAtomMapping>> cs = new ExecutorCompletionService<>(executor);
-            int threadsAvailable = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
-            ExecutorService executor = Executors.newFixedThreadPool(threadsAvailable);
-            CompletionService<List<AtomAtomMapping>> cs = new ExecutorCompletionService<>(executor);
+            SharedExecutor executor = SharedExecutor.getInstance();
+            List<Future<List<AtomAtomMapping>>> futures = new ArrayList<>();
 
             /*
              * Reduce the target size by removing bonds which do not share 
@@ -446,8 +428,8 @@ public final class VF2MCS extends BaseMCS implements IResults {
             MCSSeedGenerator mcsSeedGeneratorKoch
                     = new MCSSeedGenerator((IQueryAtomContainer) source, targetClone, Algorithm.MCSPlus);
 
-            cs.submit(mcsSeedGeneratorUIT);
-            cs.submit(mcsSeedGeneratorKoch);
+            futures.add(executor.submit(mcsSeedGeneratorUIT));
+            futures.add(executor.submit(mcsSeedGeneratorKoch));
 
 
             /*
@@ -459,26 +441,20 @@ public final class VF2MCS extends BaseMCS implements IResults {
              */
             for (int i = 0; i < 2; i++) {
                 try {
-					List<AtomAtomMapping> chosen;
-                    chosen = cs.take().get();
+                    List<AtomAtomMapping> chosen;
+                    chosen = SharedExecutor.get(futures.get(i));
                     for (AtomAtomMapping mapping : chosen) {
                         Map<Integer, Integer> map = new TreeMap<>(mapping.getMappingsByIndex());
                         mcsSeeds.add(map);
                     }
-                } catch (InterruptedException | ExecutionException ex) {
+                } catch (InterruptedException ex) {
+                    SharedExecutor.cancel(futures);
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (ExecutionException ex) {
                     LOGGER.error(Level.SEVERE, null, ex);
                 }
             }
-            executor.shutdown();
-            // Wait until all threads are finish
-            // while (!executor.isTerminated()) {
-            // }
-			try {
-                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-            System.gc();
 
 //            long stopTimeSeeds = System.nanoTime();
 //            System.out.println("done seeds " + (stopTimeSeeds - startTimeSeeds));
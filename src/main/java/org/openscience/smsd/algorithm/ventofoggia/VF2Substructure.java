@@ -35,7 +35,7 @@ import org.openscience.smsd.AtomAtomMapping;
 import org.openscience.smsd.algorithm.matchers.AtomBondMatcher;
 import org.openscience.smsd.algorithm.matchers.AtomMatcher;
 import org.openscience.smsd.algorithm.matchers.BondMatcher;
-import org.openscience.smsd.algorithm.mcgregor.McGregor;
+import org.openscience.smsd.algorithm.mcgregor.McGregorEngine;
 import org.openscience.smsd.graph.algorithm.VentoFoggia;
 import org.openscience.smsd.helper.Mappings;
 import org.openscience.smsd.interfaces.IResults;
@@ -340,14 +340,14 @@ public class VF2Substructure implements IResults {
         boolean ROPFlag = true;
         for (Map<Integer, Integer> firstPassMappings : allMCSCopy) {
             Map<Integer, Integer> extendMapping = new TreeMap<>(firstPassMappings);
-            McGregor mgit;
+            McGregorEngine mgit;
             if (source instanceof IQueryAtomContainer) {
-                mgit = new McGregor((IQueryAtomContainer) source, target, mappings, atomMatcher, bondMatcher);
+                mgit = new McGregorEngine((IQueryAtomContainer) source, target, mappings, atomMatcher, bondMatcher);
                 //Start McGregor search
                 mgit.startMcGregorIteration((IQueryAtomContainer) source, mgit.getMCSSize(), extendMapping);
             } else {
                 extendMapping.clear();
-                mgit = new McGregor(target, source, mappings, atomMatcher, bondMatcher);
+                mgit = new McGregorEngine(target, source, mappings, atomMatcher, bondMatcher);
                 ROPFlag = false;
                 firstPassMappings.entrySet().stream().forEach((map) -> {
                     extendMapping.put(map.getValue(), map.getKey());
@@ -22,13 +22,19 @@
  */
 package org.openscience.smsd.filters;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import org.openscience.cdk.exception.CDKException;
 import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.isomorphism.matchers.IQueryAtomContainer;
 import org.openscience.cdk.tools.ILoggingTool;
 import org.openscience.cdk.tools.LoggingToolFactory;
+import org.openscience.smsd.AtomAtomMapping;
 import org.openscience.smsd.tools.ExtAtomContainerManipulator;
+import org.openscience.smsd.tools.SharedExecutor;
 
 /**
  * @author Syed Asad Rahman <asad at ebi.ac.uk>
@@ -71,14 +77,68 @@ public class BaseFilter {
     /**
      * @return the mol1
      */
-    public synchronized IAtomContainer getQuery() {
+    public IAtomContainer getQuery() {
         return mol1;
     }
 
     /**
      * @return the mol2
      */
-    public synchronized IAtomContainer getTarget() {
+    public IAtomContainer getTarget() {
         return mol2;
     }
+
+    /**
+     * Score of a candidate mapping. The scores only read the molecules and
+     * the mapping, so that the candidates can be scored concurrently.
+     *
+     * @param <T> score
+     */
+    interface Scorer<T> {
+
+        T score(AtomAtomMapping mapping) throws CDKException;
+    }
+
+    /**
+     * Score the candidate mappings, on the shared executor when there are
+     * several of them.
+     *
+     * @param <T> score
+     * @param candidates candidate mappings by key
+     * @param scorer
+     * @return scores by key, in the order of the candidates
+     * @throws CDKException
+     */
+    static <T> Map<Integer, T> score(Map<Integer, AtomAtomMapping> candidates, Scorer<T> scorer)
+            throws CDKException {
+        Map<Integer, T> scores = new LinkedHashMap<>();
+        SharedExecutor executor = SharedExecutor.getInstance();
+        if (candidates.size() < 2 || executor.getParallelism() < 2) {
+            for (Map.Entry<Integer, AtomAtomMapping> candidate : candidates.entrySet()) {
+                scores.put(candidate.getKey(), scorer.score(candidate.getValue()));
+            }
+            return scores;
+        }
+        Map<Integer, Future<T>> jobs = new LinkedHashMap<>();
+        for (Map.Entry<Integer, AtomAtomMapping> candidate : candidates.entrySet()) {
+            AtomAtomMapping mapping = candidate.getValue();
+            jobs.put(candidate.getKey(), executor.submit(() -> scorer.score(mapping)));
+        }
+        try {
+            for (Map.Entry<Integer, Future<T>> job : jobs.entrySet()) {
+                scores.put(job.getKey(), SharedExecutor.get(job.getValue()));
+            }
+        } catch (InterruptedException ex) {
+            SharedExecutor.cancel(jobs.values());
+            Thread.currentThread().interrupt();
+            throw new CDKException("Interrupted while scoring the mappings", ex);
+        } catch (ExecutionException ex) {
+            SharedExecutor.cancel(jobs.values());
+            if (ex.getCause() instanceof CDKException) {
+                throw (CDKException) ex.getCause();
+            }
+            throw new CDKException("Unable to score the mappings", ex.getCause());
+        }
+        return scores;
+    }
 }
@@ -24,15 +24,19 @@ package org.openscience.smsd.filters;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import static java.util.Collections.newSetFromMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import static org.openscience.cdk.AtomRef.deref;
 import org.openscience.cdk.exception.CDKException;
 import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IBond;
 import org.openscience.cdk.interfaces.IAtomContainer;
-import org.openscience.cdk.silent.SilentChemObjectBuilder;
 import org.openscience.smsd.AtomAtomMapping;
+import static org.openscience.smsd.filters.BaseFilter.score;
 import static org.openscience.smsd.filters.Sotter.sortMapByValueInAscendingOrder;
 import org.openscience.smsd.tools.BondEnergies;
 
@@ -58,11 +62,10 @@ public final class EnergyFilter extends Sotter implements IChemicalFilter<Double
     public synchronized Double sortResults(
             Map<Integer, AtomAtomMapping> allAtomEnergyMCS,
             Map<Integer, Double> energySelectionMap) throws CDKException {
-        for (Integer Key : allAtomEnergyMCS.keySet()) {
-            AtomAtomMapping mcsAtom = allAtomEnergyMCS.get(Key);
-            Double energies = getMappedMoleculeEnergies(mcsAtom);
-            energySelectionMap.put(Key, energies);
-        }
+        IAtomContainer query = chemfilter.getQuery();
+        IAtomContainer target = chemfilter.getTarget();
+        energySelectionMap.putAll(score(allAtomEnergyMCS,
+                mcsAtom -> getMappedMoleculeEnergies(query, target, mcsAtom)));
 
         energySelectionMap = sortMapByValueInAscendingOrder(energySelectionMap);
 
@@ -98,68 +101,38 @@ public final class EnergyFilter extends Sotter implements IChemicalFilter<Double
         }
     }
 
-    private synchronized Double getMappedMoleculeEnergies(AtomAtomMapping mcsAtomSolution) throws CDKException {
+    /*
+     * Sum of the energies of the bonds between a mapped and an unmapped atom,
+     * in the query and in the target. The mapped atoms are collected apart,
+     * the molecules are not modified.
+     */
+    private static Double getMappedMoleculeEnergies(IAtomContainer query, IAtomContainer target,
+            AtomAtomMapping mcsAtomSolution) throws CDKException {
 
 //        System.out.println("\nSort By Energies");
         double totalBondEnergy = -9999.0;
 
-        IAtomContainer educt = SilentChemObjectBuilder.getInstance().newInstance(IAtomContainer.class, chemfilter.getQuery());
-        IAtomContainer product = SilentChemObjectBuilder.getInstance().newInstance(IAtomContainer.class, chemfilter.getTarget());
-
-        for (int i = 0; i < educt.getAtomCount(); i++) {
-            educt.getAtom(i).setProperty("Energy", false);
-        }
-
-        for (int i = 0; i < product.getAtomCount(); i++) {
-            product.getAtom(i).setProperty("Energy", false);
-        }
-
         if (mcsAtomSolution != null) {
-            Map<IAtom, IAtom> mappingsByAtoms = mcsAtomSolution.getMappingsByAtoms();
-            mappingsByAtoms.entrySet().stream().map((mapping) -> {
-                mapping.getKey().setProperty("Energy", true);
-                return mapping;
-            }).forEach((mapping) -> {
-                mapping.getValue().setProperty("Energy", true);
-            });
-            totalBondEnergy = getEnergy(educt, product);
-        }
-
-        /*
-         * Reset the flag
-         */
-        for (int i = 0; i < educt.getAtomCount(); i++) {
-            educt.getAtom(i).setProperty("Energy", false);
+            Set<IAtom> mappedAtoms = newSetFromMap(new IdentityHashMap<>());
+            for (Map.Entry<IAtom, IAtom> mapping : mcsAtomSolution.getMappingsByAtoms().entrySet()) {
+                mappedAtoms.add(deref(mapping.getKey()));
+                mappedAtoms.add(deref(mapping.getValue()));
+            }
+            totalBondEnergy = getEnergy(query, mappedAtoms)
+                    + getEnergy(target, mappedAtoms);
         }
-
-        for (int i = 0; i < product.getAtomCount(); i++) {
-            product.getAtom(i).setProperty("Energy", false);
-        }
-
         return totalBondEnergy;
     }
 
-    private synchronized static double getEnergy(IAtomContainer educt, IAtomContainer product) throws CDKException {
-        Double eEnergy = 0.0;
+    private static double getEnergy(IAtomContainer molecule, Set<IAtom> mappedAtoms) throws CDKException {
         BondEnergies bondEnergy = BondEnergies.getInstance();
-        for (int i = 0; i < educt.getBondCount(); i++) {
-            IBond bond = educt.getBond(i);
-            eEnergy += getBondEnergy(bond, bondEnergy);
-        }
-        Double pEnergy = 0.0;
-        for (int j = 0; j < product.getBondCount(); j++) {
-            IBond bond = product.getBond(j);
-            pEnergy += getBondEnergy(bond, bondEnergy);
-        }
-        return (eEnergy + pEnergy);
-    }
-
-    private synchronized static double getBondEnergy(IBond bond, BondEnergies bondEnergy) {
         double energy = 0.0;
-        if ((bond.getAtom(0).getProperty("Energy").equals(true) && bond.getAtom(1).getProperty("Energy").equals(false))
-                || (bond.getAtom(0).getProperty("Energy").equals(false) && bond.getAtom(1).getProperty("Energy").equals(true))) {
-            int val = bondEnergy.getEnergies(bond.getAtom(0), bond.getAtom(1), bond.getOrder());
-            energy = val;
+        for (IBond bond : molecule.bonds()) {
+            IAtom atom1 = bond.getAtom(0);
+            IAtom atom2 = bond.getAtom(1);
+            if (mappedAtoms.contains(deref(atom1)) != mappedAtoms.contains(deref(atom2))) {
+                energy += bondEnergy.getEnergies(atom1, atom2, bond.getOrder());
+            }
         }
         return energy;
     }
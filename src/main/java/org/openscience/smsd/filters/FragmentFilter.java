@@ -23,17 +23,17 @@
 package org.openscience.smsd.filters;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 import org.openscience.cdk.exception.CDKException;
-import org.openscience.cdk.graph.ConnectivityChecker;
 import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
-import org.openscience.cdk.interfaces.IAtomContainerSet;
-import org.openscience.cdk.silent.SilentChemObjectBuilder;
+import org.openscience.cdk.interfaces.IBond;
 import org.openscience.smsd.AtomAtomMapping;
+import static org.openscience.smsd.filters.BaseFilter.score;
 
 /**
  * Filter the results based on fragment size.
@@ -56,11 +56,15 @@ public final class FragmentFilter extends Sotter implements IChemicalFilter<Inte
             Map<Integer, AtomAtomMapping> allFragmentAtomMCS,
             Map<Integer, Integer> fragmentScoreMap) throws CDKException {
 
+        IAtomContainer query = chemfilter.getQuery();
+        IAtomContainer target = chemfilter.getTarget();
+        Map<Integer, Integer> scores = score(allFragmentAtomMCS,
+                mcsAtom -> getMappedMoleculeFragmentSize(query, target, mcsAtom));
+
         int _minFragmentScore = 9999;
-        for (Integer key : allFragmentAtomMCS.keySet()) {
-            AtomAtomMapping mcsAtom = allFragmentAtomMCS.get(key);
-            int fragmentCount = getMappedMoleculeFragmentSize(mcsAtom);
-            fragmentScoreMap.put(key, fragmentCount);
+        for (Map.Entry<Integer, Integer> entry : scores.entrySet()) {
+            int fragmentCount = entry.getValue();
+            fragmentScoreMap.put(entry.getKey(), fragmentCount);
             if (_minFragmentScore > fragmentCount) {
                 _minFragmentScore = fragmentCount;
             }
@@ -93,36 +97,60 @@ public final class FragmentFilter extends Sotter implements IChemicalFilter<Inte
         }
     }
 
-    private synchronized int getMappedMoleculeFragmentSize(AtomAtomMapping mcsAtomSolution) {
-
-        IAtomContainer Educt = SilentChemObjectBuilder.getInstance().newInstance(IAtomContainer.class, chemfilter.getQuery());
-        IAtomContainer product = SilentChemObjectBuilder.getInstance().newInstance(IAtomContainer.class, chemfilter.getTarget());
-
+    /*
+     * Fragments left in the query and the target once the mapped atoms are
+     * removed, the molecules are not modified
+     */
+    private static int getMappedMoleculeFragmentSize(IAtomContainer query, IAtomContainer target,
+            AtomAtomMapping mcsAtomSolution) {
+        BitSet mappedQueryAtoms = new BitSet(query.getAtomCount());
+        BitSet mappedTargetAtoms = new BitSet(target.getAtomCount());
         if (mcsAtomSolution != null) {
-            mcsAtomSolution.getMappingsByAtoms().entrySet().stream().forEach((map) -> {
-                IAtom atomE = map.getKey();
-                IAtom atomP = map.getValue();
-                Educt.removeAtom(atomE);
-                product.removeAtom(atomP);
-            });
+            for (Map.Entry<IAtom, IAtom> map : mcsAtomSolution.getMappingsByAtoms().entrySet()) {
+                int atomE = query.indexOf(map.getKey());
+                int atomP = target.indexOf(map.getValue());
+                if (atomE >= 0) {
+                    mappedQueryAtoms.set(atomE);
+                }
+                if (atomP >= 0) {
+                    mappedTargetAtoms.set(atomP);
+                }
+            }
         }
-        return getFragmentCount(Educt) + getFragmentCount(product);
+        return getFragmentCount(query, mappedQueryAtoms) + getFragmentCount(target, mappedTargetAtoms);
     }
 
-    private synchronized int getFragmentCount(IAtomContainer molecule) {
-        boolean fragmentFlag = true;
-        IAtomContainerSet fragmentMolSet = SilentChemObjectBuilder.getInstance().newInstance(IAtomContainerSet.class);
-        int countFrag = 0;
-        if (molecule.getAtomCount()
-                > 0) {
-            fragmentFlag = ConnectivityChecker.isConnected(molecule);
-            if (!fragmentFlag) {
-                fragmentMolSet.add(ConnectivityChecker.partitionIntoMolecules(molecule));
-            } else {
-                fragmentMolSet.addAtomContainer(molecule);
+    /*
+     * Connected components of the atoms which are not removed (union find)
+     */
+    private static int getFragmentCount(IAtomContainer molecule, BitSet removed) {
+        int atomCount = molecule.getAtomCount();
+        int[] parent = new int[atomCount];
+        for (int i = 0; i < atomCount; i++) {
+            parent[i] = i;
+        }
+        int countFrag = atomCount - removed.cardinality();
+        for (IBond bond : molecule.bonds()) {
+            int u = molecule.indexOf(bond.getBegin());
+            int v = molecule.indexOf(bond.getEnd());
+            if (u < 0 || v < 0 || removed.get(u) || removed.get(v)) {
+                continue;
+            }
+            u = find(parent, u);
+            v = find(parent, v);
+            if (u != v) {
+                parent[u] = v;
+                countFrag--;
             }
-            countFrag = fragmentMolSet.getAtomContainerCount();
         }
         return countFrag;
     }
+
+    private static int find(int[] parent, int u) {
+        while (parent[u] != u) {
+            parent[u] = parent[parent[u]];
+            u = parent[u];
+        }
+        return u;
+    }
 }
@@ -23,14 +23,13 @@
 package org.openscience.smsd.filters;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.logging.Level;
-import org.openscience.cdk.AtomContainer;
 
 import org.openscience.cdk.CDKConstants;
 import org.openscience.cdk.exception.CDKException;
@@ -39,13 +38,13 @@ import org.openscience.cdk.graph.Cycles;
 import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.interfaces.IBond;
-import org.openscience.cdk.interfaces.IRingSet;
 import org.openscience.cdk.isomorphism.matchers.IQueryAtom;
 import org.openscience.cdk.isomorphism.matchers.IQueryAtomContainer;
 import org.openscience.cdk.isomorphism.matchers.IQueryBond;
 import org.openscience.cdk.tools.ILoggingTool;
 import org.openscience.cdk.tools.LoggingToolFactory;
 import org.openscience.smsd.AtomAtomMapping;
+import static org.openscience.smsd.filters.BaseFilter.score;
 
 /**
  * Filter on stereo and bond matches.
@@ -107,58 +106,53 @@ public final class StereoFilter extends Sotter implements IChemicalFilter<Double
     private synchronized boolean getStereoBondChargeMatch(Map<Integer, Double> stereoScoreMap,
             Map<Integer, AtomAtomMapping> allStereoAtomMCS) throws CDKException {
 
-        boolean stereoMatchFlag = false;
-        for (Integer Key : allStereoAtomMCS.keySet()) {
-            try {
-                double score = 0.0;
-                //            System.out.println("\nStart score " + score);
-                AtomAtomMapping atomMapMCS = allStereoAtomMCS.get(Key);
-                double atomScore = getAtomScore(score, atomMapMCS, chemfilter.getQuery(), chemfilter.getTarget());
-                Map<IBond, IBond> bondMaps = makeBondMapsOfAtomMaps(chemfilter.getQuery(), chemfilter.getTarget(), atomMapMCS);
-                double ringScore = 0.0;
-                if (chemfilter.getQuery().getBondCount() > 1
-                        && chemfilter.getTarget().getBondCount() > 1
-                        && !(chemfilter.getQuery() instanceof IQueryAtomContainer
-                        || chemfilter.getTarget() instanceof IQueryAtomContainer)) {
-                    List<IAtomContainer> subgraphRList = getMappedFragment(chemfilter.getQuery(), atomMapMCS.getMappingsByAtoms().keySet());
-                    double rscore = getRingMatchScore(subgraphRList);
-                    List<IAtomContainer> subgraphPList = getMappedFragment(chemfilter.getTarget(), atomMapMCS.getMappingsByAtoms().values());
-                    double pscore = getRingMatchScore(subgraphPList);
-                    ringScore = rscore + pscore;
-                }
-                double bondScore = getBondScore(score, bondMaps);
+        IAtomContainer query = chemfilter.getQuery();
+        IAtomContainer target = chemfilter.getTarget();
+        Map<Integer, Double> scores = score(allStereoAtomMCS,
+                atomMapMCS -> getStereoBondChargeScore(query, target, atomMapMCS));
+        stereoScoreMap.putAll(scores);
+        return !scores.isEmpty();
+    }
 
-                score = atomScore + ringScore + bondScore;
-                if (!stereoMatchFlag) {
-                    stereoMatchFlag = true;
-                }
-                stereoScoreMap.put(Key, score);
-            } catch (CloneNotSupportedException ex) {
-                LOGGER.error(Level.SEVERE, null, ex);
+    /*
+     * Atom, ring and bond score of a mapping, the molecules are not modified
+     */
+    private static double getStereoBondChargeScore(IAtomContainer query, IAtomContainer target,
+            AtomAtomMapping atomMapMCS) {
+        double score = 0.0;
+        int[] mapped = new int[query.getAtomCount()];
+        Arrays.fill(mapped, -1);
+        BitSet mappedQueryAtoms = new BitSet(query.getAtomCount());
+        BitSet mappedTargetAtoms = new BitSet(target.getAtomCount());
+        for (Map.Entry<IAtom, IAtom> mapping : atomMapMCS.getMappingsByAtoms().entrySet()) {
+            int i = query.indexOf(mapping.getKey());
+            int j = target.indexOf(mapping.getValue());
+            if (i >= 0) {
+                mappedQueryAtoms.set(i);
+            }
+            if (j >= 0) {
+                mappedTargetAtoms.set(j);
+            }
+            if (i >= 0 && j >= 0) {
+                mapped[i] = j;
             }
         }
-        return stereoMatchFlag;
-    }
-
-    private synchronized Map<IBond, IBond> makeBondMapsOfAtomMaps(IAtomContainer ac1, IAtomContainer ac2,
-            AtomAtomMapping mappings) {
-
-        Map<IBond, IBond> bondbondMappingMap = new HashMap<>();
 
-        mappings.getMappingsByAtoms().entrySet().stream().forEach((Map.Entry<IAtom, IAtom> map1) -> {
-            mappings.getMappingsByAtoms().entrySet().stream().filter((map2) -> (map1.getKey() != map2.getKey())).forEach((map2) -> {
-                IBond bond1 = ac1.getBond(map1.getKey(), map2.getKey());
-                IBond bond2 = ac2.getBond(map1.getValue(), map2.getValue());
-                if (bond1 != null && bond2 != null && !bondbondMappingMap.containsKey(bond1)) {
-                    bondbondMappingMap.put(bond1, bond2);
-                }
-            });
-        });
-//        System.out.println("Mol Map size:" + bondbondMappingMap.size());
-        return bondbondMappingMap;
+        double atomScore = getAtomScore(score, atomMapMCS, query, target);
+        double ringScore = 0.0;
+        if (query.getBondCount() > 1
+                && target.getBondCount() > 1
+                && !(query instanceof IQueryAtomContainer
+                || target instanceof IQueryAtomContainer)) {
+            double rscore = getRingMatchScore(query, mappedQueryAtoms);
+            double pscore = getRingMatchScore(target, mappedTargetAtoms);
+            ringScore = rscore + pscore;
+        }
+        double bondScore = getBondScore(score, query, target, mapped);
+        return atomScore + ringScore + bondScore;
     }
 
-    private synchronized double getAtomScore(double scoreGlobal, AtomAtomMapping atomMapMCS, IAtomContainer reactant,
+    private static double getAtomScore(double scoreGlobal, AtomAtomMapping atomMapMCS, IAtomContainer reactant,
             IAtomContainer product) {
         double score = scoreGlobal;
         for (Map.Entry<IAtom, IAtom> mappings : atomMapMCS.getMappingsByAtoms().entrySet()) {
@@ -199,19 +193,28 @@ public final class StereoFilter extends Sotter implements IChemicalFilter<Double
         return score;
     }
 
-    private synchronized double getBondScore(double scoreGlobal, Map<IBond, IBond> bondMaps) {
+    /*
+     * Bonds of the query between mapped atoms, matched to the bond between
+     * their images in the target
+     */
+    private static double getBondScore(double scoreGlobal, IAtomContainer query, IAtomContainer target,
+            int[] mapped) {
         double score = scoreGlobal;
-        for (Map.Entry<IBond, IBond> matchedBonds : bondMaps.entrySet()) {
-
-            IBond RBond = matchedBonds.getKey();
-            IBond PBond = matchedBonds.getValue();
-
-            score += getBondTypeMatches(RBond, PBond);
+        for (IBond RBond : query.bonds()) {
+            int i = query.indexOf(RBond.getBegin());
+            int j = query.indexOf(RBond.getEnd());
+            if (i < 0 || j < 0 || i == j || mapped[i] < 0 || mapped[j] < 0) {
+                continue;
+            }
+            IBond PBond = target.getBond(target.getAtom(mapped[i]), target.getAtom(mapped[j]));
+            if (PBond != null) {
+                score += getBondTypeMatches(RBond, PBond);
+            }
         }
         return score;
     }
 
-    private synchronized double getBondTypeMatches(IBond queryBond, IBond targetBond) {
+    private static double getBondTypeMatches(IBond queryBond, IBond targetBond) {
         double score = 0;
 
         if (targetBond instanceof IQueryBond && queryBond instanceof IBond) {
@@ -279,7 +282,7 @@ public final class StereoFilter extends Sotter implements IChemicalFilter<Double
      * @param bond
      * @return
      */
-    public synchronized static int convertBondStereo(IBond bond) {
+    public static int convertBondStereo(IBond bond) {
         int value;
         switch (bond.getStereo()) {
             case UP:
@@ -315,7 +318,7 @@ public final class StereoFilter extends Sotter implements IChemicalFilter<Double
      * @param bond
      * @return
      */
-    public synchronized static int convertBondOrder(IBond bond) {
+    public static int convertBondOrder(IBond bond) {
         int value;
         switch (bond.getOrder()) {
             case QUADRUPLE:
@@ -336,59 +339,52 @@ public final class StereoFilter extends Sotter implements IChemicalFilter<Double
         return value;
     }
 
-    private synchronized double getRingMatchScore(List<IAtomContainer> list) throws CloneNotSupportedException {
-        double lScore = 0;
-        IAtomContainer listMap = list.get(0).clone();
-        IAtomContainer subGraph = list.get(1).clone();
-        try {
-            Cycles cycles = Cycles.all(subGraph);
-            lScore = getRingMatch(cycles.toRingSet(), listMap);
-        } catch (Intractable ex) {
-            LOGGER.error(Level.SEVERE, null, ex);
+    /*
+     * The ring score compares the unmapped atoms with the rings of the mapped
+     * fragment: an unmapped atom is never in one of them, so each (atom, ring)
+     * pair scores -10. Only the number of rings (all simple cycles) of the
+     * fragment is needed, it is found on the int adjacency of the mapped atoms.
+     */
+    private static double getRingMatchScore(IAtomContainer molecule, BitSet mappedAtoms) {
+        int unmapped = molecule.getAtomCount() - mappedAtoms.cardinality();
+        if (unmapped == 0 || mappedAtoms.isEmpty()) {
+            return 0.0;
         }
-        return lScore;
-    }
-
-    private synchronized double getRingMatch(IRingSet rings, IAtomContainer atoms) {
-        double score = 0.0;
-        for (IAtom a : atoms.atoms()) {
-            for (IAtomContainer ring : rings.atomContainers()) {
-                if (ring.contains(a)) {
-                    score += 10;
-                } else {
-                    score -= 10;
-                }
+        int[] index = new int[molecule.getAtomCount()];
+        int fragmentSize = 0;
+        for (int i = 0; i < index.length; i++) {
+            index[i] = mappedAtoms.get(i) ? fragmentSize++ : -1;
+        }
+        int[] degree = new int[fragmentSize];
+        int[][] edges = new int[molecule.getBondCount()][];
+        int edgeCount = 0;
+        for (IBond bond : molecule.bonds()) {
+            int u = molecule.indexOf(bond.getBegin());
+            int v = molecule.indexOf(bond.getEnd());
+            if (u < 0 || v < 0 || index[u] < 0 || index[v] < 0 || u == v) {
+                continue;
             }
+            edges[edgeCount++] = new int[]{index[u], index[v]};
+            degree[index[u]]++;
+            degree[index[v]]++;
         }
-        return score;
-    }
-
-    private synchronized List<IAtomContainer> getMappedFragment(IAtomContainer molecule, Collection<IAtom> atomsMCS) throws CloneNotSupportedException {
-        IAtomContainer subgraphContainer;
-
-        if (molecule instanceof IAtomContainer) {
-            subgraphContainer = molecule.getBuilder().newInstance(IAtomContainer.class, molecule);
-        } else {
-            return new ArrayList<>(2);
+        int[][] graph = new int[fragmentSize][];
+        for (int u = 0; u < fragmentSize; u++) {
+            graph[u] = new int[degree[u]];
+            degree[u] = 0;
         }
-        List<IAtom> list = new ArrayList<>(atomsMCS.size());
-        atomsMCS.stream().map((atom) -> molecule.indexOf(atom)).forEach((post) -> {
-            list.add(subgraphContainer.getAtom(post));
-        });
-
-        IAtomContainer rlist = new AtomContainer();
-        for (IAtom atoms : subgraphContainer.atoms()) {
-            if (!list.contains(atoms)) {
-                rlist.addAtom(atoms);
-            }
+        for (int k = 0; k < edgeCount; k++) {
+            int u = edges[k][0];
+            int v = edges[k][1];
+            graph[u][degree[u]++] = v;
+            graph[v][degree[v]++] = u;
         }
-
-        for (IAtom atoms : rlist.atoms()) {
-            subgraphContainer.removeAtom(atoms);
+        try {
+            int rings = Cycles.all().find(molecule, graph, fragmentSize).numberOfCycles();
+            return -10.0 * unmapped * rings;
+        } catch (Intractable ex) {
+            LOGGER.error(Level.SEVERE, null, ex);
         }
-        List<IAtomContainer> l = new ArrayList<>(2);
-        l.add(rlist);
-        l.add(subgraphContainer);
-        return l;
+        return 0.0;
     }
 }
@@ -13,6 +13,7 @@ import java.util.Stack;
 import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.interfaces.IBond;
+import org.openscience.smsd.algorithm.matchers.AtomBondInvariants;
 import org.openscience.smsd.algorithm.matchers.AtomBondMatcher;
 import org.openscience.smsd.algorithm.matchers.AtomMatcher;
 import org.openscience.smsd.algorithm.matchers.BondMatcher;
@@ -63,6 +64,8 @@ public final class EdgeProductGraph implements Serializable {
     private final Graph g;
     private final IAtomContainer source;
     private final IAtomContainer target;
+    private transient AtomBondInvariants sourceInvariants;
+    private transient AtomBondInvariants targetInvariants;
 
     /**
      * Generates a compatibility graph between two molecules
@@ -88,6 +91,8 @@ public final class EdgeProductGraph implements Serializable {
     }
 
     public int searchCliques() {
+        sourceInvariants = new AtomBondInvariants(source);
+        targetInvariants = new AtomBondInvariants(target);
         compatibilityGraphNodes();
         int edges = compatibilityGraphDirected();
         if (DEBUG) {
@@ -103,21 +108,21 @@ public final class EdgeProductGraph implements Serializable {
 
     private void compatibilityGraphNodes() {
         int compatibilityNodeCounter = 1;
-        Iterable<IBond> qbonds = source.bonds();
-        Iterable<IBond> tbonds = target.bonds();
-        for (IBond a : qbonds) {
-            for (IBond b : tbonds) {
+        for (int i = 0; i < source.getBondCount(); i++) {
+            for (int j = 0; j < target.getBondCount(); j++) {
                 //Asad-Imp for large graphs
                 //Only add the edge product vertex if the edge labels and vertex labels are the same
                 //IMP: directed manner i.e. if {a-b = a-b} then true else false 
                 //Only add the edge product vertex if the edge labels and end vertex labels are the same
-                if (AtomBondMatcher.matchAtomAndBond(a, b, atomMatcher, bondMatcher, true)) {
+                if (AtomBondMatcher.matchAtomAndBond(sourceInvariants, i, targetInvariants, j, atomMatcher, bondMatcher, true)) {
                     Vertex node = new Vertex(compatibilityNodeCounter);
                     if (DEBUG) {
-                        System.out.print("Q: " + source.indexOf(a) + ", " + a.getBegin().getSymbol() + "- 1 -" + a.getEnd().getSymbol());
-                        System.out.println(", T: " + target.indexOf(b) + ", " + b.getBegin().getSymbol() + "- 2 -" + b.getEnd().getSymbol());
+                        IBond a = source.getBond(i);
+                        IBond b = target.getBond(j);
+                        System.out.print("Q: " + i + ", " + a.getBegin().getSymbol() + "- 1 -" + a.getEnd().getSymbol());
+                        System.out.println(", T: " + j + ", " + b.getBegin().getSymbol() + "- 2 -" + b.getEnd().getSymbol());
                     }
-                    node.setCompatibilityBondPair(source.indexOf(a), target.indexOf(b));
+                    node.setCompatibilityBondPair(i, j);
                     g.addNode(node);
                     compatibilityNodeCounter++;
 
@@ -130,21 +135,6 @@ public final class EdgeProductGraph implements Serializable {
         }
     }
 
-    private void addEdge(Vertex n1, Vertex n2) {
-        EdgeType edgetype = edgePairsCompatible(n1, n2);
-        if (edgetype != null) {
-            if (DEBUG) {
-                System.out.println("n1: " + n1.getID()
-                        + ", " + "n2: " + n2.getID() + ", Edge " + edgetype);
-            }
-            if (edgetype == EdgeType.C_EDGE
-                    || edgetype == EdgeType.D_EDGE) {
-                //Assume it to be a undirected graph
-                g.addEdge(n1, n2, edgetype);
-            }
-        }
-    }
-
     /**
      * Generate Compatibility Graph Nodes Bond Insensitive
      *
@@ -152,23 +142,31 @@ public final class EdgeProductGraph implements Serializable {
      * @throws IOException
      */
     private int compatibilityGraphDirected() {
-        int counter = 1;
-        Stack<Vertex> nodesToCompare = new Stack<>();
-        Iterator<Vertex> iterator = g.iterator();
-        while (iterator.hasNext()) {
-            nodesToCompare.add(iterator.next());
+        int n = g.V();
+        /*
+         * bond pair and bond end points of each compatibility node, by index
+         */
+        int[] qBond = new int[n];
+        int[] tBond = new int[n];
+        for (int i = 0; i < n; i++) {
+            Vertex v = g.resolveVertex(i);
+            qBond[i] = v.getQueryBondIndex();
+            tBond[i] = v.getTargetBondIndex();
         }
-        while (!nodesToCompare.empty()) {
-            Vertex n1 = nodesToCompare.pop();
-            for (Vertex n2 : nodesToCompare) {
-                addEdge(n1, n2);
-                if (DEBUG && counter % 100000 == 0) {
-                    System.out.println(nodesToCompare.size() + "    Found clique #" + counter);
-                    System.out.println("    C-Edges #" + g.getCEdges().size() + ".\n");
-                    System.out.println("    D-Edges #" + g.getDEdges().size() + ".\n");
-                    System.out.println("    Edges #" + g.E() + ".\n");
+        int[][] qEnds = bondEnds(source);
+        int[][] tEnds = bondEnds(target);
+
+        for (int i = n - 1; i > 0; i--) {
+            for (int j = 0; j < i; j++) {
+                EdgeType edgetype = edgePairsCompatible(qBond[i], tBond[i], qBond[j], tBond[j], qEnds, tEnds);
+                if (edgetype != null) {
+                    if (DEBUG) {
+                        System.out.println("n1: " + g.resolveVertex(i).getID()
+                                + ", " + "n2: " + g.resolveVertex(j).getID() + ", Edge " + edgetype);
+                    }
+                    //Assume it to be a undirected graph
+                    g.addEdge(i, j, edgetype);
                 }
-                counter++;
             }
         }
 
@@ -178,6 +176,16 @@ public final class EdgeProductGraph implements Serializable {
         return g.E();
     }
 
+    private static int[][] bondEnds(IAtomContainer ac) {
+        int[][] ends = new int[ac.getBondCount()][2];
+        for (int i = 0; i < ac.getBondCount(); i++) {
+            IBond b = ac.getBond(i);
+            ends[i][0] = ac.indexOf(b.getBegin());
+            ends[i][1] = ac.indexOf(b.getEnd());
+        }
+        return ends;
+    }
+
     /**
      * Returns true when two edge pairs (e1,e2) and (f1,f2) are compatible
      *
@@ -187,36 +195,29 @@ public final class EdgeProductGraph implements Serializable {
      * G2, 3) or e1,f1 and e2,f2 are not adjacent in G1 and in G2, respectively
      *
      */
-    private EdgeType edgePairsCompatible(Vertex p1, Vertex p2) {
-        //either e1,f1 in G1 are connected via a vertex of the same label as the vertex shared by e2,f2 in G2
-        //or e1,f1 and e2,f2 are not adjacent in G1 and in G2, respectively
-        IBond e1, e2, f1, f2;
-        e1 = source.getBond(p1.getQueryBondIndex()); //Edge in G1
-        e2 = target.getBond(p1.getTargetBondIndex()); //Edge in G2
-        f1 = source.getBond(p2.getQueryBondIndex()); //Edge in G1
-        f2 = target.getBond(p2.getTargetBondIndex()); //Edge in G2
-
+    private EdgeType edgePairsCompatible(int e1, int e2, int f1, int f2, int[][] qEnds, int[][] tEnds) {
         //check condition 1)
         if (e1 == f1 || e2 == f2) {
             //condition 1 not satisfied, edges are not compatible
             return null;
         }
-
-        Set<IAtom> possibleVerticesG1 = commonVertices(source, e1, f1);
-        Set<IAtom> possibleVerticesG2 = commonVertices(target, e2, f2);
+        //either e1,f1 in G1 are connected via a vertex of the same label as the vertex shared by e2,f2 in G2
+        //or e1,f1 and e2,f2 are not adjacent in G1 and in G2, respectively
+        int[] possibleVerticesG1 = commonVertices(qEnds[e1], qEnds[f1]);
+        int[] possibleVerticesG2 = commonVertices(tEnds[e2], tEnds[f2]);
         if (DEBUG) {
-            System.out.println("possibleVerticesG1 " + possibleVerticesG1.size());
-            System.out.println("possibleVerticesG2 " + possibleVerticesG2.size());
+            System.out.println("possibleVerticesG1 " + possibleVerticesG1.length);
+            System.out.println("possibleVerticesG2 " + possibleVerticesG2.length);
         }
-        if (possibleVerticesG1.isEmpty() && possibleVerticesG2.isEmpty()) {
+        if (possibleVerticesG1.length == 0 && possibleVerticesG2.length == 0) {
             //e1,f1 and e2,f2 are not adjacent in G1 and in G2, respectively
             //Create a D_Edge
             return EdgeType.D_EDGE;
         }
-        if (!possibleVerticesG1.isEmpty() && !possibleVerticesG2.isEmpty()) {
-            for (IAtom v1 : possibleVerticesG1) {
-                for (IAtom v2 : possibleVerticesG2) {
-                    if (AtomBondMatcher.matches(v1, v2, atomMatcher)) {
+        if (possibleVerticesG1.length != 0 && possibleVerticesG2.length != 0) {
+            for (int v1 : possibleVerticesG1) {
+                for (int v2 : possibleVerticesG2) {
+                    if (atomMatcher.matches(sourceInvariants, v1, targetInvariants, v2)) {
                         // e1,f1 in G1 are connected via a vertex of
                         // the same label as the vertex shared by e2,f2 in G2.
                         //A C_edge should be created
@@ -230,6 +231,31 @@ public final class EdgeProductGraph implements Serializable {
         return null;
     }
 
+    private static final int[] NONE = new int[0];
+
+    /*
+     * Atoms shared by two bonds (0, 1 or 2), in the order of commonVertices
+     */
+    private static int[] commonVertices(int[] e1, int[] e2) {
+        int a = -1, b = -1;
+        if (e1[0] == e2[0] || e1[0] == e2[1]) {
+            a = e1[0];
+        }
+        if (e1[1] == e2[0] || e1[1] == e2[1]) {
+            b = e1[1];
+        }
+        if (a == -1 && b == -1) {
+            return NONE;
+        }
+        if (a == -1) {
+            return new int[]{b};
+        }
+        if (b == -1 || a == b) {
+            return new int[]{a};
+        }
+        return new int[]{a, b};
+    }
+
     /**
      * Returns a set with the common vertices of edge E1 and E2 in Graph g The
      * result will be a Set of size 0, 1 or 2
@@ -4,6 +4,8 @@
 package org.openscience.smsd.graph;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -11,10 +13,13 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.TreeSet;
 
 /**
+ * Compatibility graph. The vertices are indexed in insertion order and the
+ * adjacency of each vertex is held as a bit set over these indices, with
+ * separate masks for the C-edges and the D-edges, so that the clique finders
+ * intersect neighbourhoods word by word.
  *
  * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
  */
@@ -22,11 +27,13 @@ public final class Graph implements Iterable<Vertex> {
 
     private static final String NEWLINE = System.getProperty("line.separator");
 
-    private final Map<Vertex, Set<Vertex>> adj;
-    private final Map<Vertex, Set<Vertex>> c_adj;
-    private final Map<Vertex, Set<Vertex>> d_adj;
-    private final Map<EdgeType, Set<Edge>> adj_type_Map;
+    private final List<BitSet> adj;
+    private final List<BitSet> c_adj;
+    private final List<BitSet> d_adj;
+    private final Map<Vertex, Integer> index;
     private final List<Vertex> vertices;
+    private int c_edges;
+    private int d_edges;
 
     /**
      * Initializes an empty graph with {@code V} vertices and 0 edges.param V
@@ -35,10 +42,12 @@ public final class Graph implements Iterable<Vertex> {
      */
     public Graph() {
         this.vertices = new ArrayList<>();
-        this.adj = new TreeMap<>();
-        this.c_adj = new TreeMap<>();
-        this.d_adj = new TreeMap<>();
-        this.adj_type_Map = new HashMap<>();
+        this.index = new HashMap<>();
+        this.adj = new ArrayList<>();
+        this.c_adj = new ArrayList<>();
+        this.d_adj = new ArrayList<>();
+        this.c_edges = 0;
+        this.d_edges = 0;
     }
 
     /**
@@ -56,7 +65,7 @@ public final class Graph implements Iterable<Vertex> {
      * @return the number of edges in this graph
      */
     public int E() {
-        return edges().size();
+        return c_edges + d_edges;
     }
 
     /**
@@ -77,73 +86,52 @@ public final class Graph implements Iterable<Vertex> {
      */
     public Set<Edge> edges() {
         Set<Edge> edgesSet = new HashSet<>();
-        adj_type_Map.values().forEach((edges) -> {
-            edgesSet.addAll(edges);
-        });
+        edgesSet.addAll(getEdgesOfType(EdgeType.C_EDGE));
+        edgesSet.addAll(getEdgesOfType(EdgeType.D_EDGE));
         return edgesSet;
     }
 
-    private void validateVertex(Vertex v) {
-        if (!vertices.contains(v)) {
+    private int validateVertex(Vertex v) {
+        Integer i = index.get(v);
+        if (i == null) {
             throw new IllegalArgumentException("vertex " + v + " not found in the graph");
         }
+        return i;
     }
 
     public void addEdge(Vertex v, Vertex u, EdgeType e) {
-
-        validateVertex(v);
-        validateVertex(u);
-        Edge edge = new Edge(vertices.indexOf(v), vertices.indexOf(u));
-        edge.setEdgeType(e);
-        addEdge(edge);
+        addEdge(validateVertex(v), validateVertex(u), e);
     }
 
     /**
-     * Adds the undirected edge v-w to this graph. Assumes that the nodes
-     * assigned in the edge is already present
+     * Adds the undirected edge v-u to this graph.
      *
-     * @param e edge to be added
+     * @param v index of a vertex
+     * @param u index of a vertex
+     * @param e edge type
      */
-    private void addEdge(Edge e) {
-
-        /*
-         * Add edges to the map
-         */
-        addEdge(adj, e);
-
-        /*
-         * Add C edges to the map
-         */
-        if (e.getEdgeType() == EdgeType.C_EDGE) {
-            addEdge(c_adj, e);
+    public void addEdge(int v, int u, EdgeType e) {
+        if (v < 0 || v >= vertices.size() || u < 0 || u >= vertices.size()) {
+            throw new IllegalArgumentException("vertex index " + v + " or " + u + " not found in the graph");
         }
+        adj.get(v).set(u);
+        adj.get(u).set(v);
         /*
-         * Add D edges to the map
+         * Add C edges to the mask
          */
-        if (e.getEdgeType() == EdgeType.D_EDGE) {
-            addEdge(d_adj, e);
+        if (e == EdgeType.C_EDGE && !c_adj.get(v).get(u)) {
+            c_adj.get(v).set(u);
+            c_adj.get(u).set(v);
+            c_edges++;
         }
         /*
-         * Add Edge type to the map
+         * Add D edges to the mask
          */
-        if (!adj_type_Map.containsKey(e.getEdgeType())) {
-            adj_type_Map.put(e.getEdgeType(), new HashSet<>());
+        if (e == EdgeType.D_EDGE && !d_adj.get(v).get(u)) {
+            d_adj.get(v).set(u);
+            d_adj.get(u).set(v);
+            d_edges++;
         }
-        adj_type_Map.get(e.getEdgeType()).add(e);
-
-    }
-
-    private void addEdge(Map map, Edge e) {
-        addEdge(map, vertices.get(e.getSource()), vertices.get(e.getSink()));
-        addEdge(map, vertices.get(e.getSink()), vertices.get(e.getSource()));
-
-    }
-
-    private void addEdge(Map<Vertex, Set<Vertex>> map, Vertex u, Vertex v) {
-        if (!map.containsKey(u)) {
-            map.put(u, new HashSet<>());
-        }
-        map.get(u).add(v);
     }
 
     /**
@@ -152,14 +140,61 @@ public final class Graph implements Iterable<Vertex> {
      * @param node Vertex to be added
      */
     public void addNode(Vertex node) {
-        if (!adj.containsKey(node)) {
-            adj.put(node, new HashSet<>());
+        if (!index.containsKey(node)) {
+            index.put(node, vertices.size());
             vertices.add(node);
+            adj.add(new BitSet());
+            c_adj.add(new BitSet());
+            d_adj.add(new BitSet());
         } else {
             throw new IllegalArgumentException("Node " + node + " found in the graph");
         }
     }
 
+    /**
+     * Returns the index of a vertex (its insertion order).
+     *
+     * @param v the vertex
+     * @return index of the vertex, -1 if not in this graph
+     */
+    public int indexOf(Vertex v) {
+        Integer i = index.get(v);
+        return i == null ? -1 : i;
+    }
+
+    /**
+     * Returns the vertices adjacent to the vertex at an index. The bit set is
+     * the one held by the graph and must not be modified.
+     *
+     * @param v index of the vertex
+     * @return indices of the adjacent vertices
+     */
+    public BitSet getAdjacency(int v) {
+        return adj.get(v);
+    }
+
+    /**
+     * Returns the vertices adjacent via a C-edge to the vertex at an index.
+     * The bit set is the one held by the graph and must not be modified.
+     *
+     * @param v index of the vertex
+     * @return indices of the C-edge neighbours
+     */
+    public BitSet getCAdjacency(int v) {
+        return c_adj.get(v);
+    }
+
+    /**
+     * Returns the vertices adjacent via a D-edge to the vertex at an index.
+     * The bit set is the one held by the graph and must not be modified.
+     *
+     * @param v index of the vertex
+     * @return indices of the D-edge neighbours
+     */
+    public BitSet getDAdjacency(int v) {
+        return d_adj.get(v);
+    }
+
     /**
      * Returns the vertices adjacent to vertex {@code v}.
      *
@@ -167,8 +202,7 @@ public final class Graph implements Iterable<Vertex> {
      * @return the vertices adjacent to vertex {@code v}, as an iterable
      */
     public Set<Vertex> getNeighbours(Vertex v) {
-        validateVertex(v);
-        return new TreeSet<>(adj.get(v));
+        return toVertices(adj.get(validateVertex(v)), new TreeSet<>());
     }
 
     /**
@@ -178,8 +212,22 @@ public final class Graph implements Iterable<Vertex> {
      * @return the getDegree of vertex {@code v}
      */
     public int getDegree(Vertex v) {
-        validateVertex(v);
-        return adj.get(v).size();
+        return adj.get(validateVertex(v)).cardinality();
+    }
+
+    /**
+     * Returns the vertices at the given indices.
+     *
+     * @param <T>
+     * @param indices indices of vertices
+     * @param set set to which the vertices are added
+     * @return the set
+     */
+    public <T extends Collection<Vertex>> T toVertices(BitSet indices, T set) {
+        for (int i = indices.nextSetBit(0); i >= 0; i = indices.nextSetBit(i + 1)) {
+            set.add(vertices.get(i));
+        }
+        return set;
     }
 
     /**
@@ -191,18 +239,15 @@ public final class Graph implements Iterable<Vertex> {
     @Override
     public String toString() {
         StringBuilder s = new StringBuilder();
-        s.append(vertices.size()).append(" vertices, ").append(edges().size()).append(" edges ").append(NEWLINE);
-        adj.entrySet().stream().map((m) -> {
-            s.append(m.getKey()).append(": ");
-            return m;
-        }).map((m) -> {
-            m.getValue().forEach((w) -> {
-                s.append(w).append(" ");
-            });
-            return m;
-        }).forEachOrdered((_item) -> {
+        s.append(vertices.size()).append(" vertices, ").append(E()).append(" edges ").append(NEWLINE);
+        for (int i = 0; i < vertices.size(); i++) {
+            s.append(vertices.get(i)).append(": ");
+            BitSet n = adj.get(i);
+            for (int j = n.nextSetBit(0); j >= 0; j = n.nextSetBit(j + 1)) {
+                s.append(vertices.get(j)).append(" ");
+            }
             s.append(NEWLINE);
-        });
+        }
         return s.toString();
     }
 
@@ -211,10 +256,12 @@ public final class Graph implements Iterable<Vertex> {
      */
     public void clear() {
         this.vertices.clear();
+        this.index.clear();
         this.adj.clear();
         this.c_adj.clear();
         this.d_adj.clear();
-        this.adj_type_Map.clear();
+        this.c_edges = 0;
+        this.d_edges = 0;
     }
 
     /**
@@ -224,8 +271,9 @@ public final class Graph implements Iterable<Vertex> {
      * @return if an edge exists between vertex
      */
     public boolean hasEdge(Vertex u, Vertex v) {
-        return adj.containsKey(u) && adj.get(u).contains(v) ? true
-                : adj.containsKey(v) && adj.get(v).contains(u);
+        Integer i = index.get(u);
+        Integer j = index.get(v);
+        return i != null && j != null && adj.get(i).get(j);
     }
 
     /**
@@ -235,17 +283,10 @@ public final class Graph implements Iterable<Vertex> {
      * @return
      */
     public Iterable<Edge> edgesOf(Vertex currentVertex) {
-        validateVertex(currentVertex);
-        Integer v = vertices.indexOf(currentVertex);
+        int v = validateVertex(currentVertex);
         Set<Edge> edgesOfVertex = new LinkedHashSet<>();
-        edges().stream().map((e) -> {
-            if (e.getSource().equals(v)) {
-                edgesOfVertex.add(e);
-            }
-            return e;
-        }).filter((e) -> (e.getSink().equals(v))).forEachOrdered((e) -> {
-            edgesOfVertex.add(e);
-        });
+        addEdges(edgesOfVertex, v, c_adj.get(v), EdgeType.C_EDGE);
+        addEdges(edgesOfVertex, v, d_adj.get(v), EdgeType.D_EDGE);
         return edgesOfVertex;
     }
 
@@ -257,10 +298,7 @@ public final class Graph implements Iterable<Vertex> {
      * @return true if there is c edge else false
      */
     public boolean isCEdge(Vertex u, Vertex v) {
-        validateVertex(u);
-        validateVertex(v);
-        return c_adj.containsKey(u) && c_adj.get(u).contains(v) ? true
-                : c_adj.containsKey(v) && c_adj.get(v).contains(u);
+        return c_adj.get(validateVertex(u)).get(validateVertex(v));
     }
 
     /**
@@ -271,10 +309,7 @@ public final class Graph implements Iterable<Vertex> {
      * @return true if there is d edge else false
      */
     public boolean isDEdge(Vertex u, Vertex v) {
-        validateVertex(u);
-        validateVertex(v);
-        return d_adj.containsKey(u) && d_adj.get(u).contains(v) ? true
-                : d_adj.containsKey(v) && d_adj.get(v).contains(u);
+        return d_adj.get(validateVertex(u)).get(validateVertex(v));
     }
 
     /**
@@ -304,38 +339,45 @@ public final class Graph implements Iterable<Vertex> {
     }
 
     /**
+     * Removes a vertex, the vertices added after it move down one index.
      *
      * @param v
      * @return
      */
     public boolean removeVertex(Vertex v) {
-        adj.keySet().stream().filter((key) -> (!adj.get(key).isEmpty()
-                && adj.get(key).contains(v))).forEachOrdered((key) -> {
-            adj.get(key).remove(v);
-        });
-        c_adj.keySet().stream().filter((key) -> (!c_adj.get(key).isEmpty()
-                && c_adj.get(key).contains(v))).forEachOrdered((key) -> {
-            c_adj.get(key).remove(v);
-        });
-
-        d_adj.keySet().stream().filter((key) -> (!d_adj.get(key).isEmpty()
-                && d_adj.get(key).contains(v))).forEachOrdered((key) -> {
-            d_adj.get(key).remove(v);
-        });
-
-        adj_type_Map.entrySet().forEach((c) -> {
-            c.getValue().stream().filter((e) -> (vertices.get(e.getSource()) == v
-                    || vertices.get(e.getSink()) == v)).forEachOrdered((e) -> {
-                adj_type_Map.get(c.getKey()).remove(e);
-            });
-        });
-
-        adj.remove(v);
-        c_adj.remove(v);
-        d_adj.remove(v);
-
-        return this.vertices.remove(v);
+        Integer k = index.remove(v);
+        if (k == null) {
+            return false;
+        }
+        c_edges -= c_adj.get(k).cardinality();
+        d_edges -= d_adj.get(k).cardinality();
+        adj.remove((int) k);
+        c_adj.remove((int) k);
+        d_adj.remove((int) k);
+        vertices.remove((int) k);
+        for (int i = 0; i < vertices.size(); i++) {
+            removeBit(adj.get(i), k);
+            removeBit(c_adj.get(i), k);
+            removeBit(d_adj.get(i), k);
+            if (i >= k) {
+                index.put(vertices.get(i), i);
+            }
+        }
+        return true;
+    }
 
+    /*
+     * Clear bit k and shift the higher bits down by one
+     */
+    private static void removeBit(BitSet b, int k) {
+        if (b.length() <= k) {
+            return;
+        }
+        BitSet high = b.get(k + 1, b.length());
+        b.clear(k, b.length());
+        for (int i = high.nextSetBit(0); i >= 0; i = high.nextSetBit(i + 1)) {
+            b.set(k + i);
+        }
     }
 
     /**
@@ -346,15 +388,25 @@ public final class Graph implements Iterable<Vertex> {
      */
     private Set<Edge> getEdgesOfType(EdgeType e) {
         Set<Edge> edgesOfTypes = new HashSet<>();
-        if (adj_type_Map.containsKey(e)) {
-            edgesOfTypes.addAll(adj_type_Map.get(e));
+        List<BitSet> masks = e == EdgeType.C_EDGE ? c_adj : e == EdgeType.D_EDGE ? d_adj : null;
+        if (masks != null) {
+            for (int i = 0; i < masks.size(); i++) {
+                addEdges(edgesOfTypes, i, masks.get(i).get(0, i), e);
+            }
         }
         return edgesOfTypes;
     }
 
+    private static void addEdges(Set<Edge> edges, int v, BitSet neighbours, EdgeType e) {
+        for (int j = neighbours.nextSetBit(0); j >= 0; j = neighbours.nextSetBit(j + 1)) {
+            Edge edge = new Edge(v, j);
+            edge.setEdgeType(e);
+            edges.add(edge);
+        }
+    }
+
     public Set<Vertex> getCEdgeNeighbours(Vertex u) {
-        validateVertex(u);
-        return c_adj.containsKey(u) ? new HashSet<>(c_adj.get(u)) : new HashSet<>();
+        return toVertices(c_adj.get(validateVertex(u)), new HashSet<>());
     }
 
     @Override
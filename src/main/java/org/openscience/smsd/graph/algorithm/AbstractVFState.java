@@ -26,6 +26,8 @@ package org.openscience.smsd.graph.algorithm;
 
 
 import java.util.Arrays;
+import org.openscience.smsd.algorithm.matchers.AtomMatcher;
+import org.openscience.smsd.algorithm.matchers.BondMatcher;
 
 /**
  * A state for the Vento-Foggia (VF) algorithm. The state allows adding and
@@ -33,6 +35,10 @@ import java.util.Arrays;
  * #nextN(int)} and {@link #nextM(int, int)}. The feasibility check is left for
  * subclasses to implement.
  *
+ * The containers are matched in their compiled form and the atom and bond
+ * matcher results are kept in {@link Matches} tables shared by the states of
+ * one query and target, so the search does not allocate between two mappings.
+ *
  * @author John May
  * @cdk.module isomorphism
  */
@@ -41,9 +47,51 @@ abstract class AbstractVFState extends State {
     /** Value indicates a vertex is unmapped. */
     protected static final int UNMAPPED = -1;
 
+    /** Value of an atom or bond pair not yet compared. */
+    private static final byte UNKNOWN = 0, MATCH = 1, MISMATCH = 2;
+
+    /** Largest matcher table kept (pairs, one byte each). */
+    private static final int MAX_TABLE = 1 << 20;
+
+    /** The compiled query (q) and target (t). */
+    protected final CompiledGraph q, t;
+
     /** Adjacency list representation of the containers. */
     protected final int[][]    g1, g2;
 
+    /** Bond indices of the adjacency list entries. */
+    protected final int[][]    e1, e2;
+
+    /** Defines how atoms are matched. */
+    private final AtomMatcher  atomMatcher;
+
+    /** Defines how bonds are matched. */
+    private final BondMatcher  bondMatcher;
+
+    /** Atom and bond matcher results, indexed by query * |target| + target. */
+    private final byte[]       atomMatches, bondMatches;
+
+    /**
+     * Atom and bond matcher results of a query and target, sized to their
+     * atom and bond counts. The tables of large pairs are not kept (the
+     * matchers are called directly). A byte is only ever set to the result of
+     * the (deterministic) matcher, the tables may be shared by the states of
+     * several threads.
+     */
+    static final class Matches {
+
+        private final byte[] atoms, bonds;
+
+        Matches(CompiledGraph q, CompiledGraph t) {
+            this.atoms = table(q.order(), t.order());
+            this.bonds = table(q.size(), t.size());
+        }
+
+        private static byte[] table(int n, int m) {
+            return (long) n * m <= MAX_TABLE ? new byte[n * m] : null;
+        }
+    }
+
     /** Mapping - m1 is the the mapping from g1 to g1, m2 is from g2 to g1. */
     protected final int[]      m1, m2;
 
@@ -54,23 +102,73 @@ abstract class AbstractVFState extends State {
     protected int              size;
 
     /**
-     * Create a state which will be used to match g1 in g2.
+     * Create a state which will be used to match q in t.
      *
-     * @param g1 find this graph
-     * @param g2 search this graph
+     * @param q find this graph
+     * @param t search this graph
+     * @param matches matcher results of q and t
+     * @param atomMatcher what semantic attributes (symbol, charge, query)
+     * determines atoms to be compatible
+     * @param bondMatcher what semantic attributes (order/aromatic, query)
+     * determines bonds to be compatible
      */
-    public AbstractVFState(final int[][] g1, final int[][] g2) {
-        this.g1 = g1;
-        this.g2 = g2;
+    public AbstractVFState(final CompiledGraph q, final CompiledGraph t, Matches matches,
+            AtomMatcher atomMatcher, BondMatcher bondMatcher) {
+        this.q = q;
+        this.t = t;
+        this.g1 = q.g;
+        this.g2 = t.g;
+        this.e1 = q.e;
+        this.e2 = t.e;
+        this.atomMatcher = atomMatcher;
+        this.bondMatcher = bondMatcher;
         this.m1 = new int[g1.length];
         this.m2 = new int[g2.length];
         this.t1 = new int[g1.length];
         this.t2 = new int[g2.length];
+        this.atomMatches = matches.atoms;
+        this.bondMatches = matches.bonds;
         size = 0;
         Arrays.fill(m1, UNMAPPED);
         Arrays.fill(m2, UNMAPPED);
     }
 
+    /**
+     * Semantic feasibility of the atoms n and m.
+     *
+     * @param n query atom
+     * @param m target atom
+     * @return the atoms match
+     */
+    final boolean atomMatches(int n, int m) {
+        if (atomMatches == null) {
+            return atomMatcher.matches(q.atoms[n], t.atoms[m]);
+        }
+        int k = n * g2.length + m;
+        if (atomMatches[k] == UNKNOWN) {
+            atomMatches[k] = atomMatcher.matches(q.atoms[n], t.atoms[m]) ? MATCH : MISMATCH;
+        }
+        return atomMatches[k] == MATCH;
+    }
+
+    /**
+     * Semantic feasibility of the bonds b1 and b2.
+     *
+     * @param b1 query bond index
+     * @param b2 target bond index
+     * @return the bonds match
+     */
+    final boolean bondMatches(int b1, int b2) {
+        if (bondMatches == null) {
+            return bondMatcher.matches(q.bonds[b1], t.bonds[b2]);
+        }
+        int k = b1 * t.size() + b2;
+        if (bondMatches[k] == UNKNOWN) {
+            bondMatches[k] = bondMatcher.matches(q.bonds[b1], t.bonds[b2]) ? MATCH : MISMATCH;
+        }
+        return bondMatches[k] == MATCH;
+    }
+
     /**
      * Given the current query candidate (n), find the next candidate. The next
      * candidate is the next vertex > n (in some ordering) that is unmapped and
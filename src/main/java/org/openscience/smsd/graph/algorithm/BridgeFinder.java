@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package org.openscience.smsd.graph.algorithm;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import org.openscience.cdk.interfaces.IAtomContainer;
+
+/**
+ * Bridges of a molecule and the fragments left by removing a bond, found in
+ * one depth first search on the int adjacency of the molecule (Tarjan). Bonds
+ * and atoms are referred to by their index in the container.
+ *
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public final class BridgeFinder {
+
+    private final int atomCount;
+    private final int[][] g;
+    private final int[][] e;
+    private final int[] bondBegin;
+    private final int[] bondEnd;
+
+    /**
+     * Component of each atom, and size of each component.
+     */
+    private final int[] component;
+    private final int[] componentSize;
+    private final int smallestComponentSize;
+
+    /**
+     * Atoms on the far side of a bridge (the DFS subtree), 0 if the bond is
+     * not a bridge.
+     */
+    private final int[] bridgeSide;
+
+    /**
+     * Analyse a molecule.
+     *
+     * @param container the molecule
+     */
+    public BridgeFinder(IAtomContainer container) {
+        this.atomCount = container.getAtomCount();
+        int bondCount = container.getBondCount();
+        this.bondBegin = new int[bondCount];
+        this.bondEnd = new int[bondCount];
+        int[] degree = new int[atomCount];
+        for (int k = 0; k < bondCount; k++) {
+            int v = container.indexOf(container.getBond(k).getBegin());
+            int w = container.indexOf(container.getBond(k).getEnd());
+            if (v < 0 || w < 0 || v == w) {
+                v = w = -1;
+            } else {
+                degree[v]++;
+                degree[w]++;
+            }
+            bondBegin[k] = v;
+            bondEnd[k] = w;
+        }
+        this.g = new int[atomCount][];
+        this.e = new int[atomCount][];
+        for (int u = 0; u < atomCount; u++) {
+            g[u] = new int[degree[u]];
+            e[u] = new int[degree[u]];
+            degree[u] = 0;
+        }
+        for (int k = 0; k < bondCount; k++) {
+            int v = bondBegin[k];
+            int w = bondEnd[k];
+            if (v >= 0) {
+                g[v][degree[v]] = w;
+                e[v][degree[v]++] = k;
+                g[w][degree[w]] = v;
+                e[w][degree[w]++] = k;
+            }
+        }
+
+        this.component = new int[atomCount];
+        this.bridgeSide = new int[bondCount];
+        int[] sizes = new int[atomCount];
+        int components = search(sizes);
+        this.componentSize = Arrays.copyOf(sizes, components);
+        int smallest = atomCount;
+        for (int size : componentSize) {
+            smallest = Math.min(smallest, size);
+        }
+        this.smallestComponentSize = smallest;
+    }
+
+    /*
+     * Iterative DFS: discovery time, low link and subtree size of each atom, a
+     * tree bond is a bridge if the subtree below it has no back bond above it.
+     * Parallel bonds are told apart by their index.
+     */
+    private int search(int[] sizes) {
+        int[] tin = new int[atomCount];
+        int[] low = new int[atomCount];
+        int[] subtree = new int[atomCount];
+        int[] parentBond = new int[atomCount];
+        int[] next = new int[atomCount];
+        int[] stack = new int[atomCount];
+        Arrays.fill(tin, -1);
+        int timer = 0;
+        int components = 0;
+        for (int root = 0; root < atomCount; root++) {
+            if (tin[root] != -1) {
+                continue;
+            }
+            int sp = 0;
+            stack[sp++] = root;
+            tin[root] = low[root] = timer++;
+            subtree[root] = 1;
+            parentBond[root] = -1;
+            component[root] = components;
+            while (sp > 0) {
+                int v = stack[sp - 1];
+                if (next[v] < g[v].length) {
+                    int w = g[v][next[v]];
+                    int bond = e[v][next[v]];
+                    next[v]++;
+                    if (bond == parentBond[v]) {
+                        continue;
+                    }
+                    if (tin[w] == -1) {
+                        tin[w] = low[w] = timer++;
+                        subtree[w] = 1;
+                        parentBond[w] = bond;
+                        component[w] = components;
+                        stack[sp++] = w;
+                    } else if (tin[w] < low[v]) {
+                        low[v] = tin[w];
+                    }
+                } else {
+                    sp--;
+                    if (sp > 0) {
+                        int p = stack[sp - 1];
+                        if (low[v] < low[p]) {
+                            low[p] = low[v];
+                        }
+                        subtree[p] += subtree[v];
+                        if (low[v] > tin[p]) {
+                            bridgeSide[parentBond[v]] = subtree[v];
+                        }
+                    }
+                }
+            }
+            sizes[components++] = subtree[root];
+        }
+        return components;
+    }
+
+    /**
+     * @return number of connected components
+     */
+    public int getComponentCount() {
+        return componentSize.length;
+    }
+
+    /**
+     * @param bond bond index
+     * @return true if removing the bond disconnects its component
+     */
+    public boolean isBridge(int bond) {
+        return bond >= 0 && bond < bridgeSide.length && bridgeSide[bond] > 0;
+    }
+
+    /**
+     * Size of the smallest fragment once the bond is removed, the atom count
+     * if the molecule stays connected. An index out of range removes nothing.
+     *
+     * @param bond bond index
+     * @return atom count of the smallest fragment
+     */
+    public int getSmallestFragmentSize(int bond) {
+        if (isBridge(bond)) {
+            int size = componentSize[component[bondBegin[bond]]];
+            int side = bridgeSide[bond];
+            return Math.min(smallestComponentSize, Math.min(side, size - side));
+        }
+        return getComponentCount() > 1 ? smallestComponentSize : atomCount;
+    }
+
+    /**
+     * Number of connected components once the given bonds are removed.
+     *
+     * @param removedBonds bond indices
+     * @return number of components
+     */
+    public int getComponentCount(BitSet removedBonds) {
+        if (removedBonds.isEmpty()) {
+            return getComponentCount();
+        }
+        int[] parent = new int[atomCount];
+        for (int u = 0; u < atomCount; u++) {
+            parent[u] = u;
+        }
+        int components = atomCount;
+        for (int k = 0; k < bondBegin.length; k++) {
+            if (bondBegin[k] < 0 || removedBonds.get(k)) {
+                continue;
+            }
+            int a = find(parent, bondBegin[k]);
+            int b = find(parent, bondEnd[k]);
+            if (a != b) {
+                parent[a] = b;
+                components--;
+            }
+        }
+        return components;
+    }
+
+    private static int find(int[] parent, int u) {
+        while (parent[u] != u) {
+            parent[u] = parent[parent[u]];
+            u = parent[u];
+        }
+        return u;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package org.openscience.smsd.graph.algorithm;
+
+import java.util.Arrays;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+
+/**
+ * A container flattened for the VF matching: the adjacency list (in the order
+ * of {@link org.openscience.cdk.graph.GraphUtil#toAdjList}) with, for each
+ * entry, the index of the bond it stands for. Bonds are then looked up by
+ * position (or by a scan of the few neighbours of an atom) instead of a hash
+ * map.
+ *
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+final class CompiledGraph {
+
+    /**
+     * Default degree of an atom, the lists grow when needed.
+     */
+    private static final int DEFAULT_DEGREE = 4;
+
+    /**
+     * The container.
+     */
+    final IAtomContainer container;
+
+    /**
+     * Atoms and bonds of the container, by index.
+     */
+    final IAtom[] atoms;
+    final IBond[] bonds;
+
+    /**
+     * Adjacency list, g[u][i] is the i'th neighbour of u.
+     */
+    final int[][] g;
+
+    /**
+     * Bond indices, e[u][i] is the bond between u and g[u][i].
+     */
+    final int[][] e;
+
+    /**
+     * Compile a container.
+     *
+     * @param container the container
+     * @throws IllegalArgumentException a bond was not a pair of atoms of the
+     * container
+     */
+    CompiledGraph(IAtomContainer container) {
+        this.container = container;
+        int n = container.getAtomCount();
+        int nb = container.getBondCount();
+        this.atoms = new IAtom[n];
+        this.bonds = new IBond[nb];
+        for (int i = 0; i < n; i++) {
+            atoms[i] = container.getAtom(i);
+        }
+
+        int[][] adj = new int[n][DEFAULT_DEGREE];
+        int[][] ids = new int[n][DEFAULT_DEGREE];
+        int[] degree = new int[n];
+        for (int k = 0; k < nb; k++) {
+            IBond bond = container.getBond(k);
+            bonds[k] = bond;
+            if (bond.getAtomCount() != 2) {
+                throw new IllegalArgumentException("Edges must have exactly two atoms");
+            }
+            int v = container.indexOf(bond.getBegin());
+            int w = container.indexOf(bond.getEnd());
+            if (v < 0 || w < 0) {
+                throw new IllegalArgumentException("bond at index " + k
+                        + " contained an atom not present in molecule");
+            }
+            add(adj, ids, degree, v, w, k);
+            add(adj, ids, degree, w, v, k);
+        }
+
+        this.g = new int[n][];
+        this.e = new int[n][];
+        for (int u = 0; u < n; u++) {
+            g[u] = Arrays.copyOf(adj[u], degree[u]);
+            e[u] = Arrays.copyOf(ids[u], degree[u]);
+        }
+    }
+
+    private static void add(int[][] adj, int[][] ids, int[] degree, int v, int w, int bond) {
+        if (degree[v] == adj[v].length) {
+            adj[v] = Arrays.copyOf(adj[v], degree[v] * 2);
+            ids[v] = Arrays.copyOf(ids[v], degree[v] * 2);
+        }
+        adj[v][degree[v]] = w;
+        ids[v][degree[v]] = bond;
+        degree[v]++;
+    }
+
+    /**
+     * @param u an atom index
+     * @param v an atom index
+     * @return index of the bond between u and v, -1 if they are not bonded
+     */
+    int edge(int u, int v) {
+        int[] w = g[u];
+        for (int i = 0; i < w.length; i++) {
+            if (w[i] == v) {
+                return e[u][i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return number of atoms
+     */
+    int order() {
+        return atoms.length;
+    }
+
+    /**
+     * @return number of bonds
+     */
+    int size() {
+        return bonds.length;
+    }
+}
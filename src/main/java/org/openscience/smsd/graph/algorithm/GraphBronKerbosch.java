@@ -7,9 +7,9 @@ import org.openscience.smsd.graph.IClique;
 import org.openscience.smsd.graph.Vertex;
 import org.openscience.smsd.graph.Graph;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.Stack;
@@ -93,14 +93,11 @@ public class GraphBronKerbosch implements IClique {
     @Override
     public void findMaximalCliques() {
 
-        TreeSet<Vertex> potential_clique_R = new TreeSet<>();//R, 
-        TreeSet<Vertex> candidates_P = new TreeSet<>();//P
-        TreeSet<Vertex> already_found_X = new TreeSet<>();//X
+        BitSet potential_clique_R = new BitSet();//R, 
+        BitSet candidates_P = new BitSet();//P
+        BitSet already_found_X = new BitSet();//X
         // add all candidate vertices
-        Iterator<Vertex> iterator = graph.iterator();
-        while (iterator.hasNext()) {
-            candidates_P.add(iterator.next());
-        }
+        candidates_P.set(0, graph.V());
 
         int printDepth = 1;
 
@@ -164,20 +161,20 @@ public class GraphBronKerbosch implements IClique {
      * @param printDepth
      */
     private void BronKerboschWithPivot(
-            TreeSet<Vertex> R,
-            TreeSet<Vertex> P,
-            TreeSet<Vertex> X,
+            BitSet R,
+            BitSet P,
+            BitSet X,
             int printDepth) {
 
         if (DEBUG) {
-            System.out.println("BronKerboschWithPivot called: R=" + toText(R, "{", "}")
-                    + ", P=" + toText(P, "{", "}") + ", X=" + toText(X, "{", "}"));
+            System.out.println("BronKerboschWithPivot called: R=" + R
+                    + ", P=" + P + ", X=" + X);
         }
 
         if ((P.isEmpty()) && (X.isEmpty())) {
-            cliques.add(new HashSet<>(R));
+            cliques.add(graph.toVertices(R, new HashSet<>()));
             if (DEBUG) {
-                printClique(R);
+                printClique(graph.toVertices(R, new ArrayList<>()));
             }
             return;
         }
@@ -188,40 +185,37 @@ public class GraphBronKerbosch implements IClique {
         manager.increment();
 
         if (DEBUG && manager.getCounter() % 1000 == 0) {
-            System.out.print("    Found clique #" + manager.getCounter() + " of size " + R.size() + ".\n");
-            printClique(R);
-        }
-
-        Set<Vertex> P1 = new TreeSet<>(P);
-        if (DEBUG) {
-            System.out.println("P_PRIME " + P1);
+            System.out.print("    Found clique #" + manager.getCounter() + " of size " + R.cardinality() + ".\n");
         }
 
         /*
          * Find Pivot 
          */
-        Vertex u = getMaxDegreeVertex(new ArrayList<>(union(P1, X)));
+        int u = getMaxDegreeVertex(P, X);
         /*
          * P = P / Nbrs(u) 
          */
-        P1 = new TreeSet<>(removeNeigbour(P1, u));
+        BitSet P1 = (BitSet) P.clone();
+        if (u >= 0) {
+            P1.andNot(graph.getAdjacency(u));
+        }
 
         if (DEBUG) {
             System.out.println("P_Prime: " + P1 + " Depth: " + printDepth + " Pivot is " + (u));
         }
-        for (Vertex v : P1) {
+        for (int v = P1.nextSetBit(0); v >= 0; v = P1.nextSetBit(v + 1)) {
             //Push the id into selection set
-            R.add(v);
+            R.set(v);
             //Find neighbours
-            List<Vertex> neighbors = new ArrayList<>(findNeighbors(v));
-            if (DEBUG) {
-                System.out.println("Neighbours of v " + v + " are " + neighbors);
-            }
-            BronKerboschWithPivot(R, new TreeSet<>(intersect(P, neighbors)),
-                    new TreeSet<>(intersect(X, neighbors)), printDepth + 1);
-            R.remove(v);
-            P.remove(v);
-            X.add(v);
+            BitSet neighbors = graph.getAdjacency(v);
+            BitSet P2 = (BitSet) P.clone();
+            P2.and(neighbors);
+            BitSet X2 = (BitSet) X.clone();
+            X2.and(neighbors);
+            BronKerboschWithPivot(R, P2, X2, printDepth + 1);
+            R.clear(v);
+            P.clear(v);
+            X.set(v);
         }
     }
 
@@ -317,18 +311,18 @@ public class GraphBronKerbosch implements IClique {
     }
 
     /*
-     * Returns max degree of a vertex
+     * Returns max degree of a vertex of P UNION X (-1 if there is none)
      */
-    private Vertex getMaxDegreeVertex(List<Vertex> t) {
-        int i = 0, temp = 0;
-        Vertex n = null;
-        while (i < t.size()) {
-            int degreeVertex = getDegreeVertex(t.get(i));
+    private int getMaxDegreeVertex(BitSet P, BitSet X) {
+        int n = -1, temp = -1;
+        BitSet candidates = (BitSet) P.clone();
+        candidates.or(X);
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            int degreeVertex = graph.getAdjacency(i).cardinality();
             if (degreeVertex > temp) {
                 temp = degreeVertex;
-                n = t.get(i);
+                n = i;
             }
-            i += 1;
         }
         return n;
     }
@@ -401,13 +395,6 @@ public class GraphBronKerbosch implements IClique {
         return end;
     }
 
-    /*
-     * Returns degree of a vertex
-     */
-    private int getDegreeVertex(Vertex node) {
-        return this.graph.getDegree(node);
-    }
-
     /**
      * Returns whether an edge between vertices source and sink exists. whether
      * an edge exists between vertices x and y.
@@ -432,20 +419,6 @@ public class GraphBronKerbosch implements IClique {
         return intersection;
     }
 
-    // Union of two sets 
-    private Collection<Vertex> union(Collection<Vertex> source, Collection<Vertex> sink) {
-        Set<Vertex> union = new HashSet<>(source);
-        union.addAll(sink);
-        return union;
-    }
-
-    // Removes the neigbours 
-    private Collection<Vertex> removeNeigbour(Collection<Vertex> source, Vertex v) {
-        Set<Vertex> remaining = new HashSet<>(source);
-        remaining.removeAll(findNeighbors(v));
-        return remaining;
-    }
-
     /**
      * Debug function to get a string representation of a list.
      *
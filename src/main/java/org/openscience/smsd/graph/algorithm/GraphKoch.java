@@ -4,6 +4,7 @@
 package org.openscience.smsd.graph.algorithm;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import org.openscience.smsd.graph.IClique;
 import org.openscience.smsd.graph.Vertex;
 import org.openscience.smsd.graph.Graph;
@@ -109,53 +110,52 @@ public class GraphKoch implements IClique {
         if (DEBUG) {
             System.out.println("Starting koch ");
         }
-        Set<Vertex> result = new LinkedHashSet<>();
+        BitSet result = new BitSet();
         int currentmaxresult = 0;
-        Set<Vertex> T = new LinkedHashSet<>();		// T <- Empty
-        Set<Vertex> P, D, N, S;
+        BitSet T = new BitSet();		// T <- Empty
 
         //set of vertices which have already been used for the initialization of Enumerate_C_Cliques()
-        for (Vertex u : graph.nodes()) {				//for all u ELEMENTOF Vertex
+        for (Vertex vertex : graph.nodes()) {				//for all u ELEMENTOF Vertex
             if (manager.isMaxIteration()) {
                 //System.out.println("Reached max limit, " + manager.getIterationLimit() + " itertions. ");
                 return;
             }
-
-            P = new LinkedHashSet<>();			// P <- Empty
-            D = new LinkedHashSet<>();			// D <- Empty
-            S = new LinkedHashSet<>();			// S <- Empty
-            N = findNeighbors(u);	// N <- {v ELEMENTOF Vertex | {u,v} ELEMENTOF E}
-            if (DEBUG) {
-                System.out.println("\n\n\nfindNeighbors = u => " + N.size());
+            int u = graph.indexOf(vertex);
+
+            /*
+             * P <- {v | u and v are adjacent via a c-edge} \ T
+             * D <- {v | u and v are adjacent via a d-edge}
+             */
+            BitSet c = graph.getCAdjacency(u);
+            BitSet d = graph.getDAdjacency(u);
+            int[] P = new int[c.cardinality()];
+            int p = 0;
+            for (int v = c.nextSetBit(0); v >= 0; v = c.nextSetBit(v + 1)) {
+                if (!T.get(v)) {
+                    P[p++] = v;
+                }
             }
-            for (Vertex v : N) {					// for each v ELEMENTOF N
-                if (isCEdge(u, v)) {		// if u and v are adjacent via a c-edge
-                    if (DEBUG) {
-                        System.out.println("u " + u + ", v " + v);
-                    }
-                    if (T.contains(v)) {		// then if v ELEMENTOF T
-                        S.add(v);			// S <- S UNION {v}
-                    } else {
-                        P.add(v);			// else P <- P UNION {v}
-                    }
-                } else if (isDEdge(u, v)) {// else if u and v are adjacent via a d-edge
-                    D.add(v);				// D <- D UNION {v}
+            int[] D = new int[d.cardinality()];
+            int k = 0;
+            for (int v = d.nextSetBit(0); v >= 0; v = d.nextSetBit(v + 1)) {
+                if (!c.get(v)) {
+                    D[k++] = v;
                 }
             }
-            Set<Vertex> C = new LinkedHashSet<>();
-            C.add(u);
+            BitSet C = new BitSet();
+            C.set(u);
 
             if (DEBUG) {
-                System.out.println("C " + C + ", P " + P + ", D " + D + ", T " + T);
+                System.out.println("C " + C + ", P " + p + ", D " + k + ", T " + T);
             }
-            Set<Vertex> subresult;
-            subresult = Enumerate_C_Cliques(C, P, D, currentmaxresult); //ENUMERATE....(small footprint)
-            if (subresult != null && subresult.size() >= result.size()) {
+            BitSet subresult;
+            subresult = Enumerate_C_Cliques(C, 1, P, p, D, k, currentmaxresult); //ENUMERATE....(small footprint)
+            if (subresult != null && subresult.cardinality() >= result.cardinality()) {
                 result = subresult;
-                currentmaxresult = result.size();
-                cliques.add(result);
+                currentmaxresult = result.cardinality();
+                cliques.add(graph.toVertices(result, new LinkedHashSet<>()));
             }
-            T.add(u);						// T <- T UNION {v}
+            T.set(u);						// T <- T UNION {v}
             if (DEBUG) {
                 System.out.println("Current Max " + currentmaxresult);
             }
@@ -225,19 +225,23 @@ public class GraphKoch implements IClique {
     }
 
     /**
+     * The sets are held as vertex indices; P and D are ordered (the order in
+     * which the branches are explored) and only their first p and d entries
+     * are used.
      *
-     * @param g The graph where the largest clique needs to be found
      * @param C Set of vertices belonging to the current clique
+     * @param c size of C
      * @param P Set of vertices which can be added to C, because they are
      * neighbours of vertex u via C-Edges
      * @param D Set of vertices which cannot directly be added to C because they
      * are neighbours of u via D-Edges
      * @return the largest clique in graph g
      */
-    private Set<Vertex> Enumerate_C_Cliques(
-            Set<Vertex> C, Set<Vertex> P, Set<Vertex> D,
+    private BitSet Enumerate_C_Cliques(
+            BitSet C, int c, int[] P, int p, int[] D, int d,
             int currentmaxresult) {
-        Set<Vertex> result = new LinkedHashSet<>(C);
+        BitSet result = C;
+        int resultSize = c;
 
         if (manager.isMaxIteration()) {
             //System.out.println("Reached max limit, " + manager.getIterationLimit() + " itertions. ");
@@ -248,40 +252,46 @@ public class GraphKoch implements IClique {
         if (DEBUG2 && manager.getCounter() % 1000 == 0) {
             System.out.print("    Found clique #" + manager.getCounter()
                     + "/" + manager.getIterationLimit()
-                    + " of size " + result.size() + ".\n");
+                    + " of size " + resultSize + ".\n");
         }
 
-        if (P.isEmpty() || P.size() + C.size() + D.size() <= currentmaxresult) { //if p=EMPTY and s=EMPTY
+        if (p == 0 || p + c + d <= currentmaxresult) { //if p=EMPTY and s=EMPTY
             return result;                               //REPORT.CLIQUE
         } else {
-            Set<Vertex> P_Copy = new LinkedHashSet<>(P);
-            for (Vertex ui : P) {                    			 //for i <- 1 to k
-                P_Copy.remove(ui);             			 //P <-P\{ui}
-                Set<Vertex> P_Prime = new LinkedHashSet<>(P_Copy);    //P' <- P
-                Set<Vertex> D_Prime = new LinkedHashSet<>(D);		 //D' <- D
-                Set<Vertex> N = findNeighbors(ui);//N <- { v ELEMENTOF Vertex | {ui,v} ELEMENTOF E }
-                if (DEBUG) {
-                    System.out.println(ui + " = Nighbours: " + N.size());
+            for (int i = 0; i < p; i++) {                    	 //for i <- 1 to k
+                int ui = P[i];                     			 //P <-P\{ui}
+                BitSet N = graph.getAdjacency(ui);//N <- { v ELEMENTOF Vertex | {ui,v} ELEMENTOF E }
+                BitSet cN = graph.getCAdjacency(ui);
+                /*
+                 * P' <- (P UNION {v ELEMENTOF D | v and ui are adjacent via a
+                 * c-edge}) INTERSECTION N, D' <- (D \ P') INTERSECTION N
+                 */
+                int[] P_Prime = new int[p - i - 1 + d];
+                int[] D_Prime = new int[d];
+                int pp = 0, dp = 0;
+                for (int j = i + 1; j < p; j++) {
+                    if (N.get(P[j])) {
+                        P_Prime[pp++] = P[j];
+                    }
                 }
-                D.stream().filter((v) -> (isCEdge(ui, v))).map((v) -> {
-                    // if v and ui are adjacent via a c-edge
-                    P_Prime.add(v);					 //P' <- P' UNION {v}
-                    return v;
-                }).forEachOrdered((v) -> {
-                    D_Prime.remove(v);				 //D' <- D'\{v}
-                }); // for all v ELEMENTOF D'
-                //(note that D and D' are the same at this point, to allow concurrent modification we loop over D)
-
-                Set<Vertex> C_Copy = new LinkedHashSet<>(C);
-                C_Copy.add(ui);               			 //C UNION {ui}
-                P_Prime.retainAll(N);                      //P' INTERSECTION N
-                D_Prime.retainAll(N);						 //D' INTERSECTION N
-
-                Set<Vertex> clique = Enumerate_C_Cliques(C_Copy, P_Prime, D_Prime, currentmaxresult); //ENUMERATE.C_CLIQUES....
-
-                if (clique != null && clique.size() > result.size()) {
+                for (int j = 0; j < d; j++) {
+                    int v = D[j];
+                    if (cN.get(v)) {
+                        P_Prime[pp++] = v;
+                    } else if (N.get(v)) {
+                        D_Prime[dp++] = v;
+                    }
+                }
+
+                BitSet C_Copy = (BitSet) C.clone();
+                C_Copy.set(ui);               			 //C UNION {ui}
+
+                BitSet clique = Enumerate_C_Cliques(C_Copy, c + 1, P_Prime, pp, D_Prime, dp, currentmaxresult); //ENUMERATE.C_CLIQUES....
+                int size = clique == C_Copy ? c + 1 : clique.cardinality();
+                if (size > resultSize) {
                     result = clique;
-                    currentmaxresult = clique.size();
+                    resultSize = size;
+                    currentmaxresult = size;
                 }
             }
         }
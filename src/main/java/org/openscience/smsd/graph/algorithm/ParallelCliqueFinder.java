@@ -0,0 +1,419 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package org.openscience.smsd.graph.algorithm;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Stack;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import org.openscience.cdk.tools.ILoggingTool;
+import static org.openscience.cdk.tools.LoggingToolFactory.createLoggingTool;
+import org.openscience.smsd.graph.Graph;
+import org.openscience.smsd.graph.IClique;
+import org.openscience.smsd.graph.Vertex;
+import org.openscience.smsd.tools.Deadline;
+import org.openscience.smsd.tools.SharedExecutor;
+
+/**
+ * Branch and bound search of the largest c-cliques (cliques connected by
+ * C-edges, i.e. connected common substructures) of a compatibility graph.
+ *
+ * The search follows the Koch enumeration (a vertex adjacent via D-edges only
+ * joins the candidates once it is C-adjacent to the clique) and adds:
+ *
+ * - a Tomita style pivot: the branches are the candidates not adjacent to the
+ * candidate with the most candidate neighbours (chosen among the candidates
+ * adjacent to every D-vertex, so that skipping its neighbours is safe),
+ *
+ * - a greedy colouring bound: a branch is dropped when the clique plus the
+ * number of colours of the remaining vertices can not reach the best size,
+ *
+ * - the top level branches (one per initial vertex) run as jobs on the
+ * {@link SharedExecutor}.
+ *
+ * Each branch has its own budget of search nodes and is only bounded by its
+ * own best clique and by the size of a greedy clique found before the search.
+ * A branch therefore does not depend on the others or on the scheduling, and
+ * the clique reported (the first largest clique of the first branch holding
+ * one, else the greedy clique) is the same from run to run, also when a budget runs out. Only the
+ * deadline of the reaction can stop the branches at different points.
+ *
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public class ParallelCliqueFinder implements IClique {
+
+    private final static boolean DEBUG = false;
+    private final static ILoggingTool LOGGER
+            = createLoggingTool(ParallelCliqueFinder.class);
+
+    /**
+     * Compatibility graphs of this size or more are searched with this class,
+     * smaller ones with {@link GraphKoch} (which also lists the cliques of the
+     * same size found by the other branches).
+     */
+    public static final int MIN_VERTICES = 256;
+
+    /**
+     * @param compatibilityGraph
+     * @return clique finder suited to the size of the graph
+     */
+    public static IClique create(Graph compatibilityGraph) {
+        return compatibilityGraph.V() >= MIN_VERTICES
+                ? new ParallelCliqueFinder(compatibilityGraph)
+                : new GraphKoch(compatibilityGraph);
+    }
+
+    private final Graph graph;
+    private final Collection<Set<Vertex>> cliques;
+    private final int branchLimit;
+    private final Deadline deadline;
+    private volatile boolean stop;
+    private BitSet greedy;
+    private int lowerBound;
+
+    /**
+     *
+     * @param compatibilityGraph
+     */
+    public ParallelCliqueFinder(Graph compatibilityGraph) {
+        this(compatibilityGraph, Math.min(compatibilityGraph.V() * 100, 50000));
+    }
+
+    /**
+     *
+     * @param compatibilityGraph
+     * @param limit maximum number of search nodes (-1 for no limit), shared
+     * out evenly between the top level branches
+     */
+    public ParallelCliqueFinder(Graph compatibilityGraph, int limit) {
+        this.graph = compatibilityGraph;
+        this.cliques = new LinkedHashSet<>();
+        this.branchLimit = limit == -1 ? -1 : Math.max(1, limit / Math.max(1, compatibilityGraph.V()));
+        this.deadline = Deadline.current();
+        this.stop = false;
+        this.lowerBound = 0;
+    }
+
+    /**
+     *
+     * @return Collection of cliques (each of which is represented as a Set of
+     * vertices)
+     */
+    @Override
+    public Collection<Set<Vertex>> getCliques() {
+        return cliques;
+    }
+
+    /**
+     * Finds the largest maximal cliques of the graph.
+     *
+     * @return the largest cliques
+     */
+    @Override
+    public Stack<Set<Vertex>> getMaxCliquesSet() {
+        Stack<Set<Vertex>> maxCliquesSet = new Stack<>();
+        int best_clique_size = 0;
+        for (Set<Vertex> clique : cliques) {
+            if (clique.size() > best_clique_size) {
+                maxCliquesSet.clear();
+                best_clique_size = clique.size();
+            }
+            if (clique.size() == best_clique_size) {
+                maxCliquesSet.push(new TreeSet<>(clique));
+            }
+        }
+        return maxCliquesSet;
+    }
+
+    @Override
+    public void findMaximalCliques() {
+        int n = graph.V();
+        greedy = greedyClique();
+        lowerBound = greedy.cardinality();
+        SharedExecutor executor = SharedExecutor.getInstance();
+        List<Future<Branch>> futures = new ArrayList<>(n);
+        for (int u = 0; u < n; u++) {
+            final int vertex = u;
+            futures.add(executor.submit(() -> branch(vertex)));
+        }
+        Branch winner = null;
+        long nodes = 0;
+        try {
+            for (Future<Branch> future : futures) {
+                Branch b = SharedExecutor.get(future);
+                nodes += b.nodes;
+                if (b.clique != null && (winner == null || b.size > winner.size)) {
+                    winner = b;
+                }
+            }
+        } catch (InterruptedException e) {
+            SharedExecutor.cancel(futures);
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException e) {
+            SharedExecutor.cancel(futures);
+            LOGGER.error("Clique search failed ", e.getCause());
+            return;
+        }
+        /*
+         * the greedy clique stands when no branch reached it within its budget
+         */
+        BitSet clique = winner != null ? winner.clique : greedy;
+        if (!clique.isEmpty()) {
+            cliques.add(graph.toVertices(clique, new LinkedHashSet<>()));
+        }
+        if (DEBUG) {
+            System.out.println("Nodes " + nodes + ", bound " + lowerBound
+                    + ", max " + (winner == null ? 0 : winner.size)
+                    + ", branch " + (winner == null ? -1 : winner.root));
+        }
+    }
+
+    /*
+     * C-clique grown from the vertex with the most C-neighbours by
+     * adding the candidate with the most candidate neighbours (the lowest on
+     * ties)
+     */
+    private BitSet greedyClique() {
+        int n = graph.V();
+        BitSet clique = new BitSet();
+        int start = -1, degree = -1;
+        for (int u = 0; u < n; u++) {
+            int d = graph.getCAdjacency(u).cardinality();
+            if (d > degree) {
+                degree = d;
+                start = u;
+            }
+        }
+        if (start < 0) {
+            return clique;
+        }
+        clique.set(start);
+        BitSet P = (BitSet) graph.getCAdjacency(start).clone();
+        BitSet D = (BitSet) graph.getDAdjacency(start).clone();
+        D.andNot(P);
+        BitSet scratch = new BitSet();
+        while (!P.isEmpty()) {
+            int next = -1, best = -1;
+            for (int v = P.nextSetBit(0); v >= 0; v = P.nextSetBit(v + 1)) {
+                scratch.clear();
+                scratch.or(P);
+                scratch.or(D);
+                scratch.and(graph.getAdjacency(v));
+                int d = scratch.cardinality();
+                if (d > best) {
+                    best = d;
+                    next = v;
+                }
+            }
+            BitSet N = graph.getAdjacency(next);
+            BitSet cN = graph.getCAdjacency(next);
+            BitSet P_Prime = (BitSet) D.clone();
+            P_Prime.and(cN);
+            P.clear(next);
+            P.and(N);
+            P.or(P_Prime);
+            D.and(N);
+            D.andNot(cN);
+            clique.set(next);
+        }
+        return clique;
+    }
+
+    /*
+     * Largest c-clique starting from u which does not use the C-neighbours of
+     * u visited before it (these cliques are found by the earlier branches)
+     */
+    private Branch branch(int u) {
+        Branch b = new Branch(u);
+        b.C.set(u);
+        BitSet P = b.P(1);
+        P.or(graph.getCAdjacency(u));
+        P.clear(0, u);
+        BitSet D = b.D(1);
+        D.or(graph.getDAdjacency(u));
+        D.andNot(graph.getCAdjacency(u));
+        expand(1, b);
+        return b;
+    }
+
+    /*
+     * Search state of a top level branch: the current clique, the candidate
+     * sets of each depth (reused) and the best clique found
+     */
+    private static final class Branch {
+
+        final int root;
+        final BitSet C = new BitSet();
+        final List<BitSet> P = new ArrayList<>();
+        final List<BitSet> D = new ArrayList<>();
+        final List<BitSet> branches = new ArrayList<>();
+        final BitSet scratch = new BitSet();
+        final BitSet colour = new BitSet();
+        BitSet clique = null;
+        int size = 0;
+        int nodes = 0;
+        boolean capped = false;
+
+        Branch(int root) {
+            this.root = root;
+        }
+
+        BitSet P(int depth) {
+            return get(P, depth);
+        }
+
+        BitSet D(int depth) {
+            return get(D, depth);
+        }
+
+        BitSet branches(int depth) {
+            return get(branches, depth);
+        }
+
+        private static BitSet get(List<BitSet> sets, int depth) {
+            while (sets.size() <= depth) {
+                sets.add(new BitSet());
+            }
+            BitSet set = sets.get(depth);
+            set.clear();
+            return set;
+        }
+    }
+
+    /**
+     * Extends the clique b.C of size c with the candidates of depth c: P
+     * (vertices C-adjacent to it) and D (vertices adjacent to all of C but only
+     * via D-edges).
+     *
+     * @param c size of the current clique
+     * @param b top level branch
+     */
+    private void expand(int c, Branch b) {
+        if (isStopped(b)) {
+            return;
+        }
+        if (c > b.size && c >= lowerBound) {
+            b.size = c;
+            b.clique = (BitSet) b.C.clone();
+        }
+        BitSet P = b.P.get(c);
+        BitSet D = b.D.get(c);
+        if (P.isEmpty()) {
+            return;
+        }
+
+        /*
+         * cliques smaller than the greedy one are not reported
+         */
+        int target = Math.max(b.size + 1, lowerBound);
+        if (c + P.cardinality() + D.cardinality() < target
+                || c + colours(P, D, target - c, b) < target) {
+            return;
+        }
+
+        BitSet branches = b.branches(c);
+        branches.or(P);
+        int pivot = pivot(P, D, b.scratch);
+        if (pivot >= 0) {
+            branches.andNot(graph.getAdjacency(pivot));
+        }
+
+        for (int v = branches.nextSetBit(0); v >= 0; v = branches.nextSetBit(v + 1)) {
+            P.clear(v);
+            BitSet N = graph.getAdjacency(v);
+            BitSet cN = graph.getCAdjacency(v);
+            /*
+             * P' <- (P INTERSECTION N) UNION (D INTERSECTION cN), D' <- (D \ cN)
+             * INTERSECTION N
+             */
+            BitSet P_Prime = b.P(c + 1);
+            P_Prime.or(D);
+            P_Prime.and(cN);
+            BitSet D_Prime = b.D(c + 1);
+            D_Prime.or(D);
+            D_Prime.and(N);
+            D_Prime.andNot(cN);
+            P_Prime.or(P);
+            P_Prime.and(N);
+
+            b.C.set(v);
+            expand(c + 1, b);
+            b.C.clear(v);
+            if (stop || b.capped) {
+                return;
+            }
+        }
+    }
+
+    /*
+     * Candidate with the most candidate neighbours among those adjacent to
+     * every D-vertex (-1 if there is none)
+     */
+    private int pivot(BitSet P, BitSet D, BitSet scratch) {
+        int pivot = -1, degree = -1;
+        for (int u = P.nextSetBit(0); u >= 0; u = P.nextSetBit(u + 1)) {
+            BitSet N = graph.getAdjacency(u);
+            if (!D.isEmpty()) {
+                scratch.clear();
+                scratch.or(D);
+                scratch.andNot(N);
+                if (!scratch.isEmpty()) {
+                    continue;
+                }
+            }
+            scratch.clear();
+            scratch.or(P);
+            scratch.and(N);
+            int d = scratch.cardinality();
+            if (d > degree) {
+                degree = d;
+                pivot = u;
+            }
+        }
+        return pivot;
+    }
+
+    /*
+     * Number of colours of a greedy sequential colouring of P and D (an upper
+     * bound of the largest clique), counted up to the given bound
+     */
+    private int colours(BitSet P, BitSet D, int bound, Branch b) {
+        BitSet uncoloured = b.scratch;
+        uncoloured.clear();
+        uncoloured.or(P);
+        uncoloured.or(D);
+        BitSet colour = b.colour;
+        int k = 0;
+        while (!uncoloured.isEmpty() && k < bound) {
+            k++;
+            colour.clear();
+            colour.or(uncoloured);
+            for (int v = colour.nextSetBit(0); v >= 0; v = colour.nextSetBit(v + 1)) {
+                uncoloured.clear(v);
+                colour.andNot(graph.getAdjacency(v));
+            }
+        }
+        return uncoloured.isEmpty() ? k : bound;
+    }
+
+    private boolean isStopped(Branch b) {
+        if (stop || b.capped) {
+            return true;
+        }
+        b.nodes++;
+        if (branchLimit != -1 && b.nodes > branchLimit) {
+            b.capped = true;
+        } else if ((b.nodes & 0xff) == 0 && deadline.isExpired()) {
+            stop = true;
+        }
+        return stop || b.capped;
+    }
+}
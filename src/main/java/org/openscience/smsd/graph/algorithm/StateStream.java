@@ -26,6 +26,7 @@ package org.openscience.smsd.graph.algorithm;
 
 
 import java.util.Iterator;
+import org.openscience.smsd.tools.Deadline;
 
 /**
  * Given a (subgraph-)isomorphism state this class can lazily iterate over the
@@ -50,6 +51,12 @@ final class StateStream implements Iterator<int[]> {
     /** The next mapping. */
     private int[]                next;
 
+    /** Deadline of the thread creating the stream, checked while searching. */
+    private final Deadline       deadline;
+
+    /** Steps since the deadline was last checked. */
+    private int                  steps = 0;
+
     /**
      * Create a stream for the provided state.
      *
@@ -58,6 +65,7 @@ final class StateStream implements Iterator<int[]> {
     StateStream(final State state) {
         this.state = state;
         this.stack = new CandidateStack(state.nMax());
+        this.deadline = Deadline.current();
         this.next = state.nMax() == 0 || state.mMax() == 0 ? null : findNext(); // first-mapping
     }
 
@@ -84,10 +92,13 @@ final class StateStream implements Iterator<int[]> {
     /**
      * Finds the next mapping from the current state.
      *
-     * @return the next state (or null if none)
+     * @return the next state (or null if none or the deadline has expired)
      */
     private int[] findNext() {
-        while (map());
+        while (map()) {
+            if ((++steps & 0x3ff) == 0 && deadline.isExpired())
+                return null;
+        }
         if (state.size() == state.nMax()) return state.mapping();
         return null;
     }
@@ -23,10 +23,6 @@
  */
 package org.openscience.smsd.graph.algorithm;
 
-import org.openscience.cdk.interfaces.IAtomContainer;
-import org.openscience.cdk.interfaces.IBond;
-
-import static org.openscience.cdk.graph.GraphUtil.EdgeToBondMap;
 import org.openscience.smsd.algorithm.matchers.AtomMatcher;
 import org.openscience.smsd.algorithm.matchers.BondMatcher;
 
@@ -41,52 +37,21 @@ import org.openscience.smsd.algorithm.matchers.BondMatcher;
  */
 final class VFState extends AbstractVFState {
 
-    /**
-     * The query (container1) and target (container2) of the isomorphism
-     * matching.
-     */
-    private final IAtomContainer container1, container2;
-
-    /**
-     * Lookup for the query bonds (bonds1) and target bonds (bonds2) of the
-     * isomorphism matching.
-     */
-    private final EdgeToBondMap bonds1, bonds2;
-
-    /**
-     * Defines how atoms are matched.
-     */
-    private final AtomMatcher atomMatcher;
-
-    /**
-     * Defines how bonds are matched.
-     */
-    private final BondMatcher bondMatcher;
-
     /**
      * Create a VF state for matching isomorphisms. The query is passed first
-     * and should read as, find container1 in container2.
+     * and should read as, find q in t.
      *
-     * @param container1 the molecule to search for (query)
-     * @param container2 the molecule to search in (target)
-     * @param g1 adjacency list of the query
-     * @param g2 adjacency list of the target
-     * @param bonds1 bond lookup of the query
-     * @param bonds2 bond lookup of the target
+     * @param q the molecule to search for (query)
+     * @param t the molecule to search in (target)
+     * @param matches matcher results of q and t
      * @param atomMatcher what semantic attributes (symbol, charge, query)
      * determines atoms to be compatible
      * @param bondMatcher what semantic attributes (order/aromatic, query)
      * determines bonds to be compatible
      */
-    VFState(IAtomContainer container1, IAtomContainer container2, int[][] g1, int[][] g2, EdgeToBondMap bonds1,
-            EdgeToBondMap bonds2, AtomMatcher atomMatcher, BondMatcher bondMatcher) {
-        super(g1, g2);
-        this.container1 = container1;
-        this.container2 = container2;
-        this.bonds1 = bonds1;
-        this.bonds2 = bonds2;
-        this.atomMatcher = atomMatcher;
-        this.bondMatcher = bondMatcher;
+    VFState(CompiledGraph q, CompiledGraph t, Matches matches,
+            AtomMatcher atomMatcher, BondMatcher bondMatcher) {
+        super(q, t, matches, atomMatcher, bondMatcher);
     }
 
     /**
@@ -108,7 +73,7 @@ final class VFState extends AbstractVFState {
     boolean feasible(int n, int m) {
 
         // verify atom semantic feasibility
-        if (!atomMatcher.matches(container1.getAtom(n), container2.getAtom(m))) {
+        if (!atomMatches(n, m)) {
             return false;
         }
 
@@ -119,18 +84,19 @@ final class VFState extends AbstractVFState {
 
         // 0-look-ahead: check each adjacent edge for being mapped, and count
         // terminal or remaining
-        for (int n_prime : g1[n]) {
+        for (int i = 0; i < g1[n].length; i++) {
+            int n_prime = g1[n][i];
             int m_prime = m1[n_prime];
 
             // v is already mapped, there should be an edge {m, w} in g2.
             if (m_prime != UNMAPPED) {
-                IBond bond2 = bonds2.get(m, m_prime);
+                int bond2 = t.edge(m, m_prime);
                 // the bond is not present in the target
-                if (bond2 == null) {
+                if (bond2 < 0) {
                     return false;
                 }
                 // verify bond semantic feasibility
-                if (!bondMatcher.matches(bonds1.get(n, n_prime), bond2)) {
+                if (!bondMatches(e1[n][i], bond2)) {
                     return false;
                 }
             } else {
@@ -144,17 +110,18 @@ final class VFState extends AbstractVFState {
 
         // 0-look-ahead: check each adjacent edge for being mapped, and count
         // terminal or remaining
-        for (int m_prime : g2[m]) {
+        for (int i = 0; i < g2[m].length; i++) {
+            int m_prime = g2[m][i];
             int n_prime = m2[m_prime];
 
             if (n_prime != UNMAPPED) {
-                IBond bond1 = bonds1.get(n, n_prime);
+                int bond1 = q.edge(n, n_prime);
                 // the bond is not present in the query
-                if (bond1 == null) {
+                if (bond1 < 0) {
                     return false;
                 }
                 // verify bond semantic feasibility
-                if (!bondMatcher.matches(bond1, bonds2.get(m, m_prime))) {
+                if (!bondMatches(bond1, e2[m][i])) {
                     return false;
                 }
             } else {
@@ -23,10 +23,6 @@
  */
 package org.openscience.smsd.graph.algorithm;
 
-import org.openscience.cdk.interfaces.IAtomContainer;
-import org.openscience.cdk.interfaces.IBond;
-
-import static org.openscience.cdk.graph.GraphUtil.EdgeToBondMap;
 import org.openscience.smsd.algorithm.matchers.AtomMatcher;
 import org.openscience.smsd.algorithm.matchers.BondMatcher;
 
@@ -49,51 +45,21 @@ import org.openscience.smsd.algorithm.matchers.BondMatcher;
  */
 final class VFSubState extends AbstractVFState {
 
-    /**
-     * The query (container1) and target (container2) of the subgraph matching.
-     */
-    private final IAtomContainer container1, container2;
-
-    /**
-     * Lookup for the query bonds (bonds1) and target bonds (bonds2) of the
-     * subgraph matching.
-     */
-    private final EdgeToBondMap bonds1, bonds2;
-
-    /**
-     * Defines how atoms are matched.
-     */
-    private final AtomMatcher atomMatcher;
-
-    /**
-     * Defines how bonds are matched.
-     */
-    private final BondMatcher bondMatcher;
-
     /**
      * Create a VF state for matching subgraph-monomorphism. The query is passed
-     * first and should read as, find container1 in container2.
+     * first and should read as, find q in t.
      *
-     * @param container1 the molecule to search for (query)
-     * @param container2 the molecule to search in (target)
-     * @param g1 adjacency list of the query
-     * @param g2 adjacency list of the target
-     * @param bonds1 bond lookup of the query
-     * @param bonds2 bond lookup of the target
+     * @param q the molecule to search for (query)
+     * @param t the molecule to search in (target)
+     * @param matches matcher results of q and t
      * @param atomMatcher what semantic attributes (symbol, charge, query)
      * determines atoms to be compatible
      * @param bondMatcher what semantic attributes (order/aromatic, query)
      * determines bonds to be compatible
      */
-    VFSubState(IAtomContainer container1, IAtomContainer container2, int[][] g1, int[][] g2, EdgeToBondMap bonds1,
-            EdgeToBondMap bonds2, AtomMatcher atomMatcher, BondMatcher bondMatcher) {
-        super(g1, g2);
-        this.container1 = container1;
-        this.container2 = container2;
-        this.bonds1 = bonds1;
-        this.bonds2 = bonds2;
-        this.atomMatcher = atomMatcher;
-        this.bondMatcher = bondMatcher;
+    VFSubState(CompiledGraph q, CompiledGraph t, Matches matches,
+            AtomMatcher atomMatcher, BondMatcher bondMatcher) {
+        super(q, t, matches, atomMatcher, bondMatcher);
     }
 
     /**
@@ -121,7 +87,7 @@ final class VFSubState extends AbstractVFState {
     boolean feasible(int n, int m) {
 
         // verify atom semantic feasibility
-        if (!atomMatcher.matches(container1.getAtom(n), container2.getAtom(m))) {
+        if (!atomMatches(n, m)) {
             return false;
         }
 
@@ -132,18 +98,19 @@ final class VFSubState extends AbstractVFState {
 
         // 0-look-ahead: check each adjacent edge for being mapped, and count
         // terminal or remaining
-        for (int n_prime : g1[n]) {
+        for (int i = 0; i < g1[n].length; i++) {
+            int n_prime = g1[n][i];
             int m_prime = m1[n_prime];
 
             // v is already mapped, there should be an edge {m, w} in g2.
             if (m_prime != UNMAPPED) {
-                IBond bond2 = bonds2.get(m, m_prime);
-                if (bond2 == null) // the bond is not present in the target
+                int bond2 = t.edge(m, m_prime);
+                if (bond2 < 0) // the bond is not present in the target
                 {
                     return false;
                 }
                 // verify bond semantic feasibility
-                if (!bondMatcher.matches(bonds1.get(n, n_prime), bond2)) {
+                if (!bondMatches(e1[n][i], bond2)) {
                     return false;
                 }
             } else {
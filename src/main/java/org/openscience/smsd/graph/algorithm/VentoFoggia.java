@@ -24,14 +24,12 @@
 package org.openscience.smsd.graph.algorithm;
 
 import com.google.common.collect.Iterables;
-import org.openscience.cdk.graph.GraphUtil;
 import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.isomorphism.matchers.IQueryAtomContainer;
 
 import java.util.Iterator;
 import java.util.concurrent.TimeUnit;
 
-import static org.openscience.cdk.graph.GraphUtil.EdgeToBondMap;
 import org.openscience.smsd.algorithm.matchers.AtomMatcher;
 import org.openscience.smsd.algorithm.matchers.BondMatcher;
 import org.openscience.smsd.helper.Mappings;
@@ -84,14 +82,9 @@ public final class VentoFoggia {
     private final IAtomContainer query;
 
     /**
-     * The query structure adjacency list.
+     * The query structure adjacency list and bonds.
      */
-    private final int[][] g1;
-
-    /**
-     * The bonds of the query structure.
-     */
-    private final EdgeToBondMap bonds1;
+    private final CompiledGraph g1;
 
     /**
      * The atom matcher to determine atom feasibility.
@@ -123,8 +116,7 @@ public final class VentoFoggia {
         this.query = query;
         this.atomMatcher = atomMatcher;
         this.bondMatcher = bondMatcher;
-        this.bonds1 = EdgeToBondMap.withSpaceFor(query);
-        this.g1 = GraphUtil.toAdjList(query, bonds1);
+        this.g1 = new CompiledGraph(query);
         this.subgraph = substructure;
     }
 
@@ -140,21 +132,13 @@ public final class VentoFoggia {
      */
     public Mappings matchAll(final IAtomContainer target) {
 
-        final EdgeToBondMap bonds2;
-        final int[][] g2;
-
         AdjListCache cached = target.getProperty(AdjListCache.class.getName());
         if (cached == null || !cached.validate(target)) {
             cached = new AdjListCache(target);
             target.setProperty(AdjListCache.class.getName(), cached);
         }
 
-        bonds2 = cached.bmap;
-        g2 = cached.g;
-
-        Iterable<int[]> iterable = new VFIterable(query, target,
-                g1, g2,
-                bonds1, bonds2,
+        Iterable<int[]> iterable = new VFIterable(g1, cached.g,
                 atomMatcher, bondMatcher,
                 subgraph);
         return new Mappings(query, target, iterable);
@@ -221,19 +205,9 @@ public final class VentoFoggia {
     private static final class VFIterable implements Iterable<int[]> {
 
         /**
-         * Query and target containers.
-         */
-        private final IAtomContainer container1, container2;
-
-        /**
-         * Query and target adjacency lists.
+         * Query and target adjacency lists and bonds.
          */
-        private final int[][] g1, g2;
-
-        /**
-         * Query and target bond lookup.
-         */
-        private final EdgeToBondMap bonds1, bonds2;
+        private final CompiledGraph g1, g2;
 
         /**
          * How are atoms are matched.
@@ -250,28 +224,25 @@ public final class VentoFoggia {
          */
         private final boolean subgraph;
 
+        /**
+         * Matcher results, shared by the iterators.
+         */
+        private AbstractVFState.Matches matches;
+
         /**
          * Create a match for the following parameters.
          *
-         * @param container1 query structure
-         * @param container2 target structure
-         * @param g1 query adjacency list
-         * @param g2 target adjacency list
-         * @param bonds1 query bond map
-         * @param bonds2 target bond map
+         * @param g1 compiled query structure
+         * @param g2 compiled target structure
          * @param atomMatcher how atoms are matched
          * @param bondMatcher how bonds are matched
          * @param subgraph perform subgraph search
          */
-        private VFIterable(IAtomContainer container1, IAtomContainer container2, int[][] g1, int[][] g2,
-                EdgeToBondMap bonds1, EdgeToBondMap bonds2, AtomMatcher atomMatcher, BondMatcher bondMatcher,
+        private VFIterable(CompiledGraph g1, CompiledGraph g2,
+                AtomMatcher atomMatcher, BondMatcher bondMatcher,
                 boolean subgraph) {
-            this.container1 = container1;
-            this.container2 = container2;
             this.g1 = g1;
             this.g2 = g2;
-            this.bonds1 = bonds1;
-            this.bonds2 = bonds2;
             this.atomMatcher = atomMatcher;
             this.bondMatcher = bondMatcher;
             this.subgraph = subgraph;
@@ -282,12 +253,13 @@ public final class VentoFoggia {
          */
         @Override
         public Iterator<int[]> iterator() {
+            if (matches == null) {
+                matches = new AbstractVFState.Matches(g1, g2);
+            }
             if (subgraph) {
-                return new StateStream(new VFSubState(container1, container2, g1, g2, bonds1, bonds2, atomMatcher,
-                        bondMatcher));
+                return new StateStream(new VFSubState(g1, g2, matches, atomMatcher, bondMatcher));
             }
-            return new StateStream(
-                    new VFState(container1, container2, g1, g2, bonds1, bonds2, atomMatcher, bondMatcher));
+            return new StateStream(new VFState(g1, g2, matches, atomMatcher, bondMatcher));
         }
     }
 
@@ -296,14 +268,12 @@ public final class VentoFoggia {
         // 100 ms max age
         private static final long MAX_AGE = TimeUnit.MILLISECONDS.toNanos(100);
 
-        private final int[][] g;
-        private final EdgeToBondMap bmap;
+        private final CompiledGraph g;
         private final int numAtoms, numBonds;
         private final long tInit;
 
         private AdjListCache(IAtomContainer mol) {
-            this.bmap = EdgeToBondMap.withSpaceFor(mol);
-            this.g = GraphUtil.toAdjList(mol, bmap);
+            this.g = new CompiledGraph(mol);
             this.numAtoms = mol.getAtomCount();
             this.numBonds = mol.getBondCount();
             this.tInit = System.nanoTime();
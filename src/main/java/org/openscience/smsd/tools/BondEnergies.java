@@ -22,7 +22,10 @@
  */
 package org.openscience.smsd.tools;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -193,27 +196,30 @@ import org.openscience.smsd.helper.BondEnergy;
  */
 public class BondEnergies {
 
-    private static Map<Integer, BondEnergy> bondEngergies = null;
-    private static BondEnergies instance = null;
+    //Single instance kept
+    private static final BondEnergies INSTANCE = new BondEnergies();
+
+    private final Map<Integer, BondEnergy> bondEngergies;
+    /*
+     * Energy by element symbols (lower case, both ways round) and bond order
+     * ordinal, -1 if unknown. Built once, read without locking.
+     */
+    private final Map<String, Map<String, int[]>> energyIndex;
 
     /**
      * Returns Singleton pattern instance for the Bond Energy class
      * @return instance
      * @throws CDKException 
      */
-    public synchronized static BondEnergies getInstance()
+    public static BondEnergies getInstance()
             throws CDKException {
-        if (null == instance) {
-            instance = new BondEnergies();
-        }
-
-        return instance;
+        return INSTANCE;
     }
 
     protected BondEnergies() {
 
         int key = 1;
-        bondEngergies = Collections.synchronizedSortedMap(new TreeMap<Integer, BondEnergy>());
+        bondEngergies = new TreeMap<>();
 
 //      =========Hydrogen Block==============
         key = setHydrogenBlock(key);
@@ -231,6 +237,48 @@ public class BondEnergies {
         key = setGroup17(key);
 //      ===================Group 18=================
         key = setGroup18(key);
+
+        energyIndex = index(bondEngergies);
+    }
+
+    /*
+     * The entries are indexed in key order, a later entry for the same
+     * elements and order replaces an earlier one as the scan of the table did
+     */
+    private static Map<String, Map<String, int[]>> index(Map<Integer, BondEnergy> table) {
+        Map<String, Map<String, int[]>> index = new HashMap<>();
+        for (BondEnergy bondEnergy : table.values()) {
+            if (bondEnergy.getBondOrder() == null) {
+                continue;
+            }
+            String atom1 = bondEnergy.getSymbolFirstAtom().toLowerCase(Locale.ROOT);
+            String atom2 = bondEnergy.getSymbolSecondAtom().toLowerCase(Locale.ROOT);
+            int order = bondEnergy.getBondOrder().ordinal();
+            energies(index, atom1, atom2)[order] = bondEnergy.getEnergy();
+            energies(index, atom2, atom1)[order] = bondEnergy.getEnergy();
+        }
+        return Collections.unmodifiableMap(index);
+    }
+
+    private static int[] energies(Map<String, Map<String, int[]>> index, String atom1, String atom2) {
+        return index.computeIfAbsent(atom1, k -> new HashMap<>())
+                .computeIfAbsent(atom2, k -> {
+                    int[] energies = new int[Order.values().length];
+                    Arrays.fill(energies, -1);
+                    return energies;
+                });
+    }
+
+    private int lookup(String sourceAtom, String targetAtom, Order bondOrder) {
+        if (sourceAtom == null || targetAtom == null || bondOrder == null) {
+            return -1;
+        }
+        Map<String, int[]> partners = energyIndex.get(sourceAtom.toLowerCase(Locale.ROOT));
+        if (partners == null) {
+            return -1;
+        }
+        int[] energies = partners.get(targetAtom.toLowerCase(Locale.ROOT));
+        return energies == null ? -1 : energies[bondOrder.ordinal()];
     }
 
     /**
@@ -240,7 +288,7 @@ public class BondEnergies {
      * @param bondOrder (single, double etc)
      * @return bond energy
      */
-    public synchronized int getEnergies(IAtom sourceAtom, IAtom targetAtom, Order bondOrder) {
+    public int getEnergies(IAtom sourceAtom, IAtom targetAtom, Order bondOrder) {
         String sourceAtomSymbol = null;
         if (!(sourceAtom instanceof IQueryAtom)) {
             sourceAtomSymbol = sourceAtom.getSymbol();
@@ -258,30 +306,14 @@ public class BondEnergies {
      * @param bondOrder (single, double etc)
      * @return bond energy
      */
-    public synchronized int getEnergies(String sourceAtom, String targetAtom, Order bondOrder) {
-        int D_kJ_per_mol = -1;
-
+    public int getEnergies(String sourceAtom, String targetAtom, Order bondOrder) {
         if (sourceAtom.equalsIgnoreCase("R")) {
             sourceAtom = "C";
         }
         if (targetAtom.equalsIgnoreCase("R")) {
             targetAtom = "C";
         }
-
-        for (Map.Entry<Integer, BondEnergy> entry : bondEngergies.entrySet()) {
-            BondEnergy bondEnergy = entry.getValue();
-            String atom1 = bondEnergy.getSymbolFirstAtom();
-            String atom2 = bondEnergy.getSymbolSecondAtom();
-            if ((atom1.equalsIgnoreCase(sourceAtom) && atom2.equalsIgnoreCase(targetAtom))
-                    || (atom2.equalsIgnoreCase(sourceAtom) && atom1.equalsIgnoreCase(targetAtom))) {
-
-                Order order = bondEnergy.getBondOrder();
-                if (order != null && bondOrder != null && order.compareTo(bondOrder) == 0) {
-                    D_kJ_per_mol = bondEnergy.getEnergy();
-                }
-            }
-        }
-        return D_kJ_per_mol;
+        return lookup(sourceAtom, targetAtom, bondOrder);
     }
 
     /**
@@ -289,18 +321,11 @@ public class BondEnergies {
      * @param bond (single, double etc)
      * @return bond energy
      */
-    public synchronized int getEnergies(IBond bond) {
-        int D_kJ_per_mol = -1;
-        for (Map.Entry<Integer, BondEnergy> entry : bondEngergies.entrySet()) {
-            BondEnergy bondEnergy = entry.getValue();
-            if (bondEnergy.matches(bond)) {
-                D_kJ_per_mol = bondEnergy.getEnergy();
-            }
-        }
-        return D_kJ_per_mol;
+    public int getEnergies(IBond bond) {
+        return lookup(bond.getAtom(0).getSymbol(), bond.getAtom(1).getSymbol(), bond.getOrder());
     }
 
-    private synchronized int setHydrogenBlock(int key) {
+    private int setHydrogenBlock(int key) {
         bondEngergies.put(key++, new BondEnergy("H", "H", Order.SINGLE, 432));
         bondEngergies.put(key++, new BondEnergy("H", "B", Order.SINGLE, 389));
         bondEngergies.put(key++, new BondEnergy("H", "C", Order.SINGLE, 411));
@@ -321,7 +346,7 @@ public class BondEnergies {
         return key;
     }
 
-    private synchronized int setGroup13(int key) {
+    private int setGroup13(int key) {
 
         bondEngergies.put(key++, new BondEnergy("B", "B", Order.SINGLE, 293));
         bondEngergies.put(key++, new BondEnergy("B", "O", Order.SINGLE, 536));
@@ -331,7 +356,7 @@ public class BondEnergies {
         return key;
     }
 
-    private synchronized int setGroup14Part1(int key) {
+    private int setGroup14Part1(int key) {
         bondEngergies.put(key++, new BondEnergy("C", "C", Order.SINGLE, 346));
         bondEngergies.put(key++, new BondEnergy("C", "C", Order.DOUBLE, 602));
         bondEngergies.put(key++, new BondEnergy("C", "C", Order.TRIPLE, 835));
@@ -356,7 +381,7 @@ public class BondEnergies {
         return key;
     }
 
-    private synchronized int setGroup14Part2(int key) {
+    private int setGroup14Part2(int key) {
 
         bondEngergies.put(key++, new BondEnergy("Si", "Si", Order.SINGLE, 222));
         bondEngergies.put(key++, new BondEnergy("Si", "N", Order.SINGLE, 355));
@@ -386,7 +411,7 @@ public class BondEnergies {
         return key;
     }
 
-    private synchronized int setGroup15(int key) {
+    private int setGroup15(int key) {
         bondEngergies.put(key++, new BondEnergy("N", "N", Order.SINGLE, 167));
         bondEngergies.put(key++, new BondEnergy("N", "N", Order.DOUBLE, 418));
         bondEngergies.put(key++, new BondEnergy("N", "N", Order.TRIPLE, 942));
@@ -423,7 +448,7 @@ public class BondEnergies {
 
     }
 
-    private synchronized int setGroup16(int key) {
+    private int setGroup16(int key) {
 
         bondEngergies.put(key++, new BondEnergy("O", "O", Order.SINGLE, 142));
         bondEngergies.put(key++, new BondEnergy("O", "O", Order.DOUBLE, 494));
@@ -440,7 +465,7 @@ public class BondEnergies {
 
     }
 
-    private synchronized int setGroup17(int key) {
+    private int setGroup17(int key) {
         bondEngergies.put(key++, new BondEnergy("F", "F", Order.SINGLE, 155));
         bondEngergies.put(key++, new BondEnergy("Cl", "Cl", Order.SINGLE, 240));
         bondEngergies.put(key++, new BondEnergy("Br", "Br", Order.SINGLE, 190));
@@ -455,7 +480,7 @@ public class BondEnergies {
 
     }
 
-    private synchronized int setGroup18(int key) {
+    private int setGroup18(int key) {
 
         bondEngergies.put(key++, new BondEnergy("Kr", "F", Order.SINGLE, 50));
         bondEngergies.put(key++, new BondEnergy("Xe", "O", Order.SINGLE, 84));
@@ -0,0 +1,144 @@
+/* Copyright (C) 2009-2020  Syed Asad Rahman <asad at ebi.ac.uk>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ * All we ask is that proper credit is given for our work, which includes
+ * - but is not limited to - adding the above copyright notice to the beginning
+ * of your source code files, and to any copyright notice that you may distribute
+ * with programs based on this work.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.smsd.tools;
+
+import static java.lang.System.nanoTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wall clock budget of a reaction.
+ *
+ * The deadline of the running reaction is attached to the current thread
+ * ({@link #set(Deadline)}) and carried over to the jobs submitted to the
+ * {@link SharedExecutor}. The MCS engines check it through their
+ * {@link IterationManager} and stop with the best solution found so far, the
+ * stereo perception gives up on the remaining centres.
+ *
+ * @author Syed Asad Rahman <asad at ebi.ac.uk>
+ */
+public final class Deadline {
+
+    /**
+     * No time limit
+     */
+    public static final Deadline NONE = new Deadline(Long.MAX_VALUE, false);
+
+    private static final ThreadLocal<Deadline> CURRENT = ThreadLocal.withInitial(() -> NONE);
+
+    private final long time;
+    private final boolean bounded;
+
+    private Deadline(long time, boolean bounded) {
+        this.time = time;
+        this.bounded = bounded;
+    }
+
+    /**
+     * @param duration
+     * @param unit
+     * @return deadline expiring after the given duration from now
+     */
+    public static Deadline after(long duration, TimeUnit unit) {
+        long nanos = unit.toNanos(duration);
+        if (nanos >= Long.MAX_VALUE / 2) {
+            return NONE;
+        }
+        return new Deadline(nanoTime() + nanos, true);
+    }
+
+    /**
+     * @param duration
+     * @param unit
+     * @return the earlier of this deadline and the given duration from now
+     */
+    public Deadline within(long duration, TimeUnit unit) {
+        Deadline limit = after(duration, unit);
+        if (!bounded) {
+            return limit;
+        }
+        return limit.bounded && limit.time - time < 0 ? limit : this;
+    }
+
+    /**
+     * @return deadline of the current thread ({@link #NONE} if not set)
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Attach a deadline to the current thread.
+     *
+     * @param deadline deadline or null for none
+     * @return previous deadline, to be restored by the caller
+     */
+    public static Deadline set(Deadline deadline) {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(deadline == null ? NONE : deadline);
+        return previous;
+    }
+
+    /**
+     * @return true if the current thread has an expired deadline
+     */
+    public static boolean isCurrentExpired() {
+        return CURRENT.get().isExpired();
+    }
+
+    /**
+     * @return true if there is a time limit
+     */
+    public boolean isBounded() {
+        return bounded;
+    }
+
+    /**
+     * @return true if the time is over
+     */
+    public boolean isExpired() {
+        return bounded && nanoTime() - time >= 0;
+    }
+
+    /**
+     * Time left, capped by a default limit.
+     *
+     * @param limit limit used when it is lower than the time left (or when
+     * there is no deadline)
+     * @param unit unit of the limit and of the result
+     * @return time left, 0 if expired
+     */
+    public long remaining(long limit, TimeUnit unit) {
+        if (!bounded) {
+            return limit;
+        }
+        long left = unit.convert(time - nanoTime(), TimeUnit.NANOSECONDS);
+        return Math.max(0L, Math.min(limit, left));
+    }
+
+    @Override
+    public String toString() {
+        return bounded
+                ? "Deadline{" + TimeUnit.NANOSECONDS.toMillis(time - nanoTime()) + " ms left}"
+                : "Deadline{none}";
+    }
+}
@@ -25,10 +25,8 @@ package org.openscience.smsd.tools;
 import java.io.Serializable;
 
 /**
- * Class that handles execution time of the MCS search.
- *
- *
- *
+ * Class that handles execution time of the MCS search. Besides the iteration
+ * limit, the {@link Deadline} of the thread creating the manager is checked.
  *
  * @author Syed Asad Rahman <asad at ebi.ac.uk>
  */
@@ -39,6 +37,7 @@ public class IterationManager implements Serializable {
     private int counter;
     private int coverage;
     private final int limit;
+    private final transient Deadline deadline;
 
     /**
      * Constructor for storing execution time
@@ -57,6 +56,7 @@ public class IterationManager implements Serializable {
         this.coverage = 1;
         this.max = maxIteration;
         this.limit = this.max * this.coverage;
+        this.deadline = Deadline.current();
         //System.out.println("Iteration Limit:" + this.limit);
     }
 
@@ -88,11 +88,14 @@ public class IterationManager implements Serializable {
     }
 
     /**
-     * Has reached max iteration limit
+     * Has reached max iteration limit or the deadline
      *
      * @return true is max limit reached else false
      */
     public synchronized boolean isMaxIteration() {
+        if (deadline != null && deadline.isExpired()) {
+            return true;
+        }
         return limit == -1 ? false : counter > limit;
     }
 
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package org.openscience.smsd.tools;
+
+import java.util.Map;
+import java.util.TreeMap;
+import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IPseudoAtom;
+import org.openscience.smsd.helper.MoleculeInitializer;
+
+/**
+ * Read only view of a perceived molecule for the substructure checks, with
+ * the counts a subgraph can not exceed: atoms, bonds, atoms per element,
+ * aromatic atoms and ring atoms. The molecule is never modified, it must not
+ * be modified while the view is in use.
+ *
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public final class MoleculeView {
+
+    private static final int MAX_ELEMENT = 128;
+
+    private final IAtomContainer container;
+    private final int atomCount;
+    private final int bondCount;
+    private final int aromaticCount;
+    private final int ringCount;
+    /*
+     * Atoms per atomic number, and per symbol for the pseudo atoms and atoms
+     * without an atomic number
+     */
+    private final int[] elements;
+    private final Map<String, Integer> others;
+
+    /**
+     * View of a molecule as it is perceived.
+     *
+     * @param container the molecule
+     */
+    public MoleculeView(IAtomContainer container) {
+        this.container = container;
+        this.atomCount = container.getAtomCount();
+        this.bondCount = container.getBondCount();
+        int aromatic = 0;
+        int ring = 0;
+        int[] count = new int[MAX_ELEMENT];
+        Map<String, Integer> symbols = new TreeMap<>();
+        for (IAtom atom : container.atoms()) {
+            if (atom.isAromatic()) {
+                aromatic++;
+            }
+            if (atom.isInRing()) {
+                ring++;
+            }
+            Integer element = atom.getAtomicNumber();
+            if (atom instanceof IPseudoAtom || element == null
+                    || element <= 0 || element >= MAX_ELEMENT) {
+                symbols.merge(String.valueOf(atom.getSymbol()), 1, Integer::sum);
+            } else {
+                count[element]++;
+            }
+        }
+        this.aromaticCount = aromatic;
+        this.ringCount = ring;
+        this.elements = count;
+        this.others = symbols;
+    }
+
+    /**
+     * View of a perceived copy of a molecule (atom types, aromaticity and
+     * rings), the molecule is not modified.
+     *
+     * @param container the molecule
+     * @return view of the copy
+     * @throws CDKException
+     */
+    public static MoleculeView perceived(IAtomContainer container) throws CDKException {
+        IAtomContainer copy;
+        try {
+            copy = ExtAtomContainerManipulator.cloneWithIDs(container);
+        } catch (CloneNotSupportedException e) {
+            throw new CDKException("atom container could not be cloned", e);
+        }
+        ExtAtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(copy);
+        MoleculeInitializer.initializeMolecule(copy);
+        return new MoleculeView(copy);
+    }
+
+    /**
+     * @return the molecule
+     */
+    public IAtomContainer getContainer() {
+        return container;
+    }
+
+    /**
+     * @return number of atoms
+     */
+    public int getAtomCount() {
+        return atomCount;
+    }
+
+    /**
+     * True if the target has at least as many atoms of each element (symbol)
+     * as this molecule.
+     *
+     * @param target
+     * @return true if the elements are a subset of the target elements
+     */
+    public boolean isElementSubset(MoleculeView target) {
+        for (int e = 0; e < MAX_ELEMENT; e++) {
+            if (elements[e] > target.elements[e]) {
+                return false;
+            }
+        }
+        for (Map.Entry<String, Integer> e : others.entrySet()) {
+            if (e.getValue() > target.others.getOrDefault(e.getKey(), 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * False if this molecule can not be a substructure of the target with
+     * an element (or atom type) matcher: too many atoms, bonds, atoms of an
+     * element or, if the rings are matched, aromatic atoms for the ring atoms
+     * of the target.
+     *
+     * The substructure search maps a single atom when only one atom has its
+     * element in the target, the counts are not checked then.
+     *
+     * @param target
+     * @param matchRings the ring sizes are matched
+     * @return false if no substructure is possible
+     */
+    public boolean isPossibleSubgraph(MoleculeView target, boolean matchRings) {
+        if (atomCount > target.atomCount) {
+            return false;
+        }
+        if (!others.isEmpty() || !target.others.isEmpty()) {
+            return true;
+        }
+        int common = 0;
+        boolean subset = true;
+        for (int e = 0; e < MAX_ELEMENT; e++) {
+            if (elements[e] > 0 && target.elements[e] > 0) {
+                common += elements[e];
+            }
+            if (elements[e] > target.elements[e]) {
+                subset = false;
+            }
+        }
+        if (common == 1) {
+            return true;
+        }
+        return subset
+                && bondCount <= target.bondCount
+                && (!matchRings || aromaticCount <= target.ringCount);
+    }
+}
@@ -0,0 +1,205 @@
+/* Copyright (C) 2009-2020  Syed Asad Rahman <asad at ebi.ac.uk>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ * All we ask is that proper credit is given for our work, which includes
+ * - but is not limited to - adding the above copyright notice to the beginning
+ * of your source code files, and to any copyright notice that you may distribute
+ * with programs based on this work.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.smsd.tools;
+
+import static java.lang.Integer.getInteger;
+import static java.lang.Runtime.getRuntime;
+import static java.lang.System.nanoTime;
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Process wide work-stealing pool shared by the mapping algorithms, the MCS
+ * jobs of each molecule pair and the MCS seed generators, so that mapping
+ * many reactions at once does not start a new pool per reaction, per
+ * algorithm and per pair. The size is set by the system property
+ * {@code rdt.threads} (number of processors by default).
+ *
+ * Jobs wait on their sub jobs with {@link #get(Future)}, which runs a sub job
+ * in the caller if no worker has picked it up yet and otherwise lets the pool
+ * start a spare thread while the caller is blocked. Nested jobs (some of
+ * them holding locks) can therefore not starve the pool. Futures returned by
+ * {@link #submit(Callable)} interrupt the running job when cancelled.
+ *
+ * @author Syed Asad Rahman <asad at ebi.ac.uk>
+ */
+public final class SharedExecutor implements Executor {
+
+    private static final int THREADS = Math.max(1,
+            getInteger("rdt.threads", getRuntime().availableProcessors()));
+
+    //Single instance kept
+    private static final SharedExecutor SE = new SharedExecutor(THREADS);
+
+    //Access method
+    public static SharedExecutor getInstance() {
+        return SE;
+    }
+
+    private final ForkJoinPool pool;
+
+    /**
+     * @param threads number of worker threads (the process wide instance is
+     * {@link #getInstance})
+     */
+    SharedExecutor(int threads) {
+        this.pool = new ForkJoinPool(threads, (ForkJoinPool p) -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            t.setName("rdt-worker-" + t.getPoolIndex());
+            return t;
+        }, null, true);
+    }
+
+    /**
+     * @return number of worker threads
+     */
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Run a job on the pool, under the {@link Deadline} of the submitting
+     * thread. A cancellation interrupt delivered to the job is cleared before
+     * the worker picks the next one.
+     *
+     * @param command
+     */
+    @Override
+    public void execute(Runnable command) {
+        Deadline deadline = Deadline.current();
+        pool.execute(() -> {
+            Deadline previous = Deadline.set(deadline);
+            try {
+                command.run();
+            } finally {
+                Deadline.set(previous);
+                Thread.interrupted();
+            }
+        });
+    }
+
+    /**
+     * Submit a job.
+     *
+     * @param <T>
+     * @param task
+     * @return future which interrupts the job on {@code cancel(true)}
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        FutureTask<T> future = new FutureTask<>(task);
+        execute(future);
+        return future;
+    }
+
+    /**
+     * Wait for a job, running it in the calling thread if it has not started.
+     *
+     * @param <T>
+     * @param future
+     * @return result
+     * @throws InterruptedException
+     * @throws ExecutionException
+     */
+    public static <T> T get(Future<T> future) throws InterruptedException, ExecutionException {
+        if (future instanceof RunnableFuture && !future.isDone()) {
+            /*
+             * No-op if a worker is running it or it is cancelled
+             */
+            ((RunnableFuture<T>) future).run();
+        }
+        ForkJoinPool.managedBlock(new FutureBlocker(future, 0L));
+        return future.get();
+    }
+
+    /**
+     * Wait for a job at most the given time.
+     *
+     * @param <T>
+     * @param future
+     * @param timeout
+     * @param unit
+     * @return result
+     * @throws InterruptedException
+     * @throws ExecutionException
+     * @throws TimeoutException
+     */
+    public static <T> T get(Future<T> future, long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        ForkJoinPool.managedBlock(new FutureBlocker(future, nanoTime() + Math.max(1L, unit.toNanos(timeout))));
+        if (!future.isDone()) {
+            throw new TimeoutException();
+        }
+        return future.get();
+    }
+
+    /**
+     * Cancel the jobs (the running ones are interrupted).
+     *
+     * @param futures
+     */
+    public static void cancel(Collection<? extends Future<?>> futures) {
+        futures.forEach((f) -> {
+            f.cancel(true);
+        });
+    }
+
+    private static final class FutureBlocker implements ForkJoinPool.ManagedBlocker {
+
+        private final Future<?> future;
+        private final long deadline;
+
+        FutureBlocker(Future<?> future, long deadline) {
+            this.future = future;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public boolean block() throws InterruptedException {
+            try {
+                if (deadline == 0L) {
+                    future.get();
+                } else {
+                    future.get(deadline - nanoTime(), TimeUnit.NANOSECONDS);
+                }
+            } catch (ExecutionException | CancellationException | TimeoutException e) {
+                //reported by the caller
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return future.isDone() || (deadline != 0L && nanoTime() - deadline >= 0);
+        }
+    }
+}
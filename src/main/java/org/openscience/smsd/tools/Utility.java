@@ -129,7 +129,8 @@ public class Utility {
     }
 
     /**
-     * If either is a subgraph
+     * If either is a subgraph, the molecules are perceived on copies and are
+     * not modified
      *
      * @param ac1
      * @param ac2
@@ -138,26 +139,53 @@ public class Utility {
      * @throws CDKException
      */
     public static boolean isMatch(IAtomContainer ac1, IAtomContainer ac2, boolean either) throws CDKException {
+        return isMatch(MoleculeView.perceived(ac1), MoleculeView.perceived(ac2), either);
+    }
 
-        ExtAtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(ac1);
-        MoleculeInitializer.initializeMolecule(ac1);
-        ExtAtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(ac2);
-        MoleculeInitializer.initializeMolecule(ac2);
-
-        AtomMatcher atomMatcher = AtomBondMatcher.atomMatcher(false, true);
-        BondMatcher bondMatcher = AtomBondMatcher.bondMatcher(true, true);
-
+    /**
+     * If either is a subgraph (element, ring size, bond order and ring
+     * match) of the other, perceived molecule
+     *
+     * @param ac1
+     * @param ac2
+     * @param either
+     * @return
+     * @throws CDKException
+     */
+    public static boolean isMatch(MoleculeView ac1, MoleculeView ac2, boolean either) throws CDKException {
         if (ac1.getAtomCount() <= ac2.getAtomCount()) {
-            Substructure pattern = new Substructure(ac1, ac2, atomMatcher, bondMatcher, false); // create pattern
-            return pattern.isSubgraph();
+            return isSubgraph(ac1, ac2, false, true, true);
         }
         if (either && ac1.getAtomCount() >= ac2.getAtomCount()) {
-            Substructure pattern = new Substructure(ac2, ac1, atomMatcher, bondMatcher, false); // create pattern
-            return pattern.isSubgraph();
+            return isSubgraph(ac2, ac1, false, true, true);
         }
         return false;
     }
 
+    /**
+     * ac1 is subgraph of ac2, impossible pairs are rejected on their atom,
+     * bond, element and ring counts before the search
+     *
+     * @param ac1
+     * @param ac2
+     * @param matchAtomType
+     * @param matchBonds
+     * @param shouldMatchRings
+     * @return
+     * @throws CDKException
+     */
+    public static boolean isSubgraph(MoleculeView ac1, MoleculeView ac2,
+            boolean matchAtomType, boolean matchBonds, boolean shouldMatchRings) throws CDKException {
+        if (!ac1.isPossibleSubgraph(ac2, shouldMatchRings)) {
+            return false;
+        }
+        AtomMatcher atomMatcher = AtomBondMatcher.atomMatcher(matchAtomType, shouldMatchRings);
+        BondMatcher bondMatcher = AtomBondMatcher.bondMatcher(matchBonds, shouldMatchRings);
+        Substructure pattern = new Substructure(ac1.getContainer(), ac2.getContainer(),
+                atomMatcher, bondMatcher, false);
+        return pattern.isSubgraph();
+    }
+
     /**
      * ac1 is subgraph of ac2
      *
@@ -0,0 +1,344 @@
+/*
+ * Copyright (C) 2007-2020 Syed Asad Rahman <asad @ ebi.ac.uk>.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package uk.ac.ebi.aamtool;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import static java.lang.System.currentTimeMillis;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.smiles.SmiFlavor;
+import org.openscience.cdk.smiles.SmilesGenerator;
+import org.openscience.cdk.tools.ILoggingTool;
+import org.openscience.cdk.tools.LoggingToolFactory;
+import org.openscience.smsd.tools.Deadline;
+import static uk.ac.ebi.aamtool.Annotator.getReactionMechanismTool;
+import uk.ac.ebi.aamtool.ReactionFileIterator.ReactionRecord;
+import uk.ac.ebi.reactionblast.fingerprints.interfaces.IPatternFingerprinter;
+import uk.ac.ebi.reactionblast.mechanism.BondChangeCalculator;
+import uk.ac.ebi.reactionblast.mechanism.MappingSolution;
+import uk.ac.ebi.reactionblast.mechanism.ReactionMechanismTool;
+
+/**
+ * Maps a stream of reactions with a bounded pool of workers and writes one
+ * tab separated record per reaction as soon as it is done.
+ *
+ * At most twice as many reactions as there are workers are held in memory at
+ * any time. A reaction which fails or exceeds the time limit is reported with
+ * status FAILED or TIMEOUT and the run continues. The mappings run on a fixed
+ * pool of as many threads as workers, a timed out mapping which ignores the
+ * cancellation holds its thread and the next reactions wait for a free one
+ * (and may time out too) instead of starting more threads.
+ *
+ * @contact Syed Asad Rahman, EMBL-EBI, Cambridge, UK.
+ * @author Syed Asad Rahman <asad @ ebi.ac.uk>
+ */
+class BatchMapper {
+
+    private static final ILoggingTool LOGGER
+            = LoggingToolFactory.createLoggingTool(BatchMapper.class);
+    private static final String TAB = "\t";
+    private static final ReactionRecord POISON = new ReactionRecord(-1, null, null, null);
+
+    static final String STATUS_OK = "OK";
+    static final String STATUS_UNMAPPED = "UNMAPPED";
+    static final String STATUS_FAILED = "FAILED";
+    static final String STATUS_TIMEOUT = "TIMEOUT";
+    /*
+     * Seconds allowed past the deadline for a reaction to wrap up
+     */
+    private static final long TIMEOUT_GRACE = 60;
+    /*
+     * Seconds between the checks that the workers are still alive while the
+     * reader waits for room in the queue
+     */
+    private static final long QUEUE_POLL = 1;
+
+    private final int workers;
+    private final long timeout;
+    private final boolean reMap;
+    private final boolean complexMapping;
+    private final boolean acceptNoChange;
+    private final AtomicLong processed;
+    private final AtomicLong failed;
+    private final AtomicLong timedOut;
+    private final AtomicLong stereoTimedOut;
+
+    /**
+     *
+     * @param workers number of reactions mapped in parallel
+     * @param timeout time limit per reaction in seconds (0 for no limit)
+     * @param reMap remap the reaction
+     * @param complexMapping complex mapping ..ring system etc.
+     * @param acceptNoChange accept transporter
+     */
+    BatchMapper(int workers, long timeout, boolean reMap,
+            boolean complexMapping, boolean acceptNoChange) {
+        this.workers = workers < 1 ? 1 : workers;
+        this.timeout = timeout;
+        this.reMap = reMap;
+        this.complexMapping = complexMapping;
+        this.acceptNoChange = acceptNoChange;
+        this.processed = new AtomicLong();
+        this.failed = new AtomicLong();
+        this.timedOut = new AtomicLong();
+        this.stereoTimedOut = new AtomicLong();
+    }
+
+    /**
+     * Map all the reactions and write the results to the writer.
+     *
+     * @param reactions input reactions
+     * @param writer output
+     * @throws IOException if the input could not be read to its end (the
+     * reactions read before the error are mapped and written)
+     * @throws InterruptedException
+     */
+    void run(Iterator<ReactionRecord> reactions, Writer writer) throws IOException, InterruptedException {
+        BlockingQueue<ReactionRecord> queue = new ArrayBlockingQueue<>(2 * workers);
+        AtomicInteger threadCounter = new AtomicInteger();
+        /*
+         * Daemon threads, a timed out mapping which ignores interruption must
+         * not keep the JVM alive
+         */
+        ExecutorService consumers = Executors.newFixedThreadPool(workers, (Runnable r) -> {
+            Thread t = new Thread(r, "rdt-batch-" + threadCounter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        ExecutorService mappers = Executors.newFixedThreadPool(workers, (Runnable r) -> {
+            Thread t = new Thread(r, "rdt-batch-aam-" + threadCounter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        synchronized (writer) {
+            writer.write(String.join(TAB, "#INDEX", "ID", "STATUS", "TIME_MS", "ALGORITHM",
+                    "MAPPED_REACTION", "FORMED_CLEAVED", "ORDER_CHANGED", "STEREO_CHANGED", "MESSAGE"));
+            writer.write(ChemicalFormatParser.NEW_LINE);
+            writer.flush();
+        }
+
+        List<Future<?>> running = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            running.add(consumers.submit(() -> {
+                SmilesGenerator smilesGenerator = new SmilesGenerator(
+                        SmiFlavor.UseAromaticSymbols
+                        | SmiFlavor.AtomAtomMap
+                        | SmiFlavor.Stereo);
+                try {
+                    ReactionRecord record;
+                    while ((record = queue.take()) != POISON) {
+                        /*
+                         * Keep draining the queue on errors, else the reader
+                         * would block forever
+                         */
+                        long start = currentTimeMillis();
+                        String result;
+                        try {
+                            result = map(record, mappers, smilesGenerator);
+                        } catch (RuntimeException ex) {
+                            LOGGER.error("Unable to map the reaction " + record.getId() + " ", ex);
+                            failed.incrementAndGet();
+                            result = record(record, STATUS_FAILED, start, null, smilesGenerator, ex.toString());
+                        }
+                        try {
+                            synchronized (writer) {
+                                writer.write(result);
+                                writer.write(ChemicalFormatParser.NEW_LINE);
+                                writer.flush();
+                            }
+                        } catch (IOException | RuntimeException ex) {
+                            LOGGER.error("Unable to write the batch output ", ex.getMessage());
+                        }
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }));
+        }
+
+        IOException readError = null;
+        try {
+            try {
+                while (reactions.hasNext()) {
+                    put(queue, reactions.next(), running);
+                }
+            } catch (UncheckedIOException ex) {
+                /*
+                 * Map the reactions read so far, then fail the run
+                 */
+                readError = ex.getCause();
+            }
+            for (int i = 0; i < workers; i++) {
+                put(queue, POISON, running);
+            }
+            consumers.shutdown();
+            consumers.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        } finally {
+            consumers.shutdownNow();
+            mappers.shutdownNow();
+        }
+        if (readError != null) {
+            throw readError;
+        }
+    }
+
+    /*
+     * Wait for room in the queue as long as a worker is alive to take the
+     * record
+     */
+    private static void put(BlockingQueue<ReactionRecord> queue, ReactionRecord record,
+            List<Future<?>> running) throws IOException, InterruptedException {
+        while (!queue.offer(record, QUEUE_POLL, TimeUnit.SECONDS)) {
+            if (running.stream().allMatch(Future::isDone)) {
+                throw new IOException("The batch workers stopped before the end of the input");
+            }
+        }
+    }
+
+    private String map(ReactionRecord record, ExecutorService mappers, SmilesGenerator smilesGenerator) {
+        long start = currentTimeMillis();
+        processed.incrementAndGet();
+        if (record.getReaction() == null) {
+            failed.incrementAndGet();
+            return record(record, STATUS_FAILED, start, null, smilesGenerator, record.getError());
+        }
+        /*
+         * The searches stop at the deadline and the best mappings found so far
+         * are used; the job is only cancelled if it overruns the grace period
+         */
+        Deadline deadline = timeout > 0 ? Deadline.after(timeout, TimeUnit.SECONDS) : Deadline.NONE;
+        Future<ReactionMechanismTool> future = mappers.submit(() -> {
+            Deadline previous = Deadline.set(deadline);
+            try {
+                return getReactionMechanismTool(record.getReaction(), reMap, complexMapping, acceptNoChange);
+            } finally {
+                Deadline.set(previous);
+            }
+        });
+        try {
+            ReactionMechanismTool rmt = timeout > 0
+                    ? future.get(timeout + TIMEOUT_GRACE, TimeUnit.SECONDS) : future.get();
+            stereoTimedOut.addAndGet(rmt.getStereoTimeoutCount());
+            MappingSolution s = rmt.getSelectedSolution();
+            return record(record, s == null ? STATUS_UNMAPPED : STATUS_OK, start, s, smilesGenerator,
+                    deadline.isExpired() ? "Time limit of " + timeout + " s reached, best mapping found so far" : null);
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            timedOut.incrementAndGet();
+            return record(record, STATUS_TIMEOUT, start, null, smilesGenerator,
+                    "Time limit of " + timeout + " s exceeded");
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            failed.incrementAndGet();
+            return record(record, STATUS_FAILED, start, null, smilesGenerator, "Interrupted");
+        } catch (ExecutionException ex) {
+            failed.incrementAndGet();
+            Throwable cause = ex.getCause() == null ? ex : ex.getCause();
+            return record(record, STATUS_FAILED, start, null, smilesGenerator, cause.getMessage());
+        }
+    }
+
+    private String record(ReactionRecord record, String status, long start,
+            MappingSolution s, SmilesGenerator smilesGenerator, String message) {
+        String algorithm = "";
+        String mapped = "";
+        String formedCleaved = "";
+        String orderChanged = "";
+        String stereoChanged = "";
+        if (s != null) {
+            try {
+                BondChangeCalculator bcc = s.getBondChangeCalculator();
+                algorithm = s.getAlgorithmID().description();
+                mapped = smilesGenerator.create(bcc.getReactionWithCompressUnChangedHydrogens());
+                formedCleaved = features(bcc.getFormedCleavedWFingerprint());
+                orderChanged = features(bcc.getOrderChangesWFingerprint());
+                stereoChanged = features(bcc.getStereoChangesWFingerprint());
+            } catch (CDKException ex) {
+                status = STATUS_FAILED;
+                message = ex.getMessage();
+                failed.incrementAndGet();
+            }
+        }
+        return String.join(TAB,
+                String.valueOf(record.getIndex()),
+                record.getId(),
+                status,
+                String.valueOf(currentTimeMillis() - start),
+                algorithm,
+                mapped,
+                formedCleaved,
+                orderChanged,
+                stereoChanged,
+                clean(message));
+    }
+
+    private static String features(IPatternFingerprinter fingerprint) {
+        return fingerprint.getFeatures().toString();
+    }
+
+    private static String clean(String message) {
+        return message == null ? "" : message.replaceAll("\\s+", " ").trim();
+    }
+
+    /**
+     * @return number of reactions processed
+     */
+    long getProcessedCount() {
+        return processed.get();
+    }
+
+    /**
+     * @return number of reactions which failed
+     */
+    long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * @return number of reactions which exceeded the time limit
+     */
+    long getTimeoutCount() {
+        return timedOut.get();
+    }
+
+    /**
+     * @return number of molecules whose stereo perception ran out of time
+     * during the run
+     */
+    long getStereoTimeoutCount() {
+        return stereoTimedOut.get();
+    }
+}
@@ -58,6 +58,26 @@ public class CommandLineOptions {
         return optionsAAM;
     }
 
+    /**
+     *
+     * @return
+     */
+    protected Options createBatchOptions() {
+        Options optionsBatch = new Options();
+        optionsBatch.addOption("h", "help", false, "Help page for command usage");
+        optionsBatch.addOption("Q", "formatQ", true, "Query file Type (SMI/RXN/RDF)");
+        optionsBatch.addOption("q", "query", true, "Query file (one reaction SMILES per line or concatenated RXN/RDF)");
+        optionsBatch.addOption("j", "job", true, "Task (BATCH)");
+        optionsBatch.addOption("o", "output", true, "Output file (tab separated, one record per reaction)");
+        optionsBatch.addOption("n", "threads", true, "Number of reactions mapped in parallel");
+        optionsBatch.addOption("t", "timeout", true, "Time limit per reaction in seconds (0 for none)");
+        optionsBatch.addOption("s", "store", true, "MCS store file reused across runs (created if missing)");
+        optionsBatch.addOption("u", "premap", false, "use user defined mappings");
+        optionsBatch.addOption("c", "complexMode", false, "Use Rings etc. bit time comsuming");
+        optionsBatch.addOption("b", "acceptNoChange", false, "Accept Transporter Reactions (no bond change)");
+        return optionsBatch;
+    }
+
     /**
      *
      * @return
@@ -18,6 +18,7 @@
  */
 package uk.ac.ebi.aamtool;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
@@ -25,7 +26,11 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import static java.lang.Integer.parseInt;
+import static java.lang.Long.parseLong;
+import static java.lang.Runtime.getRuntime;
 import static java.lang.System.out;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -55,6 +60,8 @@ import static uk.ac.ebi.aamtool.ChemicalFormatParser.parseRXN;
 import static uk.ac.ebi.aamtool.Helper.displayBlankLines;
 import static uk.ac.ebi.aamtool.Helper.getHeader;
 import static uk.ac.ebi.aamtool.Helper.printHelp;
+import uk.ac.ebi.reactionblast.mapping.cache.MCSSolutionCache;
+import uk.ac.ebi.reactionblast.mapping.cache.MCSSolutionStore;
 import uk.ac.ebi.reactionblast.mechanism.ReactionMechanismTool;
 
 /**
@@ -76,6 +83,7 @@ public class ReactionDecoder extends Annotator {
             Options createAAMOptions = cmd.createAAMOptions();
             Options createCompareOptions = cmd.createCompareOptions();
             Options createAnnotateOptions = cmd.createAnnotateOptions();
+            Options createBatchOptions = cmd.createBatchOptions();
 
             DefaultParser parser1 = new DefaultParser();
             CommandLine aamLine = parser1.parse(createAAMOptions, args, true);
@@ -83,6 +91,8 @@ public class ReactionDecoder extends Annotator {
             CommandLine compareLine = parser2.parse(createCompareOptions, args, true);
             DefaultParser parser3 = new DefaultParser();
             CommandLine annotateLine = parser3.parse(createAnnotateOptions, args, true);
+            DefaultParser parser4 = new DefaultParser();
+            CommandLine batchLine = parser4.parse(createBatchOptions, args, true);
 
             /*
              * Print the Header
@@ -90,7 +100,8 @@ public class ReactionDecoder extends Annotator {
             getHeader();
 
             boolean complexMappingFlag = false;
-            if (aamLine.hasOption('c') || compareLine.hasOption('c') || annotateLine.hasOption('c')) {
+            if (aamLine.hasOption('c') || compareLine.hasOption('c') || annotateLine.hasOption('c')
+                    || batchLine.hasOption('c')) {
                 complexMappingFlag = true;
             }
 
@@ -98,7 +109,8 @@ public class ReactionDecoder extends Annotator {
              * Accept the transporter reaction with no bond change
              */
             boolean accept_no_change = false;
-            if (aamLine.hasOption('b') || compareLine.hasOption('b') || annotateLine.hasOption('b')) {
+            if (aamLine.hasOption('b') || compareLine.hasOption('b') || annotateLine.hasOption('b')
+                    || batchLine.hasOption('b')) {
                 accept_no_change = true;
             }
 
@@ -127,6 +139,12 @@ public class ReactionDecoder extends Annotator {
                 out.println("-- ANNOTATE --");
                 rxn.AnnotateTask(annotateLine, createAnnotateOptions, complexMappingFlag, accept_no_change);
 
+            } else if (batchLine.hasOption('j') && batchLine.getOptionValue("j").equalsIgnoreCase("BATCH")
+                    && batchLine.hasOption('Q') && batchLine.hasOption('q') && batchLine.hasOption('o')) {
+
+                out.println("-- BATCH --");
+                rxn.BatchTask(batchLine, createBatchOptions, complexMappingFlag, accept_no_change);
+
             } else if (aamLine.hasOption('j') && aamLine.getOptionValue("j").equalsIgnoreCase("AAM")) {
                 out.println("-- AAM USAGE --");
                 printHelp(out, createAAMOptions);
@@ -136,10 +154,14 @@ public class ReactionDecoder extends Annotator {
             } else if (compareLine.hasOption('j') && compareLine.getOptionValue("j").equalsIgnoreCase("ANNOTATE")) {
                 out.println("-- REACTION ANNOTATION USAGE --");
                 printHelp(out, createAnnotateOptions);
+            } else if (batchLine.hasOption('j') && batchLine.getOptionValue("j").equalsIgnoreCase("BATCH")) {
+                out.println("-- BATCH AAM USAGE --");
+                printHelp(out, createBatchOptions);
             } else {
                 out.println("-- REACTION DECODER HELP --");
                 Map<String, Options> options = new TreeMap<>();
                 options.put("Atom-Atom Mapping (AAM-Tool)", createAAMOptions);
+                options.put("Batch Atom-Atom Mapping (BATCH-Tool)", createBatchOptions);
                 options.put("Reaction Annotation (RA-Tool)", createAnnotateOptions);
                 options.put("Reaction Comparison (RC-Tool)", createCompareOptions);
                 printHelp(options, 80, "EC-BLAST", "End of Help", 5, 3, true, out);
@@ -312,6 +334,60 @@ public class ReactionDecoder extends Annotator {
         }
     }
 
+    private synchronized void BatchTask(CommandLine batchLine, Options createBatchOptions,
+            boolean complexMappingFlag, boolean accept_no_change)
+            throws Exception {
+
+        String format = batchLine.getOptionValue("Q").toUpperCase();
+        if (!format.equals("SMI") && !format.equals("RXN") && !format.equals("RDF")) {
+            displayBlankLines(2, out);
+            out.println("-- USAGE --");
+            printHelp(out, createBatchOptions);
+            return;
+        }
+
+        File input = new File(batchLine.getOptionValue("q"));
+        if (!input.isFile()) {
+            LOGGER.error(SEVERE, "Input file not found! ", input.getAbsolutePath());
+            return;
+        }
+
+        if (batchLine.hasOption('u')) {
+            REMAP = false;
+        }
+
+        int threads = batchLine.hasOption('n')
+                ? parseInt(batchLine.getOptionValue("n"))
+                : Math.max(1, getRuntime().availableProcessors() / 4);
+        long timeout = batchLine.hasOption('t')
+                ? parseLong(batchLine.getOptionValue("t")) : 0;
+
+        File output = new File(batchLine.getOptionValue("o"));
+        BatchMapper mapper = new BatchMapper(threads, timeout, REMAP, complexMappingFlag, accept_no_change);
+        MCSSolutionStore previous = MCSSolutionCache.getInstance().getStore();
+        MCSSolutionStore store = null;
+        if (batchLine.hasOption('s')) {
+            store = MCSSolutionStore.open(new File(batchLine.getOptionValue("s")));
+            MCSSolutionCache.getInstance().setStore(store);
+            out.println("MCS store " + batchLine.getOptionValue("s") + ": " + store.size() + " solution(s)"
+                    + (store.isWriter() ? "" : " (read only, locked by another process)"));
+        }
+        try (ReactionFileIterator reactions = new ReactionFileIterator(input, format);
+                Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(output), UTF_8))) {
+            mapper.run(reactions, writer);
+        } finally {
+            if (store != null) {
+                MCSSolutionCache.getInstance().setStore(previous);
+                store.close();
+            }
+        }
+        out.println("Processed " + mapper.getProcessedCount() + " reaction(s), "
+                + mapper.getFailedCount() + " failed, "
+                + mapper.getTimeoutCount() + " timed out, "
+                + mapper.getStereoTimeoutCount() + " stereo perception(s) timed out");
+        out.println("Output is presented in text format: " + output.getAbsolutePath());
+    }
+
     private synchronized void CompareTask(CommandLine compareLine,
             Options createCompareOptions, boolean complexMappingFlag,
             boolean accept_no_change)
@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2007-2020 Syed Asad Rahman <asad @ ebi.ac.uk>.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package uk.ac.ebi.aamtool;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import org.openscience.cdk.Reaction;
+import org.openscience.cdk.interfaces.IReaction;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+import org.openscience.cdk.smiles.SmilesParser;
+import static uk.ac.ebi.aamtool.ChemicalFormatParser.convertRoundTripRXNSMILES;
+import uk.ac.ebi.reactionblast.tools.rxnfile.MDLRXNV2000Reader;
+
+/**
+ * Streams reactions from a multi-reaction file one record at a time, so that
+ * the memory footprint does not depend on the size of the input.
+ *
+ * Supported formats are SMI (one reaction SMILES per line, optionally followed
+ * by a reaction ID) and RXN/RDF (concatenated MDL RXN blocks, with or without
+ * the RDF record headers).
+ *
+ * A record which cannot be parsed is still returned, carrying the error
+ * message instead of a reaction, so that the caller can report it. An error
+ * in reading the file (including bytes which are not UTF-8) is thrown from
+ * {@link #hasNext()} as an {@link UncheckedIOException}, the input is not
+ * taken as finished.
+ *
+ * @contact Syed Asad Rahman, EMBL-EBI, Cambridge, UK.
+ * @author Syed Asad Rahman <asad @ ebi.ac.uk>
+ */
+class ReactionFileIterator implements Iterator<ReactionFileIterator.ReactionRecord>, Closeable {
+
+    /**
+     * A single reaction read from the input (or the reason why it could not be
+     * read).
+     */
+    static class ReactionRecord {
+
+        private final long index;
+        private final String id;
+        private final IReaction reaction;
+        private final String error;
+
+        ReactionRecord(long index, String id, IReaction reaction, String error) {
+            this.index = index;
+            this.id = id;
+            this.reaction = reaction;
+            this.error = error;
+        }
+
+        /**
+         * @return 1-based position of the record in the input file
+         */
+        long getIndex() {
+            return index;
+        }
+
+        /**
+         * @return reaction ID
+         */
+        String getId() {
+            return id;
+        }
+
+        /**
+         * @return the parsed reaction or null if parsing failed
+         */
+        IReaction getReaction() {
+            return reaction;
+        }
+
+        /**
+         * @return the parsing error or null
+         */
+        String getError() {
+            return error;
+        }
+    }
+
+    private final BufferedReader reader;
+    private final String format;
+    private final SmilesParser smilesParser;
+    private ReactionRecord next;
+    private long index;
+    private String pendingLine;
+
+    /**
+     *
+     * @param file input file
+     * @param format SMI, RXN or RDF
+     * @throws IOException
+     */
+    ReactionFileIterator(File file, String format) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF_8.newDecoder()));
+        this.format = format.toUpperCase();
+        this.smilesParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        this.index = 0;
+        this.next = null;
+        this.pendingLine = null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = "SMI".equals(format) ? readSMILES() : readRXN();
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Error in reading the reaction file", ex);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public ReactionRecord next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ReactionRecord r = next;
+        next = null;
+        return r;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private ReactionRecord readSMILES() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            index++;
+            String[] tokens = line.split("\\s+");
+            String id = tokens.length > 1 ? tokens[1] : "reaction_" + index;
+            if (!tokens[0].contains(">>")) {
+                return new ReactionRecord(index, id, null, "Not a valid reaction SMILES");
+            }
+            try {
+                IReaction reaction = smilesParser.parseReactionSmiles(tokens[0]);
+                reaction = convertRoundTripRXNSMILES(reaction);
+                reaction.setID(id);
+                return new ReactionRecord(index, id, reaction, null);
+            } catch (Exception ex) {
+                return new ReactionRecord(index, id, null, ex.getMessage());
+            }
+        }
+        return null;
+    }
+
+    /*
+     * Collect the lines of the next $RXN block; RDF record/data headers close
+     * the current block.
+     */
+    private ReactionRecord readRXN() throws IOException {
+        StringBuilder block = null;
+        String line;
+        while ((line = pendingLine != null ? pendingLine : reader.readLine()) != null) {
+            pendingLine = null;
+            if (line.startsWith("$RXN")) {
+                if (block != null) {
+                    pendingLine = line;
+                    break;
+                }
+                block = new StringBuilder();
+                block.append(line).append('\n');
+            } else if (line.startsWith("$RDFILE") || line.startsWith("$DATM")
+                    || line.startsWith("$RFMT") || line.startsWith("$MFMT")
+                    || line.startsWith("$DTYPE") || line.startsWith("$DATUM")) {
+                if (block != null) {
+                    break;
+                }
+            } else if (block != null) {
+                block.append(line).append('\n');
+            }
+        }
+        if (block == null) {
+            return null;
+        }
+        index++;
+        String[] lines = block.toString().split("\n", 3);
+        String id = lines.length > 1 && !lines[1].trim().isEmpty()
+                ? lines[1].trim().split("\\s+")[0] : "reaction_" + index;
+        try (MDLRXNV2000Reader rxnReader = new MDLRXNV2000Reader(new StringReader(block.toString()))) {
+            IReaction reaction = rxnReader.read(new Reaction());
+            reaction.setID(id);
+            reaction = convertRoundTripRXNSMILES(reaction);
+            return new ReactionRecord(index, id, reaction, null);
+        } catch (Exception ex) {
+            return new ReactionRecord(index, id, null, ex.getMessage());
+        }
+    }
+}
@@ -22,12 +22,12 @@ import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import org.openscience.cdk.tools.ILoggingTool;
 import org.openscience.cdk.tools.LoggingToolFactory;
+import org.openscience.smsd.tools.Deadline;
 import static uk.ac.ebi.centres.descriptor.General.NONE;
 import static uk.ac.ebi.centres.descriptor.General.UNKNOWN;
+import uk.ac.ebi.centres.exception.WarpCoreEjection;
 
 /**
  * @author John May
@@ -40,8 +40,6 @@ public class DefaultPerceptor<A> implements Perceptor<A> {
 
     private final CentrePerceptor<A> mainPerceptor;
     private final CentrePerceptor<A> auxPerceptor;
-    private ExecutorService executor = newSingleThreadExecutor();
-    private long timeout = 250;
 
     /**
      *
@@ -76,13 +74,27 @@ public class DefaultPerceptor<A> implements Perceptor<A> {
 
         List<Centre<A>> perceived = new ArrayList<>();
         Map<Centre<A>, Descriptor> map = new LinkedHashMap<>();
+        // centres left when the reaction deadline expires are set to 'none'
+        Deadline deadline = Deadline.current();
 
         do {
 
             map.clear();
 
             unperceived.forEach((centre) -> {
-                Descriptor descriptor = perceptor.perceive(centre, unperceived);
+                if (deadline.isExpired()) {
+                    return;
+                }
+                Descriptor descriptor;
+                try {
+                    descriptor = perceptor.perceive(centre, unperceived);
+                } catch (WarpCoreEjection ex) {
+                    // the digraph and the comparisons stop when out of time
+                    if (!deadline.isExpired()) {
+                        throw ex;
+                    }
+                    return;
+                }
                 if (descriptor != UNKNOWN) {
                     map.put(centre, descriptor);
                 }
@@ -102,7 +114,7 @@ public class DefaultPerceptor<A> implements Perceptor<A> {
                 entry.getKey().setDescriptor(entry.getValue());
             });
 
-        } while (!map.isEmpty());
+        } while (!map.isEmpty() && !deadline.isExpired());
 
         return perceived;
 
@@ -145,11 +157,11 @@ public class DefaultPerceptor<A> implements Perceptor<A> {
     }
 
     /**
-     * Shutdown the internal executor
+     * Nothing to release, the perception runs in the calling thread under its
+     * {@link Deadline}.
      */
     @Override
     public void shutdown() {
-        executor.shutdownNow();
     }
 
     abstract class CentrePerceptor<A> {
@@ -36,4 +36,12 @@ public class WarpCoreEjection extends RuntimeException {
     public WarpCoreEjection() {
         super("Boy, that escalated quickly. I mean, that really got out of hand fast! - combinatorial explosion immanent");
     }
+
+    /**
+     *
+     * @param message
+     */
+    public WarpCoreEjection(String message) {
+        super(message);
+    }
 }
@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Queue;
+import org.openscience.smsd.tools.Deadline;
 import org.openscience.cdk.tools.ILoggingTool;
 import static org.openscience.cdk.tools.LoggingToolFactory.createLoggingTool;
 import uk.ac.ebi.centres.ConnectionProvider;
@@ -178,6 +179,11 @@ public abstract class AbstractDigraph<A> implements Digraph<A>,
             throw new WarpCoreEjection();
         }
 
+        // the perception ran out of time
+        if (Deadline.isCurrentExpired()) {
+            throw new WarpCoreEjection("Stereo perception deadline expired");
+        }
+
         // ligands already determined
         if (!ligands.isEmpty()) {
             return ligands;
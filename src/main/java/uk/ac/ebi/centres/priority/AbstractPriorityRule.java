@@ -20,6 +20,7 @@ package uk.ac.ebi.centres.priority;
 import static java.lang.Boolean.FALSE;
 import java.util.Iterator;
 import java.util.List;
+import org.openscience.smsd.tools.Deadline;
 import uk.ac.ebi.centres.Comparison;
 import uk.ac.ebi.centres.Descriptor;
 import static uk.ac.ebi.centres.Descriptor.Type.ASYMMETRIC;
@@ -28,6 +29,7 @@ import uk.ac.ebi.centres.LigandComparison;
 import uk.ac.ebi.centres.LigandSorter;
 import uk.ac.ebi.centres.Priority;
 import uk.ac.ebi.centres.PriorityRule;
+import uk.ac.ebi.centres.exception.WarpCoreEjection;
 
 /**
  * An abstract comparator that provides construction of the {@link Comparison} wrapper allowing subclasses to focus on
@@ -140,6 +142,11 @@ public abstract class AbstractPriorityRule<A>
             return 0;
         }
 
+        // the comparison recurses on the ligands, give up when out of time
+        if (Deadline.isCurrentExpired()) {
+            throw new WarpCoreEjection("Stereo perception deadline expired");
+        }
+
         // prioritise the ligands, unique isn't required
         prioritise(first);
         prioritise(second);
@@ -26,6 +26,7 @@ import static java.lang.String.valueOf;
 import static java.lang.System.currentTimeMillis;
 import static java.lang.System.gc;
 import static java.lang.System.getProperty;
+import static java.lang.System.nanoTime;
 import static java.lang.System.out;
 import static java.util.Collections.synchronizedMap;
 import static java.util.Collections.unmodifiableMap;
@@ -34,11 +35,7 @@ import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorCompletionService;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -47,10 +44,12 @@ import java.util.concurrent.CountDownLatch;
 import org.openscience.cdk.interfaces.IReaction;
 import org.openscience.cdk.tools.ILoggingTool;
 import static org.openscience.cdk.tools.LoggingToolFactory.createLoggingTool;
+import org.openscience.smsd.tools.Deadline;
+import org.openscience.smsd.tools.SharedExecutor;
 import uk.ac.ebi.reactionblast.interfaces.IStandardizer;
-import uk.ac.ebi.reactionblast.mapping.cache.ThreadSafeCache;
-import uk.ac.ebi.reactionblast.mapping.graph.MCSSolution;
+import uk.ac.ebi.reactionblast.mapping.cache.MCSSolutionCache;
 import uk.ac.ebi.reactionblast.mapping.interfaces.IMappingAlgorithm;
+import static uk.ac.ebi.reactionblast.mapping.helper.MappingHandler.cleanMapping;
 import static uk.ac.ebi.reactionblast.mapping.interfaces.IMappingAlgorithm.MAX;
 import static uk.ac.ebi.reactionblast.mapping.interfaces.IMappingAlgorithm.MIN;
 import static uk.ac.ebi.reactionblast.mapping.interfaces.IMappingAlgorithm.MIXTURE;
@@ -71,6 +70,10 @@ public class CallableAtomMappingTool implements Serializable {
     private final static ILoggingTool LOGGER
             = createLoggingTool(CallableAtomMappingTool.class);
     private static final long serialVersionUID = 0x29e2adb1716b13eL;
+    /*
+     * Seconds allowed past the reaction deadline to collect partial results
+     */
+    private static final long DEADLINE_GRACE = 30;
 
     /**
      * Creates mapping PDFs for all the processed reaction mappings
@@ -119,74 +122,49 @@ public class CallableAtomMappingTool implements Serializable {
             IStandardizer standardizer,
             boolean removeHydrogen,
             boolean checkComplex) {
-        /*
-         * Mapping cache initialized
-         */
-        ThreadSafeCache<String, MCSSolution> mappingcache = ThreadSafeCache.getInstance();
-
-		ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-		CompletionService<Reactor> cs = new ExecutorCompletionService<>(executor);
+		SharedExecutor executor = SharedExecutor.getInstance();
 		int jobCounter = checkComplex ? 4 : 3; // Adjust based on algorithms used
 		CountDownLatch latch = new CountDownLatch(jobCounter);
         // Set a timeout value (in seconds)
 		long timeout = 6000; // 600 seconds
 		List<Future<Reactor>> futures = new ArrayList<>();
 		/*
-		* MIN Algorithm
+		* The reaction is standardised and its input mapping cleared once, the
+		* mapping models only read it
 		*/
-		LOGGER.info(NEW_LINE + "|++++++++++++++++++++++++++++|");
-		LOGGER.info("b) Local Model: ");
 		if (DEBUG) {
 			out.println(NEW_LINE + "-----------------------------------" + NEW_LINE);
-			out.println(NEW_LINE + "STEP b: Local Model Standardize Reactions" + NEW_LINE);
+			out.println(NEW_LINE + "STEP a: Standardize Reaction" + NEW_LINE);
 		}
-		IReaction cleanedReaction1 = null;
+		IReaction cleanedReaction = null;
 		try {
-			cleanedReaction1 = standardizer.standardize(reaction);
+			cleanedReaction = standardizer.standardize(reaction);
+			cleanMapping(cleanedReaction);
 		} catch (Exception e) {
 			LOGGER.debug("ERROR: in AtomMappingTool: " + e.getMessage());
 			LOGGER.error(e);
 		}
-		futures.add(cs.submit(new MappingThread("IMappingAlgorithm.MIN", cleanedReaction1, MIN, removeHydrogen, latch)));
+
+		/*
+		* MIN Algorithm
+		*/
+		LOGGER.info(NEW_LINE + "|++++++++++++++++++++++++++++|");
+		LOGGER.info("b) Local Model: ");
+		futures.add(executor.submit(new MappingThread("IMappingAlgorithm.MIN", cleanedReaction, MIN, removeHydrogen, latch)));
 
 		/*
 		* MAX Algorithm
 		*/
 		LOGGER.info(NEW_LINE + "|++++++++++++++++++++++++++++|");
 		LOGGER.info("a) Global Model: ");
-		if (DEBUG) {
-			out.println(NEW_LINE + "-----------------------------------" + NEW_LINE);
-			out.println(NEW_LINE + "STEP 1: Global Model Standardize Reactions" + NEW_LINE);
-		}
-		IReaction cleanedReaction2 = null;
-		try {
-			cleanedReaction2 = standardizer.standardize(reaction);
-		} catch (Exception e) {
-			LOGGER.debug("ERROR: in AtomMappingTool: " + e.getMessage());
-			LOGGER.error(e);
-		}
-		if (DEBUG) {
-			out.println(NEW_LINE + "STEP a: Calling Mapping Models" + NEW_LINE);
-		}
-		futures.add(cs.submit(new MappingThread("IMappingAlgorithm.MAX", cleanedReaction2, MAX, removeHydrogen, latch)));
+		futures.add(executor.submit(new MappingThread("IMappingAlgorithm.MAX", cleanedReaction, MAX, removeHydrogen, latch)));
 
 		/*
 		* MIXTURE Algorithm
 		*/
 		LOGGER.info(NEW_LINE + "|++++++++++++++++++++++++++++|");
 		LOGGER.info("c) Mixture Model: ");
-		if (DEBUG) {
-			out.println(NEW_LINE + "-----------------------------------" + NEW_LINE);
-			out.println(NEW_LINE + "STEP c: Mixture Model Standardize Reactions" + NEW_LINE);
-		}
-		IReaction cleanedReaction3 = null;
-		try {
-			cleanedReaction3 = standardizer.standardize(reaction);
-		} catch (Exception e) {
-			LOGGER.debug("ERROR: in AtomMappingTool: " + e.getMessage());
-			LOGGER.error(e);
-		}
-		futures.add(cs.submit(new MappingThread("IMappingAlgorithm.MIXTURE", cleanedReaction3, MIXTURE, removeHydrogen, latch)));   
+		futures.add(executor.submit(new MappingThread("IMappingAlgorithm.MIXTURE", cleanedReaction, MIXTURE, removeHydrogen, latch)));
 
 		if (checkComplex) {/*
 			* 
@@ -194,40 +172,46 @@ public class CallableAtomMappingTool implements Serializable {
 			*/
 			LOGGER.info(NEW_LINE + "|++++++++++++++++++++++++++++|");
 			LOGGER.info("d) Rings Model: ");
-			if (DEBUG) {
-				out.println(NEW_LINE + "-----------------------------------" + NEW_LINE);
-				out.println(NEW_LINE + "STEP d: Rings Model Standardize Reactions" + NEW_LINE);
-			}
-			IReaction cleanedReaction4 = null;
-			try {
-				cleanedReaction4 = standardizer.standardize(reaction);
-			} catch (Exception e) {
-				LOGGER.debug("ERROR: in AtomMappingTool: " + e.getMessage());
-				LOGGER.error(e);
-			}
-			futures.add(cs.submit(new MappingThread("IMappingAlgorithm.RINGS", cleanedReaction4, RINGS, removeHydrogen, latch)));
+			futures.add(executor.submit(new MappingThread("IMappingAlgorithm.RINGS", cleanedReaction, RINGS, removeHydrogen, latch)));
 		}
 
 		/*
-		* Collect the results
+		* Collect the results, the time limit is for the reaction as a whole;
+		* once it is over (or this thread is interrupted) the pending models
+		* are cancelled. With a reaction deadline the models stop searching
+		* when it expires and return what they have found, which is collected
+		* during a short grace period.
 		*/
-		for (Future<Reactor> future : futures) {
-			try {
-				Reactor chosen = future.get(timeout,TimeUnit.SECONDS);
-				putSolution(chosen.getAlgorithm(), chosen);
-			} catch (InterruptedException | TimeoutException | ExecutionException e) {
-				LOGGER.debug("ERROR: in AtomMappingTool: " + e.getMessage());
-				LOGGER.error(e);
+		Deadline budget = Deadline.current();
+		if (budget.isBounded()) {
+			timeout = budget.remaining(timeout, TimeUnit.SECONDS) + DEADLINE_GRACE;
+		}
+		long deadline = nanoTime() + TimeUnit.SECONDS.toNanos(timeout);
+		try {
+			for (Future<Reactor> future : futures) {
+				try {
+					Reactor chosen = SharedExecutor.get(future, deadline - nanoTime(), TimeUnit.NANOSECONDS);
+					putSolution(chosen.getAlgorithm(), chosen);
+				} catch (ExecutionException e) {
+					LOGGER.debug("ERROR: in AtomMappingTool: " + e.getMessage());
+					LOGGER.error(e);
+				}
 			}
+		} catch (TimeoutException e) {
+			LOGGER.error("ERROR: in AtomMappingTool: time limit of " + timeout + " s exceeded, mapping cancelled");
+		} catch (InterruptedException e) {
+			LOGGER.debug("ERROR: in AtomMappingTool: mapping interrupted");
+			Thread.currentThread().interrupt();
+		} finally {
+			SharedExecutor.cancel(futures);
 		}
-		executor.shutdown();
         if (DEBUG) {
             System.out.println("!!!!Atom-Atom Mapping Done!!!!");
         }
         /*
-         * Mapping cache cleared
+         * Mapping cache is shared across reactions (bounded LRU)
          */
-        mappingcache.cleanup();
+        LOGGER.info(MCSSolutionCache.getInstance().toString());
 
     }
 
@@ -78,6 +78,13 @@ import static org.openscience.smsd.tools.ExtAtomContainerManipulator.removeHydro
  */
 public class Reactor extends AbstractReactor implements Serializable {
 
+    /**
+     * Atom property holding the label of the atom in the expanded input
+     * reaction (before mapping). The mapping models start from the same
+     * labels, and unlike the atom IDs the label is kept on the mapped atoms.
+     */
+    public static final String INPUT_ATOM_LABEL = "INPUT_ATOM_LABEL";
+
     private static final boolean DEBUG = false;
     private static final long serialVersionUID = 197816786981017L;
     private final static ILoggingTool LOGGER
@@ -97,6 +104,8 @@ public class Reactor extends AbstractReactor implements Serializable {
     private Integer substrateAtomCounter;
     private Integer productAtomCounter;
     private int delta;
+    private int mcsPairCount;
+    private int reusedPairCount;
     private boolean balanceFlag;
     private IReaction reactionWithUniqueSTOICHIOMETRY;
     private final SmilesGenerator smiles;
@@ -154,7 +163,10 @@ public class Reactor extends AbstractReactor implements Serializable {
             out.println("|++++++++++++++++++++++++++++|");
             out.println("|i. Reactor Initialized");
         }
-        cleanMapping(reaction);
+        /*
+         * The input is shared by the mapping models, it is only read here;
+         * its mapping is cleared by CallableAtomMappingTool
+         */
         if (DEBUG) {
             out.println("|++++++++++++++++++++++++++++|");
             printReaction(reaction);
@@ -281,6 +293,7 @@ public class Reactor extends AbstractReactor implements Serializable {
                 substrateAtomCounter += 1;
                 IAtom atom = container.getAtom(k);
                 atom.setID(counter);
+                atom.setProperty(INPUT_ATOM_LABEL, counter);
 //                System.out.println("EAtom: " + k + " " + atom.getSymbol() + " Rank Atom: " + atom.getProperty("OLD_RANK") + " " + " Id: " + atom.getID());
                 rLabelledAtoms.put(atom.hashCode(), i);
                 if (atom.getProperty("OLD_RANK") != null) {
@@ -299,6 +312,7 @@ public class Reactor extends AbstractReactor implements Serializable {
                 productAtomCounter += 1;
                 IAtom atom = container.getAtom(k);
                 atom.setID(counter);
+                atom.setProperty(INPUT_ATOM_LABEL, counter);
 //                System.out.println("PAtom: " + k + " " + atom.getSymbol() + " Id: " + atom.getID());
                 pLabelledAtoms.put(atom.hashCode(), j);
                 if (atom.getProperty("OLD_RANK") != null) {
@@ -388,6 +402,8 @@ public class Reactor extends AbstractReactor implements Serializable {
             CalculationProcess calP
                     = new CalculationProcess(partialMapping, reactionCopy, getAlgorithm());
             delta = calP.getDelta();
+            mcsPairCount = calP.getMCSPairCount();
+            reusedPairCount = calP.getReusedPairCount();
             IReaction mappedReaction = calP.getMappedReaction();
             reactionWithUniqueSTOICHIOMETRY = getMapping(mappedReaction);
             setReactionBlastMolMapping(calP.getReactionBlastMolMapping());
@@ -930,6 +946,22 @@ public class Reactor extends AbstractReactor implements Serializable {
         return delta;
     }
 
+    /**
+     * @return number of educt/product pairs sent to the MCS by this mapping
+     * model
+     */
+    public synchronized int getMCSPairCount() {
+        return mcsPairCount;
+    }
+
+    /**
+     * @return number of educt/product pairs whose scores were carried forward
+     * between the rounds of this mapping model
+     */
+    public synchronized int getReusedPairCount() {
+        return reusedPairCount;
+    }
+
     /**
      * @return the reactionBlastMolMapping
      */
@@ -20,9 +20,10 @@ package uk.ac.ebi.reactionblast.mapping.algorithm;
 
 import java.io.IOException;
 import java.io.Serializable;
+import static java.lang.Boolean.parseBoolean;
 import static java.lang.String.valueOf;
+import static java.lang.System.getProperty;
 import static java.lang.System.out;
-import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Calendar;
 import static java.util.Calendar.DATE;
@@ -36,13 +37,12 @@ import java.util.GregorianCalendar;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.logging.Level;
 import static java.util.logging.Level.SEVERE;
 
 import org.openscience.cdk.PseudoAtom;
 import org.openscience.cdk.exception.CDKException;
-import org.openscience.cdk.fingerprint.CircularFingerprinter;
-import org.openscience.cdk.fingerprint.IBitFingerprint;
 import org.openscience.cdk.graph.CycleFinder;
 import org.openscience.cdk.graph.Cycles;
 import org.openscience.cdk.interfaces.IAtom;
@@ -57,11 +57,13 @@ import org.openscience.smsd.Isomorphism;
 import org.openscience.smsd.algorithm.matchers.AtomBondMatcher;
 import org.openscience.smsd.algorithm.matchers.AtomMatcher;
 import org.openscience.smsd.algorithm.matchers.BondMatcher;
-import org.openscience.smsd.helper.MoleculeInitializer;
 import org.openscience.smsd.interfaces.Algorithm;
-import org.openscience.smsd.tools.ExtAtomContainerManipulator;
+import org.openscience.smsd.tools.Deadline;
 import static uk.ac.ebi.reactionblast.fingerprints.tools.Similarity.getTanimotoSimilarity;
-import uk.ac.ebi.reactionblast.mapping.cache.ThreadSafeCache;
+import uk.ac.ebi.reactionblast.mapping.cache.CachedMapping;
+import uk.ac.ebi.reactionblast.mapping.cache.CanonicalMolecule;
+import uk.ac.ebi.reactionblast.mapping.cache.MCSSolutionCache;
+import uk.ac.ebi.reactionblast.mapping.cache.PerceptionCache;
 import uk.ac.ebi.reactionblast.mapping.container.ReactionContainer;
 import static uk.ac.ebi.reactionblast.mapping.graph.GraphMatcher.matcher;
 import uk.ac.ebi.reactionblast.mapping.graph.MCSSolution;
@@ -79,6 +81,11 @@ public abstract class BaseGameTheory extends Debugger implements IGameTheory, Se
     private final static ILoggingTool LOGGER
             = createLoggingTool(BaseGameTheory.class);
     private static final long serialVersionUID = 1698688633678282L;
+    /*
+     * Keyed by container identity, the containers are replaced and not
+     * modified when their mapped atoms are removed
+     */
+    private transient Map<IAtomContainer, CanonicalMolecule> canonicalForms;
 
     /**
      * Checks if a PseudoAtom is present
@@ -165,6 +172,7 @@ public abstract class BaseGameTheory extends Debugger implements IGameTheory, Se
                                     || reactionStructureInformation.isProductModified(productIndex)) {
                                 refillMatrixWithNewData(mh, substrateIndex, productIndex, mcsSolutions);
                             } else {
+                                mh.addReusedPair();
                                 refillMatrixWithOldData(mh, substrateIndex, productIndex);
                             }
                         } else {
@@ -225,6 +233,7 @@ public abstract class BaseGameTheory extends Debugger implements IGameTheory, Se
                                 || reactionStructureInformation.isProductModified(productIndex)) {
                             refillMatrixWithNewData(mh, substrateIndex, productIndex, mcsSolutions);
                         } else {
+                            mh.addReusedPair();
                             refillMatrixWithOldData(mh, substrateIndex, productIndex);
                         }
                     } else {
@@ -402,7 +411,7 @@ public abstract class BaseGameTheory extends Debugger implements IGameTheory, Se
 
     private MCSSolution quickMapping(IAtomContainer educt, IAtomContainer product,
             int queryPosition, int targetPosition) {
-        ThreadSafeCache<String, MCSSolution> mappingcache = ThreadSafeCache.getInstance();
+        MCSSolutionCache mappingcache = MCSSolutionCache.getInstance();
 
         /*
          * This function is called as a backup emergency step to avoid null if matching is possible
@@ -410,15 +419,14 @@ public abstract class BaseGameTheory extends Debugger implements IGameTheory, Se
         if (DEBUG) {
             System.out.println("====Quick Mapping====");
         }
+        PerceptionCache perception = PerceptionCache.getInstance();
         try {
-            ExtAtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(educt);
-            MoleculeInitializer.initializeMolecule(educt);
+            perception.configure(educt, PerceptionCache.Perception.MAPPING);
         } catch (CDKException ex) {
             LOGGER.error(Level.SEVERE, "Error in config. mol ", ex.getMessage());
         }
         try {
-            ExtAtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(product);
-            MoleculeInitializer.initializeMolecule(product);
+            perception.configure(product, PerceptionCache.Perception.MAPPING);
         } catch (CDKException ex) {
             LOGGER.error(Level.SEVERE, "Error in config. mol ", ex.getMessage());
         }
@@ -437,25 +445,23 @@ public abstract class BaseGameTheory extends Debugger implements IGameTheory, Se
             }
             int numberOfCyclesProduct = rings.numberOfCycles();
 
-            String key = generateUniqueKey(
-                    educt, product,
-                    educt.getID(), product.getID(),
-                    educt.getAtomCount(), product.getAtomCount(),
-                    educt.getBondCount(), product.getBondCount(),
-                    false,
-                    false,
-                    false,
-                    false,
-                    numberOfCyclesEduct,
-                    numberOfCyclesProduct
-            );
-            if (mappingcache.containsKey(key)) {
-
-                MCSSolution solution = mappingcache.get(key);
-                MCSSolution mcs = copyOldSolutionToNew(
+            CanonicalMolecule canonical1 = canonical(educt);
+            CanonicalMolecule canonical2 = canonical(product);
+            String key = canonical1 == null || canonical2 == null ? null
+                    : MCSSolutionCache.generateKey(Algorithm.DEFAULT, canonical1, canonical2,
+                            false,
+                            false,
+                            false,
+                            false,
+                            numberOfCyclesEduct,
+                            numberOfCyclesProduct
+                    );
+            CachedMapping solution = key == null ? null : mappingcache.get(key);
+            if (solution != null) {
+                MCSSolution mcs = solution.toSolution(
                         queryPosition, targetPosition,
                         educt, product,
-                        solution);
+                        canonical1, canonical2);
                 return mcs;
 
             } else {
@@ -464,7 +470,8 @@ public abstract class BaseGameTheory extends Debugger implements IGameTheory, Se
                 BondMatcher bondMatcher = AtomBondMatcher.bondMatcher(false, false);
                 isomorphism = new Isomorphism(educt, product, Algorithm.DEFAULT, atomMatcher, bondMatcher);
 
-                MCSSolution mcs = addMCSSolution(queryPosition, targetPosition, key, mappingcache, isomorphism);
+                MCSSolution mcs = addMCSSolution(queryPosition, targetPosition, key,
+                        canonical1, canonical2, mappingcache, isomorphism);
                 return mcs;
             }
         } catch (CDKException ex) {
@@ -473,15 +480,38 @@ public abstract class BaseGameTheory extends Debugger implements IGameTheory, Se
         return null;
     }
 
+    /*
+     * Canonical form of a molecule, computed once per container; null if it
+     * can not be canonicalised (its MCS are not cached then)
+     */
+    private CanonicalMolecule canonical(IAtomContainer mol) {
+        if (canonicalForms == null) {
+            canonicalForms = new WeakHashMap<>();
+        }
+        if (!canonicalForms.containsKey(mol)) {
+            CanonicalMolecule form = null;
+            try {
+                form = CanonicalMolecule.of(mol);
+            } catch (CDKException ex) {
+                LOGGER.debug("Unable to canonicalise " + mol.getID() + ", its MCS are not cached: ", ex.getMessage());
+            }
+            canonicalForms.put(mol, form);
+        }
+        return canonicalForms.get(mol);
+    }
+
     private void resetFLAGS(Holder mh) throws Exception {
         ReactionContainer reactionStructureInformation = mh.getReactionContainer();
         /*
-         * Reset all the flags
+         * Reset all the flags, so the next round only recomputes the pairs it
+         * modifies. With the system property rdt.mcs.reuse set to false every
+         * pair is recomputed in every round.
          */
+        boolean modified = !parseBoolean(getProperty("rdt.mcs.reuse", "true"));
         for (int substrateIndex = 0; substrateIndex < reactionStructureInformation.getEductCount(); substrateIndex++) {
             for (int productIndex = 0; productIndex < reactionStructureInformation.getProductCount(); productIndex++) {
-                reactionStructureInformation.setEductModified(substrateIndex, false);
-                reactionStructureInformation.setProductModified(productIndex, false);
+                reactionStructureInformation.setEductModified(substrateIndex, modified);
+                reactionStructureInformation.setProductModified(productIndex, modified);
             }
         }
     }
@@ -555,72 +585,9 @@ public abstract class BaseGameTheory extends Debugger implements IGameTheory, Se
         }
     }
 
-    synchronized String generateUniqueKey(
-            IAtomContainer compound1,
-            IAtomContainer compound2,
-            String id1, String id2,
-            int atomCount1, int atomCount2,
-            int bondCount1, int bondCount2,
-            boolean atomtypeMatcher,
-            boolean bondMatcher,
-            boolean ringMatcher,
-            boolean hasPerfectRings,
-            int numberOfCyclesEduct, int numberOfCyclesProduct) {
-        //System.out.println("====generate Unique Key====");
-        StringBuilder key = new StringBuilder();
-        key.append(id1).append(id2)
-                .append(atomCount1)
-                .append(atomCount2)
-                .append(bondCount1)
-                .append(bondCount2)
-                .append(atomtypeMatcher)
-                .append(bondMatcher)
-                .append(ringMatcher)
-                .append(hasPerfectRings)
-                .append(numberOfCyclesEduct)
-                .append(numberOfCyclesProduct);
-
-        try {
-            int[] sm1 = getCircularFP(compound1);
-            int[] sm2 = getCircularFP(compound2);
-            key.append(Arrays.toString(sm1));
-            key.append(Arrays.toString(sm2));
-        } catch (CDKException ex) {
-            LOGGER.error(Level.SEVERE, "Error in Generating Circular FP: ", ex);
-        }
-        //System.out.println("KEY " + key);
-        return key.toString();
-    }
-
-    private synchronized int[] getCircularFP(IAtomContainer mol) throws CDKException {
-        CircularFingerprinter circularFingerprinter = new CircularFingerprinter(6, 1024);
-        circularFingerprinter.setPerceiveStereo(true);
-        IBitFingerprint bitFingerprint = circularFingerprinter.getBitFingerprint(mol);
-        return bitFingerprint.getSetbits();
-    }
-
-    /*
-     * copy old mapping from the cache to new
-     */
-    synchronized MCSSolution copyOldSolutionToNew(int queryPosition, int targetPosition,
-            IAtomContainer compound1, IAtomContainer compound2, MCSSolution oldSolution) {
-        AtomAtomMapping atomAtomMapping = oldSolution.getAtomAtomMapping();
-        Map<Integer, Integer> mappingsByIndex = atomAtomMapping.getMappingsByIndex();
-
-        AtomAtomMapping atomAtomMappingNew = new AtomAtomMapping(compound1, compound2);
-        mappingsByIndex.entrySet().forEach((m) -> {
-            atomAtomMappingNew.put(compound1.getAtom(m.getKey()), compound2.getAtom(m.getValue()));
-        });
-        MCSSolution mcsSolution = new MCSSolution(queryPosition, targetPosition, compound1, compound2, atomAtomMappingNew);
-        mcsSolution.setEnergy(oldSolution.getEnergy());
-        mcsSolution.setFragmentSize(oldSolution.getFragmentSize());
-        mcsSolution.setStereoScore(oldSolution.getStereoScore());
-
-        return mcsSolution;
-    }
-
     synchronized MCSSolution addMCSSolution(int queryPosition, int targetPosition,
-            String key, ThreadSafeCache<String, MCSSolution> mappingcache, Isomorphism isomorphism) {
+            String key, CanonicalMolecule canonical1, CanonicalMolecule canonical2,
+            MCSSolutionCache mappingcache, Isomorphism isomorphism) {
 
         isomorphism.setChemFilters(true, true, true);
 
@@ -634,8 +601,12 @@ public abstract class BaseGameTheory extends Debugger implements IGameTheory, Se
         mcs.setFragmentSize(isomorphism.getFragmentSize(0));
         mcs.setStereoScore(isomorphism.getStereoScore(0));
 
-        if (!mappingcache.containsKey(key)) {
-            mappingcache.put(key, mcs);
+        /*
+         * A search cut short by its time limit may have missed the maximum
+         * mapping, keep it out of the cache and the store
+         */
+        if (key != null && !isomorphism.isTimeout() && !Deadline.isCurrentExpired()) {
+            mappingcache.put(key, CachedMapping.of(mcs, canonical1, canonical2));
         }
         return mcs;
     }
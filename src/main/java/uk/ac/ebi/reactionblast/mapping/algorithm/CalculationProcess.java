@@ -52,6 +52,8 @@ public class CalculationProcess extends CaseHandler implements Serializable {
     private static final long serialVersionUID = 0x4a0bba049L;
     private final boolean removeHydrogen;
     private int delta = 0;
+    private int mcsPairCount = 0;
+    private int reusedPairCount = 0;
     private MoleculeMoleculeMapping reactionBlastMolMapping;
     private final IMappingAlgorithm algorithm;
 
@@ -148,6 +150,10 @@ public class CalculationProcess extends CaseHandler implements Serializable {
                 System.out.println("=====DONE AGORITHM====" + theory);
             }
             this.reactionBlastMolMapping = gameTheory.getReactionMolMapping();
+            Holder holder = EDSH.getMatrixHolder();
+            this.mcsPairCount = holder.getMCSPairCount();
+            this.reusedPairCount = holder.getReusedPairCount();
+            LOGGER.debug(theory + " MCS pairs " + mcsPairCount + ", reused pairs " + reusedPairCount);
             EDSH.Clear();
 
             return gameTheory.getDelta();
@@ -164,6 +170,21 @@ public class CalculationProcess extends CaseHandler implements Serializable {
         return delta;
     }
 
+    /**
+     * @return number of educt/product pairs sent to the MCS
+     */
+    public synchronized int getMCSPairCount() {
+        return mcsPairCount;
+    }
+
+    /**
+     * @return number of educt/product pairs whose scores were carried forward
+     * between the rounds of the mapping
+     */
+    public synchronized int getReusedPairCount() {
+        return reusedPairCount;
+    }
+
     /**
      * @return the reactionBlastMolMapping
      */
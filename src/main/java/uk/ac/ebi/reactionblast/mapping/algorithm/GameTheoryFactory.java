@@ -47,7 +47,7 @@ public class GameTheoryFactory implements Serializable {
      * @return
      * @throws Exception
      */
-    public static synchronized IGameTheory make(IMappingAlgorithm theory, IReaction reaction, boolean removeHydrogen, Map<Integer, IAtomContainer> educts, Map<Integer, IAtomContainer> products, GameTheoryMatrix rpsh) throws Exception {
+    public static IGameTheory make(IMappingAlgorithm theory, IReaction reaction, boolean removeHydrogen, Map<Integer, IAtomContainer> educts, Map<Integer, IAtomContainer> products, GameTheoryMatrix rpsh) throws Exception {
         switch (theory) {
             case MIXTURE:
                 return new GameTheoryMixture(
@@ -25,6 +25,7 @@ import static java.lang.System.out;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import static java.util.logging.Level.SEVERE;
 import static uk.ac.ebi.reactionblast.fingerprints.tools.Similarity.getTanimotoSimilarity;
 import uk.ac.ebi.reactionblast.mapping.container.HydrogenFreeFingerPrintContainer;
@@ -72,6 +73,11 @@ public class Holder extends Debugger implements Cloneable, Serializable {
     private String reactionID;
     private HydrogenFreeFingerPrintContainer hydFPFree;
     private IMappingAlgorithm theory;
+    /*
+     * Pair counters, shared by the clones
+     */
+    private AtomicInteger mcsPairs;
+    private AtomicInteger reusedPairs;
 
     /**
      *
@@ -127,6 +133,8 @@ public class Holder extends Debugger implements Cloneable, Serializable {
         this.fpSimMatrixWithoutHydrogen = new EBIMatrix(row, column);
         this.energyMatrix = new EBIMatrix(row, column);
         this.mappingMolPair = synchronizedList(new ArrayList<>());
+        this.mcsPairs = new AtomicInteger();
+        this.reusedPairs = new AtomicInteger();
         if (DEBUG) {
             out.println("initialize the Matrix");
         }
@@ -276,6 +284,8 @@ public class Holder extends Debugger implements Cloneable, Serializable {
 
         mhClone.structureInformation = this.getReactionContainer();
         mhClone.bestMatchContainer = this.getBestMatchContainer();
+        mhClone.mcsPairs = this.mcsPairs;
+        mhClone.reusedPairs = this.reusedPairs;
         return mhClone;
     }
 
@@ -321,4 +331,35 @@ public class Holder extends Debugger implements Cloneable, Serializable {
     public EBIMatrix getCarbonOverlapMatrix() {
         return carbonOverlapMatrix;
     }
+
+    /**
+     * Count the educt/product pairs sent to the MCS.
+     *
+     * @param pairs
+     */
+    public void addMCSPairs(int pairs) {
+        mcsPairs.addAndGet(pairs);
+    }
+
+    /**
+     * Count an educt/product pair whose scores were carried forward.
+     */
+    public void addReusedPair() {
+        reusedPairs.incrementAndGet();
+    }
+
+    /**
+     * @return number of educt/product pairs sent to the MCS
+     */
+    public int getMCSPairCount() {
+        return mcsPairs.get();
+    }
+
+    /**
+     * @return number of educt/product pairs whose scores were carried forward
+     * from the previous round
+     */
+    public int getReusedPairCount() {
+        return reusedPairs.get();
+    }
 }
@@ -23,12 +23,16 @@ import static java.lang.Double.MAX_VALUE;
 import static java.lang.Double.MIN_VALUE;
 import java.util.List;
 
+import org.openscience.cdk.exception.CDKException;
 import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.tools.ILoggingTool;
+import static org.openscience.cdk.tools.LoggingToolFactory.createLoggingTool;
 import static org.openscience.cdk.tools.manipulator.AtomContainerManipulator.getTotalFormalCharge;
 import org.openscience.smsd.Substructure;
 import org.openscience.smsd.algorithm.matchers.AtomBondMatcher;
 import org.openscience.smsd.algorithm.matchers.AtomMatcher;
 import org.openscience.smsd.algorithm.matchers.BondMatcher;
+import org.openscience.smsd.tools.MoleculeView;
 import uk.ac.ebi.reactionblast.mapping.algorithm.Holder;
 
 /**
@@ -38,6 +42,8 @@ import uk.ac.ebi.reactionblast.mapping.algorithm.Holder;
 public class ReactionIsomorphismHandler implements Serializable {
 
     private static final long serialVersionUID = 0x1bfce07abac99fL;
+    private final static ILoggingTool LOGGER
+            = createLoggingTool(ReactionIsomorphismHandler.class);
     private int rowSize = -1;
     private int colSize = -1;
     private boolean[][] flagSimilarityMatrix = null;
@@ -208,35 +214,50 @@ public class ReactionIsomorphismHandler implements Serializable {
             }
         }
 
+        MoleculeView[] educts = new MoleculeView[rowSize];
+        MoleculeView[] products = new MoleculeView[colSize];
+        for (int i = 0; i < rowSize; i++) {
+            educts[i] = perceivedView(matrixHolder.getReactionContainer().getEduct(i));
+        }
+        for (int j = 0; j < colSize; j++) {
+            products[j] = perceivedView(matrixHolder.getReactionContainer().getProduct(j));
+        }
+
         for (int i = 0; i < rowSize; i++) {
             for (int j = 0; j < colSize; j++) {
 
-                IAtomContainer ac1 = matrixHolder.getReactionContainer().getEduct(i);
-                IAtomContainer ac2 = matrixHolder.getReactionContainer().getProduct(j);
+                IAtomContainer ac1 = educts[i].getContainer();
+                IAtomContainer ac2 = products[j].getContainer();
                 //matrix.
                 if (matrixHolder.getFPSimilarityMatrix().getValue(i, j) == 1.
                         && getTotalFormalCharge(ac1)
                         == getTotalFormalCharge(ac2)) {
 
-                    try {
+                    /*
+                     * Precheck the counts on the molecules the isomorphism
+                     * is searched on
+                     */
+                    if (educts[i].isPossibleSubgraph(products[j], true)) {
+                        try {
 
-                        AtomMatcher atomMatcher = AtomBondMatcher.atomMatcher(true, true);
-                        BondMatcher bondMatcher = AtomBondMatcher.bondMatcher(true, true);
+                            AtomMatcher atomMatcher = AtomBondMatcher.atomMatcher(true, true);
+                            BondMatcher bondMatcher = AtomBondMatcher.bondMatcher(true, true);
 
-                        Substructure isomorphism = new Substructure(ac1, ac2, atomMatcher, bondMatcher, false);
-                        if (isomorphism.isSubgraph()) {
-                            isomorphism.setChemFilters(true, true, true);
+                            Substructure isomorphism = new Substructure(ac1, ac2, atomMatcher, bondMatcher, false);
+                            if (isomorphism.isSubgraph()) {
+                                isomorphism.setChemFilters(true, true, true);
 
-                            if (isomorphism.getTanimotoSimilarity() == 1.0) {
+                                if (isomorphism.getTanimotoSimilarity() == 1.0) {
 
-                                if (!isomorphism.isStereoMisMatch()) {
-                                    flagStereoMatrix[i][j] = true;
+                                    if (!isomorphism.isStereoMisMatch()) {
+                                        flagStereoMatrix[i][j] = true;
+                                    }
                                 }
                             }
+                        } catch (Exception ex) {
+//                            ex.printStackTrace();
+                            flagStereoMatrix[i][j] = false;
                         }
-                    } catch (Exception ex) {
-//                        ex.printStackTrace();
-                        flagStereoMatrix[i][j] = false;
                     }
                     flagSimilarityMatrix[i][j] = true;
                 }
@@ -244,6 +265,20 @@ public class ReactionIsomorphismHandler implements Serializable {
         }
     }
 
+    /*
+     * View of a perceived copy of the molecule, the counts of the precheck and
+     * the isomorphism search see the same aromatic and ring atoms. The
+     * molecule is used as it is if it can not be perceived.
+     */
+    private static MoleculeView perceivedView(IAtomContainer container) {
+        try {
+            return MoleculeView.perceived(container);
+        } catch (CDKException ex) {
+            LOGGER.debug("Molecule could not be perceived for the isomorphism check ", ex.getMessage());
+            return new MoleculeView(container);
+        }
+    }
+
     /**
      *
      * @return
@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package uk.ac.ebi.reactionblast.mapping.algorithm.checks;
+
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import static java.lang.Long.getLong;
+import java.util.BitSet;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import org.openscience.cdk.AtomContainer;
+import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+import org.openscience.cdk.smiles.SmilesParser;
+import org.openscience.cdk.tools.ILoggingTool;
+import static org.openscience.cdk.tools.LoggingToolFactory.createLoggingTool;
+import static org.openscience.smsd.tools.ExtAtomContainerManipulator.removeHydrogens;
+import org.openscience.smsd.tools.MoleculeView;
+import static org.openscience.smsd.tools.MoleculeView.perceived;
+import org.openscience.smsd.tools.Utility;
+import static uk.ac.ebi.reactionblast.mapping.cache.PerceptionCache.structureKey;
+
+/**
+ * The molecules of the rule based mapping, parsed and perceived once per
+ * process, and a bounded cache of which rules are found in which reaction
+ * molecules.
+ *
+ * A rule matches a molecule if it is a subgraph of its heavy atoms, as
+ * {@link Utility#isMatch(MoleculeView, MoleculeView, boolean)}. The cache is
+ * keyed by the structure of the molecule, its size is set by the system
+ * property {@code rdt.rule.cache.size} (4096 molecules by default).
+ *
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public final class RuleLibrary {
+
+    private final static ILoggingTool LOGGER
+            = createLoggingTool(RuleLibrary.class);
+
+    private static final long MAX_SIZE = getLong("rdt.rule.cache.size", 4096L);
+
+    private static final Rule[] RULES = Rule.values();
+
+    //Single instance kept
+    private static final RuleLibrary RL = new RuleLibrary(MAX_SIZE);
+
+    //Access method
+    public static RuleLibrary getInstance() {
+        return RL;
+    }
+
+    /**
+     * Molecules of the mapping rules.
+     */
+    public enum Rule {
+
+        WATER("O"),
+        PHOSPHATE("OP(O)(O)=O"),
+        DOUBLE_PHOSPHATE("OP(O)(=O)OP(O)(O)=O"),
+        SULPHATE("O=S(=O)(O)O"),
+        ACETATE("CC(O)=O"),
+        L_GLUTAMATE("N[C@@H](CCC(O)=O)C(O)=O"),
+        L_GLUTAMINE("N[C@@H](CCC(N)=O)C(O)=O"),
+        L_GLUTAMATE_CLIPPED("O=[C]O.O=C(O)C(N)C[CH2]"),
+        L_GLUTAMINE_CLIPPED("O=[C]N.O=C(O)C(N)C[CH2]"),
+        TWO_OXOGLUTARATE("OC(=O)CCC(=O)C(O)=O"),
+        D_GLUTAMATE("N[C@H](CCC(O)=O)C(O)=O"),
+        ATP("NC1=NC=NC2=C1N=CN2[C@@H]1O[C@H](COP(O)(=O)OP(O)(=O)OP(O)(O)=O)[C@@H](O)[C@H]1O"),
+        ADP("NC1=NC=NC2=C1N=CN2[C@@H]1O[C@H](COP(O)(=O)OP(O)(O)=O)[C@@H](O)[C@H]1O"),
+        COA("CC(C)(COP(O)(=O)OP(O)(=O)OC[C@H]1O[C@H]([C@H](O)[C@@H]1OP(O)(O)=O)N1C=NC2=C1N=CN=C2N)[C@@H](O)C(=O)NCCC(=O)NCCS"),
+        ACETYL_COA("CC(=O)SCCNC(=O)CCNC(=O)[C@H](O)C(C)(C)COP(O)(=O)OP(O)(=O)OC[C@H]1O[C@H]([C@H](O)[C@@H]1OP(O)(O)=O)N1C=NC2=C1N=CN=C2N"),
+        C00003("NC(=O)C1=CC=C[N+](=C1)[C@@H]1O[C@H](COP(O)(=O)OP(O)(=O)OC[C@H]2O[C@H]([C@H](O)[C@@H]2O)N2C=NC3=C(N)N=CN=C23)[C@@H](O)[C@H]1O"),
+        C00006("NC(=O)C1=C[N+](=CC=C1)[C@@H]1O[C@H](COP(O)(=O)OP(O)(=O)OC[C@H]2O[C@H]([C@H](OP(O)(O)=O)[C@@H]2O)N2C=NC3=C2N=CN=C3N)[C@@H](O)[C@H]1O"),
+        C00004("NC(=O)C1=CN(C=CC1)[C@@H]1O[C@H](COP(O)(=O)OP(O)(=O)OC[C@H]2O[C@H]([C@H](O)[C@@H]2O)N2C=NC3=C2N=CN=C3N)[C@@H](O)[C@H]1O"),
+        C00005("NC(=O)C1=CN(C=CC1)[C@@H]1O[C@H](COP(O)(=O)OP(O)(=O)OC[C@H]2O[C@H]([C@H](OP(O)(O)=O)[C@@H]2O)N2C=NC3=C2N=CN=C3N)[C@@H](O)[C@H]1O"),
+        PYRUVATE("[CH3][C](=O)C(O)=O"),
+        ALANINE("[CH3][C](N)C(O)=O"),
+        N_RULE("CC(C)[C@H](N)C(O)=O"),
+        C_RULE("CC(C)C(=O)C(O)=O"),
+        C04666("O=P(O)(O)O[CH2].[CH]O.O[CH]C=1N=CNC1"),
+        C04916("O=C(N)C=1N=CN(C1N=CNCC(=O)[CH]O)C(O[CH])C(O)[CH]O.O=P(O)(O)O[CH2].O=P(O)(O)O[CH2].[CH]O");
+
+        private final String smiles;
+
+        Rule(String smiles) {
+            this.smiles = smiles;
+        }
+
+        /**
+         * @return the SMILES of the rule
+         */
+        public String getSmiles() {
+            return smiles;
+        }
+    }
+
+    private final MoleculeView[] rules;
+    private final Cache<String, Matches> cache;
+
+    /**
+     *
+     * @param maxSize maximum number of molecules
+     */
+    RuleLibrary(long maxSize) {
+        SmilesParser smilesParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        this.rules = new MoleculeView[RULES.length];
+        for (Rule rule : RULES) {
+            try {
+                rules[rule.ordinal()] = perceived(smilesParser.parseSmiles(rule.getSmiles()));
+            } catch (CDKException ex) {
+                throw new IllegalStateException("Unable to parse the rule " + rule, ex);
+            }
+        }
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @param rule
+     * @return a copy of the perceived rule molecule
+     */
+    public IAtomContainer getRule(Rule rule) {
+        try {
+            return rules[rule.ordinal()].getContainer().clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("rule could not be cloned");
+        }
+    }
+
+    /**
+     * @param rule
+     * @return number of atoms of the rule molecule
+     */
+    public int getAtomCount(Rule rule) {
+        return rules[rule.ordinal()].getAtomCount();
+    }
+
+    /**
+     * Rules found in a molecule. The molecule is not modified, the rules are
+     * matched on a perceived copy.
+     *
+     * @param mol reaction molecule
+     * @return the rules found
+     * @throws CDKException
+     */
+    public Matches match(IAtomContainer mol) throws CDKException {
+        try {
+            return cache.get(structureKey(mol), () -> evaluate(mol));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CDKException) {
+                throw (CDKException) e.getCause();
+            }
+            throw new CDKException("Unable to match the rules on " + mol.getID(), e.getCause());
+        } catch (UncheckedExecutionException e) {
+            throwIfUnchecked(e.getCause());
+            throw e;
+        }
+    }
+
+    private Matches evaluate(IAtomContainer mol) throws CDKException {
+        MoleculeView heavyAtoms = perceived(removeHydrogens(new AtomContainer(mol)));
+        BitSet found = new BitSet(RULES.length);
+        for (Rule rule : RULES) {
+            if (isMatch(rule, heavyAtoms)) {
+                found.set(rule.ordinal());
+            }
+        }
+
+        /*
+         * The phosphate cleavage is checked on the molecule as it is, with
+         * its explicit hydrogens
+         */
+        boolean phosphate = isMatch(Rule.PHOSPHATE, perceived(mol));
+        return new Matches(found, heavyAtoms.getAtomCount(), phosphate);
+    }
+
+    private boolean isMatch(Rule rule, MoleculeView target) {
+        try {
+            return Utility.isMatch(rules[rule.ordinal()], target, false);
+        } catch (CDKException ex) {
+            LOGGER.error(Level.WARNING, "Error in matching the rule " + rule, ex);
+            return false;
+        }
+    }
+
+    /**
+     * Remove all the entries, the counters are preserved.
+     */
+    public void cleanup() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public String toString() {
+        CacheStats stats = cache.stats();
+        return "Rule cache: size " + cache.size()
+                + ", hits " + stats.hitCount()
+                + ", misses " + stats.missCount()
+                + ", evictions " + stats.evictionCount();
+    }
+
+    /**
+     * Rules found in a reaction molecule.
+     */
+    public static final class Matches {
+
+        private final BitSet found;
+        private final int atomCount;
+        private final boolean phosphate;
+
+        Matches(BitSet found, int atomCount, boolean phosphate) {
+            this.found = found;
+            this.atomCount = atomCount;
+            this.phosphate = phosphate;
+        }
+
+        /**
+         * @param rule
+         * @return true if the rule is a subgraph of the heavy atoms
+         */
+        public boolean isMatch(Rule rule) {
+            return found.get(rule.ordinal());
+        }
+
+        /**
+         * @return number of heavy atoms
+         */
+        public int getAtomCount() {
+            return atomCount;
+        }
+
+        /**
+         * @return true if the phosphate is a subgraph of the molecule with
+         * its explicit hydrogens
+         */
+        public boolean isPhosphate() {
+            return phosphate;
+        }
+    }
+}
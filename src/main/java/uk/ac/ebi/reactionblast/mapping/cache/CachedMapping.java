@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package uk.ac.ebi.reactionblast.mapping.cache;
+
+import java.io.Serializable;
+import java.util.Map;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.smsd.AtomAtomMapping;
+import uk.ac.ebi.reactionblast.mapping.graph.MCSSolution;
+
+/**
+ * An MCS solution stripped of its molecules. The mapped atoms are stored as
+ * canonical ranks so that the solution can be replayed on any pair of
+ * containers with the same structures, whatever their atom order.
+ *
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public final class CachedMapping implements Serializable {
+
+    private static final long serialVersionUID = 0x3a4f1c2b7d9eL;
+
+    private final int[] queryRanks;
+    private final int[] targetRanks;
+    private final Double energy;
+    private final Integer fragmentSize;
+    private final Integer stereoScore;
+
+    /**
+     *
+     * @param queryRanks canonical ranks of the mapped query atoms
+     * @param targetRanks canonical ranks of the mapped target atoms
+     * @param energy
+     * @param fragmentSize
+     * @param stereoScore
+     */
+    public CachedMapping(int[] queryRanks, int[] targetRanks,
+            Double energy, Integer fragmentSize, Integer stereoScore) {
+        this.queryRanks = queryRanks;
+        this.targetRanks = targetRanks;
+        this.energy = energy;
+        this.fragmentSize = fragmentSize;
+        this.stereoScore = stereoScore;
+    }
+
+    /**
+     * Translate a solution into canonical rank space.
+     *
+     * @param solution MCS solution
+     * @param query canonical form of the solution query
+     * @param target canonical form of the solution target
+     * @return cache entry
+     */
+    public static CachedMapping of(MCSSolution solution, CanonicalMolecule query, CanonicalMolecule target) {
+        Map<Integer, Integer> mappingsByIndex = solution.getAtomAtomMapping().getMappingsByIndex();
+        int[] q = new int[mappingsByIndex.size()];
+        int[] t = new int[mappingsByIndex.size()];
+        int i = 0;
+        for (Map.Entry<Integer, Integer> m : mappingsByIndex.entrySet()) {
+            q[i] = query.getRank(m.getKey());
+            t[i] = target.getRank(m.getValue());
+            i++;
+        }
+        return new CachedMapping(q, t, solution.getEnergy(),
+                solution.getFragmentSize(), solution.getStereoScore());
+    }
+
+    /**
+     * Replay the cached mapping on a new pair of containers.
+     *
+     * @param queryPosition
+     * @param targetPosition
+     * @param compound1 query container
+     * @param compound2 target container
+     * @param query canonical form of the query container
+     * @param target canonical form of the target container
+     * @return MCS solution on the given containers
+     */
+    public MCSSolution toSolution(int queryPosition, int targetPosition,
+            IAtomContainer compound1, IAtomContainer compound2,
+            CanonicalMolecule query, CanonicalMolecule target) {
+        AtomAtomMapping atomAtomMapping = new AtomAtomMapping(compound1, compound2);
+        for (int i = 0; i < queryRanks.length; i++) {
+            atomAtomMapping.put(compound1.getAtom(query.getIndex(queryRanks[i])),
+                    compound2.getAtom(target.getIndex(targetRanks[i])));
+        }
+        MCSSolution mcsSolution = new MCSSolution(queryPosition, targetPosition,
+                compound1, compound2, atomAtomMapping);
+        mcsSolution.setEnergy(energy);
+        mcsSolution.setFragmentSize(fragmentSize);
+        mcsSolution.setStereoScore(stereoScore);
+        return mcsSolution;
+    }
+
+    /**
+     * @return canonical ranks of the mapped query atoms
+     */
+    public int[] getQueryRanks() {
+        return queryRanks.clone();
+    }
+
+    /**
+     * @return canonical ranks of the mapped target atoms
+     */
+    public int[] getTargetRanks() {
+        return targetRanks.clone();
+    }
+
+    /**
+     * @return the energy
+     */
+    public Double getEnergy() {
+        return energy;
+    }
+
+    /**
+     * @return the fragmentSize
+     */
+    public Integer getFragmentSize() {
+        return fragmentSize;
+    }
+
+    /**
+     * @return the stereoScore
+     */
+    public Integer getStereoScore() {
+        return stereoScore;
+    }
+
+    /**
+     * @return number of mapped atom pairs
+     */
+    public int getCount() {
+        return queryRanks.length;
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package uk.ac.ebi.reactionblast.mapping.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.graph.GraphUtil;
+import org.openscience.cdk.graph.invariant.Canon;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.interfaces.IChemObject;
+import org.openscience.cdk.interfaces.IDoubleBondStereochemistry;
+import org.openscience.cdk.interfaces.IPseudoAtom;
+import org.openscience.cdk.interfaces.IStereoElement;
+import org.openscience.cdk.interfaces.ITetrahedralChirality;
+
+/**
+ * Canonical form of a molecule: a key of the structure and the canonical rank
+ * of every atom. Identical structures give the same key irrespective of the
+ * input atom order, and the ranks translate atom indices between two such
+ * containers.
+ *
+ * The ranks are the {@link Canon} labels of the graph coloured by the atom
+ * properties (element or pseudo atom label, mass, charge, hydrogens,
+ * radicals, aromaticity and bonds), no InChI is generated. The key
+ * lists the atoms and bonds in rank order and the tetrahedral and double bond
+ * configurations relative to the ranks, so two molecules with the same key
+ * are mapped onto each other by their ranks. Stereo centres which are
+ * equivalent by symmetry may give another key for another atom order, their
+ * MCS is then not found in the cache.
+ *
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public final class CanonicalMolecule {
+
+    private final String key;
+    private final int[] rankToIndex;
+    private final int[] indexToRank;
+
+    private CanonicalMolecule(String key, int[] indexToRank) {
+        this.key = key;
+        this.indexToRank = indexToRank;
+        this.rankToIndex = new int[indexToRank.length];
+        for (int i = 0; i < indexToRank.length; i++) {
+            this.rankToIndex[indexToRank[i]] = i;
+        }
+    }
+
+    /**
+     * Canonicalise a molecule.
+     *
+     * @param mol molecule
+     * @return canonical form
+     * @throws CDKException if a bond or stereo element refers to an atom
+     * outside the molecule
+     */
+    public static CanonicalMolecule of(IAtomContainer mol) throws CDKException {
+        int n = mol.getAtomCount();
+        String[] atoms = new String[n];
+        for (int i = 0; i < n; i++) {
+            atoms[i] = describe(mol, mol.getAtom(i));
+        }
+        /*
+         * Colour the atoms by their sorted descriptions
+         */
+        List<String> colours = new ArrayList<>(new TreeSet<>(Arrays.asList(atoms)));
+        long[] invariants = new long[n];
+        for (int i = 0; i < n; i++) {
+            invariants[i] = Collections.binarySearch(colours, atoms[i]) + 1;
+        }
+        long[] labels;
+        try {
+            labels = Canon.label(mol, GraphUtil.toAdjList(mol), invariants);
+        } catch (IllegalArgumentException e) {
+            throw new CDKException("Unable to canonicalise the molecule: " + e.getMessage(), e);
+        }
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(labels[a], labels[b]));
+        int[] indexToRank = new int[n];
+        for (int r = 0; r < n; r++) {
+            indexToRank[order[r]] = r;
+        }
+
+        StringBuilder key = new StringBuilder(16 * n);
+        for (int r = 0; r < n; r++) {
+            key.append(atoms[order[r]]).append(';');
+        }
+        key.append('|');
+        List<String> bonds = new ArrayList<>(mol.getBondCount());
+        for (IBond b : mol.bonds()) {
+            int u = rank(mol, indexToRank, b.getBegin());
+            int v = rank(mol, indexToRank, b.getEnd());
+            bonds.add(Math.min(u, v) + "-" + Math.max(u, v) + "," + order(b));
+        }
+        Collections.sort(bonds);
+        key.append(String.join(";", bonds)).append('|');
+        List<String> stereo = new ArrayList<>();
+        for (IStereoElement<?, ?> se : mol.stereoElements()) {
+            stereo.add(stereo(mol, indexToRank, se));
+        }
+        Collections.sort(stereo);
+        key.append(String.join(";", stereo));
+        return new CanonicalMolecule(key.toString(), indexToRank);
+    }
+
+    /*
+     * Aromatic bonds are keyed as aromatic whatever their Kekule order, as in
+     * an aromatic SMILES
+     */
+    private static String order(IBond b) {
+        return b.isAromatic() ? "a" : String.valueOf(b.getOrder() == null ? 0 : b.getOrder().numeric());
+    }
+
+    private static String describe(IAtomContainer mol, IAtom a) {
+        StringBuilder bonds = new StringBuilder();
+        List<String> orders = new ArrayList<>();
+        for (IBond b : mol.getConnectedBondsList(a)) {
+            orders.add(order(b));
+        }
+        Collections.sort(orders);
+        orders.forEach(bonds::append);
+        return (a instanceof IPseudoAtom ? "*" + ((IPseudoAtom) a).getLabel() : a.getSymbol())
+                + "," + (a.getMassNumber() == null ? "" : a.getMassNumber())
+                + "," + a.getFormalCharge()
+                + "," + a.getImplicitHydrogenCount()
+                + "," + mol.getConnectedSingleElectronsCount(a)
+                + "," + bonds
+                + (a.isAromatic() ? "a" : "");
+    }
+
+    private static int rank(IAtomContainer mol, int[] indexToRank, IAtom atom) throws CDKException {
+        int index = mol.indexOf(atom);
+        if (index < 0) {
+            throw new CDKException("Unable to canonicalise the molecule: atom outside the molecule");
+        }
+        return indexToRank[index];
+    }
+
+    /*
+     * Configurations are expressed on the ranks: the tetrahedral parity of
+     * the ligands sorted by rank, the double bond configuration of its
+     * ligands, and the carriers as given for the other stereo elements
+     */
+    private static String stereo(IAtomContainer mol, int[] indexToRank, IStereoElement<?, ?> se)
+            throws CDKException {
+        if (se instanceof ITetrahedralChirality) {
+            ITetrahedralChirality tc = (ITetrahedralChirality) se;
+            IAtom[] ligands = tc.getLigands();
+            int[] ranks = new int[ligands.length];
+            for (int i = 0; i < ligands.length; i++) {
+                ranks[i] = rank(mol, indexToRank, ligands[i]);
+            }
+            boolean clockwise = tc.getStereo() == ITetrahedralChirality.Stereo.CLOCKWISE;
+            if (parity(ranks)) {
+                clockwise = !clockwise;
+            }
+            return "T" + rank(mol, indexToRank, tc.getChiralAtom()) + (clockwise ? "@@" : "@");
+        }
+        if (se instanceof IDoubleBondStereochemistry) {
+            IDoubleBondStereochemistry db = (IDoubleBondStereochemistry) se;
+            IBond bond = db.getStereoBond();
+            IBond[] ligands = db.getBonds();
+            IBond first = ligands[0].contains(bond.getBegin()) ? ligands[0] : ligands[1];
+            IBond second = first == ligands[0] ? ligands[1] : ligands[0];
+            int u = rank(mol, indexToRank, bond.getBegin());
+            int v = rank(mol, indexToRank, bond.getEnd());
+            int lu = rank(mol, indexToRank, first.getOther(bond.getBegin()));
+            int lv = rank(mol, indexToRank, second.getOther(bond.getEnd()));
+            String conformation = db.getStereo().toString();
+            return "D" + (u < v ? u + "," + lu + "," + v + "," + lv : v + "," + lv + "," + u + "," + lu)
+                    + conformation;
+        }
+        StringBuilder s = new StringBuilder(se.getClass().getSimpleName());
+        s.append(se.getConfigClass()).append(':').append(se.getConfigOrder());
+        s.append(':').append(carrier(mol, indexToRank, se.getFocus()));
+        for (Object carrier : se.getCarriers()) {
+            s.append(',').append(carrier(mol, indexToRank, (IChemObject) carrier));
+        }
+        return s.toString();
+    }
+
+    private static String carrier(IAtomContainer mol, int[] indexToRank, IChemObject carrier)
+            throws CDKException {
+        if (carrier instanceof IAtom) {
+            return String.valueOf(rank(mol, indexToRank, (IAtom) carrier));
+        }
+        if (carrier instanceof IBond) {
+            IBond b = (IBond) carrier;
+            int u = rank(mol, indexToRank, b.getBegin());
+            int v = rank(mol, indexToRank, b.getEnd());
+            return Math.min(u, v) + "-" + Math.max(u, v);
+        }
+        throw new CDKException("Unable to canonicalise the molecule: unknown stereo carrier");
+    }
+
+    /*
+     * True if an odd number of swaps sorts the values
+     */
+    private static boolean parity(int[] values) {
+        int[] v = values.clone();
+        boolean odd = false;
+        for (int i = 0; i < v.length; i++) {
+            for (int j = i + 1; j < v.length; j++) {
+                if (v[j] < v[i]) {
+                    int t = v[i];
+                    v[i] = v[j];
+                    v[j] = t;
+                    odd = !odd;
+                }
+            }
+        }
+        return odd;
+    }
+
+    /**
+     * @return key of the structure
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @param index atom index in the container
+     * @return canonical rank of the atom
+     */
+    public int getRank(int index) {
+        return indexToRank[index];
+    }
+
+    /**
+     * @param rank canonical rank
+     * @return atom index in the container
+     */
+    public int getIndex(int rank) {
+        return rankToIndex[rank];
+    }
+
+    /**
+     * @return number of atoms
+     */
+    public int getAtomCount() {
+        return indexToRank.length;
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package uk.ac.ebi.reactionblast.mapping.cache;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.io.File;
+import java.io.IOException;
+import static java.lang.Long.getLong;
+import static java.lang.System.getProperty;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openscience.cdk.tools.ILoggingTool;
+import static org.openscience.cdk.tools.LoggingToolFactory.createLoggingTool;
+import org.openscience.smsd.interfaces.Algorithm;
+
+/**
+ * Process wide, bounded cache of MCS solutions.
+ *
+ * Entries are keyed by the version of the matchers and MCS searches
+ * ({@link MCSSolutionStore#MATCHER_VERSION}), the canonical keys of the
+ * educt/product pair, the MCS algorithm and the matcher flags, so a pair seen
+ * in one reaction (ATP/ADP, NAD+/NADH, water ...) is reused by every later
+ * reaction. The cache is bounded by an
+ * approximate memory weight (system property {@code rdt.mcs.cache.bytes},
+ * 128 MB by default); the least recently used entries are evicted first.
+ *
+ * An optional {@link MCSSolutionStore} sits behind the memory cache (system
+ * property {@code rdt.mcs.store} or {@link #setStore}); misses are looked up
+ * in the store and new solutions are written to it, so solutions survive a
+ * restart.
+ *
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public class MCSSolutionCache implements Cache<String, CachedMapping> {
+
+    private final static ILoggingTool LOGGER
+            = createLoggingTool(MCSSolutionCache.class);
+
+    private static final long MAX_WEIGHT = getLong("rdt.mcs.cache.bytes", 128L * 1024 * 1024);
+
+    //Single instance kept
+    private static final MCSSolutionCache SC = new MCSSolutionCache(MAX_WEIGHT);
+
+    static {
+        String storeFile = getProperty("rdt.mcs.store");
+        if (storeFile != null && !storeFile.isEmpty()) {
+            try {
+                MCSSolutionStore store = MCSSolutionStore.open(new File(storeFile));
+                SC.setStore(store);
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        store.close();
+                    } catch (IOException e) {
+                        LOGGER.error("Unable to close the MCS store ", e.getMessage());
+                    }
+                }));
+            } catch (IOException e) {
+                LOGGER.error("Unable to open the MCS store " + storeFile, e.getMessage());
+            }
+        }
+    }
+
+    //Access method
+    public static MCSSolutionCache getInstance() {
+        return SC;
+    }
+
+    private final com.google.common.cache.Cache<String, CachedMapping> map;
+    private final AtomicLong storeHits;
+    private volatile MCSSolutionStore store;
+
+    /**
+     *
+     * @param maxWeight approximate size of the cache in bytes
+     */
+    MCSSolutionCache(long maxWeight) {
+        map = CacheBuilder.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((String key, CachedMapping value) -> 64 + 2 * key.length() + 8 * value.getCount())
+                .recordStats()
+                .build();
+        storeHits = new AtomicLong();
+    }
+
+    /**
+     * Set the persistent store behind this cache.
+     *
+     * @param store store or null to detach the current one (not closed)
+     */
+    public void setStore(MCSSolutionStore store) {
+        this.store = store;
+    }
+
+    /**
+     * @return persistent store or null
+     */
+    public MCSSolutionStore getStore() {
+        return store;
+    }
+
+    /**
+     * Key for an educt/product pair, the algorithm and the matcher flags,
+     * prefixed by the version of the matchers and MCS searches.
+     *
+     * @param algorithm MCS algorithm
+     * @param query canonical educt
+     * @param target canonical product
+     * @param atomtypeMatcher
+     * @param bondMatcher
+     * @param ringMatcher
+     * @param hasPerfectRings
+     * @param numberOfCyclesEduct
+     * @param numberOfCyclesProduct
+     * @return cache key
+     */
+    public static String generateKey(Algorithm algorithm,
+            CanonicalMolecule query, CanonicalMolecule target,
+            boolean atomtypeMatcher,
+            boolean bondMatcher,
+            boolean ringMatcher,
+            boolean hasPerfectRings,
+            int numberOfCyclesEduct, int numberOfCyclesProduct) {
+        StringBuilder key = new StringBuilder();
+        key.append('v')
+                .append(MCSSolutionStore.MATCHER_VERSION)
+                .append('|')
+                .append(algorithm.name())
+                .append('|')
+                .append(query.getKey())
+                .append(">>")
+                .append(target.getKey())
+                .append('|')
+                .append(atomtypeMatcher ? 'T' : 'F')
+                .append(bondMatcher ? 'T' : 'F')
+                .append(ringMatcher ? 'T' : 'F')
+                .append(hasPerfectRings ? 'T' : 'F')
+                .append('|')
+                .append(numberOfCyclesEduct)
+                .append(',')
+                .append(numberOfCyclesProduct);
+        return key.toString();
+    }
+
+    @Override
+    public void put(String key, CachedMapping value) {
+        map.put(key, value);
+        MCSSolutionStore s = store;
+        if (s != null) {
+            s.put(key, value);
+        }
+    }
+
+    /**
+     * @param key
+     * @return cached solution or null (counted as a miss)
+     */
+    @Override
+    public CachedMapping get(String key) {
+        CachedMapping value = map.getIfPresent(key);
+        MCSSolutionStore s = store;
+        if (value == null && s != null) {
+            value = s.get(key);
+            if (value != null) {
+                storeHits.incrementAndGet();
+                map.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Remove all the entries, the counters are preserved.
+     */
+    public void cleanup() {
+        map.invalidateAll();
+    }
+
+    /**
+     * @return number of entries
+     */
+    public long size() {
+        return map.size();
+    }
+
+    /**
+     * @return number of lookups which found a solution
+     */
+    public long getHitCount() {
+        return map.stats().hitCount();
+    }
+
+    /**
+     * @return number of lookups which did not find a solution
+     */
+    public long getMissCount() {
+        return map.stats().missCount();
+    }
+
+    /**
+     * @return number of memory misses answered by the persistent store
+     */
+    public long getStoreHitCount() {
+        return storeHits.get();
+    }
+
+    /**
+     * @return number of entries evicted to respect the size bound
+     */
+    public long getEvictionCount() {
+        return map.stats().evictionCount();
+    }
+
+    @Override
+    public String toString() {
+        CacheStats stats = map.stats();
+        return "MCS cache: size " + map.size()
+                + ", hits " + stats.hitCount()
+                + ", misses " + stats.missCount()
+                + ", evictions " + stats.evictionCount()
+                + (store == null ? "" : ", store hits " + storeHits.get() + ", store size " + store.size());
+    }
+}
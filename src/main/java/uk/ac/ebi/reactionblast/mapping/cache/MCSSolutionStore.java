@@ -0,0 +1,349 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package uk.ac.ebi.reactionblast.mapping.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+import org.openscience.cdk.CDK;
+import org.openscience.cdk.tools.ILoggingTool;
+import static org.openscience.cdk.tools.LoggingToolFactory.createLoggingTool;
+
+/**
+ * Append-only file of MCS solutions, used behind the {@link MCSSolutionCache}
+ * so that a restarted process reuses the solutions computed by earlier runs.
+ *
+ * The file starts with a header holding the record format and the matcher
+ * semantics ({@link #MATCHER_VERSION} and the CDK version). A file written
+ * with other semantics is moved aside and a fresh one is started.
+ *
+ * Each record is {@code [length][crc32][key][mapped rank pairs][scores]}.
+ * Only the 64 bit hash of each key and the record offset are held in memory;
+ * the full key is stored in the record and checked on read. A torn record at
+ * the end of the file (a crash during a write) fails the CRC check and is
+ * ignored by readers and truncated by the next writer.
+ *
+ * Only one process writes: the first one to lock the file. Others open the
+ * store read-only and pick up records appended later on a lookup miss. Within
+ * a process a file is opened once ({@link #open}): opening it again, e.g.
+ * as {@code -Drdt.mcs.store} and as the batch store, returns the same store.
+ *
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public class MCSSolutionStore implements Closeable {
+
+    private final static ILoggingTool LOGGER
+            = createLoggingTool(MCSSolutionStore.class);
+
+    /**
+     * Bump whenever the MCS engines or the matchers change the solutions
+     * they return for the same input; old stores are then discarded. Also
+     * part of the {@link MCSSolutionCache} keys.
+     */
+    public static final int MATCHER_VERSION = 2;
+    private static final int FORMAT_VERSION = 1;
+    private static final int MAGIC = 0x52445453; // RDTS
+
+    /*
+     * Stores open in this process by canonical path
+     */
+    private static final Map<Path, MCSSolutionStore> OPEN = new HashMap<>();
+
+    private final Path path;
+    private final FileChannel channel;
+    private final FileLock lock;
+    private final Map<Long, Long> index;
+    private final int headerSize;
+    private volatile long end;
+    private int users;
+
+    /**
+     * Open (or create) a store, or share the one already open in this
+     * process for the same file. Each open is paired with a {@link #close}.
+     *
+     * @param file store location
+     * @return store
+     * @throws IOException
+     */
+    public static MCSSolutionStore open(File file) throws IOException {
+        Path canonical = file.getCanonicalFile().toPath();
+        synchronized (OPEN) {
+            MCSSolutionStore store = OPEN.get(canonical);
+            if (store == null) {
+                store = new MCSSolutionStore(canonical);
+                OPEN.put(canonical, store);
+            }
+            store.users++;
+            return store;
+        }
+    }
+
+    private MCSSolutionStore(Path path) throws IOException {
+        this.path = path;
+        this.index = new ConcurrentHashMap<>();
+        byte[] header = header(MATCHER_VERSION);
+        this.headerSize = header.length;
+
+        FileChannel c = FileChannel.open(path, READ, WRITE, CREATE);
+        FileLock l = tryLock(c);
+        if (c.size() > 0 && !isCompatible(c, header)) {
+            if (l == null) {
+                c.close();
+                throw new IOException("Incompatible MCS store (locked by another writer): " + path);
+            }
+            LOGGER.warn("MCS store written with other matcher semantics, starting a new one: " + path);
+            l.release();
+            c.close();
+            Files.move(path, path.resolveSibling(path.getFileName() + ".stale"),
+                    StandardCopyOption.REPLACE_EXISTING);
+            c = FileChannel.open(path, READ, WRITE, CREATE);
+            l = tryLock(c);
+        }
+        if (c.size() == 0 && l != null) {
+            c.write(ByteBuffer.wrap(header), 0);
+        }
+        this.channel = c;
+        this.lock = l;
+        this.end = headerSize;
+        refresh();
+        if (isWriter() && channel.size() > end) {
+            LOGGER.warn("Truncating incomplete record at the end of the MCS store " + path);
+            channel.truncate(end);
+        }
+    }
+
+    /*
+     * The stores of this process are shared by path, an overlapping lock is
+     * held by another channel of this process on the same file (e.g. through
+     * a link); it is treated as a lock of another writer
+     */
+    private static FileLock tryLock(FileChannel c) throws IOException {
+        try {
+            return c.tryLock();
+        } catch (OverlappingFileLockException e) {
+            return null;
+        }
+    }
+
+    static byte[] header(int matcherVersion) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF("mcs-" + matcherVersion + ";cdk-" + CDK.getVersion());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static boolean isCompatible(FileChannel c, byte[] header) throws IOException {
+        if (c.size() < header.length) {
+            return false;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(header.length);
+        c.read(buffer, 0);
+        return java.util.Arrays.equals(buffer.array(), header);
+    }
+
+    /**
+     * @return true if this process owns the write lock
+     */
+    public boolean isWriter() {
+        return lock != null;
+    }
+
+    /**
+     * @return number of records indexed
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Index the records appended since the last scan.
+     *
+     * @throws IOException
+     */
+    public synchronized void refresh() throws IOException {
+        long size = channel.size();
+        long position = end;
+        ByteBuffer prefix = ByteBuffer.allocate(8);
+        while (position + 8 <= size) {
+            prefix.clear();
+            channel.read(prefix, position);
+            prefix.flip();
+            int length = prefix.getInt();
+            long crc = prefix.getInt() & 0xffffffffL;
+            if (length <= 0 || position + 8 + length > size) {
+                break;
+            }
+            ByteBuffer record = ByteBuffer.allocate(length);
+            channel.read(record, position + 8);
+            if (crc(record.array()) != crc) {
+                break;
+            }
+            record.flip();
+            String key = readKey(record);
+            index.put(hash(key), position);
+            position += 8 + length;
+        }
+        end = position;
+    }
+
+    /**
+     * Look up a solution.
+     *
+     * @param key cache key
+     * @return stored solution or null
+     */
+    public CachedMapping get(String key) {
+        try {
+            long h = hash(key);
+            Long offset = index.get(h);
+            if (offset == null && !isWriter() && channel.size() > end) {
+                refresh();
+                offset = index.get(h);
+            }
+            if (offset == null) {
+                return null;
+            }
+            ByteBuffer prefix = ByteBuffer.allocate(8);
+            channel.read(prefix, offset);
+            prefix.flip();
+            ByteBuffer record = ByteBuffer.allocate(prefix.getInt());
+            channel.read(record, offset + 8);
+            record.flip();
+            if (!key.equals(readKey(record))) {
+                return null;
+            }
+            int count = record.getInt();
+            int[] q = new int[count];
+            int[] t = new int[count];
+            for (int i = 0; i < count; i++) {
+                q[i] = record.getInt();
+                t[i] = record.getInt();
+            }
+            double energy = record.getDouble();
+            int fragmentSize = record.getInt();
+            int stereoScore = record.getInt();
+            byte flags = record.get();
+            return new CachedMapping(q, t,
+                    (flags & 1) != 0 ? energy : null,
+                    (flags & 2) != 0 ? fragmentSize : null,
+                    (flags & 4) != 0 ? stereoScore : null);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Unable to read from the MCS store ", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Append a solution (ignored unless this process is the writer or if the
+     * key is already stored).
+     *
+     * @param key cache key
+     * @param value solution
+     */
+    public synchronized void put(String key, CachedMapping value) {
+        if (!isWriter() || index.containsKey(hash(key))) {
+            return;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                byte[] k = key.getBytes(UTF_8);
+                out.writeInt(k.length);
+                out.write(k);
+                int[] q = value.getQueryRanks();
+                int[] t = value.getTargetRanks();
+                out.writeInt(q.length);
+                for (int i = 0; i < q.length; i++) {
+                    out.writeInt(q[i]);
+                    out.writeInt(t[i]);
+                }
+                out.writeDouble(value.getEnergy() == null ? 0. : value.getEnergy());
+                out.writeInt(value.getFragmentSize() == null ? 0 : value.getFragmentSize());
+                out.writeInt(value.getStereoScore() == null ? 0 : value.getStereoScore());
+                out.writeByte((value.getEnergy() != null ? 1 : 0)
+                        | (value.getFragmentSize() != null ? 2 : 0)
+                        | (value.getStereoScore() != null ? 4 : 0));
+            }
+            byte[] payload = bytes.toByteArray();
+            ByteBuffer record = ByteBuffer.allocate(8 + payload.length);
+            record.putInt(payload.length);
+            record.putInt((int) crc(payload));
+            record.put(payload);
+            record.flip();
+            long position = end;
+            while (record.hasRemaining()) {
+                position += channel.write(record, position);
+            }
+            index.put(hash(key), end);
+            end = position;
+        } catch (IOException e) {
+            LOGGER.error("Unable to write to the MCS store ", e.getMessage());
+        }
+    }
+
+    /**
+     * Close the store once every {@link #open} of it has been closed.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (OPEN) {
+            if (users == 0 || --users > 0) {
+                return;
+            }
+            OPEN.remove(path);
+        }
+        synchronized (this) {
+            if (lock != null && lock.isValid()) {
+                channel.force(false);
+                lock.release();
+            }
+            channel.close();
+        }
+    }
+
+    private static String readKey(ByteBuffer record) {
+        byte[] k = new byte[record.getInt()];
+        record.get(k);
+        return new String(k, UTF_8);
+    }
+
+    private static long crc(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return crc.getValue();
+    }
+
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
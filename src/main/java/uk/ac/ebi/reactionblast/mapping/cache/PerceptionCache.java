@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package uk.ac.ebi.reactionblast.mapping.cache;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import static java.lang.Long.getLong;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import org.openscience.cdk.CDKConstants;
+import org.openscience.cdk.aromaticity.Aromaticity;
+import static org.openscience.cdk.aromaticity.ElectronDonation.daylight;
+import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.graph.Cycles;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.interfaces.IPseudoAtom;
+import org.openscience.cdk.interfaces.IRing;
+import org.openscience.cdk.interfaces.IRingSet;
+import org.openscience.cdk.isomorphism.matchers.IQueryAtomContainer;
+import org.openscience.cdk.tools.ILoggingTool;
+import static org.openscience.cdk.tools.LoggingToolFactory.createLoggingTool;
+import org.openscience.smsd.helper.MoleculeInitializer;
+import org.openscience.smsd.tools.ExtAtomContainerManipulator;
+
+/**
+ * Process wide, bounded cache of perceived molecules (atom types, aromaticity,
+ * ring membership, ring sizes and SSSR).
+ *
+ * The same educts and products are perceived for every pair, mapping model
+ * and matrix update of a reaction, and the common metabolites again in every
+ * reaction. The perception is run once per structure on a private copy and
+ * then transferred, atom by atom and bond by bond, onto the molecules which
+ * ask for it.
+ *
+ * Since the state is transferred by index, the key is the structure in the
+ * atom order of the molecule (elements, isotopes, charges, radicals,
+ * hydrogens, bonds and aromatic flags), not a canonical form. The size is set by the system
+ * property {@code rdt.perception.cache.size} (4096 molecules by default).
+ *
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public class PerceptionCache {
+
+    private final static ILoggingTool LOGGER
+            = createLoggingTool(PerceptionCache.class);
+
+    private static final long MAX_SIZE = getLong("rdt.perception.cache.size", 4096L);
+
+    //Single instance kept
+    private static final PerceptionCache PC = new PerceptionCache(MAX_SIZE);
+
+    //Access method
+    public static PerceptionCache getInstance() {
+        return PC;
+    }
+
+    /**
+     * Perception steps, the cached state depends on them.
+     */
+    public enum Perception {
+
+        /**
+         * Daylight aromaticity, atom types and ring information, as used by
+         * the MCS of the mapping.
+         */
+        MAPPING,
+        /**
+         * Atom types and CDK aromaticity, as used by the reaction
+         * standardisation.
+         */
+        STANDARDIZE
+    }
+
+    private static final int[] ATOM_FLAGS = {
+        CDKConstants.ISAROMATIC,
+        CDKConstants.ISINRING,
+        CDKConstants.ISALIPHATIC,
+        CDKConstants.IS_HYDROGENBOND_ACCEPTOR,
+        CDKConstants.IS_HYDROGENBOND_DONOR
+    };
+
+    private static final int[] BOND_FLAGS = {
+        CDKConstants.ISAROMATIC,
+        CDKConstants.ISINRING,
+        CDKConstants.ISALIPHATIC
+    };
+
+    private final com.google.common.cache.Cache<String, IAtomContainer> map;
+
+    /**
+     *
+     * @param maxSize maximum number of molecules
+     */
+    PerceptionCache(long maxSize) {
+        map = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Perceive a molecule in place.
+     *
+     * @param mol molecule
+     * @param perception perception steps
+     * @throws CDKException
+     */
+    public void configure(IAtomContainer mol, Perception perception) throws CDKException {
+        if (mol == null || mol.getAtomCount() == 0) {
+            return;
+        }
+        if (mol instanceof IQueryAtomContainer) {
+            perceive(mol, perception);
+            return;
+        }
+        IAtomContainer perceived;
+        try {
+            perceived = map.get(generateKey(mol, perception), () -> {
+                IAtomContainer ac = ExtAtomContainerManipulator.cloneWithIDs(mol);
+                for (IAtom a : ac.atoms()) {
+                    a.setProperties(new HashMap<>());
+                }
+                perceive(ac, perception);
+                return ac;
+            });
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CDKException) {
+                throw (CDKException) e.getCause();
+            }
+            throw new CDKException("Unable to perceive the molecule " + mol.getID(), e.getCause());
+        }
+        copy(perceived, mol);
+    }
+
+    private static void perceive(IAtomContainer ac, Perception perception) throws CDKException {
+        switch (perception) {
+            case MAPPING:
+                Aromaticity aromaticity = new Aromaticity(daylight(),
+                        Cycles.or(Cycles.all(),
+                                Cycles.or(Cycles.relevant(),
+                                        Cycles.essential())));
+                aromaticity.apply(ac);
+                try {
+                    ExtAtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(ac);
+                    MoleculeInitializer.initializeMolecule(ac);
+                } catch (Exception ex) {
+                    LOGGER.error(Level.SEVERE, "WARNING: Error in Config. r.mol: ", ex.getMessage());
+                }
+                break;
+            case STANDARDIZE:
+                ExtAtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(ac);
+                ExtAtomContainerManipulator.aromatizeMolecule(ac);
+                break;
+        }
+    }
+
+    /*
+     * Transfer the perceived state, the other properties (IDs, mapping,
+     * coordinates, stereo) of the target are kept. The cached molecule is
+     * shared, so the ring size lists and the ring sets are built afresh on the
+     * atoms and bonds of the target
+     */
+    private static void copy(IAtomContainer source, IAtomContainer target) {
+        Map<IRing, IRing> rings = new IdentityHashMap<>();
+        for (int i = 0; i < source.getAtomCount(); i++) {
+            IAtom s = source.getAtom(i);
+            IAtom t = target.getAtom(i);
+            t.setAtomTypeName(s.getAtomTypeName());
+            t.setMaxBondOrder(s.getMaxBondOrder());
+            t.setBondOrderSum(s.getBondOrderSum());
+            t.setCovalentRadius(s.getCovalentRadius());
+            t.setValency(s.getValency());
+            t.setFormalCharge(s.getFormalCharge());
+            t.setHybridization(s.getHybridization());
+            t.setFormalNeighbourCount(s.getFormalNeighbourCount());
+            t.setAtomicNumber(s.getAtomicNumber());
+            t.setExactMass(s.getExactMass());
+            for (int flag : ATOM_FLAGS) {
+                t.setFlag(flag, s.getFlag(flag));
+            }
+            for (Map.Entry<Object, Object> e : s.getProperties().entrySet()) {
+                Object value = copy(e.getValue(), source, target, rings);
+                if (value != null) {
+                    t.setProperty(e.getKey(), value);
+                }
+            }
+        }
+        for (int i = 0; i < source.getBondCount(); i++) {
+            IBond s = source.getBond(i);
+            IBond t = target.getBond(i);
+            for (int flag : BOND_FLAGS) {
+                t.setFlag(flag, s.getFlag(flag));
+            }
+        }
+    }
+
+    /*
+     * Value of a perceived property for the target (null if it is not
+     * transferred)
+     */
+    private static Object copy(Object value, IAtomContainer source, IAtomContainer target,
+            Map<IRing, IRing> rings) {
+        if (value instanceof Number || value instanceof String
+                || value instanceof Boolean || value instanceof Enum) {
+            return value;
+        }
+        if (value instanceof List) {
+            return new ArrayList<>((List<?>) value);
+        }
+        if (value instanceof IRingSet) {
+            IRingSet ringSet = target.getBuilder().newInstance(IRingSet.class);
+            for (IAtomContainer ring : ((IRingSet) value).atomContainers()) {
+                ringSet.addAtomContainer(rings.computeIfAbsent((IRing) ring,
+                        r -> copy(r, source, target)));
+            }
+            return ringSet;
+        }
+        return null;
+    }
+
+    private static IRing copy(IRing ring, IAtomContainer source, IAtomContainer target) {
+        IRing copy = target.getBuilder().newInstance(IRing.class);
+        for (IAtom a : ring.atoms()) {
+            copy.addAtom(target.getAtom(source.indexOf(a)));
+        }
+        for (IBond b : ring.bonds()) {
+            copy.addBond(target.getBond(source.indexOf(b)));
+        }
+        return copy;
+    }
+
+    /**
+     * Key of a molecule: the perception steps and the structure in atom
+     * order.
+     *
+     * @param mol
+     * @param perception
+     * @return cache key
+     */
+    static String generateKey(IAtomContainer mol, Perception perception) {
+        return perception.ordinal() + "|" + structureKey(mol);
+    }
+
+    /**
+     * Structure of a molecule in atom order: elements, isotopes, charges,
+     * radicals, hydrogens, bonds and aromatic flags, everything the perception
+     * depends on.
+     *
+     * @param mol
+     * @return structure key
+     */
+    public static String structureKey(IAtomContainer mol) {
+        Map<IAtom, Integer> index = new HashMap<>(2 * mol.getAtomCount());
+        StringBuilder key = new StringBuilder(16 * mol.getAtomCount());
+        for (IAtom a : mol.atoms()) {
+            index.put(a, index.size());
+            key.append(a instanceof IPseudoAtom ? "*" + ((IPseudoAtom) a).getLabel() : a.getSymbol())
+                    .append(',')
+                    .append(a.getMassNumber() == null ? "" : a.getMassNumber())
+                    .append(',')
+                    .append(a.getFormalCharge())
+                    .append(',')
+                    .append(mol.getConnectedSingleElectronsCount(a))
+                    .append(',')
+                    .append(a.getImplicitHydrogenCount())
+                    .append(a.isAromatic() ? 'a' : ' ')
+                    .append(';');
+        }
+        key.append('|');
+        for (IBond b : mol.bonds()) {
+            key.append(index.get(b.getBegin()))
+                    .append('-')
+                    .append(index.get(b.getEnd()))
+                    .append(',')
+                    .append(b.getOrder() == null ? 0 : b.getOrder().numeric())
+                    .append(b.isAromatic() ? 'a' : ' ')
+                    .append(';');
+        }
+        return key.toString();
+    }
+
+    /**
+     * Remove all the entries, the counters are preserved.
+     */
+    public void cleanup() {
+        map.invalidateAll();
+    }
+
+    /**
+     * @return number of entries
+     */
+    public long size() {
+        return map.size();
+    }
+
+    /**
+     * @return number of molecules whose perception was reused
+     */
+    public long getHitCount() {
+        return map.stats().hitCount();
+    }
+
+    /**
+     * @return number of molecules perceived
+     */
+    public long getMissCount() {
+        return map.stats().missCount();
+    }
+
+    @Override
+    public String toString() {
+        CacheStats stats = map.stats();
+        return "Perception cache: size " + map.size()
+                + ", hits " + stats.hitCount()
+                + ", misses " + stats.missCount()
+                + ", evictions " + stats.evictionCount();
+    }
+}
@@ -56,12 +56,12 @@ import org.openscience.smsd.algorithm.matchers.BondMatcher;
 import uk.ac.ebi.reactionblast.fingerprints.FingerprintGenerator;
 import uk.ac.ebi.reactionblast.fingerprints.interfaces.IFingerprintGenerator;
 import static uk.ac.ebi.reactionblast.fingerprints.tools.Similarity.getTanimotoSimilarity;
+import uk.ac.ebi.reactionblast.mapping.cache.PerceptionCache;
+import static uk.ac.ebi.reactionblast.mapping.cache.PerceptionCache.Perception.STANDARDIZE;
 import uk.ac.ebi.reactionblast.tools.AtomContainerSetComparator;
 import uk.ac.ebi.reactionblast.tools.BasicDebugger;
-import static org.openscience.smsd.tools.ExtAtomContainerManipulator.aromatizeMolecule;
 import static org.openscience.smsd.tools.ExtAtomContainerManipulator.cloneWithIDs;
 import static org.openscience.smsd.tools.ExtAtomContainerManipulator.fixDativeBonds;
-import static org.openscience.smsd.tools.ExtAtomContainerManipulator.percieveAtomTypesAndConfigureAtoms;
 import static org.openscience.smsd.tools.ExtAtomContainerManipulator.removeHydrogens;
 
 /**
@@ -74,6 +74,7 @@ public class CDKReactionBuilder extends BasicDebugger implements Serializable {
     private static final long serialVersionUID = 19869866609698L;
     private final static ILoggingTool LOGGER
             = createLoggingTool(CDKReactionBuilder.class);
+    private final static PerceptionCache PERCEPTION = PerceptionCache.getInstance();
     private final IReactionSet reactionSet;
     private int moleculeCounter = 0; //Counter to create Unique Molecules
     private final Map<String, Double> stoichiometryMap;
@@ -184,10 +185,9 @@ public class CDKReactionBuilder extends BasicDebugger implements Serializable {
             if (DEBUG) {
                 out.println("standardize reaction module phase 1.1.2");
             }
-            percieveAtomTypesAndConfigureAtoms(gMol);
+            PERCEPTION.configure(gMol, STANDARDIZE);
             IAtomContainer molWithH = gMol;
             //= ExtAtomContainerManipulator.addExplicitH(gMol);
-            aromatizeMolecule(molWithH);
 
             if (DEBUG) {
                 out.println(id + " standardize reaction module phase 1.2");
@@ -262,10 +262,9 @@ public class CDKReactionBuilder extends BasicDebugger implements Serializable {
                 out.println("standardize reaction module phase 2.1.2");
                 out.println("t_mol " + unique().create(gMol));
             }
-            percieveAtomTypesAndConfigureAtoms(gMol);
+            PERCEPTION.configure(gMol, STANDARDIZE);
             IAtomContainer molWithH = gMol;
             //= ExtAtomContainerManipulator.addExplicitH(gMol);
-            aromatizeMolecule(molWithH);
 
             if (DEBUG) {
                 out.println("standardize reaction module phase 2.2");
@@ -525,11 +524,9 @@ public class CDKReactionBuilder extends BasicDebugger implements Serializable {
 
         if (removeHydrogen) {
             queryMol = removeHydrogens(queryMol);
-            percieveAtomTypesAndConfigureAtoms(queryMol);
-            aromatizeMolecule(queryMol);
+            PERCEPTION.configure(queryMol, STANDARDIZE);
             targetMol = removeHydrogens(targetMol);
-            percieveAtomTypesAndConfigureAtoms(targetMol);
-            aromatizeMolecule(targetMol);
+            PERCEPTION.configure(targetMol, STANDARDIZE);
         }
 
         if (queryMol.getAtomCount() == 1 && targetMol.getAtomCount() == 1) {
@@ -627,11 +624,9 @@ public class CDKReactionBuilder extends BasicDebugger implements Serializable {
 
         if (removeHydrogen) {
             mol1 = removeHydrogens(mol1);
-            percieveAtomTypesAndConfigureAtoms(mol1);
-            aromatizeMolecule(mol1);
+            PERCEPTION.configure(mol1, STANDARDIZE);
             mol2 = removeHydrogens(mol2);
-            percieveAtomTypesAndConfigureAtoms(mol2);
-            aromatizeMolecule(mol2);
+            PERCEPTION.configure(mol2, STANDARDIZE);
         }
         if (mol1.getAtomCount() != mol2.getAtomCount()) {
             return false;
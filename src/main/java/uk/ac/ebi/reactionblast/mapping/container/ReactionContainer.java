@@ -84,6 +84,12 @@ public class ReactionContainer implements Cloneable, Serializable {
         pFingerPrintMap = synchronizedMap(new TreeMap<>());
         eductContainerModificationMap = synchronizedMap(new TreeMap<>());
         productContainerModificationMap = synchronizedMap(new TreeMap<>());
+        /*
+         * The fingerprints are computed by each model and round, they are not
+         * shared between the models: the molecules change from one round to
+         * the next, and an ECFP4 fingerprint (about 0.1 ms) costs less than a
+         * lookup keyed on the structure
+         */
         fpr = new FingerprintGenerator();
     }
 
@@ -19,19 +19,16 @@
 package uk.ac.ebi.reactionblast.mapping.graph;
 
 import java.io.IOException;
-import static java.lang.Runtime.getRuntime;
-import static java.lang.System.gc;
 import static java.lang.System.out;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import static java.util.Collections.unmodifiableCollection;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
-import java.util.concurrent.CompletionService;
-import java.util.concurrent.ExecutorCompletionService;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import static java.util.logging.Level.SEVERE;
 import static java.util.logging.Level.WARNING;
 
@@ -44,12 +41,13 @@ import org.openscience.cdk.smiles.SmilesGenerator;
 import org.openscience.cdk.tools.ILoggingTool;
 import static org.openscience.cdk.tools.LoggingToolFactory.createLoggingTool;
 import org.openscience.smsd.AtomAtomMapping;
+import org.openscience.smsd.tools.SharedExecutor;
 import uk.ac.ebi.reactionblast.mapping.algorithm.Holder;
+import uk.ac.ebi.reactionblast.mapping.cache.CanonicalMolecule;
 import uk.ac.ebi.reactionblast.mapping.container.ReactionContainer;
 import uk.ac.ebi.reactionblast.mapping.helper.Debugger;
 import static java.util.Collections.synchronizedCollection;
 import java.util.List;
-import java.util.concurrent.Executors;
 
 import org.openscience.cdk.aromaticity.Aromaticity;
 import static org.openscience.cdk.aromaticity.ElectronDonation.daylight;
@@ -71,8 +69,8 @@ public class GraphMatcher extends Debugger {
      * @return
      * @throws InterruptedException
      */
-    public synchronized static Collection<MCSSolution> matcher(Holder mh) throws Exception {
-        ExecutorService executor = null;
+    public static Collection<MCSSolution> matcher(Holder mh) throws Exception {
+        List<Future<MCSSolution>> futures = new ArrayList<>();
         Collection<MCSSolution> mcsSolutions = synchronizedCollection(new ArrayList<>());
 
         if (DEBUG) {
@@ -97,12 +95,15 @@ public class GraphMatcher extends Debugger {
                             && (reactionStructureInformation.getEduct(substrateIndex).getAtomCount() > 0
                             && reactionStructureInformation.getProduct(productIndex).getAtomCount() > 0)
                             || mh.getGraphSimilarityMatrix().getValue(substrateIndex, productIndex) == -1) {
-//                        if (reactionStructureInformation.isEductModified(substrateIndex)
-//                                || reactionStructureInformation.isProductModified(productIndex)) {
-
-                        Combination c = new Combination(substrateIndex, productIndex);
-                        jobReplicatorList.add(c);
-//                        }
+                        /*
+                         * Only the pairs changed by the last round need a new
+                         * MCS, the scores of the others are carried forward
+                         */
+                        if (reactionStructureInformation.isEductModified(substrateIndex)
+                                || reactionStructureInformation.isProductModified(productIndex)) {
+                            Combination c = new Combination(substrateIndex, productIndex);
+                            jobReplicatorList.add(c);
+                        }
                     }
                 }
             }
@@ -146,34 +147,21 @@ public class GraphMatcher extends Debugger {
             }
 
             /*
-             * Assign the threads
-             *
-             * Use Single Thread to computed MCS as muntiple threads lock the calculations!
+             * All the jobs go to the shared pool, which bounds the number of
+             * threads across the mapping models and reactions. A model
+             * waiting on its results runs its own unstarted jobs
+             * (SharedExecutor.get), so the jobs of the other models cannot
+             * starve it.
              */
-//            executor = newSingleThreadExecutor();
-            int threadsAvailable = getRuntime().availableProcessors() - 1;
-            if (threadsAvailable == 0) {
-                threadsAvailable = 1;
-            }
-
-            if (threadsAvailable > jobMap.size()) {
-                threadsAvailable = jobMap.size();
-            }
-
-            if (threadsAvailable > 4) {
-                threadsAvailable = 1; //Original value is 4
-            }
-
-            if (DEBUG) {
-                out.println(threadsAvailable + " threads requested for MCS in " + mh.getTheory());
-            }
-
-//            executor = Executors.newSingleThreadExecutor();
-//            executor = Executors.newCachedThreadPool();
-            executor = Executors.newFixedThreadPool(threadsAvailable);
-            CompletionService<MCSSolution> callablesQueue = new ExecutorCompletionService<>(executor);
+            SharedExecutor executor = SharedExecutor.getInstance();
 
             List<MCSThread> listOfJobs = new ArrayList<>();
+            /*
+             * Canonical forms of the molecules, computed once per molecule
+             * for all its pairs
+             */
+            Map<Integer, CanonicalMolecule> eductForms = new HashMap<>();
+            Map<Integer, CanonicalMolecule> productForms = new HashMap<>();
 
             for (Combination c : jobMap.keySet()) {
                 int substrateIndex = c.getRowIndex();
@@ -303,6 +291,9 @@ public class GraphMatcher extends Debugger {
                         break;
                 }
                 if (mcsThread != null) {
+                    mcsThread.setCanonicalForms(
+                            canonical(eductForms, substrateIndex, mcsThread.getCompound1()),
+                            canonical(productForms, productIndex, mcsThread.getCompound2()));
                     listOfJobs.add(mcsThread);
                 }
             }
@@ -313,19 +304,18 @@ public class GraphMatcher extends Debugger {
             if (listOfJobs.size() > 1000) {
                 System.err.println("holy moly...thats alot of molecules to compare...time for a coffee break!");
             }
-            if (!listOfJobs.isEmpty()) {
-                for (MCSThread mcsThreadJob : listOfJobs) {
-                    callablesQueue.submit(mcsThreadJob);
-                    taskCounter++;
-                }
+            mh.addMCSPairs(listOfJobs.size());
+            for (MCSThread mcsThreadJob : listOfJobs) {
+                futures.add(executor.submit(mcsThreadJob));
+                taskCounter++;
             }
 
             if (DEBUG) {
                 System.out.printf("submited %d jobs %n", taskCounter);
             }
             Collection<MCSSolution> threadedUniqueMCSSolutions = synchronizedCollection(new ArrayList<>());
-            for (int count = 0; count < taskCounter; count++) {
-                MCSSolution isomorphism = callablesQueue.take().get();
+            for (Future<MCSSolution> future : futures) {
+                MCSSolution isomorphism = SharedExecutor.get(future);
                 threadedUniqueMCSSolutions.add(isomorphism);
             }
 
@@ -337,12 +327,6 @@ public class GraphMatcher extends Debugger {
 //                        mcsSolutions.add(isomorphism);
 //                    }
 //                }
-            // This will make the executor accept no new threads
-            // and finish all existing threads in the queue
-            executor.shutdown();
-            // Wait until all threads are finish
-            while (!executor.isTerminated()) {
-            }
 
             if (DEBUG) {
                 out.println("==Gathering MCS solution from the Thread==");
@@ -376,17 +360,20 @@ public class GraphMatcher extends Debugger {
                 jobMap.remove(removeKey);
             });
             jobReplicatorList.clear();
-            gc();
 
+        } catch (InterruptedException ex) {
+            LOGGER.debug("MCS jobs cancelled for " + mh.getTheory());
+            Thread.currentThread().interrupt();
         } catch (Exception ex) {
             if (DEBUG) {
                 ex.printStackTrace();
             }
             LOGGER.error(SEVERE, null, ex);
         } finally {
-            if (executor != null) {
-                executor.shutdown();
-            }
+            /*
+             * No-op for the finished jobs
+             */
+            SharedExecutor.cancel(futures);
         }
         return unmodifiableCollection(mcsSolutions);
     }
@@ -450,6 +437,24 @@ public class GraphMatcher extends Debugger {
         return null;
     }
 
+    /*
+     * Canonical form of a molecule, null if it can not be canonicalised (its
+     * MCS are not cached then)
+     */
+    private static CanonicalMolecule canonical(Map<Integer, CanonicalMolecule> forms,
+            int index, IAtomContainer mol) {
+        if (!forms.containsKey(index)) {
+            CanonicalMolecule form = null;
+            try {
+                form = CanonicalMolecule.of(mol);
+            } catch (CDKException ex) {
+                LOGGER.debug("Unable to canonicalise " + mol.getID() + ", its MCS are not cached: ", ex.getMessage());
+            }
+            forms.put(index, form);
+        }
+        return forms.get(index);
+    }
+
     private static IAtom getAtomByID(IAtomContainer ac, IAtom atom) {
         if (atom.getID() == null) {
             return null;
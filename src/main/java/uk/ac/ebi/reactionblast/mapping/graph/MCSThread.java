@@ -23,24 +23,17 @@ import static java.lang.System.currentTimeMillis;
 import static java.lang.System.getProperty;
 import static java.lang.System.nanoTime;
 import java.util.ArrayList;
-import java.util.Arrays;
 import static java.util.Collections.sort;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 import java.util.concurrent.Callable;
 import java.util.logging.Level;
 import static java.util.logging.Level.SEVERE;
 
 import static org.openscience.cdk.CDKConstants.UNSET;
-import org.openscience.cdk.aromaticity.Aromaticity;
-import static org.openscience.cdk.aromaticity.ElectronDonation.daylight;
 import org.openscience.cdk.exception.CDKException;
-import org.openscience.cdk.fingerprint.CircularFingerprinter;
-import org.openscience.cdk.fingerprint.IBitFingerprint;
 import org.openscience.cdk.graph.ConnectivityChecker;
-import org.openscience.cdk.graph.Cycles;
 import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.interfaces.IAtomContainerSet;
@@ -55,10 +48,14 @@ import org.openscience.smsd.Substructure;
 import org.openscience.smsd.algorithm.matchers.AtomBondMatcher;
 import org.openscience.smsd.algorithm.matchers.AtomMatcher;
 import org.openscience.smsd.algorithm.matchers.BondMatcher;
-import org.openscience.smsd.helper.MoleculeInitializer;
 import org.openscience.smsd.interfaces.Algorithm;
+import org.openscience.smsd.tools.Deadline;
 import org.openscience.smsd.tools.ExtAtomContainerManipulator;
-import uk.ac.ebi.reactionblast.mapping.cache.ThreadSafeCache;
+import org.openscience.smsd.tools.MoleculeView;
+import uk.ac.ebi.reactionblast.mapping.cache.CachedMapping;
+import uk.ac.ebi.reactionblast.mapping.cache.CanonicalMolecule;
+import uk.ac.ebi.reactionblast.mapping.cache.MCSSolutionCache;
+import uk.ac.ebi.reactionblast.mapping.cache.PerceptionCache;
 import uk.ac.ebi.reactionblast.mapping.interfaces.IMappingAlgorithm;
 
 /**
@@ -109,6 +106,8 @@ public class MCSThread implements Callable<MCSSolution> {
     private boolean hasRings;
     private int numberOfCyclesEduct;
     private int numberOfCyclesProduct;
+    private CanonicalMolecule canonical1;
+    private CanonicalMolecule canonical2;
 
     /**
      *
@@ -377,20 +376,7 @@ public class MCSThread implements Callable<MCSSolution> {
         if (mol != null && mol.getAtomCount() > 0) {
             IAtomContainer ac;
             ac = ExtAtomContainerManipulator.cloneWithIDs(mol);
-            Aromaticity aromaticity = new Aromaticity(daylight(),
-                    Cycles.or(Cycles.all(),
-                            Cycles.or(Cycles.relevant(),
-                                    Cycles.essential())));
-            aromaticity.apply(ac);
-            try {
-                ExtAtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(ac);
-                MoleculeInitializer.initializeMolecule(ac);
-            } catch (Exception ex) {
-                if (DEBUG1) {
-                    ex.printStackTrace();
-                }
-                LOGGER.error(Level.SEVERE, "WARNING: Error in Config. r.mol: ", ex.getMessage());
-            }
+            PerceptionCache.getInstance().configure(ac, PerceptionCache.Perception.MAPPING);
 
             for (int i = 0; i < ac.getAtomCount(); i++) {
                 String atomID = mol.getAtom(i).getID() == null
@@ -409,50 +395,7 @@ public class MCSThread implements Callable<MCSSolution> {
         if (DEBUG1) {
             System.out.println("check isPossibleSubgraphMatch " + q.getID() + "," + t.getID());
         }
-        Map<String, Integer> atomUniqueCounter1 = new TreeMap<>();
-        Map<String, Integer> atomUniqueCounter2 = new TreeMap<>();
-
-        for (IAtom a : q.atoms()) {
-            if (!atomUniqueCounter1.containsKey(a.getSymbol())) {
-                atomUniqueCounter1.put(a.getSymbol(), 1);
-            } else {
-                int counter = atomUniqueCounter1.get(a.getSymbol()) + 1;
-                atomUniqueCounter1.put(a.getSymbol(), counter);
-            }
-        }
-
-        for (IAtom b : t.atoms()) {
-            if (!atomUniqueCounter2.containsKey(b.getSymbol())) {
-                atomUniqueCounter2.put(b.getSymbol(), 1);
-            } else {
-                int counter = atomUniqueCounter2.get(b.getSymbol()) + 1;
-                atomUniqueCounter2.put(b.getSymbol(), counter);
-            }
-        }
-
-        if (atomUniqueCounter1.size() > atomUniqueCounter2.size()) {
-            return false;
-        }
-
-        List<String> difference = new LinkedList<>(atomUniqueCounter1.keySet());
-        difference.removeAll(atomUniqueCounter2.keySet());
-
-        if (DEBUG2) {
-            System.out.println("atomUniqueCounter1 " + atomUniqueCounter1);
-            System.out.println("atomUniqueCounter1 " + atomUniqueCounter1.size());
-            System.out.println("atomUniqueCounter2 " + atomUniqueCounter2);
-            System.out.println("atomUniqueCounter2 " + atomUniqueCounter2.size());
-            System.out.println("diff " + difference.size());
-        }
-
-        if (difference.isEmpty()) {
-            if (!atomUniqueCounter1.keySet().stream().noneMatch((k)
-                    -> (atomUniqueCounter1.get(k) > atomUniqueCounter2.get(k)))) {
-                return false;
-            }
-        }
-
-        return difference.isEmpty();
+        return new MoleculeView(q).isElementSubset(new MoleculeView(t));
     }
 
     private synchronized int expectedMaxGraphmatch(IAtomContainer q, IAtomContainer t) {
@@ -567,32 +510,33 @@ public class MCSThread implements Callable<MCSSolution> {
         am = AtomBondMatcher.atomMatcher(atomType, ringSizeMatch);
         bm = AtomBondMatcher.bondMatcher(bondMatch, ringMatch);
 
-        key = generateUniqueKey(getCompound1().getID(), getCompound2().getID(),
-                compound1.getAtomCount(), compound2.getAtomCount(),
-                compound1.getBondCount(), compound2.getBondCount(),
-                atomType,
-                bondMatch,
-                ringMatch,
-                ringSizeMatch,
-                numberOfCyclesEduct,
-                numberOfCyclesProduct
-        );
-        if (ThreadSafeCache.getInstance().containsKey(key)) {
+        CanonicalMolecule canonical1 = getCanonical1();
+        CanonicalMolecule canonical2 = getCanonical2();
+        MCSSolutionCache mappingcache = MCSSolutionCache.getInstance();
+        key = canonical1 == null || canonical2 == null ? null
+                : MCSSolutionCache.generateKey(Algorithm.VFLibMCS, canonical1, canonical2,
+                        atomType,
+                        bondMatch,
+                        ringMatch,
+                        ringSizeMatch,
+                        numberOfCyclesEduct,
+                        numberOfCyclesProduct);
+        CachedMapping solution = key == null ? null : mappingcache.get(key);
+        if (solution != null) {
             if (DEBUG3) {
                 System.out.println("===={Aladdin} Mapping {Gini}====");
             }
-            MCSSolution solution = (MCSSolution) ThreadSafeCache.getInstance().get(key);
-            mcs = copyOldSolutionToNew(
+            mcs = solution.toSolution(
                     getQueryPosition(), getTargetPosition(),
                     getCompound1(), getCompound2(),
-                    solution);
+                    canonical1, canonical2);
 
         } else {
             isomorphism = new Isomorphism(ac1, ac2, Algorithm.VFLibMCS, am, bm);
-            mcs = addMCSSolution(key, ThreadSafeCache.getInstance(), isomorphism);
+            mcs = addMCSSolution(key, canonical1, canonical2, mappingcache, isomorphism);
         }
 
-        //System.out.println("cache map size " + ThreadSafeCache.getInstance().keySet().size());
+        //System.out.println(MCSSolutionCache.getInstance());
         return mcs;
 
     }
@@ -690,79 +634,35 @@ public class MCSThread implements Callable<MCSSolution> {
         this.numberOfCyclesProduct = numberOfCyclesProduct;
     }
 
-    synchronized String generateUniqueKey(
-            String id1, String id2,
-            int atomCount1, int atomCount2,
-            int bondCount1, int bondCount2,
-            boolean atomtypeMatcher,
-            boolean bondMatcher,
-            boolean ringMatcher,
-            boolean hasPerfectRings,
-            int numberOfCyclesEduct, int numberOfCyclesProduct) {
-
-        //System.out.println("====generate Unique Key====");
-        StringBuilder key = new StringBuilder();
-        key.append(id1).append(id2)
-                .append(atomCount1)
-                .append(atomCount2)
-                .append(bondCount1)
-                .append(bondCount2)
-                .append(atomtypeMatcher)
-                .append(bondMatcher)
-                .append(ringMatcher)
-                .append(hasPerfectRings)
-                .append(numberOfCyclesEduct)
-                .append(numberOfCyclesProduct);
-
-        try {
-            try {
-                int[] sm1 = getCircularFP(compound1);
-                int[] sm2 = getCircularFP(compound2);
-                key.append(Arrays.toString(sm1));
-                key.append(Arrays.toString(sm2));
-            } catch (Exception ex) {
-                LOGGER.error(Level.SEVERE, "Error in Generating Circular FP: ", ex);
-            }
-            if (DEBUG1) {
-                System.out.println("Unique KEY " + key);
-            }
-        } catch (Exception ex) {
-            if (DEBUG1) {
-                ex.printStackTrace();
-            }
-            LOGGER.error(SEVERE, "Error in generating Unique Key: ", ex.getMessage());
-        }
-        return key.toString();
+    /**
+     * Set the canonical forms of the compounds, the MCS is only cached if
+     * both are set.
+     *
+     * @param canonical1 canonical form of the compound1 or null
+     * @param canonical2 canonical form of the compound2 or null
+     */
+    synchronized void setCanonicalForms(CanonicalMolecule canonical1, CanonicalMolecule canonical2) {
+        this.canonical1 = canonical1;
+        this.canonical2 = canonical2;
     }
 
-    private synchronized int[] getCircularFP(IAtomContainer mol) throws CDKException {
-        CircularFingerprinter circularFingerprinter = new CircularFingerprinter(6, 1024);
-        circularFingerprinter.setPerceiveStereo(true);
-        IBitFingerprint bitFingerprint = circularFingerprinter.getBitFingerprint(mol);
-        return bitFingerprint.getSetbits();
+    /**
+     * @return canonical form of the compound1 or null
+     */
+    synchronized CanonicalMolecule getCanonical1() {
+        return canonical1;
     }
 
-    /*
-     * copy old mapping from the cache to new
+    /**
+     * @return canonical form of the compound2 or null
      */
-    synchronized MCSSolution copyOldSolutionToNew(int queryPosition, int targetPosition,
-            IAtomContainer compound1, IAtomContainer compound2, MCSSolution oldSolution) {
-        AtomAtomMapping atomAtomMapping = oldSolution.getAtomAtomMapping();
-        Map<Integer, Integer> mappingsByIndex = atomAtomMapping.getMappingsByIndex();
-
-        AtomAtomMapping atomAtomMappingNew = new AtomAtomMapping(compound1, compound2);
-        mappingsByIndex.entrySet().forEach((m) -> {
-            atomAtomMappingNew.put(compound1.getAtom(m.getKey()), compound2.getAtom(m.getValue()));
-        });
-        MCSSolution mcsSolution = new MCSSolution(queryPosition, targetPosition, compound1, compound2, atomAtomMappingNew);
-        mcsSolution.setEnergy(oldSolution.getEnergy());
-        mcsSolution.setFragmentSize(oldSolution.getFragmentSize());
-        mcsSolution.setStereoScore(oldSolution.getStereoScore());
-
-        return mcsSolution;
+    synchronized CanonicalMolecule getCanonical2() {
+        return canonical2;
     }
 
-    synchronized MCSSolution addMCSSolution(String key, ThreadSafeCache<String, MCSSolution> mappingcache, Isomorphism isomorphism) {
+    synchronized MCSSolution addMCSSolution(String key,
+            CanonicalMolecule canonical1, CanonicalMolecule canonical2,
+            MCSSolutionCache mappingcache, Isomorphism isomorphism) {
 
         isomorphism.setChemFilters(true, true, true);
         if (DEBUG3) {
@@ -788,19 +688,23 @@ public class MCSThread implements Callable<MCSSolution> {
             printMatch(isomorphism);
             System.out.println("\" Time:\" " + time);
         }
-        if (!mappingcache.containsKey(key)) {
-            if (DEBUG3) {
-                System.out.println("Key " + key);
-                try {
-                    System.out.println("mcs size " + mcs.getAtomAtomMapping().getCount());
-                    System.out.println("mcs map " + mcs.getAtomAtomMapping().getMappingsByIndex());
-                    System.out.println("mcs " + mcs.getAtomAtomMapping().getCommonFragmentAsSMILES());
-                    System.out.println("\n\n\n ");
-                } catch (CloneNotSupportedException | CDKException ex) {
-                    LOGGER.error(SEVERE, "Unable to create SMILES ", ex.getMessage());
-                }
+        if (DEBUG3) {
+            System.out.println("Key " + key);
+            try {
+                System.out.println("mcs size " + mcs.getAtomAtomMapping().getCount());
+                System.out.println("mcs map " + mcs.getAtomAtomMapping().getMappingsByIndex());
+                System.out.println("mcs " + mcs.getAtomAtomMapping().getCommonFragmentAsSMILES());
+                System.out.println("\n\n\n ");
+            } catch (CloneNotSupportedException | CDKException ex) {
+                LOGGER.error(SEVERE, "Unable to create SMILES ", ex.getMessage());
             }
-            mappingcache.put(key, mcs);
+        }
+        /*
+         * A search cut short by its time limit may have missed the maximum
+         * mapping, keep it out of the cache and the store
+         */
+        if (key != null && !isomorphism.isTimeout() && !Deadline.isCurrentExpired()) {
+            mappingcache.put(key, CachedMapping.of(mcs, canonical1, canonical2));
         }
         return mcs;
     }
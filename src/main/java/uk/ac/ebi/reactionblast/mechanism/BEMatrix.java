@@ -20,10 +20,13 @@ package uk.ac.ebi.reactionblast.mechanism;
 
 import java.io.Serializable;
 import static java.lang.System.getProperty;
+import java.util.ArrayList;
 import static java.util.Collections.unmodifiableList;
-import java.util.LinkedList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.openscience.cdk.exception.CDKException;
 import org.openscience.cdk.interfaces.IAtom;
@@ -35,24 +38,32 @@ import static org.openscience.cdk.interfaces.IBond.Stereo.E_OR_Z;
 import static org.openscience.cdk.interfaces.IBond.Stereo.NONE;
 import static org.openscience.cdk.interfaces.IBond.Stereo.UP;
 import static org.openscience.cdk.interfaces.IBond.Stereo.UP_OR_DOWN;
-import uk.ac.ebi.reactionblast.tools.EBIMatrix;
 import static org.openscience.smsd.tools.ExtAtomContainerManipulator.aromatizeMolecule;
+import uk.ac.ebi.reactionblast.tools.SparseMatrix;
 import uk.ac.ebi.reactionblast.tools.ValencyCalculator;
 
 /**
  * This class create the BEMatrix of a set of molecule according to the
  * DU-Theory. (I.Ugi et al., J. Chem. Inf. Comput. Sci. 1994, 34, 3-16)
  *
+ * The atoms are indexed by position and by ID, and the bonds between them
+ * are kept as an adjacency list ({@link #getAdjacencyList()}), so the matrix
+ * is filled and read in O(atoms + bonds). Only the free valences, the bond
+ * orders and the lone pair row and column are stored ({@link SparseMatrix}).
+ *
  * @author Syed Asad Rahman<asad@ebi.ac.uk>
  * @author Lorenzo Baldacci {lorenzo@ebi.ac.uk|lbaldacc@csr.unibo.it}
  */
-public class BEMatrix extends EBIMatrix implements Serializable {
+public class BEMatrix extends SparseMatrix implements Serializable {
 
     private static final long serialVersionUID = -1420740601548197863L;
 
     private IAtomContainerSet myMoleculeSet = null;
     private List<IBond> bonds = null;
     private List<IAtom> atomArray = null;
+    private final Map<IAtom, Integer> atomIndex;
+    private final Map<String, Integer> atomIDIndex;
+    private int[][] adjacencyList = null;
     private final boolean withoutH;
     private final Map<IAtom, IAtom> mappings;
 
@@ -72,7 +83,9 @@ public class BEMatrix extends EBIMatrix implements Serializable {
             Map<IAtom, IAtom> mappings) {
         super(0, 0);
         this.withoutH = skipHydrogen;
-        this.atomArray = new LinkedList<>();
+        this.atomArray = new ArrayList<>();
+        this.atomIndex = new HashMap<>();
+        this.atomIDIndex = new HashMap<>();
         this.myMoleculeSet = molSet;
         this.bonds = bonds;
         this.mappings = mappings;
@@ -86,14 +99,20 @@ public class BEMatrix extends EBIMatrix implements Serializable {
         //System.out.println("H " + withoutH);
         initMatrix(0.);
         atomArray.clear();
+        atomIndex.clear();
+        atomIDIndex.clear();
+        adjacencyList = null;
+        Set<IAtom> mappedAtoms = new HashSet<>(mappings.values());
         for (IAtomContainer container : myMoleculeSet.atomContainers()) {
             for (IAtom atom : container.atoms()) {
                 if (withoutH && atom.getSymbol().matches("H")) {
                     continue;
                 }
-                if (!mappings.containsKey(atom) && !mappings.containsValue(atom)) {
+                if (!mappings.containsKey(atom) && !mappedAtoms.contains(atom)) {
                     continue;
                 }
+                atomIndex.put(atom, atomArray.size());
+                atomIDIndex.put(atom.getID(), atomArray.size());
                 atomArray.add(atom);
             }
         }
@@ -115,15 +134,25 @@ public class BEMatrix extends EBIMatrix implements Serializable {
     private void setMatrix() throws CDKException {
 //        reSizeMatrix(atomArray.size(), atomArray.size());
         reSizeMatrix(atomArray.size() + 1, atomArray.size() + 1);
-        //free valence electrons on the diagonal
-        for (int i = 0; i < atomArray.size(); i++) {
-            setValue(i, i, getFreeValenceElectrons(atomArray.get(i)));
+        /*
+         * Free valence electrons on the diagonal and the bond orders, from the
+         * bonds of the molecules (the first bond between two atoms is kept)
+         */
+        for (IAtomContainer mol : myMoleculeSet.atomContainers()) {
+            for (IAtom atom : mol.atoms()) {
+                Integer i = atomIndex.get(atom);
+                if (i != null) {
+                    setValue(i, i, ValencyCalculator.getFreeValenceElectrons(mol, atom, withoutH));
+                }
+            }
         }
-        for (int i = 0; i < atomArray.size(); i++) {
-            for (int j = 0; j < atomArray.size(); j++) {
-                if (i != j) {
-                    setValue(i, j, getBondOrder(atomArray.get(i), atomArray.get(j)));
-                    setValue(j, i, getBondOrder(atomArray.get(i), atomArray.get(j)));
+        for (IAtomContainer mol : myMoleculeSet.atomContainers()) {
+            for (IBond bond : mol.bonds()) {
+                Integer i = atomIndex.get(bond.getBegin());
+                Integer j = atomIndex.get(bond.getEnd());
+                if (i != null && j != null && !i.equals(j) && getValue(i, j) == 0.) {
+                    setValue(i, j, convertBondOrder(bond));
+                    setValue(j, i, convertBondOrder(bond));
                 }
             }
         }
@@ -169,14 +198,47 @@ public class BEMatrix extends EBIMatrix implements Serializable {
         return canonicalIndex;
     }
 
-    private int getIndexOfAtomID(String atomID) {
-        int ind = -1;
-        for (int i = 0; i < atomArray.size(); i++) {
-            if (atomArray.get(i).getID().equals(atomID)) {
-                ind = i;
+    /*
+     * Current index of the atom with this ID, -1 if it is not in the matrix
+     */
+    int getIndexOfAtomID(String atomID) {
+        Integer ind = atomIDIndex.get(atomID);
+        return ind == null ? -1 : ind;
+    }
+
+    /**
+     * Bonded atoms of the matrix: the i'th entry holds the indices of the
+     * atoms bonded to the i'th atom, in the current order of the atoms.
+     *
+     * @return adjacency list by matrix index
+     */
+    public synchronized int[][] getAdjacencyList() {
+        if (adjacencyList == null) {
+            int[] degree = new int[atomArray.size()];
+            List<int[]> pairs = new ArrayList<>();
+            for (IAtomContainer mol : myMoleculeSet.atomContainers()) {
+                for (IBond bond : mol.bonds()) {
+                    Integer i = atomIndex.get(bond.getBegin());
+                    Integer j = atomIndex.get(bond.getEnd());
+                    if (i != null && j != null && !i.equals(j)) {
+                        pairs.add(new int[]{i, j});
+                        degree[i]++;
+                        degree[j]++;
+                    }
+                }
+            }
+            int[][] adjacency = new int[atomArray.size()][];
+            for (int i = 0; i < adjacency.length; i++) {
+                adjacency[i] = new int[degree[i]];
+                degree[i] = 0;
             }
+            for (int[] pair : pairs) {
+                adjacency[pair[0]][degree[pair[0]]++] = pair[1];
+                adjacency[pair[1]][degree[pair[1]]++] = pair[0];
+            }
+            adjacencyList = adjacency;
         }
-        return ind;
+        return adjacencyList;
     }
 
     /**
@@ -192,30 +254,13 @@ public class BEMatrix extends EBIMatrix implements Serializable {
         IAtom appA = atomArray.get(i1);
         atomArray.set(i1, atomArray.get(i2));
         atomArray.set(i2, appA);
-        double appD = 0.0d;
-        //column exchange
-        for (int i = 0; i < getRowDimension(); i++) {
-            appD = getValue(i, i1);
-            setValue(i, i1, getValue(i, i2));
-            setValue(i, i2, appD);
-        }
-        //row exchange
-        for (int i = 0; i < getColumnDimension(); i++) {
-            appD = getValue(i1, i);
-            setValue(i1, i, getValue(i2, i));
-            setValue(i2, i, appD);
-        }
-    }
-
-    private double getFreeValenceElectrons(IAtom a) throws CDKException {
-        double freeValEle = 0;
-        for (int i = 0; i < myMoleculeSet.getAtomContainerCount(); i++) {
-            IAtomContainer mol = myMoleculeSet.getAtomContainer(i);
-            if (mol.contains(a)) {
-                freeValEle = ValencyCalculator.getFreeValenceElectrons(mol, a, withoutH);
-            }
-        }
-        return freeValEle;
+        atomIndex.put(atomArray.get(i1), i1);
+        atomIndex.put(atomArray.get(i2), i2);
+        atomIDIndex.put(atomArray.get(i1).getID(), i1);
+        atomIDIndex.put(atomArray.get(i2).getID(), i2);
+        adjacencyList = null;
+        //column and row exchange
+        super.pivot(i1, i2);
     }
 
     /**
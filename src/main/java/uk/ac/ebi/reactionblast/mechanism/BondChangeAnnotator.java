@@ -86,6 +86,23 @@ public final class BondChangeAnnotator extends DUModel {
         super(reaction, withoutHydrogen, generate2D, generate3D);
     }
 
+    /**
+     *
+     * @param reaction with Atom-Atom Mapping produced by Reactor class
+     * @param withoutHydrogen
+     * @param generate2D
+     * @param generate3D
+     * @param perceiveStereo if false the stereo changes are not marked
+     * @throws Exception
+     */
+    protected BondChangeAnnotator(IReaction reaction,
+            boolean withoutHydrogen,
+            boolean generate2D,
+            boolean generate3D,
+            boolean perceiveStereo) throws Exception {
+        super(reaction, withoutHydrogen, generate2D, generate3D, perceiveStereo);
+    }
+
     /**
      *
      * @return
@@ -346,38 +363,155 @@ public final class BondChangeAnnotator extends DUModel {
         int sizeQ = reactionMatrix.getReactantsAtomArray().size();
         int sizeT = reactionMatrix.getProductsAtomArray().size();
 
-        for (int i = 0; i < reactionMatrix.getRowDimension(); i++) {
-            for (int j = i; j < reactionMatrix.getColumnDimension(); j++) {
+        /*
+         * Only the diagonal and the bonded pairs can hold a change, the other
+         * entries of the R-Matrix are zero with no bond on either side
+         */
+        for (int[] pair : reactionMatrix.getBondedPairs()) {
+            int i = pair[0];
+            int j = pair[1];
+            if (DEBUG) {
+                System.out.println("Marking Bond Changes-1");
+            }
+            if (i != j && reactionMatrix.getValue(i, j) == 0.) {
+                IBond affectedBondReactants = null;
+                IBond affectedBondProducts = null;
+                ECBLAST_BOND_CHANGE_FLAGS bondChangeInformation;
+                try {
+                    if (i < sizeQ && j < sizeQ) {
+                        affectedBondReactants = getBondOfReactantsByRMatrix(reactionMatrix.getReactantAtom(i), reactionMatrix.getReactantAtom(j));
+                    }
+                } catch (CDKException ex) {
+                    LOGGER.error(SEVERE, null, ex);
+                }
+                try {
+                    if (i < sizeT && j < sizeT) {
+                        affectedBondProducts = getBondOfProductsByRMatrix(reactionMatrix.getProductAtom(i), reactionMatrix.getProductAtom(j));
+                    }
+                } catch (CDKException ex) {
+                    LOGGER.error(SEVERE, null, ex);
+                }
+                if (affectedBondReactants == null && affectedBondProducts == null) {
+                    continue;
+                }
+
+                int kekuleEffect = 0;
+                kekuleEffect = isAlternateKekuleChange(affectedBondReactants, affectedBondProducts);
+                if (kekuleEffect == 0) {
+                    bondChangeInformation = BOND_ORDER;
+                    if (affectedBondReactants != null) {
+                        affectedBondReactants.getAtom(0).setFlag(REACTIVE_CENTER, true);
+                        affectedBondReactants.getAtom(1).setFlag(REACTIVE_CENTER, true);
+                        getReactionCenterSet().add(affectedBondReactants.getAtom(0));
+                        getReactionCenterSet().add(affectedBondReactants.getAtom(1));
+                        affectedBondReactants.setProperty(BOND_CHANGE_INFORMATION, bondChangeInformation);
+                    }
+                    if (affectedBondProducts != null) {
+                        affectedBondProducts.getAtom(0).setFlag(REACTIVE_CENTER, true);
+                        affectedBondProducts.getAtom(1).setFlag(REACTIVE_CENTER, true);
+                        getReactionCenterSet().add(affectedBondProducts.getAtom(0));
+                        getReactionCenterSet().add(affectedBondProducts.getAtom(1));
+                        affectedBondProducts.setProperty(BOND_CHANGE_INFORMATION, bondChangeInformation);
+                    }
+                    getBondChangeList().add(new BondChange(affectedBondReactants, affectedBondProducts));
+                }
+            }
+
+            /*
+             * R-Matrix with changes
+             */
+            if (DEBUG) {
+                System.out.println("Marking Bond Changes-2");
+            }
+            if (reactionMatrix.getValue(i, j) != 0.) {
+
+                /*
+                 * DEBUG
+                 */
                 if (DEBUG) {
-                    System.out.println("Marking Bond Changes-1");
+                    System.out.println("Bond Change in R Matrix " + " i "
+                            + (i + 1) + ", j " + (j + 1) + " " + reactionMatrix.getValue(i, j));
                 }
-                if (i != j && reactionMatrix.getValue(i, j) == 0.) {
-                    IBond affectedBondReactants = null;
-                    IBond affectedBondProducts = null;
-                    ECBLAST_BOND_CHANGE_FLAGS bondChangeInformation;
+
+                //Diagonal free valence electron changes 
+                if (i == j) {
+                    IAtom reactantAtom;
+                    IAtom productAtom;
                     try {
-                        if (i < sizeQ && j < sizeQ) {
-                            affectedBondReactants = getBondOfReactantsByRMatrix(reactionMatrix.getReactantAtom(i), reactionMatrix.getReactantAtom(j));
+                        reactantAtom = reactionMatrix.getReactantAtom(i);
+                        if (reactantAtom != null) {
+                            reactantAtom.setFlag(REACTIVE_CENTER, true);
+                            getReactionCenterSet().add(reactantAtom);
                         }
                     } catch (CDKException ex) {
+                        if (DEBUG) {
+                            ex.printStackTrace();
+                        }
                         LOGGER.error(SEVERE, null, ex);
                     }
                     try {
-                        if (i < sizeT && j < sizeT) {
-                            affectedBondProducts = getBondOfProductsByRMatrix(reactionMatrix.getProductAtom(i), reactionMatrix.getProductAtom(j));
+                        productAtom = reactionMatrix.getProductAtom(j);
+                        if (productAtom != null) {
+                            productAtom.setFlag(REACTIVE_CENTER, true);
+                            getReactionCenterSet().add(productAtom);
                         }
                     } catch (CDKException ex) {
+                        if (DEBUG) {
+                            ex.printStackTrace();
+                        }
                         LOGGER.error(SEVERE, null, ex);
                     }
+                }
+
+                /*
+                 * off diagonal changes
+                 */
+                IBond affectedBondReactants;
+                IBond affectedBondProducts;
+                ECBLAST_BOND_CHANGE_FLAGS bondChangeInformation;
+                if (DEBUG) {
+                    System.out.println("Marking Bond Changes-2");
+                }
+                try {
+                    affectedBondReactants = getBondOfReactantsByRMatrix(reactionMatrix.getReactantAtom(i), reactionMatrix.getReactantAtom(j));
+                    affectedBondProducts = getBondOfProductsByRMatrix(reactionMatrix.getProductAtom(i), reactionMatrix.getProductAtom(j));
                     if (affectedBondReactants == null && affectedBondProducts == null) {
                         continue;
                     }
+                    if (affectedBondReactants != null
+                            && affectedBondProducts != null
+                            && affectedBondReactants.getProperties().containsKey(BOND_CHANGE_INFORMATION)
+                            && affectedBondProducts.getProperties().containsKey(BOND_CHANGE_INFORMATION)) {
+                        continue;
+                    }
+                    int kekuleEffect = isKekuleEffect(affectedBondReactants, affectedBondProducts);
+                    if (kekuleEffect == 1) {
+                        continue;
+                    }
+
+                    if (DEBUG) {
+                        System.out.println(i + "," + j + " reactionMatrix.getValue(i, j) " + reactionMatrix.getValue(i, j));
+                    }
+
+                    /*
+                     * Changes in the product
+                     */
+                    if (reactionMatrix.getValue(i, j) < 0.0d) {
+                        if (DEBUG) {
+                            System.out.println("Marking Bond Changes-2 product");
+                        }
+
+                        if (productBEMatrix.getValue(i, j) == 0.0d && affectedBondProducts == null) {
+                            /*
+                             * Here the bond is cleaved (Reduced)
+                             */
+                            bondChangeInformation = BOND_CLEAVED;
+                        } else {
+                            bondChangeInformation = BOND_ORDER;
+                        }
 
-                    int kekuleEffect = 0;
-                    kekuleEffect = isAlternateKekuleChange(affectedBondReactants, affectedBondProducts);
-                    if (kekuleEffect == 0) {
-                        bondChangeInformation = BOND_ORDER;
                         if (affectedBondReactants != null) {
+
                             affectedBondReactants.getAtom(0).setFlag(REACTIVE_CENTER, true);
                             affectedBondReactants.getAtom(1).setFlag(REACTIVE_CENTER, true);
                             getReactionCenterSet().add(affectedBondReactants.getAtom(0));
@@ -385,173 +519,60 @@ public final class BondChangeAnnotator extends DUModel {
                             affectedBondReactants.setProperty(BOND_CHANGE_INFORMATION, bondChangeInformation);
                         }
                         if (affectedBondProducts != null) {
+
                             affectedBondProducts.getAtom(0).setFlag(REACTIVE_CENTER, true);
                             affectedBondProducts.getAtom(1).setFlag(REACTIVE_CENTER, true);
                             getReactionCenterSet().add(affectedBondProducts.getAtom(0));
                             getReactionCenterSet().add(affectedBondProducts.getAtom(1));
                             affectedBondProducts.setProperty(BOND_CHANGE_INFORMATION, bondChangeInformation);
                         }
-                        getBondChangeList().add(new BondChange(affectedBondReactants, affectedBondProducts));
-                    }
-                }
+                    } /*
+                       * Changes in the educt
+                     */ else if (reactionMatrix.getValue(i, j) > 0.d) {
 
-                /*
-                 * R-Matrix with changes
-                 */
-                if (DEBUG) {
-                    System.out.println("Marking Bond Changes-2");
-                }
-                if (reactionMatrix.getValue(i, j) != 0.) {
+                        if (DEBUG) {
+                            System.out.println("Marking Bond Changes-2 educt");
+                        }
 
-                    /*
-                     * DEBUG
-                     */
-                    if (DEBUG) {
-                        System.out.println("Bond Change in R Matrix " + " i "
-                                + (i + 1) + ", j " + (j + 1) + " " + reactionMatrix.getValue(i, j));
-                    }
+                        if (substrateBEMatrix.getValue(i, j) == 0.0d && affectedBondReactants == null) {
+                            /*
+                             * Here the bond is Formed (Gained)
+                             */
+                            bondChangeInformation = BOND_FORMED;
+                        } else {
+                            bondChangeInformation = BOND_ORDER;
+                        }
 
-                    //Diagonal free valence electron changes 
-                    if (i == j) {
-                        IAtom reactantAtom;
-                        IAtom productAtom;
-                        try {
-                            reactantAtom = reactionMatrix.getReactantAtom(i);
-                            if (reactantAtom != null) {
-                                reactantAtom.setFlag(REACTIVE_CENTER, true);
-                                getReactionCenterSet().add(reactantAtom);
-                            }
-                        } catch (CDKException ex) {
-                            if (DEBUG) {
-                                ex.printStackTrace();
-                            }
-                            LOGGER.error(SEVERE, null, ex);
+                        if (affectedBondReactants != null) {
+
+                            affectedBondReactants.getAtom(0).setFlag(REACTIVE_CENTER, true);
+                            affectedBondReactants.getAtom(1).setFlag(REACTIVE_CENTER, true);
+                            getReactionCenterSet().add(affectedBondReactants.getAtom(0));
+                            getReactionCenterSet().add(affectedBondReactants.getAtom(1));
+                            affectedBondReactants.setProperty(BOND_CHANGE_INFORMATION, bondChangeInformation);
                         }
-                        try {
-                            productAtom = reactionMatrix.getProductAtom(j);
-                            if (productAtom != null) {
-                                productAtom.setFlag(REACTIVE_CENTER, true);
-                                getReactionCenterSet().add(productAtom);
-                            }
-                        } catch (CDKException ex) {
-                            if (DEBUG) {
-                                ex.printStackTrace();
-                            }
-                            LOGGER.error(SEVERE, null, ex);
+                        if (affectedBondProducts != null) {
+
+                            affectedBondProducts.getAtom(0).setFlag(REACTIVE_CENTER, true);
+                            affectedBondProducts.getAtom(1).setFlag(REACTIVE_CENTER, true);
+                            getReactionCenterSet().add(affectedBondProducts.getAtom(0));
+                            getReactionCenterSet().add(affectedBondProducts.getAtom(1));
+                            affectedBondProducts.setProperty(BOND_CHANGE_INFORMATION, bondChangeInformation);
                         }
                     }
-
                     /*
-                     * off diagonal changes
+                     * Store the bond changes
                      */
-                    IBond affectedBondReactants;
-                    IBond affectedBondProducts;
-                    ECBLAST_BOND_CHANGE_FLAGS bondChangeInformation;
                     if (DEBUG) {
-                        System.out.println("Marking Bond Changes-2");
+                        System.out.println("Marking Bond Changes-2 STORED ");
                     }
-                    try {
-                        affectedBondReactants = getBondOfReactantsByRMatrix(reactionMatrix.getReactantAtom(i), reactionMatrix.getReactantAtom(j));
-                        affectedBondProducts = getBondOfProductsByRMatrix(reactionMatrix.getProductAtom(i), reactionMatrix.getProductAtom(j));
-                        if (affectedBondReactants == null && affectedBondProducts == null) {
-                            continue;
-                        }
-                        if (affectedBondReactants != null
-                                && affectedBondProducts != null
-                                && affectedBondReactants.getProperties().containsKey(BOND_CHANGE_INFORMATION)
-                                && affectedBondProducts.getProperties().containsKey(BOND_CHANGE_INFORMATION)) {
-                            continue;
-                        }
-                        int kekuleEffect = isKekuleEffect(affectedBondReactants, affectedBondProducts);
-                        if (kekuleEffect == 1) {
-                            continue;
-                        }
-
-                        if (DEBUG) {
-                            System.out.println(i + "," + j + " reactionMatrix.getValue(i, j) " + reactionMatrix.getValue(i, j));
-                        }
-
-                        /*
-                         * Changes in the product
-                         */
-                        if (reactionMatrix.getValue(i, j) < 0.0d) {
-                            if (DEBUG) {
-                                System.out.println("Marking Bond Changes-2 product");
-                            }
-
-                            if (productBEMatrix.getValue(i, j) == 0.0d && affectedBondProducts == null) {
-                                /*
-                                 * Here the bond is cleaved (Reduced)
-                                 */
-                                bondChangeInformation = BOND_CLEAVED;
-                            } else {
-                                bondChangeInformation = BOND_ORDER;
-                            }
 
-                            if (affectedBondReactants != null) {
-
-                                affectedBondReactants.getAtom(0).setFlag(REACTIVE_CENTER, true);
-                                affectedBondReactants.getAtom(1).setFlag(REACTIVE_CENTER, true);
-                                getReactionCenterSet().add(affectedBondReactants.getAtom(0));
-                                getReactionCenterSet().add(affectedBondReactants.getAtom(1));
-                                affectedBondReactants.setProperty(BOND_CHANGE_INFORMATION, bondChangeInformation);
-                            }
-                            if (affectedBondProducts != null) {
-
-                                affectedBondProducts.getAtom(0).setFlag(REACTIVE_CENTER, true);
-                                affectedBondProducts.getAtom(1).setFlag(REACTIVE_CENTER, true);
-                                getReactionCenterSet().add(affectedBondProducts.getAtom(0));
-                                getReactionCenterSet().add(affectedBondProducts.getAtom(1));
-                                affectedBondProducts.setProperty(BOND_CHANGE_INFORMATION, bondChangeInformation);
-                            }
-                        } /*
-                           * Changes in the educt
-                         */ else if (reactionMatrix.getValue(i, j) > 0.d) {
-
-                            if (DEBUG) {
-                                System.out.println("Marking Bond Changes-2 educt");
-                            }
-
-                            if (substrateBEMatrix.getValue(i, j) == 0.0d && affectedBondReactants == null) {
-                                /*
-                                 * Here the bond is Formed (Gained)
-                                 */
-                                bondChangeInformation = BOND_FORMED;
-                            } else {
-                                bondChangeInformation = BOND_ORDER;
-                            }
-
-                            if (affectedBondReactants != null) {
-
-                                affectedBondReactants.getAtom(0).setFlag(REACTIVE_CENTER, true);
-                                affectedBondReactants.getAtom(1).setFlag(REACTIVE_CENTER, true);
-                                getReactionCenterSet().add(affectedBondReactants.getAtom(0));
-                                getReactionCenterSet().add(affectedBondReactants.getAtom(1));
-                                affectedBondReactants.setProperty(BOND_CHANGE_INFORMATION, bondChangeInformation);
-                            }
-                            if (affectedBondProducts != null) {
-
-                                affectedBondProducts.getAtom(0).setFlag(REACTIVE_CENTER, true);
-                                affectedBondProducts.getAtom(1).setFlag(REACTIVE_CENTER, true);
-                                getReactionCenterSet().add(affectedBondProducts.getAtom(0));
-                                getReactionCenterSet().add(affectedBondProducts.getAtom(1));
-                                affectedBondProducts.setProperty(BOND_CHANGE_INFORMATION, bondChangeInformation);
-                            }
-                        }
-                        /*
-                         * Store the bond changes
-                         */
-                        if (DEBUG) {
-                            System.out.println("Marking Bond Changes-2 STORED ");
-                        }
-
-                        getBondChangeList().add(new BondChange(affectedBondReactants, affectedBondProducts));
-                    } catch (CDKException ex) {
-                        if (DEBUG) {
-                            ex.printStackTrace();
-                        }
-                        LOGGER.error(SEVERE, null, ex);
+                    getBondChangeList().add(new BondChange(affectedBondReactants, affectedBondProducts));
+                } catch (CDKException ex) {
+                    if (DEBUG) {
+                        ex.printStackTrace();
                     }
+                    LOGGER.error(SEVERE, null, ex);
                 }
             }
         }
@@ -24,12 +24,14 @@ import java.io.FileWriter;
 import java.io.IOException;
 import static java.lang.Math.abs;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import static java.util.Collections.synchronizedList;
 import static java.util.Collections.synchronizedMap;
 import static java.util.Collections.unmodifiableCollection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -44,8 +46,6 @@ import org.openscience.cdk.aromaticity.Aromaticity;
 import org.openscience.cdk.aromaticity.ElectronDonation;
 import static org.openscience.cdk.aromaticity.Kekulization.kekulize;
 import org.openscience.cdk.exception.CDKException;
-import static org.openscience.cdk.graph.ConnectivityChecker.isConnected;
-import static org.openscience.cdk.graph.ConnectivityChecker.partitionIntoMolecules;
 import org.openscience.cdk.graph.Cycles;
 import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
@@ -59,6 +59,7 @@ import org.openscience.cdk.tools.ILoggingTool;
 import static org.openscience.cdk.tools.LoggingToolFactory.createLoggingTool;
 import static org.openscience.cdk.tools.manipulator.AtomContainerSetManipulator.getRelevantAtomContainer;
 import static org.openscience.cdk.tools.manipulator.ReactionManipulator.getRelevantAtomContainer;
+import org.openscience.smsd.graph.algorithm.BridgeFinder;
 import org.openscience.smsd.tools.BondEnergies;
 import static org.openscience.smsd.tools.BondEnergies.getInstance;
 import uk.ac.ebi.reactionblast.fingerprints.Feature;
@@ -72,6 +73,9 @@ import uk.ac.ebi.reactionblast.mechanism.helper.MoleculeMoleculePair;
 import uk.ac.ebi.reactionblast.mechanism.helper.ReactionCenterFragment;
 import static uk.ac.ebi.reactionblast.mechanism.helper.Utility.getCircularSMILES;
 import uk.ac.ebi.reactionblast.mechanism.interfaces.AbstractChangeCalculator;
+import uk.ac.ebi.reactionblast.mechanism.interfaces.EnumBondChangeMode;
+import static uk.ac.ebi.reactionblast.mechanism.interfaces.EnumBondChangeMode.BOND_CHANGES;
+import static uk.ac.ebi.reactionblast.mechanism.interfaces.EnumBondChangeMode.FULL;
 import static uk.ac.ebi.reactionblast.mechanism.interfaces.ECBLAST_BOND_CHANGE_FLAGS.BOND_CLEAVED;
 import static uk.ac.ebi.reactionblast.mechanism.interfaces.ECBLAST_BOND_CHANGE_FLAGS.BOND_FORMED;
 import static uk.ac.ebi.reactionblast.mechanism.interfaces.ECBLAST_BOND_CHANGE_FLAGS.BOND_ORDER;
@@ -118,6 +122,11 @@ public class BondChangeCalculator extends AbstractChangeCalculator implements IC
     private int energyDelta;
     private int totalSmallestFragmentSize;
     private int totalFragmentCount;
+    private EnumBondChangeMode mode;
+    // reaction centre atoms and mapped atom pairs whose fragments and fingerprints are not computed yet
+    private List<ReactionCenterAtom> pendingCenters;
+    private List<ReactionCenterPair> pendingPairs;
+    private String reactionID;
 
     /**
      *
@@ -158,6 +167,8 @@ public class BondChangeCalculator extends AbstractChangeCalculator implements IC
         this.AtomStereoRMap = synchronizedMap(new HashMap<>());
         this.AtomStereoPMap = synchronizedMap(new HashMap<>());
         this.reactionCenterFragmentList = synchronizedList(new ArrayList<>());
+        this.mode = FULL;
+        this.pendingCenters = new ArrayList<>();
     }
 
     /**
@@ -292,10 +303,12 @@ public class BondChangeCalculator extends AbstractChangeCalculator implements IC
      * Return Reaction center Fingerprint
      *
      * @return
-     * @throws CDKException
+     * @throws CDKException if the reaction centres, computed on first access,
+     * fail
      */
     @Override
     public synchronized IPatternFingerprinter getReactionCenterWFingerprint() throws CDKException {
+        reactionCenters();
         return reactionCenterWFingerprint;
     }
 
@@ -948,22 +961,31 @@ public class BondChangeCalculator extends AbstractChangeCalculator implements IC
 
     /**
      * @return the reactionCenterFormedCleavedFingerprint
+     * @throws IllegalStateException if the reaction centres, computed on first
+     * access, fail (the signature declares no checked exception)
      */
     public Map<Integer, IPatternFingerprinter> getReactionCenterFormedCleavedFingerprint() {
+        uncheckedReactionCenters();
         return synchronizedMap(reactionCenterFormedCleavedFingerprint);
     }
 
     /**
      * @return the reactionCenterOrderChangeFingerprint
+     * @throws IllegalStateException if the reaction centres, computed on first
+     * access, fail (the signature declares no checked exception)
      */
     public Map<Integer, IPatternFingerprinter> getReactionCenterOrderChangeFingerprint() {
+        uncheckedReactionCenters();
         return synchronizedMap(reactionCenterOrderChangeFingerprint);
     }
 
     /**
      * @return the reactionCenterStereoChangeFingerprint
+     * @throws IllegalStateException if the reaction centres, computed on first
+     * access, fail (the signature declares no checked exception)
      */
     public Map<Integer, IPatternFingerprinter> getReactionCenterStereoChangeFingerprint() {
+        uncheckedReactionCenters();
         return synchronizedMap(reactionCenterStereoChangeFingerprint);
     }
 
@@ -978,14 +1000,23 @@ public class BondChangeCalculator extends AbstractChangeCalculator implements IC
 
     /**
      * @return the Reaction Center Fragment List
+     * @throws IllegalStateException if the reaction centres, computed on first
+     * access, fail (the signature declares no checked exception)
      */
     @Override
     public Collection<ReactionCenterFragment> getReactionCenterFragmentList() {
+        uncheckedReactionCenters();
         return unmodifiableCollection(reactionCenterFragmentList);
     }
 
+    /**
+     * @return the molecule pairs of the mapped reaction centre atoms
+     * @throws IllegalStateException if the reaction centres, computed on first
+     * access, fail (the signature declares no checked exception)
+     */
     @Override
     public Collection<MoleculeMoleculePair> getReactionCentreTransformationPairs() {
+        uncheckedReactionCenters();
         return unmodifiableCollection(reactionMoleculeMoleculePairList);
     }
 
@@ -1008,19 +1039,11 @@ public class BondChangeCalculator extends AbstractChangeCalculator implements IC
         return uniqueRPAIRS;
     }
 
-    private int chipTheBondCountSmallestFragmentSize(IAtomContainer cloneContainer, int chippedBondIndex) {
-        int size = cloneContainer.getAtomCount();
-        cloneContainer.removeBond(chippedBondIndex);
-        boolean fragmentFlag = isConnected(cloneContainer);
-        if (!fragmentFlag) {
-            IAtomContainerSet partitionIntoMolecules = partitionIntoMolecules(cloneContainer);
-            for (IAtomContainer ac : partitionIntoMolecules.atomContainers()) {
-                if (size > ac.getAtomCount()) {
-                    size = ac.getAtomCount();
-                }
-            }
-        }
-        return size;
+    /*
+     * Bridges and fragment sizes of each molecule, found once per molecule
+     */
+    private static BridgeFinder getBridgeFinder(Map<IAtomContainer, BridgeFinder> bridgeFinders, IAtomContainer ac) {
+        return bridgeFinders.computeIfAbsent(ac, BridgeFinder::new);
     }
 
     /**
@@ -1038,6 +1061,24 @@ public class BondChangeCalculator extends AbstractChangeCalculator implements IC
      * @throws Exception
      */
     public void computeBondChanges(boolean generate2D, boolean generate3D) throws CDKException, Exception {
+        computeBondChanges(generate2D, generate3D, FULL);
+    }
+
+    /**
+     * Compute the outputs of a mode. Unless the mode is
+     * {@link EnumBondChangeMode#FULL}, the reaction centre fragments, circular
+     * fingerprints and molecule pairs are computed on first access, on copies
+     * of the reaction centre molecules taken by this call.
+     *
+     * @param generate2D
+     * @param generate3D
+     * @param mode outputs to compute
+     * @throws CDKException
+     * @throws Exception
+     */
+    public void computeBondChanges(boolean generate2D, boolean generate3D, EnumBondChangeMode mode) throws CDKException, Exception {
+        this.mode = mode;
+        Map<IAtomContainer, BridgeFinder> bridgeFinders = new IdentityHashMap<>();
         try {
 
             BondEnergies be = getInstance();
@@ -1048,7 +1089,8 @@ public class BondChangeCalculator extends AbstractChangeCalculator implements IC
                 if (DEBUG) {
                     System.out.println("Bond Change Annotator START");
                 }
-                this.bondChangeAnnotator = new BondChangeAnnotator(mappedReaction, true, generate2D, generate3D);
+                this.bondChangeAnnotator = new BondChangeAnnotator(mappedReaction, true, generate2D, generate3D,
+                        mode != BOND_CHANGES);
                 if (DEBUG) {
                     System.out.println("MARK Bond Change START");
                 }
@@ -1101,8 +1143,7 @@ public class BondChangeCalculator extends AbstractChangeCalculator implements IC
                             if (DEBUG) {
                                 System.out.println("Educt CircularFingerprints START");
                             }
-                            reactionCenterFragmentList.addAll(getCircularReactionPatternFingerprints(moleculeR, atomR1, REACTANT));
-                            setCircularFingerprints(mappedReaction.getID(), moleculeR, atomR1, reactionCenterStereoChangeFingerprint);
+                            addReactionCenter(moleculeR, atomR1, REACTANT, reactionCenterStereoChangeFingerprint);
                             if (DEBUG) {
                                 System.out.println("Educt CircularFingerprints END");
                             }
@@ -1124,8 +1165,7 @@ public class BondChangeCalculator extends AbstractChangeCalculator implements IC
                             if (DEBUG) {
                                 System.out.println("Product CircularFingerprints START");
                             }
-                            reactionCenterFragmentList.addAll(getCircularReactionPatternFingerprints(moleculeP, atomP1, PRODUCT));
-                            setCircularFingerprints(mappedReaction.getID(), moleculeP, atomP1, reactionCenterStereoChangeFingerprint);
+                            addReactionCenter(moleculeP, atomP1, PRODUCT, reactionCenterStereoChangeFingerprint);
                             if (DEBUG) {
                                 System.out.println("Product CircularFingerprints END");
                             }
@@ -1168,8 +1208,7 @@ public class BondChangeCalculator extends AbstractChangeCalculator implements IC
                     if (moleculeR.getAtomCount() > 1) {
 
                         if (!atomR1.getSymbol().equals("H")) {
-                            reactionCenterFragmentList.addAll(getCircularReactionPatternFingerprints(moleculeR, atomR1, REACTANT));
-                            setCircularFingerprints(mappedReaction.getID(), moleculeR, atomR1, reactionCenterStereoChangeFingerprint);
+                            addReactionCenter(moleculeR, atomR1, REACTANT, reactionCenterStereoChangeFingerprint);
                         }
                     }
                 }
@@ -1186,8 +1225,7 @@ public class BondChangeCalculator extends AbstractChangeCalculator implements IC
                     if (moleculeP.getAtomCount() > 1) {
 
                         if (!atomP1.getSymbol().equals("H")) {
-                            reactionCenterFragmentList.addAll(getCircularReactionPatternFingerprints(moleculeP, atomP1, PRODUCT));
-                            setCircularFingerprints(mappedReaction.getID(), moleculeP, atomP1, reactionCenterStereoChangeFingerprint);
+                            addReactionCenter(moleculeP, atomP1, PRODUCT, reactionCenterStereoChangeFingerprint);
                         }
                     }
                 }
@@ -1243,14 +1281,12 @@ public class BondChangeCalculator extends AbstractChangeCalculator implements IC
 
             for (IAtom atom : reactantAtoms) {
                 IAtomContainer relevantAtomContainer = getRelevantAtomContainer(reactants, atom);
-                reactionCenterFragmentList.addAll(getCircularReactionPatternFingerprints(relevantAtomContainer, atom, REACTANT));
-                setCircularFingerprints(mappedReaction.getID(), relevantAtomContainer, atom, reactionCenterOrderChangeFingerprint);
+                addReactionCenter(relevantAtomContainer, atom, REACTANT, reactionCenterOrderChangeFingerprint);
             }
 
             for (IAtom atom : productAtoms) {
                 IAtomContainer relevantAtomContainer = getRelevantAtomContainer(products, atom);
-                reactionCenterFragmentList.addAll(getCircularReactionPatternFingerprints(relevantAtomContainer, atom, PRODUCT));
-                setCircularFingerprints(mappedReaction.getID(), relevantAtomContainer, atom, reactionCenterOrderChangeFingerprint);
+                addReactionCenter(relevantAtomContainer, atom, PRODUCT, reactionCenterOrderChangeFingerprint);
             }
 
             if (DEBUG) {
@@ -1314,12 +1350,10 @@ public class BondChangeCalculator extends AbstractChangeCalculator implements IC
                                 System.out.println("Bond formed, cleaved changes 1 - 1 - 1 FP");
                             }
                             if (!atomP1.getSymbol().equals("H")) {
-                                reactionCenterFragmentList.addAll(getCircularReactionPatternFingerprints(moleculeP, atomP1, PRODUCT));
-                                setCircularFingerprints(mappedReaction.getID(), moleculeP, atomP1, reactionCenterFormedCleavedFingerprint);
+                                addReactionCenter(moleculeP, atomP1, PRODUCT, reactionCenterFormedCleavedFingerprint);
                             }
                             if (!atomP2.getSymbol().equals("H")) {
-                                reactionCenterFragmentList.addAll(getCircularReactionPatternFingerprints(moleculeP, atomP2, PRODUCT));
-                                setCircularFingerprints(mappedReaction.getID(), moleculeP, atomP2, reactionCenterFormedCleavedFingerprint);
+                                addReactionCenter(moleculeP, atomP2, PRODUCT, reactionCenterFormedCleavedFingerprint);
                             }
 
                             if (DEBUG) {
@@ -1327,9 +1361,8 @@ public class BondChangeCalculator extends AbstractChangeCalculator implements IC
                             }
 
                             IAtomContainer product = getAtomContainer(bondP, mappedReaction.getProducts());
-                            IAtomContainer cloneProduct = product.getBuilder().newInstance(IAtomContainer.class, product);
                             int chippedBondIndex = product.indexOf(bondP);
-                            totalSmallestFragmentSize += chipTheBondCountSmallestFragmentSize(cloneProduct, chippedBondIndex);
+                            totalSmallestFragmentSize += getBridgeFinder(bridgeFinders, product).getSmallestFragmentSize(chippedBondIndex);
                             formedCleavedWFingerprint.add(new Feature(getCanonicalisedBondChangePattern(bondP), 1.0));
                         }
                     }
@@ -1370,18 +1403,15 @@ public class BondChangeCalculator extends AbstractChangeCalculator implements IC
                             IAtom atomE1 = bondR.getAtom(0);
                             IAtom atomE2 = bondR.getAtom(1);
                             if (!atomE1.getSymbol().equals("H")) {
-                                reactionCenterFragmentList.addAll(getCircularReactionPatternFingerprints(moleculeE, atomE1, REACTANT));
-                                setCircularFingerprints(mappedReaction.getID(), moleculeE, atomE1, reactionCenterFormedCleavedFingerprint);
+                                addReactionCenter(moleculeE, atomE1, REACTANT, reactionCenterFormedCleavedFingerprint);
                             }
                             if (!atomE2.getSymbol().equals("H")) {
-                                reactionCenterFragmentList.addAll(getCircularReactionPatternFingerprints(moleculeE, atomE2, REACTANT));
-                                setCircularFingerprints(mappedReaction.getID(), moleculeE, atomE2, reactionCenterFormedCleavedFingerprint);
+                                addReactionCenter(moleculeE, atomE2, REACTANT, reactionCenterFormedCleavedFingerprint);
                             }
 
                             IAtomContainer reactant = getAtomContainer(bondR, mappedReaction.getReactants());
-                            IAtomContainer cloneReactant = reactant.getBuilder().newInstance(IAtomContainer.class, reactant);
                             int chippedBondIndex = reactant.indexOf(bondR);
-                            totalSmallestFragmentSize += chipTheBondCountSmallestFragmentSize(cloneReactant, chippedBondIndex);
+                            totalSmallestFragmentSize += getBridgeFinder(bridgeFinders, reactant).getSmallestFragmentSize(chippedBondIndex);
                             formedCleavedWFingerprint.add(new Feature(getCanonicalisedBondChangePattern(bondR), 1.0));
                         }
                     }
@@ -1392,14 +1422,6 @@ public class BondChangeCalculator extends AbstractChangeCalculator implements IC
                 System.out.println("RC Fingerprint");
             }
 
-            /*
-             * IMP for RC Fingerprint: compute all the unique mappedReaction centers atoms
-             */
-            Map<IAtom, IAtom> reactionCenterMap = new HashMap<>();
-            bondChangeAnnotator.getReactionCenterSet().stream().filter((atom) -> (!atom.getSymbol().equals("H"))).forEachOrdered((atom) -> {
-                reactionCenterMap.put(atom, bondChangeAnnotator.getMappingMap().get(atom));
-            });
-
             if (DEBUG) {
                 System.out.println("RC Fingerprint charges like Mg2+ too Mg3+");
             }
@@ -1422,59 +1444,19 @@ public class BondChangeCalculator extends AbstractChangeCalculator implements IC
                             esp = PRODUCT;
                         }
                         if (!atom.getSymbol().equals("H")) {
-                            reactionCenterFragmentList.addAll(getCircularReactionPatternFingerprints(relevantAtomContainer, atom, esp));
-                            setCircularFingerprints(mappedReaction.getID(), relevantAtomContainer, atom, reactionCenterFormedCleavedFingerprint);
+                            addReactionCenter(relevantAtomContainer, atom, esp, reactionCenterFormedCleavedFingerprint);
                         }
                     }
                 }
 
             }
 
-            if (DEBUG) {
-                System.out.println("RC Fingerprint ");
-            }
-
-            /*
-             * Assign Reaction Center Fingerprints
-             */
-            for (Map.Entry<IAtom, IAtom> mapRC : reactionCenterMap.entrySet()) {
-
-                IAtom sourceAtom = mapRC.getKey();
-                IAtom sinkAtom = mapRC.getValue();
-
-                IAtomContainer relevantAtomContainer1 = getRelevantAtomContainer(mappedReaction.getReactants(), sourceAtom);
-                IAtomContainer relevantAtomContainer2 = getRelevantAtomContainer(mappedReaction.getProducts(), sinkAtom);
-
-                if (relevantAtomContainer1 != null) {
-                    for (int i = 0; i < 3; i++) {
-                        String circularSMILES = getCircularSMILES(relevantAtomContainer1, sourceAtom, i, true);
-                        reactionCenterWFingerprint.add(new Feature(circularSMILES, 1.0));
-                    }
-                }
-
-                if (relevantAtomContainer2 != null) {
-                    for (int i = 0; i < 3; i++) {
-                        String circularSMILES = getCircularSMILES(relevantAtomContainer2, sinkAtom, i, true);
-                        reactionCenterWFingerprint.add(new Feature(circularSMILES, 1.0));
-                    }
-                }
-
-                if (relevantAtomContainer1 != null && relevantAtomContainer2 != null) {
-                    for (int i = 1; i < 4; i++) {
-                        String circularSMILESSource = getCircularSMILES(relevantAtomContainer1, sourceAtom, i, true);
-                        String circularSMILESSink = getCircularSMILES(relevantAtomContainer2, sinkAtom, i, true);
-                        StringBuilder level = new StringBuilder();
-                        level.append(circularSMILESSource).append(">>").append(circularSMILESSink);
-                        reactionCenterWFingerprint.add(new Feature(level.toString(), 1.0));
-                    }
-                    try {
-                        MoleculeMoleculePair molMolPair = getMolMolPair(sourceAtom, sinkAtom, relevantAtomContainer1, relevantAtomContainer2);
-                        this.reactionMoleculeMoleculePairList.add(molMolPair);
-                    } catch (Exception ex) {
-                        ex.printStackTrace();
-                        throw new Exception("Failed to compute MMPAIR ", ex);
-                    }
-                }
+            this.reactionID = mappedReaction.getID();
+            this.pendingPairs = getReactionCenterPairs();
+            if (mode == FULL) {
+                computeReactionCenters();
+            } else {
+                snapshotReactionCenters();
             }
 
             setEnergyDelta(rEnergy - pEnergy);
@@ -1491,43 +1473,238 @@ public class BondChangeCalculator extends AbstractChangeCalculator implements IC
         /*
          * total number of fragments generated
          */
-        this.totalFragmentCount = getReactionFragmentCount();
+        this.totalFragmentCount = getReactionFragmentCount(bridgeFinders);
         if (DEBUG) {
             System.out.println("totalFragmentCount " + totalFragmentCount);
         }
     }
 
-    private int getReactionFragmentCount() {
+    /*
+     * Circular fingerprints of a reaction centre atom, computed with the other
+     * reaction centres
+     */
+    private void addReactionCenter(IAtomContainer mol, IAtom atom, EnumSubstrateProduct type,
+            Map<Integer, IPatternFingerprinter> fingerprints) {
+        pendingCenters.add(new ReactionCenterAtom(mol, atom, type, fingerprints));
+    }
+
+    /*
+     * Unique mapped reaction centre atoms (IMP for RC Fingerprint), with their
+     * reactant and product
+     */
+    private List<ReactionCenterPair> getReactionCenterPairs() {
+        Map<IAtom, IAtom> reactionCenterMap = new HashMap<>();
+        bondChangeAnnotator.getReactionCenterSet().stream().filter((atom) -> (!atom.getSymbol().equals("H"))).forEachOrdered((atom) -> {
+            reactionCenterMap.put(atom, bondChangeAnnotator.getMappingMap().get(atom));
+        });
+        List<ReactionCenterPair> pairs = new ArrayList<>(reactionCenterMap.size());
+        for (Map.Entry<IAtom, IAtom> mapRC : reactionCenterMap.entrySet()) {
+            IAtom sourceAtom = mapRC.getKey();
+            IAtom sinkAtom = mapRC.getValue();
+            pairs.add(new ReactionCenterPair(sourceAtom, sinkAtom,
+                    getRelevantAtomContainer(mappedReaction.getReactants(), sourceAtom),
+                    getRelevantAtomContainer(mappedReaction.getProducts(), sinkAtom)));
+        }
+        return pairs;
+    }
+
+    /*
+     * The reaction centres computed on first access see the molecules as they
+     * are now, later changes of the mapped reaction are not seen
+     */
+    private void snapshotReactionCenters() throws CloneNotSupportedException {
+        Map<IAtomContainer, IAtomContainer> copies = new IdentityHashMap<>();
+        List<ReactionCenterAtom> centers = new ArrayList<>(pendingCenters.size());
+        for (ReactionCenterAtom center : pendingCenters) {
+            IAtomContainer copy = copy(copies, center.mol);
+            centers.add(new ReactionCenterAtom(copy, copy(center.mol, copy, center.atom),
+                    center.type, center.fingerprints));
+        }
+        List<ReactionCenterPair> pairs = new ArrayList<>(pendingPairs.size());
+        for (ReactionCenterPair pair : pendingPairs) {
+            IAtomContainer copy1 = copy(copies, pair.reactant);
+            IAtomContainer copy2 = copy(copies, pair.product);
+            pairs.add(new ReactionCenterPair(copy(pair.reactant, copy1, pair.sourceAtom),
+                    copy(pair.product, copy2, pair.sinkAtom), copy1, copy2));
+        }
+        this.pendingCenters = centers;
+        this.pendingPairs = pairs;
+    }
+
+    private static IAtomContainer copy(Map<IAtomContainer, IAtomContainer> copies, IAtomContainer mol)
+            throws CloneNotSupportedException {
+        if (mol == null) {
+            return null;
+        }
+        IAtomContainer copy = copies.get(mol);
+        if (copy == null) {
+            copy = mol.clone();
+            copies.put(mol, copy);
+        }
+        return copy;
+    }
+
+    /*
+     * The atom of the copy, the atoms are looked up by their ID in the
+     * molecules
+     */
+    private static IAtom copy(IAtomContainer mol, IAtomContainer copy, IAtom atom)
+            throws CloneNotSupportedException {
+        int index = mol == null || atom == null ? -1 : mol.indexOf(atom);
+        if (index >= 0) {
+            return copy.getAtom(index);
+        }
+        return atom == null ? null : atom.clone();
+    }
+
+    /*
+     * Reaction centre fragments and fingerprints, and the molecule pairs of
+     * the mapped reaction centre atoms. The results are kept only once all of
+     * them are computed.
+     */
+    private synchronized void computeReactionCenters() throws Exception {
+        if (pendingCenters == null || pendingPairs == null) {
+            return;
+        }
+        List<ReactionCenterFragment> fragments = new ArrayList<>();
+        Map<Map<Integer, IPatternFingerprinter>, Map<Integer, IPatternFingerprinter>> fingerprints
+                = new IdentityHashMap<>();
+        for (ReactionCenterAtom center : pendingCenters) {
+            fragments.addAll(getCircularReactionPatternFingerprints(center.mol, center.atom, center.type));
+            setCircularFingerprints(reactionID, center.mol, center.atom,
+                    fingerprints.computeIfAbsent(center.fingerprints, (k) -> new HashMap<>()));
+        }
+
+        if (DEBUG) {
+            System.out.println("RC Fingerprint ");
+        }
+
+        /*
+         * Assign Reaction Center Fingerprints
+         */
+        List<IFeature> features = new ArrayList<>();
+        List<MoleculeMoleculePair> molMolPairs = new ArrayList<>();
+        for (ReactionCenterPair pair : pendingPairs) {
+
+            IAtom sourceAtom = pair.sourceAtom;
+            IAtom sinkAtom = pair.sinkAtom;
+
+            IAtomContainer relevantAtomContainer1 = pair.reactant;
+            IAtomContainer relevantAtomContainer2 = pair.product;
+
+            if (relevantAtomContainer1 != null) {
+                for (int i = 0; i < 3; i++) {
+                    String circularSMILES = getCircularSMILES(relevantAtomContainer1, sourceAtom, i, true);
+                    features.add(new Feature(circularSMILES, 1.0));
+                }
+            }
+
+            if (relevantAtomContainer2 != null) {
+                for (int i = 0; i < 3; i++) {
+                    String circularSMILES = getCircularSMILES(relevantAtomContainer2, sinkAtom, i, true);
+                    features.add(new Feature(circularSMILES, 1.0));
+                }
+            }
+
+            if (relevantAtomContainer1 != null && relevantAtomContainer2 != null) {
+                for (int i = 1; i < 4; i++) {
+                    String circularSMILESSource = getCircularSMILES(relevantAtomContainer1, sourceAtom, i, true);
+                    String circularSMILESSink = getCircularSMILES(relevantAtomContainer2, sinkAtom, i, true);
+                    StringBuilder level = new StringBuilder();
+                    level.append(circularSMILESSource).append(">>").append(circularSMILESSink);
+                    features.add(new Feature(level.toString(), 1.0));
+                }
+                try {
+                    MoleculeMoleculePair molMolPair = getMolMolPair(sourceAtom, sinkAtom, relevantAtomContainer1, relevantAtomContainer2);
+                    molMolPairs.add(molMolPair);
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                    throw new Exception("Failed to compute MMPAIR ", ex);
+                }
+            }
+        }
+
+        reactionCenterFragmentList.addAll(fragments);
+        for (Map.Entry<Map<Integer, IPatternFingerprinter>, Map<Integer, IPatternFingerprinter>> e
+                : fingerprints.entrySet()) {
+            e.getKey().putAll(e.getValue());
+        }
+        for (IFeature feature : features) {
+            reactionCenterWFingerprint.add(feature);
+        }
+        reactionMoleculeMoleculePairList.addAll(molMolPairs);
+        pendingCenters = null;
+        pendingPairs = null;
+    }
+
+    /*
+     * The reaction centres on first access
+     */
+    private void reactionCenters() throws CDKException {
+        try {
+            computeReactionCenters();
+        } catch (CDKException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CDKException("Failed to compute the reaction centres", e);
+        }
+    }
+
+    /*
+     * The reaction centres on first access, for the getters which declare no
+     * checked exception
+     */
+    private void uncheckedReactionCenters() {
+        try {
+            reactionCenters();
+        } catch (CDKException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    private int getReactionFragmentCount(Map<IAtomContainer, BridgeFinder> bridgeFinders) {
         int totalFragCount = 0;
         /*
          * Mine Fragment Count
          */
         for (IAtomContainer reactant : mappedReaction.getReactants().atomContainers()) {
-            IAtomContainer clone = reactant.getBuilder().newInstance(IAtomContainer.class, reactant);
-            bondChangeAnnotator.getBondChangeList().stream().map(bondChange -> bondChange.getProductBond()).map(bondR -> reactant.indexOf(bondR)).forEachOrdered(chippedBondIndex -> {
-                clone.removeBond(chippedBondIndex);
-            });
-            totalFragCount += getFragmentCount(clone);
+            totalFragCount += getFragmentCount(getBridgeFinder(bridgeFinders, reactant), getChippedBonds(reactant));
         }
 
         for (IAtomContainer product : mappedReaction.getProducts().atomContainers()) {
-            IAtomContainer clone = product.getBuilder().newInstance(IAtomContainer.class, product);
-            bondChangeAnnotator.getBondChangeList().stream().map(bondChange -> bondChange.getProductBond()).map(bondP -> product.indexOf(bondP)).forEachOrdered(chippedBondIndex -> {
-                clone.removeBond(chippedBondIndex);
-            });
-            totalFragCount += getFragmentCount(clone);
+            totalFragCount += getFragmentCount(getBridgeFinder(bridgeFinders, product), getChippedBonds(product));
         }
         return totalFragCount;
     }
 
-    private int getFragmentCount(IAtomContainer ac) {
-        boolean fragmentFlag = isConnected(ac);
-        int fragmentCount = 0;
-        if (!fragmentFlag) {
-            IAtomContainerSet partitionIntoMolecules = partitionIntoMolecules(ac);
-            fragmentCount = partitionIntoMolecules.getAtomContainerCount();
+    /*
+     * Bonds chipped for the fragment count. The bonds are removed by their
+     * index in the molecule one after the other, the index of a later bond
+     * then points into the molecule with the earlier ones removed (an index
+     * out of range removes nothing).
+     */
+    private BitSet getChippedBonds(IAtomContainer ac) {
+        List<Integer> remaining = new ArrayList<>(ac.getBondCount());
+        for (int i = 0; i < ac.getBondCount(); i++) {
+            remaining.add(i);
+        }
+        for (BondChange bondChange : bondChangeAnnotator.getBondChangeList()) {
+            int chippedBondIndex = ac.indexOf(bondChange.getProductBond());
+            if (chippedBondIndex >= 0 && chippedBondIndex < remaining.size()) {
+                remaining.remove(chippedBondIndex);
+            }
+        }
+        BitSet chipped = new BitSet(ac.getBondCount());
+        chipped.set(0, ac.getBondCount());
+        for (int i : remaining) {
+            chipped.clear(i);
         }
-        return fragmentCount;
+        return chipped;
+    }
+
+    private int getFragmentCount(BridgeFinder bridgeFinder, BitSet chippedBonds) {
+        int fragmentCount = bridgeFinder.getComponentCount(chippedBonds);
+        return fragmentCount > 1 ? fragmentCount : 0;
     }
 
     /**
@@ -1536,4 +1713,50 @@ public class BondChangeCalculator extends AbstractChangeCalculator implements IC
     public int getTotalFragmentCount() {
         return totalFragmentCount;
     }
+
+    /**
+     * @return the outputs computed
+     */
+    public EnumBondChangeMode getMode() {
+        return mode;
+    }
+
+    /*
+     * A mapped reaction centre atom pair and the reactant and product of the
+     * atoms
+     */
+    private static final class ReactionCenterPair {
+
+        private final IAtom sourceAtom;
+        private final IAtom sinkAtom;
+        private final IAtomContainer reactant;
+        private final IAtomContainer product;
+
+        ReactionCenterPair(IAtom sourceAtom, IAtom sinkAtom, IAtomContainer reactant, IAtomContainer product) {
+            this.sourceAtom = sourceAtom;
+            this.sinkAtom = sinkAtom;
+            this.reactant = reactant;
+            this.product = product;
+        }
+    }
+
+    /*
+     * A reaction centre atom in its molecule, and the fingerprints its
+     * circular fragments are added to
+     */
+    private static final class ReactionCenterAtom {
+
+        private final IAtomContainer mol;
+        private final IAtom atom;
+        private final EnumSubstrateProduct type;
+        private final Map<Integer, IPatternFingerprinter> fingerprints;
+
+        ReactionCenterAtom(IAtomContainer mol, IAtom atom, EnumSubstrateProduct type,
+                Map<Integer, IPatternFingerprinter> fingerprints) {
+            this.mol = mol;
+            this.atom = atom;
+            this.type = type;
+            this.fingerprints = fingerprints;
+        }
+    }
 }
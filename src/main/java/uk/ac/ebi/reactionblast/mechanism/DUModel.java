@@ -91,6 +91,25 @@ abstract class DUModel extends StereoCenteralityTool implements IChangeCalculato
             boolean withoutHydrogen,
             boolean generate2D,
             boolean generate3D) throws CDKException, Exception {
+        this(reaction, withoutHydrogen, generate2D, generate3D, true);
+    }
+
+    /**
+     *
+     * @param reaction
+     * @param withoutHydrogen
+     * @param generate2D
+     * @param generate3D
+     * @param perceiveStereo if false the stereo centres are not perceived and
+     * no stereo change is found
+     * @throws CDKException
+     * @throws Exception
+     */
+    DUModel(IReaction reaction,
+            boolean withoutHydrogen,
+            boolean generate2D,
+            boolean generate3D,
+            boolean perceiveStereo) throws CDKException, Exception {
 
         this.reactantSet = reaction.getReactants();
         this.productSet = reaction.getProducts();
@@ -180,6 +199,10 @@ abstract class DUModel extends StereoCenteralityTool implements IChangeCalculato
             }
             throw new Exception("WARNING: Unable to compute reaction matrix", e);
         }
+        if (!perceiveStereo) {
+            this.stereogenicCenters = new ArrayList<>();
+            return;
+        }
         /*
          * Stereo mapping
          */
@@ -25,6 +25,13 @@ import uk.ac.ebi.reactionblast.mapping.Reactor;
 import uk.ac.ebi.reactionblast.mapping.interfaces.IMappingAlgorithm;
 
 /**
+ * The scores of one mapping model.
+ *
+ * The bond changes are computed once per distinct mapping, so models which
+ * found the same mapping share one {@link BondChangeCalculator} and its
+ * reaction, which is the mapped reaction of one of these models. Its
+ * molecule and atom order may differ from the reaction of this model, which
+ * is kept by {@link #getReactor()}.
  *
  * @contact Syed Asad Rahman, EMBL-EBI, Cambridge, UK.
  * @author Syed Asad Rahman <asad @ ebi.ac.uk>
@@ -169,7 +176,8 @@ public class MappingSolution implements Serializable {
     }
 
     /**
-     * @return the reaction
+     * @return the reaction with the bond changes, shared with the models of
+     * the same mapping
      */
     public IReaction getReaction() {
         return reaction;
@@ -197,7 +205,8 @@ public class MappingSolution implements Serializable {
     }
 
     /**
-     * @return the bondChangeCalculator
+     * @return the bondChangeCalculator, shared with the models of the same
+     * mapping
      */
     public BondChangeCalculator getBondChangeCalculator() {
         return bondChangeCalculator;
@@ -34,7 +34,7 @@ import org.openscience.cdk.interfaces.IBond;
 import org.openscience.cdk.tools.ILoggingTool;
 import static org.openscience.cdk.tools.LoggingToolFactory.createLoggingTool;
 import uk.ac.ebi.reactionblast.mechanism.helper.AtomAtomMappingContainer;
-import uk.ac.ebi.reactionblast.tools.EBIMatrix;
+import uk.ac.ebi.reactionblast.tools.SparseMatrix;
 
 /**
  * This class create the RMatrix of a reaction according to the DU-Theory.
@@ -44,7 +44,7 @@ import uk.ac.ebi.reactionblast.tools.EBIMatrix;
  * @author Syed Asad Rahman <asad @ ebi.ac.uk>
  * @author Lorenzo Baldacci {lorenzo@ebi.ac.uk|lbaldacc@csr.unibo.it}
  */
-public final class RMatrix extends EBIMatrix implements Serializable {
+public final class RMatrix extends SparseMatrix implements Serializable {
 
     private static final String NEW_LINE = System.getProperty("line.separator");
     private static final long serialVersionUID = 7057060562283378684L;
@@ -114,24 +114,27 @@ public final class RMatrix extends EBIMatrix implements Serializable {
         }
 
         int[] canonicalOrderedAtomArray = productBEMatrix.orderAtomArray(orderedBEMatrixAtomArray);
-        for (int i = 0; i < getMappedAtomCount(); i++) {
-            String p_id_I = productBEMatrix.getAtom(i).getID();
-            String r_id_I = reactantBEMatrix.getAtom(i).getID();
-            for (int j = 0; j < getMappedAtomCount(); j++) {
-                String p_id_J = productBEMatrix.getAtom(j).getID();
-                String r_id_J = reactantBEMatrix.getAtom(j).getID();
-                /*
-                 Match ids for unbalanced reactions
-                 */
-                if (r_id_I.equals(p_id_I) && r_id_J.equals(p_id_J)) {
-                    double value = productBEMatrix.getValue(i, j) - reactantBEMatrix.getValue(i, j);
-                    boolean aromaticFlag = isAromaticChange(i, j);
-                    if (aromaticFlag && value != 0.0) {
-                        super.setValue(i, j, 0.0);
-                    } else {
-                        super.setValue(i, j, value);
-                    }
+        /*
+         Match ids for unbalanced reactions
+         */
+        int mappedAtomCount = getMappedAtomCount();
+        boolean[] matched = new boolean[mappedAtomCount];
+        for (int i = 0; i < mappedAtomCount; i++) {
+            matched[i] = reactantBEMatrix.getAtom(i).getID().equals(productBEMatrix.getAtom(i).getID());
+        }
+        /*
+         Only the diagonal and the bonded pairs of either side can change
+         */
+        for (int[] pair : getBondedPairs(mappedAtomCount)) {
+            int i = pair[0];
+            int j = pair[1];
+            if (matched[i] && matched[j]) {
+                double value = productBEMatrix.getValue(i, j) - reactantBEMatrix.getValue(i, j);
+                if (value != 0.0 && isAromaticChange(i, j)) {
+                    value = 0.0;
                 }
+                super.setValue(i, j, value);
+                super.setValue(j, i, value);
             }
         }
         if (DEBUG) {
@@ -141,6 +144,47 @@ public final class RMatrix extends EBIMatrix implements Serializable {
         }
     }
 
+    /**
+     * Index pairs (i, j) with i &lt;= j which may hold a change: the diagonal
+     * and the atoms bonded in the reactant or the product BEMatrix, in row
+     * major order. All the other entries of the matrix are zero and have no
+     * bond on either side.
+     *
+     * @return index pairs
+     */
+    public synchronized List<int[]> getBondedPairs() {
+        return getBondedPairs(getRowDimension());
+    }
+
+    private List<int[]> getBondedPairs(int size) {
+        List<Long> keys = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            keys.add(((long) i << 32) | i);
+        }
+        addBondedPairs(keys, getReactantBEMatrix().getAdjacencyList(), size);
+        addBondedPairs(keys, getProductBEMatrix().getAdjacencyList(), size);
+        keys.sort(null);
+        List<int[]> pairs = new ArrayList<>(keys.size());
+        long last = -1L;
+        for (long key : keys) {
+            if (key != last) {
+                pairs.add(new int[]{(int) (key >>> 32), (int) key});
+                last = key;
+            }
+        }
+        return pairs;
+    }
+
+    private static void addBondedPairs(List<Long> keys, int[][] adjacencyList, int size) {
+        for (int i = 0; i < adjacencyList.length && i < size; i++) {
+            for (int j : adjacencyList[i]) {
+                if (i < j && j < size) {
+                    keys.add(((long) i << 32) | j);
+                }
+            }
+        }
+    }
+
     private synchronized boolean isAromaticChange(int IndexI, int IndexJ) throws CDKException {
 
         IAtom ra1 = getReactantBEMatrix().getAtom(IndexI);
@@ -218,16 +262,12 @@ public final class RMatrix extends EBIMatrix implements Serializable {
      * @throws CDKException
      */
     public synchronized int getValueByReactantAtoms(String atomID1, String atomID2) throws CDKException {
-        int res = 0;
-        for (int i = 0; i < getRowDimension() - 1; i++) {
-            for (int j = 0; j < getColumnDimension() - 1; j++) {
-                if (getReactantBEMatrix().getAtom(i).getID().equals(atomID1)
-                        && getReactantBEMatrix().getAtom(j).getID().equals(atomID2)) {
-                    res = (int) getValue(i, j);
-                }
-            }
+        int i = getReactantBEMatrix().getIndexOfAtomID(atomID1);
+        int j = getReactantBEMatrix().getIndexOfAtomID(atomID2);
+        if (i < 0 || j < 0 || i >= getRowDimension() - 1 || j >= getColumnDimension() - 1) {
+            return 0;
         }
-        return res;
+        return (int) getValue(i, j);
     }
 
     /**
@@ -238,16 +278,12 @@ public final class RMatrix extends EBIMatrix implements Serializable {
      * @throws CDKException
      */
     public synchronized int getValueByProductAtoms(String atomID1, String atomID2) throws CDKException {
-        int res = 0;
-        for (int i = 0; i < getRowDimension() - 1; i++) {
-            for (int j = 0; j < getColumnDimension() - 1; j++) {
-                if (getProductBEMatrix().getAtom(i).getID().equals(atomID1)
-                        && getProductBEMatrix().getAtom(j).getID().equals(atomID2)) {
-                    res = (int) getValue(i, j);
-                }
-            }
+        int i = getProductBEMatrix().getIndexOfAtomID(atomID1);
+        int j = getProductBEMatrix().getIndexOfAtomID(atomID2);
+        if (i < 0 || j < 0 || i >= getRowDimension() - 1 || j >= getColumnDimension() - 1) {
+            return 0;
         }
-        return res;
+        return (int) getValue(i, j);
     }
 
     /**
@@ -256,10 +292,9 @@ public final class RMatrix extends EBIMatrix implements Serializable {
      */
     public synchronized int getAbsChanges() {
         int acc = 0;
-        for (int i = 0; i < getRowDimension(); i++) {
-            for (int j = 0; j < getColumnDimension(); j++) {
-                acc += abs((int) getValue(i, j));
-            }
+        for (int[] pair : getBondedPairs()) {
+            int value = abs((int) getValue(pair[0], pair[1]));
+            acc += pair[0] == pair[1] ? value : 2 * value;
         }
         return acc;
     }
@@ -24,10 +24,18 @@ import static java.lang.System.gc;
 import static java.lang.System.out;
 import java.util.ArrayList;
 import java.util.Collection;
+import static java.util.Collections.newSetFromMap;
+import static java.util.Collections.sort;
 import static java.util.Collections.unmodifiableCollection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import static java.util.logging.Level.SEVERE;
 import static org.openscience.cdk.CDKConstants.ATOM_ATOM_MAPPING;
 import static org.openscience.cdk.CDKConstants.MAPPED;
@@ -48,6 +56,8 @@ import static org.openscience.cdk.tools.LoggingToolFactory.createLoggingTool;
 import static org.openscience.cdk.tools.manipulator.AtomContainerSetManipulator.getAllAtomContainers;
 import static org.openscience.cdk.tools.manipulator.AtomContainerSetManipulator.getAtomCount;
 import org.openscience.smsd.tools.BondEnergies;
+import org.openscience.smsd.tools.Deadline;
+import org.openscience.smsd.tools.SharedExecutor;
 import static org.openscience.smsd.tools.BondEnergies.getInstance;
 import uk.ac.ebi.reactionblast.fingerprints.interfaces.IFeature;
 import uk.ac.ebi.reactionblast.fingerprints.interfaces.IPatternFingerprinter;
@@ -55,7 +65,11 @@ import uk.ac.ebi.reactionblast.interfaces.IStandardizer;
 import uk.ac.ebi.reactionblast.mapping.CallableAtomMappingTool;
 import uk.ac.ebi.reactionblast.mapping.Reactor;
 import uk.ac.ebi.reactionblast.mapping.interfaces.IMappingAlgorithm;
+import static uk.ac.ebi.reactionblast.mapping.Reactor.INPUT_ATOM_LABEL;
 import static uk.ac.ebi.reactionblast.mapping.interfaces.IMappingAlgorithm.USER_DEFINED;
+import uk.ac.ebi.reactionblast.mechanism.interfaces.EnumBondChangeMode;
+import static uk.ac.ebi.reactionblast.mechanism.interfaces.EnumBondChangeMode.FULL;
+import static uk.ac.ebi.reactionblast.stereo.ebi.StereoCenteralityTool.PERCEPTION_TIMEOUTS;
 import uk.ac.ebi.reactionblast.tools.StandardizeReaction;
 import static java.lang.Integer.parseInt;
 import static java.lang.Math.abs;
@@ -81,6 +95,7 @@ public class ReactionMechanismTool implements Serializable {
     private MappingSolution selectedMapping;
     private Collection<MappingSolution> allSolutions;
     private final boolean accept_no_change;
+    private final EnumBondChangeMode mode;
 
     /**
      *
@@ -154,10 +169,96 @@ public class ReactionMechanismTool implements Serializable {
             boolean checkComplex,
             boolean accept_no_change,
             IStandardizer standardizer) throws CDKException, AssertionError, Exception {
+        this(reaction,
+                forcedMapping,
+                generate2D,
+                generate3D,
+                checkComplex,
+                accept_no_change,
+                standardizer,
+                Deadline.current());
+    }
+
+    /**
+     *
+     * @param reaction CDK reaction object
+     * @param forcedMapping overwrite any existing mapping
+     * @param generate2D deduce stereo on 2D
+     * @param generate3D deduce stereo on 3D
+     * @param checkComplex check complex mapping like rings systems
+     * @param accept_no_change accept no bond change, transporter reactions
+     * @param standardizer standardize reaction
+     * @param deadline time budget of the reaction; the MCS searches and the
+     * stereo perception stop when it expires and the best mappings found so
+     * far are used
+     * @throws CDKException
+     * @throws AssertionError
+     * @throws Exception
+     */
+    public ReactionMechanismTool(IReaction reaction,
+            boolean forcedMapping,
+            boolean generate2D,
+            boolean generate3D,
+            boolean checkComplex,
+            boolean accept_no_change,
+            IStandardizer standardizer,
+            Deadline deadline) throws CDKException, AssertionError, Exception {
+        this(reaction,
+                forcedMapping,
+                generate2D,
+                generate3D,
+                checkComplex,
+                accept_no_change,
+                standardizer,
+                deadline,
+                FULL);
+    }
+
+    /**
+     *
+     * @param reaction CDK reaction object
+     * @param forcedMapping overwrite any existing mapping
+     * @param generate2D deduce stereo on 2D
+     * @param generate3D deduce stereo on 3D
+     * @param checkComplex check complex mapping like rings systems
+     * @param accept_no_change accept no bond change, transporter reactions
+     * @param standardizer standardize reaction
+     * @param deadline time budget of the reaction
+     * @param mode bond change outputs computed for the mapping solutions;
+     * without the stereo changes the solutions are selected on their bond
+     * changes only
+     * @throws CDKException
+     * @throws AssertionError
+     * @throws Exception
+     */
+    public ReactionMechanismTool(IReaction reaction,
+            boolean forcedMapping,
+            boolean generate2D,
+            boolean generate3D,
+            boolean checkComplex,
+            boolean accept_no_change,
+            IStandardizer standardizer,
+            Deadline deadline,
+            EnumBondChangeMode mode) throws CDKException, AssertionError, Exception {
         this.allSolutions = synchronizedList(new ArrayList<>());
         this.selectedMapping = null;
         this.accept_no_change = accept_no_change;//transporter reactions
+        this.mode = mode;
 
+        Deadline previous = Deadline.set(deadline);
+        try {
+            map(reaction, forcedMapping, generate2D, generate3D, checkComplex, standardizer);
+        } finally {
+            Deadline.set(previous);
+        }
+    }
+
+    private void map(IReaction reaction,
+            boolean forcedMapping,
+            boolean generate2D,
+            boolean generate3D,
+            boolean checkComplex,
+            IStandardizer standardizer) throws CDKException, AssertionError, Exception {
         /*
          * IMP: Set all null hydrogen counts to 0, else CDKToBeam cries out loudly
          */
@@ -206,7 +307,7 @@ public class ReactionMechanismTool implements Serializable {
                     }
                 }
                 boolean selected = isMappingSolutionAcceptable(null, USER_DEFINED,
-                        reaction, generate2D, generate3D);
+                        reaction, null, generate2D, generate3D);
                 LOGGER.info("is solution: " + USER_DEFINED + " selected: " + selected);
             } catch (Exception e) {
                 if (DEBUG) {
@@ -229,6 +330,8 @@ public class ReactionMechanismTool implements Serializable {
                 CallableAtomMappingTool amt = new CallableAtomMappingTool(reaction, standardizer,
                         onlyCoreMappingByMCS, checkComplex);
                 Map<IMappingAlgorithm, Reactor> solutions = amt.getSolutions();
+                Map<IMappingAlgorithm, BondChangeCalculator> calculators
+                        = computeBondChanges(solutions, generate2D, generate3D);
 
                 if (DEBUG) {
                     System.out.println("!!!!Calculating Best Mapping Model!!!!");
@@ -262,12 +365,16 @@ public class ReactionMechanismTool implements Serializable {
 //                        throw new AssertionError(newline + "Unmapped atoms present in the reaction mapped by AAM "
 //                                + "(" + algorithm + ") algorithm." + newline);
                     }
+                    if (!calculators.containsKey(algorithm)) {
+                        continue;
+                    }
                     if (DEBUG) {
                         System.out.println("===isMappingSolutionAcceptable===");
                     }
                     selected = isMappingSolutionAcceptable(solutions.get(algorithm),
                             algorithm,
                             reactor.getReactionWithAtomAtomMapping(),
+                            calculators.get(algorithm),
                             generate2D,
                             generate3D);
                     if (DEBUG) {
@@ -362,9 +469,78 @@ public class ReactionMechanismTool implements Serializable {
         return atomUniqueCounter1.keySet().equals(atomUniqueCounter2.keySet());
     }
 
+    /*
+     * Bond changes of the mapping models. MIN, MAX and MIXTURE often agree on
+     * the mapping, the bond changes are computed once per distinct mapping
+     * and the distinct ones in parallel. A model whose bond changes fail is
+     * logged and left out of the result.
+     */
+    private Map<IMappingAlgorithm, BondChangeCalculator> computeBondChanges(
+            Map<IMappingAlgorithm, Reactor> solutions,
+            boolean generate2D,
+            boolean generate3D) throws Exception {
+        SharedExecutor executor = SharedExecutor.getInstance();
+        Map<String, Future<BondChangeCalculator>> distinct = new HashMap<>();
+        Map<IMappingAlgorithm, Future<BondChangeCalculator>> jobs = new EnumMap<>(IMappingAlgorithm.class);
+        for (IMappingAlgorithm algorithm : solutions.keySet()) {
+            Reactor reactor = solutions.get(algorithm);
+            if (reactor == null) {
+                continue;
+            }
+            IReaction mappedReaction = reactor.getReactionWithAtomAtomMapping();
+            String key = getMappingKey(mappedReaction);
+            if (key == null) {
+                key = algorithm.name();
+            }
+            jobs.put(algorithm, distinct.computeIfAbsent(key, (k) -> executor.submit(() -> {
+                BondChangeCalculator bcc = new BondChangeCalculator(mappedReaction);
+                bcc.computeBondChanges(generate2D, generate3D, mode);
+                return bcc;
+            })));
+        }
+        LOGGER.debug("Distinct mappings: " + distinct.size() + " of " + jobs.size());
+
+        Map<IMappingAlgorithm, BondChangeCalculator> calculators = new EnumMap<>(IMappingAlgorithm.class);
+        try {
+            for (IMappingAlgorithm algorithm : jobs.keySet()) {
+                try {
+                    calculators.put(algorithm, SharedExecutor.get(jobs.get(algorithm)));
+                } catch (ExecutionException e) {
+                    LOGGER.error("Unable to calculate bond changes (" + algorithm + ")", e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            SharedExecutor.cancel(distinct.values());
+            throw e;
+        }
+        return calculators;
+    }
+
+    /*
+     * Mapped atom pairs of a reaction, by the input labels of the atoms
+     * (Reactor.INPUT_ATOM_LABEL). Every model labels the same expanded input
+     * reaction, so equal keys mean equal mappings whatever order the models
+     * leave the molecules and atoms in. Null if an atom of the mapping has no
+     * label.
+     */
+    static String getMappingKey(IReaction reaction) {
+        List<String> pairs = new ArrayList<>(reaction.getMappingCount());
+        for (IMapping mapping : reaction.mappings()) {
+            Object educt = mapping.getChemObject(0).getProperty(INPUT_ATOM_LABEL);
+            Object product = mapping.getChemObject(1).getProperty(INPUT_ATOM_LABEL);
+            if (educt == null || product == null) {
+                return null;
+            }
+            pairs.add(educt + ">" + product);
+        }
+        sort(pairs);
+        return String.join(";", pairs);
+    }
+
     private synchronized boolean isMappingSolutionAcceptable(Reactor reactor,
             IMappingAlgorithm ma,
             IReaction reaction,
+            BondChangeCalculator calculator,
             boolean generate2D,
             boolean generate3D
     ) throws Exception {
@@ -383,7 +559,7 @@ public class ReactionMechanismTool implements Serializable {
             int fragmentDeltaChanges;
             if (reactor == null && ma.equals(USER_DEFINED)) {
                 bcc = new BondChangeCalculator(reaction);
-                bcc.computeBondChanges(generate2D, generate3D);
+                bcc.computeBondChanges(generate2D, generate3D, mode);
                 fragmentDeltaChanges = bcc.getTotalFragmentCount();
                 int bondChange = (int) getTotalBondChange(bcc.getFormedCleavedWFingerprint());
                 bondChange += getTotalBondChange(bcc.getOrderChangesWFingerprint());
@@ -417,8 +593,7 @@ public class ReactionMechanismTool implements Serializable {
                     throw new CDKException("Reactor is NULL");
                 }
 
-                bcc = new BondChangeCalculator(reactor.getReactionWithAtomAtomMapping());
-                bcc.computeBondChanges(generate2D, generate3D);
+                bcc = calculator;
                 fragmentDeltaChanges = bcc.getTotalFragmentCount() + reactor.getDelta();
 
                 int bondCleavedFormed = (int) getTotalBondChange(bcc.getFormedCleavedWFingerprint());
@@ -789,6 +964,41 @@ public class ReactionMechanismTool implements Serializable {
         return unmodifiableCollection(this.allSolutions);
     }
 
+    /**
+     * @return number of educt/product pairs sent to the MCS by all the mapping
+     * models of this reaction
+     */
+    public int getMCSPairCount() {
+        synchronized (this.allSolutions) {
+            return this.allSolutions.stream().filter((s) -> (s.getReactor() != null))
+                    .mapToInt((s) -> s.getReactor().getMCSPairCount()).sum();
+        }
+    }
+
+    /**
+     * @return number of molecules whose stereo perception ran out of time,
+     * counted once for the models sharing a mapping
+     */
+    public int getStereoTimeoutCount() {
+        Set<BondChangeCalculator> calculators = newSetFromMap(new IdentityHashMap<>());
+        int count = 0;
+        synchronized (this.allSolutions) {
+            for (MappingSolution s : this.allSolutions) {
+                BondChangeCalculator bcc = s.getBondChangeCalculator();
+                if (bcc == null || !calculators.add(bcc)) {
+                    continue;
+                }
+                try {
+                    Integer timeouts = bcc.getReaction().getProperty(PERCEPTION_TIMEOUTS);
+                    count += timeouts == null ? 0 : timeouts;
+                } catch (Exception e) {
+                    LOGGER.error(SEVERE, null, e);
+                }
+            }
+        }
+        return count;
+    }
+
     private int getNonHydrogenMappingAtomCount(IAtomContainerSet mol) {
         int count = MIN_VALUE;
         List<IAtomContainer> allAtomContainers = getAllAtomContainers(mol);
@@ -21,7 +21,9 @@ package uk.ac.ebi.reactionblast.mechanism.helper;
 import java.io.Serializable;
 import static java.lang.System.out;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
@@ -45,6 +47,7 @@ public class AtomAtomMappingContainer extends Object implements Serializable {
 
     private List<IAtom> reactantAtomArray = new ArrayList<>();
     private List<IAtom> productAtomArray = new ArrayList<>();
+    private transient Map<String, Integer> reactantIDIndex = null;
 //    private Reactor myReaction = null;
 
     /**
@@ -247,17 +250,14 @@ public class AtomAtomMappingContainer extends Object implements Serializable {
      * @return The product atom mapped to the given reactant atom.
      */
     public synchronized IAtom getMappedProductAtom(IAtom reactantAtom) {
-        IAtom a = null;
-        int reactantIdx = -1;
-        for (int i = 0; i < reactantAtomArray.size(); i++) {
-            if (reactantAtomArray.get(i).getID().equals(reactantAtom.getID())) {
-                reactantIdx = i;
+        if (reactantIDIndex == null) {
+            reactantIDIndex = new HashMap<>();
+            for (int i = 0; i < reactantAtomArray.size(); i++) {
+                reactantIDIndex.put(reactantAtomArray.get(i).getID(), i);
             }
         }
-        if (reactantIdx != -1) {
-            a = productAtomArray.get(reactantIdx);
-        }
-        return a;
+        Integer reactantIdx = reactantIDIndex.get(reactantAtom.getID());
+        return reactantIdx == null ? null : productAtomArray.get(reactantIdx);
     }
 
     /**
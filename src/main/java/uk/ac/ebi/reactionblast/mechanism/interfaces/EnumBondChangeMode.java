@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package uk.ac.ebi.reactionblast.mechanism.interfaces;
+
+/**
+ * Outputs computed by the bond change calculation. Each mode computes the
+ * outputs of the previous one, the reaction centre fragments, circular
+ * fingerprints and molecule pairs are computed on first access unless the mode
+ * is {@link #FULL}.
+ *
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public enum EnumBondChangeMode {
+
+    /**
+     * Bond formed, cleaved and order changes, their fingerprints and
+     * energies; the stereo centres are not perceived.
+     */
+    BOND_CHANGES,
+    /**
+     * Bond changes and the stereo (R/S, E/Z) changes.
+     */
+    STEREO,
+    /**
+     * Bond and stereo changes and the reaction centres, computed at once.
+     */
+    FULL;
+}
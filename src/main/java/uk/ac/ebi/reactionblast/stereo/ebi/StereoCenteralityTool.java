@@ -18,15 +18,10 @@
  */
 package uk.ac.ebi.reactionblast.stereo.ebi;
 
+import static java.lang.Long.getLong;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 import org.openscience.cdk.exception.CDKException;
 import org.openscience.cdk.interfaces.IAtom;
@@ -36,16 +31,27 @@ import org.openscience.cdk.interfaces.IReaction;
 import org.openscience.cdk.tools.ILoggingTool;
 import static org.openscience.cdk.tools.LoggingToolFactory.createLoggingTool;
 import static org.openscience.smsd.tools.ExtAtomContainerManipulator.removeHydrogensExceptSingleAndPreserveAtomID;
+import org.openscience.smsd.tools.Deadline;
 import uk.ac.ebi.centres.cdk.CDKPerceptor;
 import uk.ac.ebi.centres.descriptor.Planar;
 import uk.ac.ebi.centres.descriptor.Tetrahedral;
 import uk.ac.ebi.centres.descriptor.Trigonal;
+import uk.ac.ebi.centres.exception.WarpCoreEjection;
 import uk.ac.ebi.reactionblast.mechanism.helper.Utility;
 import uk.ac.ebi.reactionblast.stereo.IStereoAndConformation;
 
 /**
  * Tool for comparing chiralities.
  *
+ * The CIP perception of a molecule runs in the calling thread, bounded by the
+ * deadline of the reaction and by the system property
+ * {@code rdt.stereo.timeout} (milliseconds, 30 s by default). The digraph
+ * expansion and the ligand comparisons check the deadline, the centres left
+ * when the time is over are not assigned. A molecule which runs out of time
+ * is marked with {@link #PERCEPTION_TIMEOUT}, its reaction with the number of
+ * such molecules ({@link #PERCEPTION_TIMEOUTS}). A perception which fails
+ * otherwise is logged as an error and leaves the centres unassigned.
+ *
  * @contact Syed Asad Rahman, EMBL-EBI, Cambridge, UK.
  * @author Syed Asad Rahman <asad @ ebi.ac.uk>
  *
@@ -56,6 +62,19 @@ public abstract class StereoCenteralityTool extends Utility {
             = createLoggingTool(StereoCenteralityTool.class);
     private static final long serialVersionUID = 17867606807697859L;
 
+    private static final long TIMEOUT = getLong("rdt.stereo.timeout", 30000L);
+
+    /**
+     * Property (Boolean) of a molecule whose stereo perception ran out of time
+     */
+    public static final String PERCEPTION_TIMEOUT = "StereoTimeout";
+
+    /**
+     * Property (Integer) of a reaction, number of its molecules whose stereo
+     * perception ran out of time
+     */
+    public static final String PERCEPTION_TIMEOUTS = "StereoTimeouts";
+
     private static IAtom getAtomByID(String id, IAtomContainer ac) {
         for (IAtom a : ac.atoms()) {
             if (a.getID().equals(id)) {
@@ -78,11 +97,15 @@ public abstract class StereoCenteralityTool extends Utility {
     public static Map<IAtom, IStereoAndConformation> getChirality2D(IReaction reaction) throws CDKException, CloneNotSupportedException {
         Map<IAtom, IStereoAndConformation> chiralityMap = new HashMap<>();
         CDKPerceptor perceptor = new CDKPerceptor();
+        int timeouts = 0;
         for (IAtomContainer ac : reaction.getReactants().atomContainers()) {
             IAtomContainer containerWithoutH = removeHydrogensExceptSingleAndPreserveAtomID(ac);
 //            System.LOGGER.debug("R 2D CDK based stereo perception for " + ac.getID());
             Map<IAtom, IStereoAndConformation> chirality2D = getChirality2D(containerWithoutH, perceptor);
 //            System.LOGGER.debug("R 2D CDK based stereo " + chirality2D.size());
+            if (containerWithoutH.getProperty(PERCEPTION_TIMEOUT) != null) {
+                timeouts++;
+            }
             if (!chirality2D.isEmpty()) {
                 chirality2D.entrySet().stream().forEach((m) -> {
                     IAtom atomByID = getAtomByID(m.getKey().getID(), ac);
@@ -98,6 +121,9 @@ public abstract class StereoCenteralityTool extends Utility {
 //            System.LOGGER.debug("P 2D CDK based stereo perception for " + ac.getID());
             Map<IAtom, IStereoAndConformation> chirality2D = getChirality2D(containerWithoutH, perceptor);
 //            System.LOGGER.debug("P 2D CDK based stereo " + chirality2D.size());
+            if (containerWithoutH.getProperty(PERCEPTION_TIMEOUT) != null) {
+                timeouts++;
+            }
             if (!chirality2D.isEmpty()) {
                 chirality2D.entrySet().stream().forEach((m) -> {
                     IAtom atomByID = getAtomByID(m.getKey().getID(), ac);
@@ -108,6 +134,7 @@ public abstract class StereoCenteralityTool extends Utility {
                 });
             }
         }
+        reaction.setProperty(PERCEPTION_TIMEOUTS, timeouts);
         return chiralityMap;
     }
 
@@ -122,27 +149,23 @@ public abstract class StereoCenteralityTool extends Utility {
 //        perceptor.perceive(ac);
 
         /*
-         * time out function added
+         * time out function added, bounded by the reaction deadline, if any
          */
-        Boolean flag = false;
-        // ExecutorService executor = Executors.newCachedThreadPool();
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        Callable<Boolean> task = () -> {
-            perceptor.perceive(ac);
-            return true;
-        };
-        Future<Boolean> future = executor.submit(task);
+        Deadline deadline = Deadline.current().within(TIMEOUT, TimeUnit.MILLISECONDS);
+        Deadline previous = Deadline.set(deadline);
         try {
-            flag = future.get(30, TimeUnit.SECONDS);
-        } catch (TimeoutException | InterruptedException | ExecutionException ex) {
-            flag = false;
-        } // handle the interrupts
-        // handle other exceptions
-        finally {
-            future.cancel(true); // may or may not desire this
+            perceptor.perceive(ac);
+        } catch (WarpCoreEjection ex) {
+            // out of time, or a centre too large to expand
+            LOGGER.debug("Stereo perception stopped: " + ex);
+        } catch (Exception | StackOverflowError ex) {
+            LOGGER.error("Stereo perception failed for " + ac.getID() + ": ", ex);
+        } finally {
+            Deadline.set(previous);
         }
 
-        if (flag == false) {
+        if (deadline.isExpired()) {
+            ac.setProperty(PERCEPTION_TIMEOUT, true);
             LOGGER.error(Level.WARNING, null, "Time out hit in computing stereo centers");
         }
 
@@ -503,7 +503,8 @@ public class EBIMatrix extends Object implements Cloneable, java.io.Serializable
     }
 
     /**
-     * Access the internal two-dimensional array.
+     * Access the internal two-dimensional array ({@link SparseMatrix} returns
+     * a dense copy).
      *
      * @return Pointer to the two-dimensional array of matrix elements.
      */
@@ -990,6 +991,7 @@ public class EBIMatrix extends Object implements Cloneable, java.io.Serializable
      * @return
      */
     public synchronized EBIMatrix normalize(EBIMatrix S) {
+        double[][] other = S.getArray();
         int p, q, i, j;
         double length;
         EBIMatrix result = duplicate();
@@ -999,7 +1001,7 @@ public class EBIMatrix extends Object implements Cloneable, java.io.Serializable
             length = 0;
             for (i = 0; i < rows; i++) {
                 for (j = 0; j < rows; j++) {
-                    length += result.matrix[i][p] * result.matrix[j][p] * S.matrix[i][j];
+                    length += result.matrix[i][p] * result.matrix[j][p] * other[i][j];
                 }
             }
 
@@ -1071,6 +1073,7 @@ public class EBIMatrix extends Object implements Cloneable, java.io.Serializable
                 || (columns != b.getRowDimension())) {
             return null;
         }
+        double[][] other = b.getArray();
 
         EBIMatrix result = new EBIMatrix(rows, b.getColumnDimension());
         int i, j, k;
@@ -1079,7 +1082,7 @@ public class EBIMatrix extends Object implements Cloneable, java.io.Serializable
             for (k = 0; k < b.getColumnDimension(); k++) {
                 sum = 0;
                 for (j = 0; j < columns; j++) {
-                    sum += matrix[i][j] * b.matrix[j][k];
+                    sum += matrix[i][j] * other[j][k];
                 }
                 result.matrix[i][k] = sum;
             }
@@ -1108,11 +1111,12 @@ public class EBIMatrix extends Object implements Cloneable, java.io.Serializable
      */
     public synchronized EBIMatrix arrayTimes(EBIMatrix B) {
         checkMatrixDimensions(B);
+        double[][] other = B.getArray();
         EBIMatrix X = new EBIMatrix(rows, columns);
         double[][] C = X.getArray();
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < columns; j++) {
-                C[i][j] = matrix[i][j] * B.matrix[i][j];
+                C[i][j] = matrix[i][j] * other[i][j];
             }
         }
         return X;
@@ -1126,9 +1130,10 @@ public class EBIMatrix extends Object implements Cloneable, java.io.Serializable
      */
     public synchronized EBIMatrix arrayTimesEquals(EBIMatrix B) {
         checkMatrixDimensions(B);
+        double[][] other = B.getArray();
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < columns; j++) {
-                matrix[i][j] *= B.matrix[i][j];
+                matrix[i][j] *= other[i][j];
             }
         }
         return this;
@@ -1142,11 +1147,12 @@ public class EBIMatrix extends Object implements Cloneable, java.io.Serializable
      */
     public synchronized EBIMatrix arrayRightDivide(EBIMatrix B) {
         checkMatrixDimensions(B);
+        double[][] other = B.getArray();
         EBIMatrix X = new EBIMatrix(rows, columns);
         double[][] C = X.getArray();
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < columns; j++) {
-                C[i][j] = matrix[i][j] / B.matrix[i][j];
+                C[i][j] = matrix[i][j] / other[i][j];
             }
         }
         return X;
@@ -1160,9 +1166,10 @@ public class EBIMatrix extends Object implements Cloneable, java.io.Serializable
      */
     public synchronized EBIMatrix arrayRightDivideEquals(EBIMatrix B) {
         checkMatrixDimensions(B);
+        double[][] other = B.getArray();
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < columns; j++) {
-                matrix[i][j] /= B.matrix[i][j];
+                matrix[i][j] /= other[i][j];
             }
         }
         return this;
@@ -1176,11 +1183,12 @@ public class EBIMatrix extends Object implements Cloneable, java.io.Serializable
      */
     public synchronized EBIMatrix arrayLeftDivide(EBIMatrix B) {
         checkMatrixDimensions(B);
+        double[][] other = B.getArray();
         EBIMatrix X = new EBIMatrix(rows, columns);
         double[][] C = X.getArray();
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < columns; j++) {
-                C[i][j] = B.matrix[i][j] / matrix[i][j];
+                C[i][j] = other[i][j] / matrix[i][j];
             }
         }
         return X;
@@ -1194,9 +1202,10 @@ public class EBIMatrix extends Object implements Cloneable, java.io.Serializable
      */
     public synchronized EBIMatrix arrayLeftDivideEquals(EBIMatrix B) {
         checkMatrixDimensions(B);
+        double[][] other = B.getArray();
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < columns; j++) {
-                matrix[i][j] = B.matrix[i][j] / matrix[i][j];
+                matrix[i][j] = other[i][j] / matrix[i][j];
             }
         }
         return this;
@@ -1246,12 +1255,13 @@ public class EBIMatrix extends Object implements Cloneable, java.io.Serializable
         if (B.getRowDimension() != columns) {
             throw new IllegalArgumentException("EBIMatrix inner dimensions must agree.");
         }
+        double[][] other = B.getArray();
         EBIMatrix X = new EBIMatrix(rows, B.getColumnDimension());
         double[][] C = X.getArray();
         double[] Bcolj = new double[columns];
         for (int j = 0; j < B.getColumnDimension(); j++) {
             for (int k = 0; k < columns; k++) {
-                Bcolj[k] = B.matrix[k][j];
+                Bcolj[k] = other[k][j];
             }
             for (int i = 0; i < rows; i++) {
                 double[] Arowi = matrix[i];
@@ -1521,6 +1531,7 @@ public class EBIMatrix extends Object implements Cloneable, java.io.Serializable
      * @keyword Gram-Schmidt algorithm
      */
     public synchronized EBIMatrix orthonormalize(EBIMatrix S) {
+        double[][] other = S.getArray();
         int p, q, k, i, j;
         double innersum;
         double length;
@@ -1540,7 +1551,7 @@ public class EBIMatrix extends Object implements Cloneable, java.io.Serializable
                 {
                     innersum = 0;
                     for (j = 0; j < rows; j++) {
-                        innersum += result.matrix[j][p] * S.matrix[i][j];
+                        innersum += result.matrix[j][p] * other[i][j];
                     }
                     length += result.matrix[i][k] * innersum;
                 }
@@ -1555,7 +1566,7 @@ public class EBIMatrix extends Object implements Cloneable, java.io.Serializable
             length = 0;
             for (i = 0; i < rows; i++) {
                 for (j = 0; j < rows; j++) {
-                    length += result.matrix[i][p] * result.matrix[j][p] * S.matrix[i][j];
+                    length += result.matrix[i][p] * result.matrix[j][p] * other[i][j];
                 }
             }
 
@@ -1713,6 +1724,7 @@ public class EBIMatrix extends Object implements Cloneable, java.io.Serializable
      * @return
      */
     public EBIMatrix similar(EBIMatrix U) {
+        double[][] other = U.getArray();
         EBIMatrix result = new EBIMatrix(U.getColumnDimension(), U.getColumnDimension());
         double sum, innersum;
         for (int i = 0; i < U.getColumnDimension(); i++) {
@@ -1721,9 +1733,9 @@ public class EBIMatrix extends Object implements Cloneable, java.io.Serializable
                 for (int k = 0; k < U.getColumnDimension(); k++) {
                     innersum = 0d;
                     for (int l = 0; l < U.getColumnDimension(); l++) {
-                        innersum += matrix[k][l] * U.matrix[l][j];
+                        innersum += matrix[k][l] * other[l][j];
                     }
-                    sum += U.matrix[k][i] * innersum;
+                    sum += other[k][i] * innersum;
                 }
                 result.matrix[i][j] = sum;
             }
@@ -1813,11 +1825,12 @@ public class EBIMatrix extends Object implements Cloneable, java.io.Serializable
      */
     public synchronized EBIMatrix plus(EBIMatrix B) {
         checkMatrixDimensions(B);
+        double[][] other = B.getArray();
         EBIMatrix X = new EBIMatrix(rows, columns);
         double[][] C = X.getArray();
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < columns; j++) {
-                C[i][j] = matrix[i][j] + B.matrix[i][j];
+                C[i][j] = matrix[i][j] + other[i][j];
             }
         }
         return X;
@@ -1831,9 +1844,10 @@ public class EBIMatrix extends Object implements Cloneable, java.io.Serializable
      */
     public synchronized EBIMatrix plusEquals(EBIMatrix B) {
         checkMatrixDimensions(B);
+        double[][] other = B.getArray();
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < columns; j++) {
-                matrix[i][j] += B.matrix[i][j];
+                matrix[i][j] += other[i][j];
             }
         }
         return this;
@@ -1847,11 +1861,12 @@ public class EBIMatrix extends Object implements Cloneable, java.io.Serializable
      */
     public synchronized EBIMatrix minus(EBIMatrix B) {
         checkMatrixDimensions(B);
+        double[][] other = B.getArray();
         EBIMatrix X = new EBIMatrix(rows, columns);
         double[][] C = X.getArray();
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < columns; j++) {
-                C[i][j] = matrix[i][j] - B.matrix[i][j];
+                C[i][j] = matrix[i][j] - other[i][j];
             }
         }
         return X;
@@ -1865,9 +1880,10 @@ public class EBIMatrix extends Object implements Cloneable, java.io.Serializable
      */
     public synchronized EBIMatrix minusEquals(EBIMatrix B) {
         checkMatrixDimensions(B);
+        double[][] other = B.getArray();
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < columns; j++) {
-                matrix[i][j] -= B.matrix[i][j];
+                matrix[i][j] -= other[i][j];
             }
         }
         return this;
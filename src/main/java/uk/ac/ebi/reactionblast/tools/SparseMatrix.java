@@ -0,0 +1,544 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package uk.ac.ebi.reactionblast.tools;
+
+import java.io.PrintWriter;
+import static java.lang.Double.compare;
+import java.text.NumberFormat;
+import static java.util.Arrays.fill;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.tools.ILoggingTool;
+import static org.openscience.cdk.tools.LoggingToolFactory.createLoggingTool;
+
+/**
+ * An {@link EBIMatrix} which only stores the entries that differ from the
+ * value set by {@link #initMatrix(double)} (zero by default), by row and by
+ * column, so the bond matrices of a reaction take O(atoms + bonds) space and
+ * a pivot only touches the entries of the two rows and columns swapped.
+ *
+ * The dense form is built on demand: {@link #getArray()} returns a fresh
+ * array (writes to it are not seen by the matrix), {@link #duplicate()}
+ * returns a dense {@link EBIMatrix}, and the printing and the linear algebra
+ * run on that copy.
+ *
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public class SparseMatrix extends EBIMatrix {
+
+    private static final long serialVersionUID = 7162093815026530198L;
+    private static final ILoggingTool LOGGER = createLoggingTool(SparseMatrix.class);
+
+    private int rowCount;
+    private int columnCount;
+    private double background;
+    private final Map<Integer, Map<Integer, Double>> byRow;
+    private final Map<Integer, Set<Integer>> byColumn;
+
+    /**
+     * creates a new SparseMatrix of zeros.
+     *
+     * @param rows
+     * @param columns
+     */
+    public SparseMatrix(int rows, int columns) {
+        super(0, 0);
+        this.rowCount = rows;
+        this.columnCount = columns;
+        this.background = 0.;
+        this.byRow = new HashMap<>();
+        this.byColumn = new HashMap<>();
+    }
+
+    /**
+     *
+     * @param v default value for the Matrix cells
+     */
+    @Override
+    public synchronized void initMatrix(double v) {
+        byRow.clear();
+        byColumn.clear();
+        background = v;
+    }
+
+    @Override
+    public synchronized double getValue(int i, int j) {
+        if (!inRange(i, j)) {
+            LOGGER.debug("Error: Array of out bound");
+            return -1.0d;
+        }
+        Map<Integer, Double> row = byRow.get(i);
+        Double value = row == null ? null : row.get(j);
+        return value == null ? background : value;
+    }
+
+    @Override
+    public synchronized boolean setValue(int row, int col, double value) {
+        if (!inRange(row, col)) {
+            LOGGER.error("Array out of Bound: " + row + ", " + col);
+            return false;
+        }
+        store(row, col, value);
+        return true;
+    }
+
+    @Override
+    public synchronized void set(int i, int j, double s) {
+        if (!inRange(i, j)) {
+            throw new ArrayIndexOutOfBoundsException(i + ", " + j);
+        }
+        store(i, j, s);
+    }
+
+    @Override
+    public synchronized int getRowDimension() {
+        return rowCount;
+    }
+
+    @Override
+    public synchronized int getColumnDimension() {
+        return columnCount;
+    }
+
+    /**
+     *
+     * @param RowSize Size of the new Matrix Row
+     * @param ColSize Size of the new Matrix dataoloumn
+     */
+    @Override
+    public synchronized void reSizeMatrix(int RowSize, int ColSize) {
+        this.rowCount = RowSize;
+        this.columnCount = ColSize;
+        initMatrix(0.);
+    }
+
+    /**
+     * Number of stored entries, the ones which differ from the default value
+     *
+     * @return stored entry count
+     */
+    public synchronized int getEntryCount() {
+        int count = 0;
+        for (Map<Integer, Double> row : byRow.values()) {
+            count += row.size();
+        }
+        return count;
+    }
+
+    @Override
+    public synchronized void swapColumns(int coloumn1, int coloumn2) {
+        if (coloumn1 < 0 || coloumn2 < 0 || coloumn1 >= columnCount || coloumn2 >= columnCount) {
+            LOGGER.error(new CDKException("Index out of range" + coloumn1 + ", " + coloumn2));
+            return;
+        }
+        exchangeColumns(coloumn1, coloumn2);
+    }
+
+    @Override
+    public synchronized void swapRows(int row1, int row2) throws CDKException {
+        if (row1 < 0 || row2 < 0 || row1 >= rowCount || row2 >= rowCount) {
+            throw new CDKException("Index out of range" + row1 + ", " + row2);
+        }
+        exchangeRows(row1, row2);
+    }
+
+    /**
+     *
+     * @param row chosen row
+     * @param col chosen col
+     */
+    @Override
+    public synchronized void pivot(int row, int col) {
+        if (!inRange(row, col) || !inRange(col, row)) {
+            throw new ArrayIndexOutOfBoundsException(row + ", " + col);
+        }
+        exchangeColumns(row, col);
+        exchangeRows(row, col);
+    }
+
+    /*
+     * ------------------------ Dense views ------------------------
+     */
+    /**
+     * Dense copy of the matrix.
+     *
+     * @return a new two-dimensional array of the matrix elements
+     */
+    @Override
+    public synchronized double[][] getArray() {
+        double[][] dense = new double[rowCount][columnCount];
+        if (background != 0.) {
+            for (double[] row : dense) {
+                fill(row, background);
+            }
+        }
+        for (Map.Entry<Integer, Map<Integer, Double>> row : byRow.entrySet()) {
+            for (Map.Entry<Integer, Double> e : row.getValue().entrySet()) {
+                dense[row.getKey()][e.getKey()] = e.getValue();
+            }
+        }
+        return dense;
+    }
+
+    @Override
+    public synchronized double[][] getArrayCopy() {
+        return getArray();
+    }
+
+    /**
+     * Dense deep copy of the matrix
+     *
+     * @return
+     */
+    @Override
+    public synchronized EBIMatrix duplicate() {
+        return new EBIMatrix(getArray(), rowCount, columnCount);
+    }
+
+    @Override
+    public synchronized double[] getColumnPackedCopy() {
+        return duplicate().getColumnPackedCopy();
+    }
+
+    @Override
+    public synchronized double[] getRowPackedCopy() {
+        return duplicate().getRowPackedCopy();
+    }
+
+    @Override
+    public synchronized List<Double> getDiagonalElements() {
+        return duplicate().getDiagonalElements();
+    }
+
+    @Override
+    public synchronized boolean is_element_max_in_column(int iPos, int jPos) {
+        return duplicate().is_element_max_in_column(iPos, jPos);
+    }
+
+    @Override
+    public synchronized boolean is_element_min_in_column(int iPos, int jPos) {
+        return duplicate().is_element_min_in_column(iPos, jPos);
+    }
+
+    @Override
+    public synchronized boolean is_element_max_in_row(int iPos, int jPos) {
+        return duplicate().is_element_max_in_row(iPos, jPos);
+    }
+
+    @Override
+    public synchronized boolean is_element_min_in_row(int iPos, int jPos) {
+        return duplicate().is_element_min_in_row(iPos, jPos);
+    }
+
+    @Override
+    public synchronized EBIMatrix getMatrix(int rowStart, int rowEnd, int colStart, int colEnd) {
+        return duplicate().getMatrix(rowStart, rowEnd, colStart, colEnd);
+    }
+
+    @Override
+    public synchronized EBIMatrix getMatrix(int[] r, int[] c) {
+        return duplicate().getMatrix(r, c);
+    }
+
+    @Override
+    public synchronized EBIMatrix getMatrix(int rowStart, int rowEnd, int[] c) {
+        return duplicate().getMatrix(rowStart, rowEnd, c);
+    }
+
+    @Override
+    public synchronized EBIMatrix getMatrix(int[] r, int colStart, int colEnd) {
+        return duplicate().getMatrix(r, colStart, colEnd);
+    }
+
+    @Override
+    public synchronized EBIMatrix transpose() {
+        return duplicate().transpose();
+    }
+
+    @Override
+    public synchronized EBIMatrix normalize(EBIMatrix S) {
+        return duplicate().normalize(S);
+    }
+
+    @Override
+    public synchronized EBIMatrix mul(double a) {
+        return duplicate().mul(a);
+    }
+
+    @Override
+    public synchronized List<Double> mul(List<Double> a) {
+        return duplicate().mul(a);
+    }
+
+    @Override
+    public synchronized EBIMatrix mul(EBIMatrix b) {
+        return duplicate().mul(b);
+    }
+
+    @Override
+    public synchronized EBIMatrix arrayTimes(EBIMatrix B) {
+        return duplicate().arrayTimes(B);
+    }
+
+    @Override
+    public synchronized EBIMatrix arrayRightDivide(EBIMatrix B) {
+        return duplicate().arrayRightDivide(B);
+    }
+
+    @Override
+    public synchronized EBIMatrix arrayLeftDivide(EBIMatrix B) {
+        return duplicate().arrayLeftDivide(B);
+    }
+
+    @Override
+    public synchronized EBIMatrix times(double s) {
+        return duplicate().times(s);
+    }
+
+    @Override
+    public synchronized EBIMatrix times(EBIMatrix B) {
+        return duplicate().times(B);
+    }
+
+    @Override
+    public synchronized EBIMatrix solve(EBIMatrix B) {
+        return duplicate().solve(B);
+    }
+
+    @Override
+    public synchronized EBIMatrix inverse() {
+        return duplicate().inverse();
+    }
+
+    @Override
+    public synchronized double trace() {
+        return duplicate().trace();
+    }
+
+    @Override
+    public synchronized EBIMatrix diagonalize(int nrot) {
+        return duplicate().diagonalize(nrot);
+    }
+
+    @Override
+    public synchronized EBIMatrix orthonormalize(EBIMatrix S) {
+        return duplicate().orthonormalize(S);
+    }
+
+    @Override
+    public synchronized void print(PrintWriter output, NumberFormat format, int width) {
+        duplicate().print(output, format, width);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return duplicate().toString();
+    }
+
+    @Override
+    public synchronized double contraction() {
+        return duplicate().contraction();
+    }
+
+    @Override
+    public synchronized EBIMatrix similar(EBIMatrix U) {
+        return duplicate().similar(U);
+    }
+
+    @Override
+    public synchronized double norm1() {
+        return duplicate().norm1();
+    }
+
+    @Override
+    public synchronized double normInf() {
+        return duplicate().normInf();
+    }
+
+    @Override
+    public synchronized double normF() {
+        return duplicate().normF();
+    }
+
+    @Override
+    public synchronized EBIMatrix uminus() {
+        return duplicate().uminus();
+    }
+
+    @Override
+    public synchronized EBIMatrix plus(EBIMatrix B) {
+        return duplicate().plus(B);
+    }
+
+    @Override
+    public synchronized EBIMatrix minus(EBIMatrix B) {
+        return duplicate().minus(B);
+    }
+
+    /*
+     * ------------------------ In place updates ------------------------
+     */
+    @Override
+    public synchronized void setMatrix(int rowStart, int rowEnd, int colStart, int colEnd, EBIMatrix X) {
+        EBIMatrix dense = duplicate();
+        dense.setMatrix(rowStart, rowEnd, colStart, colEnd, X);
+        assign(dense);
+    }
+
+    @Override
+    public synchronized void setMatrix(int[] r, int[] c, EBIMatrix X) {
+        EBIMatrix dense = duplicate();
+        dense.setMatrix(r, c, X);
+        assign(dense);
+    }
+
+    @Override
+    public synchronized void setMatrix(int[] r, int colStart, int colEnd, EBIMatrix X) {
+        EBIMatrix dense = duplicate();
+        dense.setMatrix(r, colStart, colEnd, X);
+        assign(dense);
+    }
+
+    @Override
+    public synchronized void setMatrix(int rowStart, int rowEnd, int[] c, EBIMatrix X) {
+        EBIMatrix dense = duplicate();
+        dense.setMatrix(rowStart, rowEnd, c, X);
+        assign(dense);
+    }
+
+    @Override
+    public synchronized EBIMatrix arrayTimesEquals(EBIMatrix B) {
+        assign(duplicate().arrayTimesEquals(B));
+        return this;
+    }
+
+    @Override
+    public synchronized EBIMatrix arrayRightDivideEquals(EBIMatrix B) {
+        assign(duplicate().arrayRightDivideEquals(B));
+        return this;
+    }
+
+    @Override
+    public synchronized EBIMatrix arrayLeftDivideEquals(EBIMatrix B) {
+        assign(duplicate().arrayLeftDivideEquals(B));
+        return this;
+    }
+
+    @Override
+    public synchronized EBIMatrix timesEquals(double s) {
+        assign(duplicate().timesEquals(s));
+        return this;
+    }
+
+    @Override
+    public synchronized EBIMatrix plusEquals(EBIMatrix B) {
+        assign(duplicate().plusEquals(B));
+        return this;
+    }
+
+    @Override
+    public synchronized EBIMatrix minusEquals(EBIMatrix B) {
+        assign(duplicate().minusEquals(B));
+        return this;
+    }
+
+    /*
+     * ------------------------ Private Methods ------------------------
+     */
+    private boolean inRange(int i, int j) {
+        return i >= 0 && j >= 0 && i < rowCount && j < columnCount;
+    }
+
+    private void assign(EBIMatrix dense) {
+        double[][] values = dense.getArray();
+        initMatrix(0.);
+        for (int i = 0; i < rowCount; i++) {
+            for (int j = 0; j < columnCount; j++) {
+                store(i, j, values[i][j]);
+            }
+        }
+    }
+
+    private void store(int i, int j, double value) {
+        if (compare(value, background) == 0) {
+            Map<Integer, Double> row = byRow.get(i);
+            if (row != null && row.remove(j) != null) {
+                if (row.isEmpty()) {
+                    byRow.remove(i);
+                }
+                Set<Integer> column = byColumn.get(j);
+                column.remove(i);
+                if (column.isEmpty()) {
+                    byColumn.remove(j);
+                }
+            }
+        } else {
+            byRow.computeIfAbsent(i, k -> new HashMap<>()).put(j, value);
+            byColumn.computeIfAbsent(j, k -> new HashSet<>()).add(i);
+        }
+    }
+
+    private void exchangeRows(int a, int b) {
+        Map<Integer, Double> first = detachRow(a);
+        Map<Integer, Double> second = detachRow(b);
+        attachRow(b, first);
+        attachRow(a, second);
+    }
+
+    private Map<Integer, Double> detachRow(int i) {
+        Map<Integer, Double> row = byRow.remove(i);
+        if (row != null) {
+            for (Integer j : row.keySet()) {
+                Set<Integer> column = byColumn.get(j);
+                column.remove(i);
+                if (column.isEmpty()) {
+                    byColumn.remove(j);
+                }
+            }
+        }
+        return row;
+    }
+
+    private void attachRow(int i, Map<Integer, Double> row) {
+        if (row != null) {
+            byRow.put(i, row);
+            for (Integer j : row.keySet()) {
+                byColumn.computeIfAbsent(j, k -> new HashSet<>()).add(i);
+            }
+        }
+    }
+
+    private void exchangeColumns(int a, int b) {
+        Map<Integer, Double> first = detachColumn(a);
+        Map<Integer, Double> second = detachColumn(b);
+        attachColumn(b, first);
+        attachColumn(a, second);
+    }
+
+    private Map<Integer, Double> detachColumn(int j) {
+        Map<Integer, Double> column = new HashMap<>();
+        Set<Integer> rows = byColumn.remove(j);
+        if (rows != null) {
+            for (Integer i : rows) {
+                Map<Integer, Double> row = byRow.get(i);
+                column.put(i, row.remove(j));
+                if (row.isEmpty()) {
+                    byRow.remove(i);
+                }
+            }
+        }
+        return column;
+    }
+
+    private void attachColumn(int j, Map<Integer, Double> column) {
+        for (Map.Entry<Integer, Double> e : column.entrySet()) {
+            byRow.computeIfAbsent(e.getKey(), k -> new HashMap<>()).put(j, e.getValue());
+            byColumn.computeIfAbsent(j, k -> new HashSet<>()).add(e.getKey());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package org.openscience.smsd;
+
+import java.io.File;
+import java.io.FileReader;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import static org.junit.Assert.assertNotNull;
+import org.openscience.cdk.Reaction;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IAtomContainerSet;
+import org.openscience.cdk.interfaces.IReaction;
+import org.openscience.smsd.helper.MoleculeInitializer;
+import org.openscience.smsd.tools.ExtAtomContainerManipulator;
+import uk.ac.ebi.reactionblast.tools.rxnfile.MDLRXNV2000Reader;
+
+/**
+ * The bundled reactions the differential tests run on. A reaction file which
+ * can not be read fails the test, except the ones listed as unreadable.
+ *
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public final class BundledReactions {
+
+    public static final String[] DIRS = {"rxn/kegg", "rxn/rhea", "rxn/bug"};
+
+    /*
+     * Rejected by the MDL reader (atom lines too short), never listed
+     */
+    private static final Set<String> UNREADABLE = new HashSet<>(Arrays.asList(
+            "rxn/bug/Complex.rxn", "rxn/brenda/200.rxn", "rxn/other/k.rxn"));
+
+    /**
+     * @param filesPerDir
+     * @param dirs resource directories
+     * @return the first reaction files (by name) of each directory, without
+     * the unreadable ones
+     * @throws Exception
+     */
+    public static List<File> files(int filesPerDir, String... dirs) throws Exception {
+        List<File> files = new ArrayList<>();
+        for (String dir : dirs) {
+            URL url = BundledReactions.class.getClassLoader().getResource(dir);
+            assertNotNull(dir, url);
+            File[] inDir = new File(url.toURI()).listFiles((d, name) -> name.endsWith(".rxn")
+                    && !UNREADABLE.contains(dir + "/" + name));
+            Arrays.sort(inDir);
+            files.addAll(Arrays.asList(inDir).subList(0, Math.min(filesPerDir, inDir.length)));
+        }
+        return files;
+    }
+
+    /**
+     * @param resource reaction file resource
+     * @return reaction
+     * @throws Exception
+     */
+    public static IReaction read(String resource) throws Exception {
+        URL url = BundledReactions.class.getClassLoader().getResource(resource);
+        assertNotNull(resource, url);
+        return read(new File(url.toURI()));
+    }
+
+    /**
+     * @param resource reaction file resource
+     * @return reaction, with the file name (without .rxn) as its ID
+     * @throws Exception
+     */
+    public static IReaction readNamed(String resource) throws Exception {
+        IReaction reaction = read(resource);
+        reaction.setID(new File(resource).getName().replace(".rxn", ""));
+        return reaction;
+    }
+
+    /**
+     * @param file reaction file
+     * @return reaction
+     * @throws Exception
+     */
+    public static IReaction read(File file) throws Exception {
+        try (MDLRXNV2000Reader reader = new MDLRXNV2000Reader(new FileReader(file))) {
+            return reader.read(new Reaction());
+        }
+    }
+
+    /**
+     * Molecules as the MCS jobs see them: hydrogens removed, atom types
+     * perceived and initialised. Molecules without a bond are left out.
+     *
+     * @param molecules
+     * @return prepared copies
+     * @throws Exception
+     */
+    public static List<IAtomContainer> prepare(IAtomContainerSet molecules) throws Exception {
+        List<IAtomContainer> prepared = new ArrayList<>();
+        for (IAtomContainer mol : molecules.atomContainers()) {
+            IAtomContainer ac = ExtAtomContainerManipulator.removeHydrogens(mol);
+            ExtAtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(ac);
+            MoleculeInitializer.initializeMolecule(ac);
+            if (ac.getBondCount() > 0) {
+                prepared.add(ac);
+            }
+        }
+        return prepared;
+    }
+
+    private BundledReactions() {
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package org.openscience.smsd.algorithm.matchers;
+
+import java.io.File;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.interfaces.IReaction;
+import org.openscience.cdk.isomorphism.matchers.Expr;
+import org.openscience.cdk.isomorphism.matchers.QueryAtomContainer;
+import static org.openscience.smsd.BundledReactions.DIRS;
+import static org.openscience.smsd.BundledReactions.files;
+import static org.openscience.smsd.BundledReactions.prepare;
+import static org.openscience.smsd.BundledReactions.read;
+
+/**
+ * The matches on the compiled invariants give the same answer as the
+ * matches on the atom and bond properties, for every atom and bond pair of
+ * the reactant and product pairs of the bundled reactions and every matcher.
+ *
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public class AtomBondInvariantsTest {
+
+    private static final int FILES_PER_DIR = 20;
+    private static final boolean[] FLAGS = {false, true};
+
+    @Test
+    public void testSameMatchesOnReactions() throws Exception {
+        int compared = 0;
+        for (File file : files(FILES_PER_DIR, DIRS)) {
+            IReaction reaction = read(file);
+            List<IAtomContainer> educts = prepare(reaction.getReactants());
+            List<IAtomContainer> products = prepare(reaction.getProducts());
+            for (IAtomContainer educt : educts) {
+                assertBondIndex(file.getName(), educt);
+                for (IAtomContainer product : products) {
+                    String name = file.getName() + " " + educt.getTitle() + " " + product.getTitle();
+                    for (boolean first : FLAGS) {
+                        for (boolean second : FLAGS) {
+                            compare(name, educt, product,
+                                    AtomBondMatcher.atomMatcher(first, second),
+                                    AtomBondMatcher.bondMatcher(first, second));
+                            compare(name, educt, product,
+                                    AtomBondMatcher.atomMatcher(first, second),
+                                    AtomBondMatcher.bondMatcher(second, first));
+                        }
+                    }
+                    compare(name, QueryAtomContainer.create(educt, Expr.Type.ELEMENT, Expr.Type.ORDER), product,
+                            AtomMatcher.forQuery(), BondMatcher.forQuery());
+                    compared++;
+                }
+            }
+        }
+        assertTrue(compared > 0);
+    }
+
+    /*
+     * The bond between two atoms is the one of the container
+     */
+    private static void assertBondIndex(String name, IAtomContainer ac) {
+        AtomBondInvariants invariants = new AtomBondInvariants(ac);
+        for (int i = 0; i < ac.getAtomCount(); i++) {
+            for (int j = 0; j < ac.getAtomCount(); j++) {
+                IBond bond = ac.getBond(ac.getAtom(i), ac.getAtom(j));
+                assertEquals(name, bond == null ? -1 : ac.indexOf(bond), invariants.getBondIndex(i, j));
+            }
+        }
+    }
+
+    private static void compare(String name, IAtomContainer source, IAtomContainer target,
+            AtomMatcher atomMatcher, BondMatcher bondMatcher) {
+        AtomBondInvariants query = new AtomBondInvariants(source);
+        AtomBondInvariants subject = new AtomBondInvariants(target);
+        String matchers = name + " " + atomMatcher + " " + bondMatcher;
+        for (int i = 0; i < source.getAtomCount(); i++) {
+            for (int j = 0; j < target.getAtomCount(); j++) {
+                assertEquals(matchers + " atoms " + i + "," + j,
+                        atomMatcher.matches(source.getAtom(i), target.getAtom(j)),
+                        atomMatcher.matches(query, i, subject, j));
+            }
+        }
+        for (int i = 0; i < source.getBondCount(); i++) {
+            for (int j = 0; j < target.getBondCount(); j++) {
+                IBond b1 = source.getBond(i);
+                IBond b2 = target.getBond(j);
+                assertEquals(matchers + " bonds " + i + "," + j,
+                        bondMatcher.matches(b1, b2),
+                        bondMatcher.matches(query, i, subject, j));
+                assertEquals(matchers + " atoms and bonds " + i + "," + j,
+                        AtomBondMatcher.matchAtomAndBond(b1, b2, atomMatcher, bondMatcher, true),
+                        AtomBondMatcher.matchAtomAndBond(query, i, subject, j, atomMatcher, bondMatcher, true));
+            }
+        }
+    }
+}
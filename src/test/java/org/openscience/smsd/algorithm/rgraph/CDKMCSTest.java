@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package org.openscience.smsd.algorithm.rgraph;
+
+import java.io.File;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IReaction;
+import static org.openscience.smsd.BundledReactions.DIRS;
+import static org.openscience.smsd.BundledReactions.files;
+import static org.openscience.smsd.BundledReactions.prepare;
+import static org.openscience.smsd.BundledReactions.read;
+import org.openscience.smsd.algorithm.matchers.AtomBondMatcher;
+import org.openscience.smsd.algorithm.matchers.AtomMatcher;
+import org.openscience.smsd.algorithm.matchers.BondMatcher;
+
+/**
+ * The maximum mappings of the bounded search are the largest mappings of
+ * the search of all the structures and mappings, for the reactant and
+ * product pairs of the bundled reactions which both searches finish within
+ * their iteration budget.
+ *
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public class CDKMCSTest {
+
+    private static final int FILES_PER_DIR = 10;
+    private static final boolean[] FLAGS = {false, true};
+
+    @Test
+    public void testMaximumMapsOnReactions() throws Exception {
+        int compared = 0;
+        for (File file : files(FILES_PER_DIR, DIRS)) {
+            IReaction reaction = read(file);
+            List<IAtomContainer> educts = prepare(reaction.getReactants());
+            List<IAtomContainer> products = prepare(reaction.getProducts());
+            for (IAtomContainer educt : educts) {
+                for (IAtomContainer product : products) {
+                    String name = file.getName() + " " + educt.getTitle() + " " + product.getTitle();
+                    for (boolean rings : FLAGS) {
+                        AtomMatcher am = AtomBondMatcher.atomMatcher(false, rings);
+                        BondMatcher bm = AtomBondMatcher.bondMatcher(true, rings);
+                        if (compare(name + " rings " + rings, educt, product, am, bm)) {
+                            compared++;
+                        }
+                    }
+                }
+            }
+        }
+        assertTrue(compared > 0);
+    }
+
+    /*
+     * False if one of the searches ran out of its iteration budget
+     */
+    private static boolean compare(String name, IAtomContainer g1, IAtomContainer g2,
+            AtomMatcher am, BondMatcher bm) throws Exception {
+        List<List<CDKRMap>> all = CDKMCS.search(g1, g2, new BitSet(), new BitSet(), true, true, am, bm);
+        if (CDKMCS.isTimeout()) {
+            return false;
+        }
+        List<List<CDKRMap>> maximum = CDKMCS.getMaximumMaps(g1, g2, am, bm);
+        if (CDKMCS.isTimeout()) {
+            return false;
+        }
+        int size = 0;
+        for (List<CDKRMap> map : all) {
+            size = Math.max(size, map.size());
+        }
+        Set<Set<String>> expected = new HashSet<>();
+        for (List<CDKRMap> map : all) {
+            if (map.size() == size) {
+                expected.add(toSet(map));
+            }
+        }
+        Set<Set<String>> found = new HashSet<>();
+        for (List<CDKRMap> map : maximum) {
+            assertEquals(name, size, map.size());
+            found.add(toSet(map));
+        }
+        assertEquals(name, expected, found);
+        return true;
+    }
+
+    private static Set<String> toSet(List<CDKRMap> map) {
+        Set<String> pairs = new TreeSet<>();
+        for (CDKRMap m : map) {
+            pairs.add(m.getId1() + ":" + m.getId2());
+        }
+        return pairs;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package org.openscience.smsd.graph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Stack;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IReaction;
+import static org.openscience.smsd.BundledReactions.prepare;
+import static org.openscience.smsd.BundledReactions.read;
+import org.openscience.smsd.algorithm.matchers.AtomBondMatcher;
+import org.openscience.smsd.graph.algorithm.GraphBronKerbosch;
+import org.openscience.smsd.graph.algorithm.GraphKoch;
+
+/**
+ * Compatibility graphs and cliques of reactant and product pairs of bundled
+ * reactions, against the values of the list based graph the bit sets
+ * replaced.
+ *
+ * The Koch cliques are the same ones (the checksum is the sum of the hash
+ * codes of the largest cliques, i.e. of their vertex ids). The iteration
+ * capped Bron-Kerbosch search now breaks ties between pivots on the vertex
+ * index, it finds cliques at least as large.
+ *
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public class CompatibilityGraphTest {
+
+    /*
+     * reaction, educt, product, vertices, C-edges, D-edges, Koch clique size,
+     * number and checksum, Bron-Kerbosch clique size
+     */
+    private static final Object[][] EXPECTED = {
+        {"rxn/kegg/R00001.rxn", 0, 0, 144, 656, 4232, 12, 2, 6180, 10},
+        {"rxn/kegg/R00002.rxn", 0, 0, 48, 216, 0, 4, 14, 11604, 4},
+        {"rxn/kegg/R00004.rxn", 0, 0, 32, 144, 0, 4, 10, 7996, 4},
+        {"rxn/kegg/R00004.rxn", 0, 1, 32, 144, 0, 4, 10, 7996, 4},
+        {"rxn/kegg/R00005.rxn", 0, 0, 6, 2, 0, 2, 1, 379, 2},
+        {"rxn/kegg/R00006.rxn", 0, 0, 20, 38, 38, 5, 4, 3892, 5},
+        {"rxn/kegg/R00006.rxn", 1, 0, 6, 2, 0, 2, 1, 377, 2},
+        {"rxn/kegg/R00008.rxn", 0, 0, 28, 50, 94, 5, 3, 2964, 5},
+        {"rxn/kegg/R00010.rxn", 0, 0, 148, 316, 6544, 12, 2, 6252, 9},
+        {"rxn/kegg/R00012.rxn", 0, 0, 96, 436, 1380, 8, 18, 34392, 7},
+        {"rxn/kegg/R00013.rxn", 0, 0, 14, 17, 20, 4, 1, 765, 4},
+        {"rxn/kegg/R00013.rxn", 0, 1, 6, 2, 0, 2, 1, 375, 2},
+        {"rxn/kegg/R00014.rxn", 0, 0, 26, 26, 38, 3, 1, 606, 3},
+        {"rxn/kegg/R00014.rxn", 0, 1, 6, 2, 0, 2, 1, 377, 2},
+        {"rxn/kegg/R00014.rxn", 1, 0, 214, 517, 17275, 27, 1, 7975, 16},
+        {"rxn/kegg/R00014.rxn", 1, 1, 2, 0, 0, 1, 2, 373, 0},
+        {"rxn/rhea/10001.rxn", 0, 0, 18, 20, 36, 5, 1, 976, 5},
+        {"rxn/rhea/10002.rxn", 0, 0, 18, 20, 36, 5, 1, 976, 5},
+        {"rxn/rhea/10005.rxn", 0, 0, 53, 129, 521, 7, 2, 2940, 6},
+        {"rxn/rhea/10006.rxn", 0, 0, 53, 129, 521, 7, 2, 2950, 6},
+        {"rxn/rhea/10009.rxn", 0, 0, 18, 22, 66, 7, 1, 1366, 7},
+        {"rxn/rhea/10009.rxn", 1, 0, 18, 22, 66, 7, 1, 1366, 7},
+        {"rxn/rhea/10010.rxn", 0, 0, 18, 22, 66, 7, 1, 1341, 7},
+        {"rxn/rhea/10010.rxn", 0, 1, 18, 22, 66, 7, 1, 1341, 7}
+    };
+
+    @Test
+    public void testCliquesOnReactions() throws Exception {
+        Map<String, List<List<IAtomContainer>>> reactions = new HashMap<>();
+        for (Object[] row : EXPECTED) {
+            String name = (String) row[0];
+            if (!reactions.containsKey(name)) {
+                reactions.put(name, molecules(name));
+            }
+            IAtomContainer educt = reactions.get(name).get(0).get((Integer) row[1]);
+            IAtomContainer product = reactions.get(name).get(1).get((Integer) row[2]);
+            String pair = name + " " + row[1] + "," + row[2];
+
+            EdgeProductGraph edgeProduct = EdgeProductGraph.create(educt, product,
+                    AtomBondMatcher.atomMatcher(false, false), AtomBondMatcher.bondMatcher(false, false));
+            edgeProduct.searchCliques();
+            Graph graph = edgeProduct.getCompatibilityGraph();
+            assertEquals(pair, row[3], graph.V());
+            assertEquals(pair, row[4], graph.getCEdges().size());
+            assertEquals(pair, row[5], graph.getDEdges().size());
+            assertEquals(pair, (Integer) row[4] + (Integer) row[5], graph.E());
+
+            GraphKoch koch = new GraphKoch(graph);
+            koch.findMaximalCliques();
+            Stack<Set<Vertex>> cliques = koch.getMaxCliquesSet();
+            assertEquals(pair, row[6], cliques.peek().size());
+            assertEquals(pair, row[7], cliques.size());
+            assertEquals(pair, row[8], checksum(cliques));
+
+            GraphBronKerbosch bronKerbosch = new GraphBronKerbosch(graph);
+            bronKerbosch.findMaximalCliques();
+            cliques = bronKerbosch.getMaxCliquesSet();
+            assertTrue(pair, cliques.peek().size() >= (Integer) row[9]);
+        }
+    }
+
+    private static int checksum(Stack<Set<Vertex>> cliques) {
+        int sum = 0;
+        for (Set<Vertex> clique : cliques) {
+            sum += clique.hashCode();
+        }
+        return sum;
+    }
+
+    private static List<List<IAtomContainer>> molecules(String name) throws Exception {
+        IReaction reaction = read(name);
+        List<List<IAtomContainer>> molecules = new ArrayList<>();
+        molecules.add(prepare(reaction.getReactants()));
+        molecules.add(prepare(reaction.getProducts()));
+        return molecules;
+    }
+}
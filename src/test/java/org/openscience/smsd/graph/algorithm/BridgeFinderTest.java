@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package org.openscience.smsd.graph.algorithm;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import static org.openscience.cdk.graph.ConnectivityChecker.isConnected;
+import static org.openscience.cdk.graph.ConnectivityChecker.partitionIntoMolecules;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IAtomContainerSet;
+import org.openscience.cdk.interfaces.IReaction;
+import static org.openscience.smsd.BundledReactions.files;
+import static org.openscience.smsd.BundledReactions.read;
+
+/**
+ * Compares {@link BridgeFinder} with the removal of the bonds from a clone of
+ * the molecule and its partition into fragments, on the molecules of the
+ * bundled KEGG and Rhea reactions.
+ *
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public class BridgeFinderTest {
+
+    private static final String[] DIRECTORIES = {"rxn/kegg", "rxn/rhea"};
+    private static final int REMOVALS = 5;
+
+    @Test
+    public void testFragmentsOnReactions() throws Exception {
+        Random random = new Random(29);
+        int molecules = 0;
+        int bridges = 0;
+        for (File file : files(Integer.MAX_VALUE, DIRECTORIES)) {
+            IReaction reaction = read(file);
+            List<IAtomContainer> containers = new ArrayList<>();
+            reaction.getReactants().atomContainers().forEach(containers::add);
+            reaction.getProducts().atomContainers().forEach(containers::add);
+            for (IAtomContainer ac : containers) {
+                String name = file.getName() + " " + ac.getTitle();
+                BridgeFinder finder = new BridgeFinder(ac);
+                assertEquals(name, fragmentCount(ac, new BitSet()), finder.getComponentCount());
+                for (int i = 0; i < ac.getBondCount(); i++) {
+                    assertEquals(name + " bond " + i, smallestFragmentSize(ac, i),
+                            finder.getSmallestFragmentSize(i));
+                    BitSet removed = new BitSet();
+                    removed.set(i);
+                    boolean bridge = fragmentCount(ac, removed) > finder.getComponentCount();
+                    assertEquals(name + " bond " + i, bridge, finder.isBridge(i));
+                    bridges += bridge ? 1 : 0;
+                }
+                assertEquals(name, smallestFragmentSize(ac, -1), finder.getSmallestFragmentSize(-1));
+                assertEquals(name, smallestFragmentSize(ac, -1), finder.getSmallestFragmentSize(ac.getBondCount()));
+                for (int k = 0; k < REMOVALS && ac.getBondCount() > 0; k++) {
+                    BitSet removed = new BitSet();
+                    int count = 1 + random.nextInt(ac.getBondCount());
+                    for (int j = 0; j < count; j++) {
+                        removed.set(random.nextInt(ac.getBondCount()));
+                    }
+                    assertEquals(name + " " + removed, fragmentCount(ac, removed),
+                            finder.getComponentCount(removed));
+                }
+                molecules++;
+            }
+        }
+        assertTrue(molecules > 500);
+        assertTrue(bridges > 0);
+    }
+
+    /*
+     * Smallest fragment of a clone with the bond removed (none if the index is
+     * out of range), the atom count if the clone stays connected
+     */
+    private static int smallestFragmentSize(IAtomContainer ac, int bond) {
+        IAtomContainer clone = ac.getBuilder().newInstance(IAtomContainer.class, ac);
+        int size = clone.getAtomCount();
+        if (bond >= 0 && bond < clone.getBondCount()) {
+            clone.removeBond(bond);
+        }
+        if (!isConnected(clone)) {
+            IAtomContainerSet fragments = partitionIntoMolecules(clone);
+            for (IAtomContainer fragment : fragments.atomContainers()) {
+                size = Math.min(size, fragment.getAtomCount());
+            }
+        }
+        return size;
+    }
+
+    private static int fragmentCount(IAtomContainer ac, BitSet removed) {
+        IAtomContainer clone = ac.getBuilder().newInstance(IAtomContainer.class, ac);
+        for (int i = removed.previousSetBit(ac.getBondCount() - 1); i >= 0; i = removed.previousSetBit(i - 1)) {
+            clone.removeBond(i);
+        }
+        return clone.getAtomCount() == 0 ? 0 : partitionIntoMolecules(clone).getAtomContainerCount();
+    }
+}
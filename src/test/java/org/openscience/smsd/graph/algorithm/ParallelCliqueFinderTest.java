@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package org.openscience.smsd.graph.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.Stack;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IReaction;
+import static org.openscience.smsd.BundledReactions.prepare;
+import static org.openscience.smsd.BundledReactions.read;
+import org.openscience.smsd.algorithm.matchers.AtomBondMatcher;
+import org.openscience.smsd.graph.EdgeProductGraph;
+import org.openscience.smsd.graph.Graph;
+import org.openscience.smsd.graph.Vertex;
+
+/**
+ * Compares the branch and bound clique finder with {@link GraphKoch} on the
+ * compatibility graphs of the reactant and product pairs of bundled reactions
+ * with at least {@link ParallelCliqueFinder#MIN_VERTICES} vertices.
+ *
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public class ParallelCliqueFinderTest {
+
+    private static final String[] REACTIONS = {
+        "rxn/kegg/R00002.rxn", "rxn/kegg/R00012.rxn", "rxn/kegg/R00015.rxn",
+        "rxn/kegg/R00025.rxn", "rxn/kegg/R00114.rxn"
+    };
+    private static final int RUNS = 3;
+
+    @Test
+    public void testCliquesOnReactions() throws Exception {
+        int compared = 0;
+        for (String name : REACTIONS) {
+            IReaction reaction = read(name);
+            for (IAtomContainer educt : prepare(reaction.getReactants())) {
+                for (IAtomContainer product : prepare(reaction.getProducts())) {
+                    EdgeProductGraph edgeProduct = EdgeProductGraph.create(educt, product,
+                            AtomBondMatcher.atomMatcher(false, false), AtomBondMatcher.bondMatcher(false, false));
+                    edgeProduct.searchCliques();
+                    Graph graph = edgeProduct.getCompatibilityGraph();
+                    if (graph.V() < ParallelCliqueFinder.MIN_VERTICES) {
+                        continue;
+                    }
+                    compare(name, graph);
+                    compared++;
+                }
+            }
+        }
+        assertTrue("No compatibility graph of " + ParallelCliqueFinder.MIN_VERTICES + " vertices", compared >= 5);
+    }
+
+    /*
+     * The exhaustive search and the search on the default budget find a valid
+     * c-clique at least as large as the (budgeted) Koch search, the same one
+     * on every run
+     */
+    private static void compare(String name, Graph graph) {
+        GraphKoch koch = new GraphKoch(graph);
+        koch.findMaximalCliques();
+        int expected = size(koch.getMaxCliquesSet());
+
+        ParallelCliqueFinder exact = new ParallelCliqueFinder(graph, -1);
+        exact.findMaximalCliques();
+        Stack<Set<Vertex>> best = exact.getMaxCliquesSet();
+        assertFalse(name, best.isEmpty());
+        assertTrue(name + " " + size(best) + " < " + expected, size(best) >= expected);
+        assertClique(name, graph, best.peek());
+
+        Set<Vertex> first = null;
+        for (int run = 0; run < RUNS; run++) {
+            ParallelCliqueFinder capped = new ParallelCliqueFinder(graph);
+            capped.findMaximalCliques();
+            Stack<Set<Vertex>> cliques = capped.getMaxCliquesSet();
+            assertFalse(name, cliques.isEmpty());
+            assertTrue(name + " " + size(cliques) + " < " + expected, size(cliques) >= expected);
+            assertClique(name, graph, cliques.peek());
+            if (first == null) {
+                first = cliques.peek();
+            } else {
+                assertEquals(name, first, cliques.peek());
+            }
+        }
+    }
+
+    private static int size(Stack<Set<Vertex>> cliques) {
+        return cliques.isEmpty() ? 0 : cliques.peek().size();
+    }
+
+    /*
+     * Pairwise adjacent vertices connected by C-edges
+     */
+    private static void assertClique(String name, Graph graph, Set<Vertex> clique) {
+        List<Vertex> vertices = new ArrayList<>(clique);
+        for (int i = 0; i < vertices.size(); i++) {
+            for (int j = i + 1; j < vertices.size(); j++) {
+                assertTrue(name, graph.hasEdge(vertices.get(i), vertices.get(j)));
+            }
+        }
+        List<Vertex> reached = new ArrayList<>();
+        reached.add(vertices.get(0));
+        for (int i = 0; i < reached.size(); i++) {
+            for (Vertex v : vertices) {
+                if (!reached.contains(v) && graph.isCEdge(reached.get(i), v)) {
+                    reached.add(v);
+                }
+            }
+        }
+        assertEquals(name, vertices.size(), reached.size());
+    }
+}
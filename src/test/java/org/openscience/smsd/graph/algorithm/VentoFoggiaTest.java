@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package org.openscience.smsd.graph.algorithm;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IReaction;
+import static org.openscience.smsd.BundledReactions.prepare;
+import static org.openscience.smsd.BundledReactions.read;
+import org.openscience.smsd.algorithm.matchers.AtomBondMatcher;
+import org.openscience.smsd.helper.Mappings;
+
+/**
+ * Substructure mappings between the molecules of bundled reactions, against
+ * the values of the VF states before they matched compiled graphs (the
+ * checksum is a hash of the mappings in the order found).
+ *
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public class VentoFoggiaTest {
+
+    private static final int LIMIT = 100;
+
+    /*
+     * reaction, query and target (reactants then products), number of
+     * mappings and checksum with the default matchers, then with the ring
+     * and charge matchers
+     */
+    private static final Object[][] EXPECTED = {
+        {"rxn/kegg/R00001.rxn", 0, 0, 100, -960077144, 8, -1621529396},
+        {"rxn/kegg/R00001.rxn", 0, 1, 100, -960077144, 8, -1621529396},
+        {"rxn/kegg/R00001.rxn", 1, 0, 100, -960077144, 8, -1621529396},
+        {"rxn/kegg/R00001.rxn", 1, 1, 100, -960077144, 8, -1621529396},
+        {"rxn/kegg/R00002.rxn", 0, 0, 24, -502406688, 2, -1287406238},
+        {"rxn/kegg/R00002.rxn", 1, 0, 72, -1470315980, 18, -1132632940},
+        {"rxn/kegg/R00002.rxn", 1, 1, 24, 653075032, 6, 1059039336},
+        {"rxn/kegg/R00002.rxn", 1, 2, 48, -969269376, 12, 154241568},
+        {"rxn/kegg/R00002.rxn", 2, 0, 12, -2097835984, 2, -1231411934},
+        {"rxn/kegg/R00002.rxn", 2, 2, 12, -2097835984, 2, -1231411934},
+        {"rxn/kegg/R00004.rxn", 0, 0, 72, -243504224, 8, 833785864},
+        {"rxn/kegg/R00004.rxn", 1, 0, 48, 801412096, 12, -225351872},
+        {"rxn/kegg/R00004.rxn", 1, 1, 24, 653075032, 6, 1059039336},
+        {"rxn/kegg/R00004.rxn", 1, 2, 24, 653075032, 6, 1059039336},
+        {"rxn/kegg/R00004.rxn", 2, 0, 48, 801412096, 12, -225351872},
+        {"rxn/kegg/R00004.rxn", 2, 1, 24, 653075032, 6, 1059039336},
+        {"rxn/kegg/R00004.rxn", 2, 2, 24, 653075032, 6, 1059039336},
+        {"rxn/kegg/R00005.rxn", 0, 0, 2, 913582174, 1, 1773379906},
+        {"rxn/kegg/R00005.rxn", 1, 0, 2, 1081502, 0, 0},
+        {"rxn/kegg/R00005.rxn", 1, 1, 2, 954398, 2, 954398},
+        {"rxn/kegg/R00006.rxn", 0, 0, 2, 1331632522, 1, -883926621},
+        {"rxn/kegg/R00006.rxn", 1, 0, 2, 984374, 0, 0},
+        {"rxn/kegg/R00006.rxn", 1, 1, 2, 954398, 2, 954398},
+        {"rxn/kegg/R00006.rxn", 1, 2, 2, 1018012, 0, 0},
+        {"rxn/kegg/R00006.rxn", 2, 0, 4, 209667072, 0, 0},
+        {"rxn/kegg/R00006.rxn", 2, 2, 2, -1633095680, 1, 888489796},
+        {"rxn/kegg/R00008.rxn", 0, 0, 4, 1764535996, 1, -613465465},
+        {"rxn/kegg/R00008.rxn", 1, 0, 6, -1495922240, 1, 951474858},
+        {"rxn/kegg/R00008.rxn", 1, 1, 2, -1633095680, 1, 888489796},
+        {"rxn/kegg/R00009.rxn", 0, 0, 2, 30814, 2, 30814},
+        {"rxn/kegg/R00009.rxn", 0, 1, 2, 30814, 0, 0},
+        {"rxn/kegg/R00009.rxn", 1, 0, 2, 30814, 0, 0},
+        {"rxn/kegg/R00009.rxn", 1, 1, 2, 30814, 2, 30814},
+        {"rxn/kegg/R00010.rxn", 0, 0, 2, -1952491008, 2, -1952491008},
+        {"rxn/kegg/R00010.rxn", 1, 0, 2, 275516010, 2, 275516010},
+        {"rxn/kegg/R00010.rxn", 1, 1, 1, -613465465, 1, -613465465},
+        {"rxn/rhea/10001.rxn", 0, 0, 1, 1773379906, 1, 1773379906},
+        {"rxn/rhea/10001.rxn", 1, 1, 2, 913584064, 1, 1773379906},
+        {"rxn/rhea/10002.rxn", 0, 0, 2, 913584064, 1, 1773379906},
+        {"rxn/rhea/10002.rxn", 1, 1, 1, 1773379906, 1, 1773379906},
+        {"rxn/rhea/10005.rxn", 0, 0, 2, -810189960, 2, -810189960},
+        {"rxn/rhea/10005.rxn", 1, 1, 2, 90528768, 2, 90528768},
+        {"rxn/rhea/10006.rxn", 0, 0, 2, 90528768, 2, 90528768},
+        {"rxn/rhea/10006.rxn", 1, 1, 2, -810189960, 2, -810189960}
+    };
+
+    @Test
+    public void testMappingsOnReactions() throws Exception {
+        Map<String, List<IAtomContainer>> reactions = new HashMap<>();
+        for (Object[] row : EXPECTED) {
+            String name = (String) row[0];
+            if (!reactions.containsKey(name)) {
+                reactions.put(name, molecules(name));
+            }
+            IAtomContainer query = reactions.get(name).get((Integer) row[1]);
+            IAtomContainer target = reactions.get(name).get((Integer) row[2]);
+            String pair = name + " " + row[1] + "," + row[2];
+            for (int k = 0; k < 2; k++) {
+                boolean strict = k == 1;
+                VentoFoggia vf = VentoFoggia.findSubstructure(query,
+                        AtomBondMatcher.atomMatcher(strict, strict), AtomBondMatcher.bondMatcher(strict, strict));
+                Mappings mappings = vf.matchAll(target).limit(LIMIT);
+                int[][] first = mappings.toArray();
+                assertEquals(pair, row[3 + 2 * k], first.length);
+                assertEquals(pair, row[4 + 2 * k], checksum(first));
+                /*
+                 * the iterators of a match share the matcher tables
+                 */
+                assertArrayEquals(pair, first, mappings.toArray());
+            }
+        }
+    }
+
+    private static int checksum(int[][] mappings) {
+        int hash = 0;
+        for (int[] mapping : mappings) {
+            hash = 31 * hash + Arrays.hashCode(mapping);
+        }
+        return hash;
+    }
+
+    private static List<IAtomContainer> molecules(String name) throws Exception {
+        IReaction reaction = read(name);
+        List<IAtomContainer> molecules = prepare(reaction.getReactants());
+        molecules.addAll(prepare(reaction.getProducts()));
+        return molecules;
+    }
+}
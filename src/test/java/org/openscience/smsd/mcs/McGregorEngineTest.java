@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package org.openscience.smsd.mcs;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.interfaces.IReaction;
+import org.openscience.cdk.isomorphism.matchers.Expr;
+import org.openscience.cdk.isomorphism.matchers.QueryAtomContainer;
+import static org.openscience.smsd.BundledReactions.DIRS;
+import static org.openscience.smsd.BundledReactions.files;
+import static org.openscience.smsd.BundledReactions.prepare;
+import static org.openscience.smsd.BundledReactions.read;
+import org.openscience.smsd.algorithm.matchers.AtomBondMatcher;
+import org.openscience.smsd.algorithm.matchers.AtomMatcher;
+import org.openscience.smsd.algorithm.matchers.BondMatcher;
+import org.openscience.smsd.algorithm.mcgregor.McGregor;
+import org.openscience.smsd.algorithm.mcgregor.McGregorEngine;
+
+/**
+ * Differential test of the int array McGregor engine against the list based
+ * one, on the reactant and product pairs of the bundled reactions, extended
+ * from bond seeds as the MCS engines do.
+ *
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public class McGregorEngineTest {
+
+    private static final int FILES_PER_DIR = 12;
+    private static final int SEEDS = 2;
+
+    @Test
+    public void testSameMappingsOnReactions() throws Exception {
+        int compared = 0;
+        for (File file : files(FILES_PER_DIR, DIRS)) {
+            IReaction reaction = read(file);
+            List<IAtomContainer> educts = prepare(reaction.getReactants());
+            List<IAtomContainer> products = prepare(reaction.getProducts());
+            for (IAtomContainer educt : educts) {
+                for (IAtomContainer product : products) {
+                    IAtomContainer source = educt.getAtomCount() >= product.getAtomCount() ? educt : product;
+                    IAtomContainer target = source == educt ? product : educt;
+                    compared += compare(file.getName(), source, target,
+                            AtomBondMatcher.atomMatcher(false, false), AtomBondMatcher.bondMatcher(false, false));
+                    compared += compare(file.getName(), source, target,
+                            AtomBondMatcher.atomMatcher(true, true), AtomBondMatcher.bondMatcher(true, true));
+                    compared += compare(file.getName(),
+                            QueryAtomContainer.create(source, Expr.Type.ELEMENT, Expr.Type.ORDER), target,
+                            AtomMatcher.forQuery(), BondMatcher.forQuery());
+                }
+            }
+        }
+        assertTrue(compared > 0);
+    }
+
+    /*
+     * Extend the seeds one after the other as the MCS engines do, the
+     * mappings of a seed are passed on to the next one
+     */
+    private static int compare(String name, IAtomContainer source, IAtomContainer target,
+            AtomMatcher atomMatcher, BondMatcher bondMatcher) throws Exception {
+        List<Map<Integer, Integer>> seeds = seeds(source, target, atomMatcher, bondMatcher);
+        if (seeds.isEmpty()) {
+            return 0;
+        }
+        List<List<Integer>> expected = new ArrayList<>();
+        List<List<Integer>> actual = new ArrayList<>();
+        for (Map<Integer, Integer> seed : seeds) {
+            McGregor reference = new McGregor(source, target, expected, atomMatcher, bondMatcher);
+            reference.startMcGregorIteration(source, reference.getMCSSize(), new TreeMap<>(seed));
+            McGregorEngine engine = new McGregorEngine(source, target, actual, atomMatcher, bondMatcher);
+            engine.startMcGregorIteration(source, engine.getMCSSize(), new TreeMap<>(seed));
+            expected = reference.getMappings();
+            actual = engine.getMappings();
+            assertEquals(name, reference.getMCSSize(), engine.getMCSSize());
+            assertEquals(name, reference.isTimeout(), engine.isTimeout());
+        }
+        assertEquals(name, expected, actual);
+        return 1;
+    }
+
+    private static List<Map<Integer, Integer>> seeds(IAtomContainer source, IAtomContainer target,
+            AtomMatcher atomMatcher, BondMatcher bondMatcher) {
+        List<Map<Integer, Integer>> seeds = new ArrayList<>();
+        int step = Math.max(1, source.getBondCount() / SEEDS);
+        for (int i = 0; i < source.getBondCount() && seeds.size() < SEEDS; i += step) {
+            IBond b1 = source.getBond(i);
+            for (IBond b2 : target.bonds()) {
+                if (AtomBondMatcher.matchAtomAndBond(b1, b2, atomMatcher, bondMatcher, true)) {
+                    Map<Integer, Integer> seed = new TreeMap<>();
+                    boolean straight = atomMatcher.matches(b1.getBegin(), b2.getBegin())
+                            && atomMatcher.matches(b1.getEnd(), b2.getEnd());
+                    seed.put(source.indexOf(b1.getBegin()), target.indexOf(straight ? b2.getBegin() : b2.getEnd()));
+                    seed.put(source.indexOf(b1.getEnd()), target.indexOf(straight ? b2.getEnd() : b2.getBegin()));
+                    seeds.add(seed);
+                    break;
+                }
+            }
+        }
+        return seeds;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package org.openscience.smsd.tools;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.openscience.cdk.AtomContainer;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IAtomContainerSet;
+import org.openscience.cdk.interfaces.IReaction;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+import org.openscience.cdk.smiles.SmilesParser;
+import static org.openscience.smsd.BundledReactions.DIRS;
+import static org.openscience.smsd.BundledReactions.files;
+import static org.openscience.smsd.BundledReactions.read;
+import org.openscience.smsd.Substructure;
+import org.openscience.smsd.algorithm.matchers.AtomBondMatcher;
+import org.openscience.smsd.algorithm.matchers.AtomMatcher;
+import org.openscience.smsd.algorithm.matchers.BondMatcher;
+import org.openscience.smsd.helper.MoleculeInitializer;
+
+/**
+ * The count precheck of {@link MoleculeView} never rejects a pair the
+ * substructure search on the perceived molecules accepts, with the matchers
+ * of the rule matching (elements) and of the reaction isomorphism check
+ * (atom types).
+ *
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public class MoleculeViewTest {
+
+    private static final int FILES_PER_DIR = 15;
+
+    /*
+     * Query, target: only one query atom has its element in the target,
+     * single atoms, ions and rings
+     */
+    private static final String[][] PAIRS = {
+        {"[Na]O", "CCO"},
+        {"[Na+].[OH-]", "O"},
+        {"O", "CCO"},
+        {"[H]", "[H][H]"},
+        {"P", "OP(O)(O)=O"},
+        {"[Cl-]", "C[N+](C)(C)C.[Cl-]"},
+        {"C", "c1ccccc1"},
+        {"c1ccccc1", "C1CCCCC1"},
+        {"c1ccccc1", "CCCCCC"},
+        {"C1CCCCC1", "CCCCCC"},
+        {"CC(=O)O", "CC(=O)OC"},
+        {"[Fe]", "[Fe+2]"},
+        {"N", "C[C@H](N)C(=O)O"}
+    };
+
+    @Test
+    public void testPrecheckOnReactions() throws Exception {
+        int accepted = 0;
+        int compared = 0;
+        for (File file : files(FILES_PER_DIR, DIRS)) {
+            IReaction reaction = read(file);
+            List<IAtomContainer> educts = prepare(reaction.getReactants());
+            List<IAtomContainer> products = prepare(reaction.getProducts());
+            for (IAtomContainer educt : educts) {
+                for (IAtomContainer product : products) {
+                    String name = file.getName() + " " + educt.getTitle() + " " + product.getTitle();
+                    accepted += assertPrecheck(name, educt, product);
+                    accepted += assertPrecheck(name + " reverse", product, educt);
+                    compared += 2;
+                }
+            }
+        }
+        assertTrue(compared > 0);
+        assertTrue(accepted > 0);
+    }
+
+    @Test
+    public void testPrecheckOnSmallMolecules() throws Exception {
+        SmilesParser smilesParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        for (String[] pair : PAIRS) {
+            IAtomContainer query = smilesParser.parseSmiles(pair[0]);
+            IAtomContainer target = smilesParser.parseSmiles(pair[1]);
+            assertPrecheck(pair[0] + " " + pair[1], query, target);
+            assertPrecheck(pair[1] + " " + pair[0], target, query);
+        }
+    }
+
+    /*
+     * Only one query atom has its element in the target, the counts are not
+     * checked
+     */
+    @Test
+    public void testSingleCommonAtom() throws Exception {
+        SmilesParser smilesParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        MoleculeView query = MoleculeView.perceived(smilesParser.parseSmiles("[Na]O"));
+        MoleculeView target = MoleculeView.perceived(smilesParser.parseSmiles("CCO"));
+        assertFalse(query.isElementSubset(target));
+        assertTrue(query.isPossibleSubgraph(target, true));
+    }
+
+    /*
+     * An aromatic ring is not a substructure of a chain, the precheck is
+     * not a pass through
+     */
+    @Test
+    public void testAromaticAtomsOnChain() throws Exception {
+        SmilesParser smilesParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        MoleculeView query = MoleculeView.perceived(smilesParser.parseSmiles("c1ccccc1"));
+        MoleculeView target = MoleculeView.perceived(smilesParser.parseSmiles("CCCCCC"));
+        assertTrue(query.isElementSubset(target));
+        assertFalse(query.isPossibleSubgraph(target, true));
+    }
+
+    /*
+     * The view does not perceive the molecule it is given
+     */
+    @Test
+    public void testPerceivedCopy() throws Exception {
+        IAtomContainer mol = new SmilesParser(SilentChemObjectBuilder.getInstance()).parseSmiles("c1ccccc1");
+        mol.atoms().forEach(a -> a.setIsInRing(false));
+        MoleculeView view = MoleculeView.perceived(mol);
+        assertTrue(view.getContainer() != mol);
+        assertTrue(view.getContainer().getAtom(0).isInRing());
+        assertFalse(mol.getAtom(0).isInRing());
+    }
+
+    private static List<IAtomContainer> prepare(IAtomContainerSet molecules) throws Exception {
+        List<IAtomContainer> prepared = new ArrayList<>();
+        for (IAtomContainer mol : molecules.atomContainers()) {
+            prepared.add(ExtAtomContainerManipulator.removeHydrogens(mol));
+        }
+        return prepared;
+    }
+
+    /*
+     * The precheck accepts every pair the substructure search accepts with
+     * the element and the atom type matchers
+     */
+    private static int assertPrecheck(String name, IAtomContainer query, IAtomContainer target) throws Exception {
+        boolean possible = MoleculeView.perceived(query).isPossibleSubgraph(MoleculeView.perceived(target), true);
+        int accepted = 0;
+        if (isMatch(query, target, AtomBondMatcher.atomMatcher(false, true), AtomBondMatcher.bondMatcher(true, true))) {
+            assertTrue(name + " rule matchers", possible);
+            accepted++;
+        }
+        if (isMatch(query, target, AtomBondMatcher.atomMatcher(true, true), AtomBondMatcher.bondMatcher(true, true))) {
+            assertTrue(name + " isomorphism matchers", possible);
+            accepted++;
+        }
+        return accepted;
+    }
+
+    /*
+     * Substructure search before the prechecks: both molecules perceived in
+     * place
+     */
+    private static boolean isMatch(IAtomContainer query, IAtomContainer target,
+            AtomMatcher atomMatcher, BondMatcher bondMatcher) throws Exception {
+        IAtomContainer ac1 = new AtomContainer(query).clone();
+        IAtomContainer ac2 = new AtomContainer(target).clone();
+        ExtAtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(ac1);
+        MoleculeInitializer.initializeMolecule(ac1);
+        ExtAtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(ac2);
+        MoleculeInitializer.initializeMolecule(ac2);
+        if (ac1.getAtomCount() <= ac2.getAtomCount()) {
+            return new Substructure(ac1, ac2, atomMatcher, bondMatcher, false).isSubgraph();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package org.openscience.smsd.tools;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public class SharedExecutorTest {
+
+    /*
+     * Jobs waiting on their sub jobs, two levels deep, on a single worker:
+     * the waiting job runs the sub jobs no worker has picked up. The test
+     * thread waits with Future.get so that the jobs run on the pool.
+     */
+    @Test(timeout = 30000)
+    public void testNestedJobsOnOneThread() throws Exception {
+        SharedExecutor executor = new SharedExecutor(1);
+        Future<Integer> outer = executor.submit(() -> {
+            List<Future<Integer>> inner = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                inner.add(executor.submit(() -> {
+                    Future<Integer> leaf = executor.submit(() -> 1);
+                    return SharedExecutor.get(leaf) + 1;
+                }));
+            }
+            int sum = 0;
+            for (Future<Integer> f : inner) {
+                sum += SharedExecutor.get(f);
+            }
+            return sum;
+        });
+        assertEquals(8, (int) outer.get());
+    }
+
+    /*
+     * Cancelling a running job interrupts it, the next job on the same
+     * worker does not see the interrupt
+     */
+    @Test(timeout = 30000)
+    public void testCancelInterruptsTheJob() throws Exception {
+        SharedExecutor executor = new SharedExecutor(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Future<Void> running = executor.submit(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(5));
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return null;
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        assertTrue(running.cancel(true));
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+        assertTrue(running.isCancelled());
+
+        Future<Boolean> next = executor.submit(() -> Thread.currentThread().isInterrupted());
+        assertFalse(next.get());
+    }
+
+    /*
+     * A job and its sub jobs run under the deadline of the submitting thread,
+     * the worker does not keep it for the next job
+     */
+    @Test(timeout = 30000)
+    public void testJobsSeeTheSubmitterDeadline() throws Exception {
+        SharedExecutor executor = new SharedExecutor(1);
+        Deadline deadline = Deadline.after(1, TimeUnit.HOURS);
+        Deadline outer = Deadline.set(deadline);
+        try {
+            Future<Deadline> job = executor.submit(() -> Deadline.current());
+            assertSame(deadline, job.get());
+            Future<Deadline> nested = executor.submit(()
+                    -> SharedExecutor.get(executor.submit(() -> Deadline.current())));
+            assertSame(deadline, nested.get());
+        } finally {
+            Deadline.set(outer);
+        }
+        Future<Deadline> unbounded = executor.submit(() -> Deadline.current());
+        assertSame(Deadline.NONE, unbounded.get());
+    }
+}
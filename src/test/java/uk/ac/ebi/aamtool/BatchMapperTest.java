@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package uk.ac.ebi.aamtool;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.MalformedInputException;
+import java.nio.file.Files;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static uk.ac.ebi.aamtool.BatchMapper.STATUS_FAILED;
+import static uk.ac.ebi.aamtool.BatchMapper.STATUS_OK;
+
+/**
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public class BatchMapperTest {
+
+    private static final String INPUT = "CC(=O)OC.O>>CC(=O)O.CO ester\n"
+            + "CCO>>CC=O\n"
+            + "C(C>>CC broken\n"
+            + "OCC(O)CO>>OCC(=O)CO glycerol\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(timeout = 300000)
+    public void testBatch() throws Exception {
+        StringWriter writer = new StringWriter();
+        BatchMapper mapper = new BatchMapper(2, 60, true, false, false);
+        try (ReactionFileIterator reactions = new ReactionFileIterator(input(), "smi")) {
+            mapper.run(reactions, writer);
+        }
+        String[] lines = writer.toString().split("\\R");
+        assertEquals(5, lines.length);
+        assertTrue(lines[0].startsWith("#INDEX"));
+        Map<String, String[]> records = new HashMap<>();
+        for (int i = 1; i < lines.length; i++) {
+            String[] fields = lines[i].split("\t", -1);
+            assertEquals(lines[i], 10, fields.length);
+            records.put(fields[1], fields);
+        }
+        assertEquals(STATUS_OK, records.get("ester")[2]);
+        assertTrue(records.get("ester")[5].contains(">>"));
+        assertEquals(STATUS_OK, records.get("reaction_2")[2]);
+        assertEquals(STATUS_OK, records.get("glycerol")[2]);
+        assertEquals(STATUS_FAILED, records.get("broken")[2]);
+        assertEquals(4, mapper.getProcessedCount());
+        assertEquals(1, mapper.getFailedCount());
+        assertEquals(0, mapper.getTimeoutCount());
+    }
+
+    /*
+     * A worker error on a reaction must not stop the run
+     */
+    @Test(timeout = 300000)
+    public void testWorkerErrors() throws Exception {
+        Writer writer = new Writer() {
+            @Override
+            public void write(char[] buffer, int offset, int length) {
+                if (String.valueOf(buffer, offset, length).contains("\t" + STATUS_OK + "\t")) {
+                    throw new IllegalStateException("write failed");
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        BatchMapper mapper = new BatchMapper(1, 60, true, false, false);
+        try (ReactionFileIterator reactions = new ReactionFileIterator(input(), "smi")) {
+            mapper.run(reactions, writer);
+        }
+        assertEquals(4, mapper.getProcessedCount());
+    }
+
+    /*
+     * A read error fails the run after the reactions read before it
+     */
+    @Test(timeout = 300000)
+    public void testReadError() throws Exception {
+        File file = folder.newFile("malformed.smi");
+        byte[] input = INPUT.getBytes(UTF_8);
+        byte[] bytes = Arrays.copyOf(input, input.length + 1);
+        bytes[input.length] = (byte) 0xFF;
+        Files.write(file.toPath(), bytes);
+        StringWriter writer = new StringWriter();
+        BatchMapper mapper = new BatchMapper(2, 60, true, false, false);
+        try (ReactionFileIterator reactions = new ReactionFileIterator(file, "smi")) {
+            mapper.run(reactions, writer);
+            fail("malformed input read to the end");
+        } catch (MalformedInputException expected) {
+        }
+        assertEquals(mapper.getProcessedCount() + 1, writer.toString().split("\\R").length);
+    }
+
+    private File input() throws Exception {
+        File file = folder.newFile("reactions.smi");
+        Files.write(file.toPath(), INPUT.getBytes(UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package uk.ac.ebi.aamtool;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.MalformedInputException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openscience.cdk.Reaction;
+import org.openscience.cdk.interfaces.IReaction;
+import uk.ac.ebi.aamtool.ReactionFileIterator.ReactionRecord;
+import uk.ac.ebi.reactionblast.tools.rxnfile.MDLRXNV2000Reader;
+
+/**
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public class ReactionFileIteratorTest {
+
+    private static final String[] RXN = {"rxn/kegg/R00004.rxn", "rxn/kegg/R00005.rxn", "rxn/kegg/R00006.rxn"};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSMILES() throws Exception {
+        File file = folder.newFile("reactions.smi");
+        Files.write(file.toPath(), ("# header\n"
+                + "\n"
+                + "CC(=O)OC.O>>CC(=O)O.CO ester\n"
+                + "CCO\n"
+                + "C(C>>CC\n"
+                + "CCO>>CC=O\n").getBytes(UTF_8));
+        List<ReactionRecord> records = read(file, "smi");
+        assertEquals(4, records.size());
+
+        assertEquals(1, records.get(0).getIndex());
+        assertEquals("ester", records.get(0).getId());
+        assertNotNull(records.get(0).getReaction());
+        assertEquals(2, records.get(0).getReaction().getReactantCount());
+        assertNull(records.get(0).getError());
+
+        assertEquals("reaction_2", records.get(1).getId());
+        assertNull(records.get(1).getReaction());
+        assertNotNull(records.get(1).getError());
+
+        assertNull(records.get(2).getReaction());
+        assertNotNull(records.get(2).getError());
+
+        assertEquals(4, records.get(3).getIndex());
+        assertEquals("reaction_4", records.get(3).getId());
+        assertEquals(1, records.get(3).getReaction().getProductCount());
+    }
+
+    @Test
+    public void testRXN() throws Exception {
+        StringBuilder rxn = new StringBuilder();
+        for (String name : RXN) {
+            rxn.append(resource(name));
+        }
+        File file = folder.newFile("reactions.rxn");
+        Files.write(file.toPath(), rxn.toString().getBytes(UTF_8));
+        assertSameReactions(read(file, "rxn"));
+    }
+
+    @Test
+    public void testRDF() throws Exception {
+        StringBuilder rdf = new StringBuilder("$RDFILE 1\n$DATM    10/18/26 12:00\n");
+        for (String name : RXN) {
+            rdf.append("$RFMT\n").append(resource(name))
+                    .append("$DTYPE NAME\n$DATUM ").append(name).append('\n');
+        }
+        File file = folder.newFile("reactions.rdf");
+        Files.write(file.toPath(), rdf.toString().getBytes(UTF_8));
+        assertSameReactions(read(file, "rdf"));
+    }
+
+    /*
+     * Bytes which are not UTF-8 are a read error, not the end of the input
+     */
+    @Test
+    public void testMalformedFile() throws Exception {
+        File file = folder.newFile("malformed.smi");
+        byte[] reactions = "CCO>>CC=O first\nCCO>>CC=O second\n".getBytes(UTF_8);
+        byte[] bytes = Arrays.copyOf(reactions, reactions.length + 3);
+        bytes[reactions.length] = (byte) 0xC3;
+        bytes[reactions.length + 1] = (byte) 0x28;
+        bytes[reactions.length + 2] = '\n';
+        Files.write(file.toPath(), bytes);
+        try {
+            read(file, "smi");
+            fail("malformed input read to the end");
+        } catch (UncheckedIOException ex) {
+            assertTrue(ex.getCause() instanceof MalformedInputException);
+        }
+    }
+
+    /*
+     * A block cut short is returned with its error
+     */
+    @Test
+    public void testTruncatedRXN() throws Exception {
+        String rxn = resource(RXN[0]) + resource(RXN[1]);
+        File file = folder.newFile("truncated.rxn");
+        Files.write(file.toPath(), rxn.substring(0, rxn.length() - 200).getBytes(UTF_8));
+        List<ReactionRecord> records = read(file, "rxn");
+        assertEquals(2, records.size());
+        assertNull(records.get(0).getError());
+        assertNull(records.get(1).getReaction());
+        assertNotNull(records.get(1).getError());
+    }
+
+    private void assertSameReactions(List<ReactionRecord> records) throws Exception {
+        assertEquals(RXN.length, records.size());
+        for (int i = 0; i < RXN.length; i++) {
+            ReactionRecord record = records.get(i);
+            assertEquals(i + 1, record.getIndex());
+            assertNull(record.getError(), record.getError());
+            IReaction expected;
+            try (MDLRXNV2000Reader reader = new MDLRXNV2000Reader(
+                    new FileReader(getClass().getClassLoader().getResource(RXN[i]).getFile()))) {
+                expected = reader.read(new Reaction());
+            }
+            assertEquals(RXN[i], expected.getReactantCount(), record.getReaction().getReactantCount());
+            assertEquals(RXN[i], expected.getProductCount(), record.getReaction().getProductCount());
+            assertEquals(RXN[i], expected.getReactants().getAtomContainer(0).getAtomCount(),
+                    record.getReaction().getReactants().getAtomContainer(0).getAtomCount());
+        }
+    }
+
+    private String resource(String name) throws Exception {
+        String text = new String(Files.readAllBytes(Paths.get(getClass().getClassLoader().getResource(name).toURI())), UTF_8);
+        return text.endsWith("\n") ? text : text + "\n";
+    }
+
+    private static List<ReactionRecord> read(File file, String format) throws Exception {
+        List<ReactionRecord> records = new ArrayList<>();
+        try (ReactionFileIterator iterator = new ReactionFileIterator(file, format)) {
+            while (iterator.hasNext()) {
+                records.add(iterator.next());
+            }
+            assertFalse(iterator.hasNext());
+        }
+        return records;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package uk.ac.ebi.reactionblast.mapping;
+
+import java.util.Map;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IReaction;
+import static org.openscience.smsd.BundledReactions.read;
+import static uk.ac.ebi.reactionblast.mapping.helper.MappingHandler.cleanMapping;
+import uk.ac.ebi.reactionblast.mapping.interfaces.IMappingAlgorithm;
+import uk.ac.ebi.reactionblast.tools.StandardizeReaction;
+
+/**
+ * The mapping models share one standardised reaction; each of them gives the
+ * mapping it gives on a reaction of its own.
+ *
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public class CallableAtomMappingToolTest {
+
+    /*
+     * The reactions of other/ come with an atom-atom mapping, which the
+     * models do not see
+     */
+    private static final String[] REACTIONS = {
+        "rxn/kegg/R00008.rxn",
+        "rxn/other/OrderChanges.rxn",
+        "rxn/other/Publication.rxn"
+    };
+
+    @Test(timeout = 600000)
+    public void testSharedReactionGivesTheModelMappings() throws Exception {
+        for (String name : REACTIONS) {
+            Map<IMappingAlgorithm, Reactor> shared = new CallableAtomMappingTool(
+                    read(name), new StandardizeReaction(), true, true).getSolutions();
+            assertEquals(name, 4, shared.size());
+            for (IMappingAlgorithm algorithm : shared.keySet()) {
+                IReaction own = new StandardizeReaction().standardize(read(name));
+                cleanMapping(own);
+                Reactor reactor = new Reactor(own, true, algorithm);
+                assertEquals(name + " " + algorithm,
+                        mapping(reactor.getReactionWithAtomAtomMapping()),
+                        mapping(shared.get(algorithm).getReactionWithAtomAtomMapping()));
+            }
+        }
+    }
+
+    /*
+     * Atom labels, in the order of the molecules and atoms
+     */
+    static String mapping(IReaction reaction) {
+        assertNotNull(reaction);
+        assertTrue(reaction.getMappingCount() > 0);
+        StringBuilder sb = new StringBuilder();
+        for (IAtomContainer mol : reaction.getReactants().atomContainers()) {
+            for (IAtom atom : mol.atoms()) {
+                sb.append(atom.getSymbol()).append(atom.getID()).append(' ');
+            }
+        }
+        sb.append(">>");
+        for (IAtomContainer mol : reaction.getProducts().atomContainers()) {
+            for (IAtom atom : mol.atoms()) {
+                sb.append(' ').append(atom.getSymbol()).append(atom.getID());
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package uk.ac.ebi.reactionblast.mapping;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+import org.openscience.cdk.interfaces.IReaction;
+import static org.openscience.smsd.BundledReactions.read;
+import static uk.ac.ebi.reactionblast.mapping.CallableAtomMappingToolTest.mapping;
+import uk.ac.ebi.reactionblast.mapping.cache.MCSSolutionCache;
+import static uk.ac.ebi.reactionblast.mapping.helper.MappingHandler.cleanMapping;
+import uk.ac.ebi.reactionblast.mapping.interfaces.IMappingAlgorithm;
+import static uk.ac.ebi.reactionblast.mapping.interfaces.IMappingAlgorithm.MAX;
+import static uk.ac.ebi.reactionblast.mapping.interfaces.IMappingAlgorithm.MIN;
+import static uk.ac.ebi.reactionblast.mapping.interfaces.IMappingAlgorithm.MIXTURE;
+import static uk.ac.ebi.reactionblast.mapping.interfaces.IMappingAlgorithm.RINGS;
+import uk.ac.ebi.reactionblast.tools.StandardizeReaction;
+
+/**
+ * The models running at once on one reaction (GraphMatcher.matcher and
+ * GameTheoryFactory.make called from several threads) give the mappings
+ * they give one at a time.
+ *
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public class ReactorTest {
+
+    private static final String[] REACTIONS = {
+        "rxn/kegg/R00008.rxn",
+        "rxn/rhea/10005.rxn"
+    };
+
+    private static final int RUNS_PER_MODEL = 2;
+
+    @Test(timeout = 600000)
+    public void testConcurrentModelsGiveTheSequentialMappings() throws Exception {
+        IMappingAlgorithm[] models = {MIN, MAX, MIXTURE, RINGS};
+        ExecutorService threads = Executors.newFixedThreadPool(models.length * RUNS_PER_MODEL);
+        try {
+            for (String name : REACTIONS) {
+                IReaction reaction = new StandardizeReaction().standardize(read(name));
+                cleanMapping(reaction);
+
+                MCSSolutionCache.getInstance().cleanup();
+                List<String> expected = new ArrayList<>();
+                for (IMappingAlgorithm model : models) {
+                    expected.add(mapping(new Reactor(reaction, true, model).getReactionWithAtomAtomMapping()));
+                }
+
+                MCSSolutionCache.getInstance().cleanup();
+                List<Future<String>> runs = new ArrayList<>();
+                for (int i = 0; i < RUNS_PER_MODEL; i++) {
+                    for (IMappingAlgorithm model : models) {
+                        Callable<String> run = ()
+                                -> mapping(new Reactor(reaction, true, model).getReactionWithAtomAtomMapping());
+                        runs.add(threads.submit(run));
+                    }
+                }
+                for (int i = 0; i < runs.size(); i++) {
+                    assertEquals(name + " " + models[i % models.length],
+                            expected.get(i % models.length), runs.get(i).get());
+                }
+            }
+        } finally {
+            threads.shutdownNow();
+            MCSSolutionCache.getInstance().cleanup();
+        }
+    }
+}
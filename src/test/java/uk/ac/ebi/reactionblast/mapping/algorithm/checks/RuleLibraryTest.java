@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package uk.ac.ebi.reactionblast.mapping.algorithm.checks;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+import org.openscience.cdk.AtomContainer;
+import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IReaction;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+import org.openscience.cdk.smiles.SmilesParser;
+import static org.openscience.smsd.BundledReactions.files;
+import static org.openscience.smsd.BundledReactions.read;
+import org.openscience.smsd.Substructure;
+import org.openscience.smsd.algorithm.matchers.AtomBondMatcher;
+import org.openscience.smsd.helper.MoleculeInitializer;
+import org.openscience.smsd.tools.ExtAtomContainerManipulator;
+import static org.openscience.smsd.tools.ExtAtomContainerManipulator.removeHydrogens;
+import uk.ac.ebi.reactionblast.mapping.algorithm.checks.RuleLibrary.Matches;
+import uk.ac.ebi.reactionblast.mapping.algorithm.checks.RuleLibrary.Rule;
+import uk.ac.ebi.reactionblast.tools.StandardizeReaction;
+
+/**
+ * The rules found by {@link RuleLibrary} in the molecules of the bundled
+ * (standardised) reactions, compared with the matching of the rule based mapping before the
+ * library: the rule parsed again, both molecules perceived in place and a
+ * substructure search without the count prechecks.
+ *
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public class RuleLibraryTest {
+
+    private static final String[] DIRS = {"rxn/kegg", "rxn/rhea", "rxn/bug", "rxn/other", "rxn/brenda"};
+    private static final int FILES_PER_DIR = 15;
+
+    @Test
+    public void testSameRulesAsIsMatch() throws Exception {
+        RuleLibrary library = new RuleLibrary(1 << 16);
+        SmilesParser smilesParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        int checks = 0;
+        int found = 0;
+        int failures = 0;
+        for (IAtomContainer mol : molecules()) {
+            String name = mol.getID() + " " + mol.getTitle();
+            IAtomContainer heavyAtoms;
+            try {
+                heavyAtoms = removeHydrogens(new AtomContainer(mol));
+            } catch (IllegalArgumentException e) {
+                // the hydrogens could not be removed before either
+                try {
+                    library.match(mol);
+                    fail(name + " matched without the hydrogens removed");
+                } catch (IllegalArgumentException expected) {
+                }
+                failures++;
+                continue;
+            }
+            int atomCount = mol.getAtomCount();
+            Matches matches = library.match(mol);
+            assertEquals(name, atomCount, mol.getAtomCount());
+            assertEquals(name, heavyAtoms.getAtomCount(), matches.getAtomCount());
+            for (Rule rule : Rule.values()) {
+                boolean expected = isMatch(smilesParser.parseSmiles(rule.getSmiles()), heavyAtoms);
+                assertEquals(name + " " + rule, expected, matches.isMatch(rule));
+                found += expected ? 1 : 0;
+                checks++;
+            }
+            assertEquals(name + " phosphate cleavage",
+                    isMatch(smilesParser.parseSmiles(Rule.PHOSPHATE.getSmiles()), mol.clone()),
+                    matches.isPhosphate());
+            assertTrue(name, matches == library.match(mol));
+        }
+        assertTrue(checks > 500);
+        assertTrue(found > 0);
+        assertTrue(failures < checks / Rule.values().length);
+    }
+
+    /*
+     * Rule matching of the mapping before the rule library
+     */
+    private static boolean isMatch(IAtomContainer ac1, IAtomContainer ac2) throws CDKException {
+        ExtAtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(ac1);
+        MoleculeInitializer.initializeMolecule(ac1);
+        ExtAtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(ac2);
+        MoleculeInitializer.initializeMolecule(ac2);
+        if (ac1.getAtomCount() <= ac2.getAtomCount()) {
+            return new Substructure(ac1, ac2, AtomBondMatcher.atomMatcher(false, true),
+                    AtomBondMatcher.bondMatcher(true, true), false).isSubgraph();
+        }
+        return false;
+    }
+
+    private static List<IAtomContainer> molecules() throws Exception {
+        List<IAtomContainer> molecules = new ArrayList<>();
+        for (File file : files(FILES_PER_DIR, DIRS)) {
+            IReaction reaction = new StandardizeReaction().standardize(read(file));
+            List<IAtomContainer> containers = new ArrayList<>();
+            reaction.getReactants().atomContainers().forEach(containers::add);
+            reaction.getProducts().atomContainers().forEach(containers::add);
+            for (IAtomContainer mol : containers) {
+                mol.setID(file.getName());
+                molecules.add(mol);
+            }
+        }
+        return molecules;
+    }
+}
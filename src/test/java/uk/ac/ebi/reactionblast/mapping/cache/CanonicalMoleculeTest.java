@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package uk.ac.ebi.reactionblast.mapping.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import org.junit.Test;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+import org.openscience.cdk.smiles.SmilesParser;
+
+/**
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public class CanonicalMoleculeTest {
+
+    private static final String[] SMILES = {
+        "NC1=NC=NC2=C1N=CN2[C@@H]1O[C@H](COP(O)(=O)OP(O)(=O)OP(O)(O)=O)[C@@H](O)[C@H]1O",
+        "NC(=O)c1ccc[n+](c1)[C@@H]1O[C@H](COP([O-])(=O)OP([O-])(=O)OC[C@H]2O[C@H]([C@H](O)[C@@H]2O)n2cnc3c(N)ncnc23)[C@@H](O)[C@H]1O",
+        "N[C@@H](CCC(O)=O)C(O)=O",
+        "OC[C@H]1OC(O)[C@H](O)[C@@H](O)[C@@H]1O",
+        "C/C=C/C(O)=O",
+        "[13CH3]C(=O)O",
+        "*CC(=O)O",
+        "c1ccccc1C1CCCCC1"
+    };
+
+    private final SmilesParser sp = new SmilesParser(SilentChemObjectBuilder.getInstance());
+
+    @Test
+    public void testAtomOrder() throws Exception {
+        Random random = new Random(7);
+        for (String smiles : SMILES) {
+            IAtomContainer mol = sp.parseSmiles(smiles);
+            CanonicalMolecule expected = CanonicalMolecule.of(mol);
+            for (int k = 0; k < 10; k++) {
+                IAtomContainer shuffled = shuffle(sp.parseSmiles(smiles), random);
+                CanonicalMolecule actual = CanonicalMolecule.of(shuffled);
+                assertEquals(smiles, expected.getKey(), actual.getKey());
+                assertIsomorphism(smiles, mol, expected, shuffled, actual);
+            }
+        }
+    }
+
+    /*
+     * Equivalent stereo centres may give another key for another atom order
+     * (the MCS is computed again), but never a wrong mapping of the ranks
+     */
+    @Test
+    public void testSymmetricStereo() throws Exception {
+        Random random = new Random(7);
+        String smiles = "C1CC[C@H]2CCCC[C@@H]2C1";
+        IAtomContainer mol = sp.parseSmiles(smiles);
+        CanonicalMolecule expected = CanonicalMolecule.of(mol);
+        for (int k = 0; k < 10; k++) {
+            IAtomContainer shuffled = shuffle(sp.parseSmiles(smiles), random);
+            assertIsomorphism(smiles, mol, expected, shuffled, CanonicalMolecule.of(shuffled));
+        }
+    }
+
+    @Test
+    public void testDistinctStructures() throws Exception {
+        assertNotEquals(key("N[C@@H](C)C(O)=O"), key("N[C@H](C)C(O)=O"));
+        assertNotEquals(key("C/C=C/C"), key("C/C=C\\C"));
+        assertNotEquals(key("CC(O)=O"), key("[13CH3]C(O)=O"));
+        assertNotEquals(key("CC(O)=O"), key("CC([O-])=O"));
+        assertEquals(key("N[C@@H](C)C(O)=O"), key("OC(=O)[C@@H](N)C"));
+        assertEquals(key("C/C=C/C"), key("C\\C=C\\C"));
+
+        IAtomContainer radical = sp.parseSmiles("[CH2]O");
+        radical.addSingleElectron(0);
+        assertNotEquals(key("[CH2]O"), CanonicalMolecule.of(radical).getKey());
+    }
+
+    /*
+     * Input the unique SMILES could not be written for
+     */
+    @Test
+    public void testUnusualInput() throws Exception {
+        IAtomContainer mol = sp.parseSmiles("CCCC");
+        mol.getBond(1).setIsAromatic(true);
+        assertNotNull(CanonicalMolecule.of(mol).getKey());
+        assertNotNull(CanonicalMolecule.of(sp.parseSmiles("[R1]CC[R2]")).getKey());
+    }
+
+    private String key(String smiles) throws Exception {
+        return CanonicalMolecule.of(sp.parseSmiles(smiles)).getKey();
+    }
+
+    private static IAtomContainer shuffle(IAtomContainer mol, Random random) {
+        List<IAtom> atoms = new ArrayList<>();
+        mol.atoms().forEach(atoms::add);
+        Collections.shuffle(atoms, random);
+        List<IBond> bonds = new ArrayList<>();
+        mol.bonds().forEach(bonds::add);
+        Collections.shuffle(bonds, random);
+        mol.setAtoms(atoms.toArray(new IAtom[0]));
+        mol.setBonds(bonds.toArray(new IBond[0]));
+        return mol;
+    }
+
+    /*
+     * The ranks map the atoms and bonds of one molecule onto the other, the
+     * aromatic bonds whatever their Kekule order
+     */
+    private static void assertIsomorphism(String smiles, IAtomContainer a, CanonicalMolecule ca,
+            IAtomContainer b, CanonicalMolecule cb) {
+        for (int i = 0; i < a.getAtomCount(); i++) {
+            IAtom atom = b.getAtom(cb.getIndex(ca.getRank(i)));
+            assertEquals(smiles, a.getAtom(i).getSymbol(), atom.getSymbol());
+        }
+        for (IBond bond : a.bonds()) {
+            IAtom u = b.getAtom(cb.getIndex(ca.getRank(a.indexOf(bond.getBegin()))));
+            IAtom v = b.getAtom(cb.getIndex(ca.getRank(a.indexOf(bond.getEnd()))));
+            IBond other = b.getBond(u, v);
+            assertNotNull(smiles, other);
+            assertEquals(smiles, bond.isAromatic(), other.isAromatic());
+            if (!bond.isAromatic()) {
+                assertEquals(smiles, bond.getOrder(), other.getOrder());
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package uk.ac.ebi.reactionblast.mapping.cache;
+
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.openscience.smsd.BundledReactions.read;
+import org.openscience.smsd.tools.Deadline;
+import uk.ac.ebi.reactionblast.mapping.CallableAtomMappingTool;
+import uk.ac.ebi.reactionblast.tools.StandardizeReaction;
+
+/**
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public class MCSSolutionCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /*
+     * The MCS searches of a reaction past its deadline stop early, their
+     * solutions are neither cached nor stored; the same reaction without a
+     * deadline fills both
+     */
+    @Test(timeout = 300000)
+    public void testNothingCachedPastTheDeadline() throws Exception {
+        MCSSolutionCache cache = MCSSolutionCache.getInstance();
+        MCSSolutionStore previous = cache.getStore();
+        try (MCSSolutionStore store = MCSSolutionStore.open(folder.newFile("mcs.store"))) {
+            cache.setStore(store);
+            cache.cleanup();
+
+            Deadline outer = Deadline.set(Deadline.after(0, TimeUnit.SECONDS));
+            try {
+                new CallableAtomMappingTool(read("rxn/kegg/R01081.rxn"), new StandardizeReaction(), true, false);
+            } finally {
+                Deadline.set(outer);
+            }
+            assertEquals(0, cache.size());
+            assertEquals(0, store.size());
+
+            new CallableAtomMappingTool(read("rxn/kegg/R01081.rxn"), new StandardizeReaction(), true, false);
+            assertTrue(cache.size() > 0);
+            assertTrue(store.size() > 0);
+        } finally {
+            cache.setStore(previous);
+            cache.cleanup();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package uk.ac.ebi.reactionblast.mapping.cache;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static uk.ac.ebi.reactionblast.mapping.cache.MCSSolutionStore.MATCHER_VERSION;
+
+/**
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public class MCSSolutionStoreTest {
+
+    private static final CachedMapping FIRST
+            = new CachedMapping(new int[]{0, 1, 2}, new int[]{2, 0, 1}, 12.5, 1, null);
+    private static final CachedMapping SECOND
+            = new CachedMapping(new int[]{3}, new int[]{4}, null, null, 7);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReopen() throws Exception {
+        File file = folder.newFile("mcs.store");
+        try (MCSSolutionStore store = MCSSolutionStore.open(file)) {
+            assertTrue(store.isWriter());
+            store.put("a", FIRST);
+            store.put("b", SECOND);
+            store.put("a", SECOND);
+            assertEquals(2, store.size());
+        }
+        try (MCSSolutionStore store = MCSSolutionStore.open(file)) {
+            assertEquals(2, store.size());
+            assertMapping(FIRST, store.get("a"));
+            assertMapping(SECOND, store.get("b"));
+            assertNull(store.get("c"));
+        }
+    }
+
+    /*
+     * A record cut short by a crash is not indexed and is truncated, the
+     * next record is written in its place
+     */
+    @Test
+    public void testTornRecord() throws Exception {
+        File file = folder.newFile("mcs.store");
+        try (MCSSolutionStore store = MCSSolutionStore.open(file)) {
+            store.put("a", FIRST);
+        }
+        long length = file.length();
+        try (FileChannel c = FileChannel.open(file.toPath(), WRITE, APPEND)) {
+            c.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 40, 1, 2, 3, 4, 0, 0, 0, 1, 'b'}));
+        }
+        try (MCSSolutionStore store = MCSSolutionStore.open(file)) {
+            assertEquals(1, store.size());
+            assertEquals(length, file.length());
+            store.put("b", SECOND);
+        }
+        try (MCSSolutionStore store = MCSSolutionStore.open(file)) {
+            assertEquals(2, store.size());
+            assertMapping(FIRST, store.get("a"));
+            assertMapping(SECOND, store.get("b"));
+        }
+    }
+
+    @Test
+    public void testOtherVersionIsStale() throws Exception {
+        File file = folder.newFile("mcs.store");
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(MCSSolutionStore.header(MATCHER_VERSION - 1));
+        }
+        assertStale(file);
+    }
+
+    @Test
+    public void testOtherHeaderIsStale() throws Exception {
+        File file = folder.newFile("mcs.store");
+        Files.write(file.toPath(), "not a store".getBytes("UTF-8"));
+        assertStale(file);
+    }
+
+    /*
+     * The lock held by another writer leaves a read-only store, which reads
+     * the records but does not write
+     */
+    @Test
+    public void testLockedStoreIsReadOnly() throws Exception {
+        File file = folder.newFile("mcs.store");
+        try (MCSSolutionStore store = MCSSolutionStore.open(file)) {
+            store.put("a", FIRST);
+        }
+        try (FileChannel c = FileChannel.open(file.toPath(), WRITE);
+                FileLock lock = c.lock()) {
+            try (MCSSolutionStore store = MCSSolutionStore.open(file)) {
+                assertFalse(store.isWriter());
+                assertMapping(FIRST, store.get("a"));
+                long length = file.length();
+                store.put("b", SECOND);
+                assertNull(store.get("b"));
+                assertEquals(length, file.length());
+            }
+        }
+    }
+
+    /*
+     * The same file opened twice in a process (-Drdt.mcs.store and the batch
+     * store) is one writable store, closed with its last user
+     */
+    @Test
+    public void testSameFileIsShared() throws Exception {
+        File file = folder.newFile("mcs.store");
+        File other = new File(new File(file.getParentFile(), "."), file.getName());
+        MCSSolutionStore first = MCSSolutionStore.open(file);
+        MCSSolutionStore second = MCSSolutionStore.open(other);
+        assertSame(first, second);
+        assertTrue(second.isWriter());
+        first.close();
+        second.put("a", FIRST);
+        assertMapping(FIRST, second.get("a"));
+        second.close();
+        try (MCSSolutionStore store = MCSSolutionStore.open(file)) {
+            assertMapping(FIRST, store.get("a"));
+        }
+    }
+
+    private static void assertStale(File file) throws Exception {
+        byte[] old = Files.readAllBytes(file.toPath());
+        try (MCSSolutionStore store = MCSSolutionStore.open(file)) {
+            assertTrue(store.isWriter());
+            assertEquals(0, store.size());
+            store.put("a", FIRST);
+        }
+        File stale = new File(file.getPath() + ".stale");
+        assertArrayEquals(old, Files.readAllBytes(stale.toPath()));
+        try (MCSSolutionStore store = MCSSolutionStore.open(file)) {
+            assertMapping(FIRST, store.get("a"));
+        }
+    }
+
+    private static void assertMapping(CachedMapping expected, CachedMapping actual) {
+        assertNotNull(actual);
+        assertArrayEquals(expected.getQueryRanks(), actual.getQueryRanks());
+        assertArrayEquals(expected.getTargetRanks(), actual.getTargetRanks());
+        assertEquals(expected.getEnergy(), actual.getEnergy());
+        assertEquals(expected.getFragmentSize(), actual.getFragmentSize());
+        assertEquals(expected.getStereoScore(), actual.getStereoScore());
+    }
+}
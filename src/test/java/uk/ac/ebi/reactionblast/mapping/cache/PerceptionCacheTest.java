@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package uk.ac.ebi.reactionblast.mapping.cache;
+
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.openscience.cdk.CDKConstants;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.interfaces.IRingSet;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+import org.openscience.cdk.smiles.SmilesParser;
+import static uk.ac.ebi.reactionblast.mapping.cache.PerceptionCache.Perception.MAPPING;
+
+/**
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public class PerceptionCacheTest {
+
+    private final SmilesParser sp = new SmilesParser(SilentChemObjectBuilder.getInstance());
+
+    /*
+     * Two molecules perceived from one cache entry do not share the ring
+     * sizes or rings, and the rings hold their own atoms and bonds
+     */
+    @Test
+    public void testRingsOnTarget() throws Exception {
+        PerceptionCache cache = new PerceptionCache(16);
+        IAtomContainer first = sp.parseSmiles("c1ccc2ccccc2c1CC1CCCO1");
+        IAtomContainer second = sp.parseSmiles("c1ccc2ccccc2c1CC1CCCO1");
+        cache.configure(first, MAPPING);
+        cache.configure(second, MAPPING);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+
+        for (int i = 0; i < first.getAtomCount(); i++) {
+            IAtom a = first.getAtom(i);
+            IAtom b = second.getAtom(i);
+            List<Integer> sizes = a.getProperty(CDKConstants.RING_SIZES);
+            if (sizes == null) {
+                continue;
+            }
+            assertEquals(sizes, b.getProperty(CDKConstants.RING_SIZES));
+            assertNotSame(sizes, b.getProperty(CDKConstants.RING_SIZES));
+            assertRings(first, a);
+            assertRings(second, b);
+        }
+    }
+
+    private static void assertRings(IAtomContainer mol, IAtom atom) {
+        IRingSet rings = atom.getProperty(CDKConstants.SMALLEST_RINGS);
+        assertNotNull(rings);
+        assertTrue(rings.getAtomContainerCount() > 0);
+        for (IAtomContainer ring : rings.atomContainers()) {
+            assertTrue(ring.contains(atom));
+            for (IAtom a : ring.atoms()) {
+                assertTrue(mol.indexOf(a) >= 0);
+            }
+            for (IBond b : ring.bonds()) {
+                assertTrue(mol.indexOf(b) >= 0);
+            }
+        }
+    }
+
+    @Test
+    public void testIsotopesAndRadicals() throws Exception {
+        assertNotEquals(key("CC(O)=O"), key("[13CH3]C(O)=O"));
+        IAtomContainer radical = sp.parseSmiles("[CH2]O");
+        radical.addSingleElectron(0);
+        assertNotEquals(key("[CH2]O"), PerceptionCache.generateKey(radical, MAPPING));
+        assertEquals(key("CC(O)=O"), key("CC(O)=O"));
+    }
+
+    private String key(String smiles) throws Exception {
+        return PerceptionCache.generateKey(sp.parseSmiles(smiles), MAPPING);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package uk.ac.ebi.reactionblast.mechanism;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import org.junit.Test;
+import static org.openscience.smsd.BundledReactions.readNamed;
+import org.openscience.smsd.tools.Deadline;
+import uk.ac.ebi.reactionblast.fingerprints.interfaces.IFeature;
+import uk.ac.ebi.reactionblast.fingerprints.interfaces.IPatternFingerprinter;
+import uk.ac.ebi.reactionblast.mapping.interfaces.IMappingAlgorithm;
+import uk.ac.ebi.reactionblast.mechanism.interfaces.EnumBondChangeMode;
+import static uk.ac.ebi.reactionblast.mechanism.interfaces.EnumBondChangeMode.BOND_CHANGES;
+import static uk.ac.ebi.reactionblast.mechanism.interfaces.EnumBondChangeMode.FULL;
+import static uk.ac.ebi.reactionblast.mechanism.interfaces.EnumBondChangeMode.STEREO;
+import uk.ac.ebi.reactionblast.tools.StandardizeReaction;
+
+/**
+ * Bond change results of bundled reactions, compared with the values of the
+ * clone and partition fragment counts: selected algorithm, total smallest
+ * fragment size and total fragment count. The reaction centre fingerprints
+ * computed on first access are the ones computed at once.
+ *
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public class BondChangeCalculatorTest {
+
+    private static final Object[][] FRAGMENTS = {
+        {"kegg/R00008.rxn", "MIN", 12, 2},
+        {"kegg/R00013.rxn", "MAX", 4, 4},
+        {"kegg/R01081.rxn", "MIN", 20, 0},
+        {"kegg/R03627.rxn", "MIN", 0, 3},
+        {"rhea/10005.rxn", "MIN", 6, 3},
+        {"rhea/10009.rxn", "MIN", 11, 4},
+        {"kegg/R00012.rxn", "MAX", 39, 4},
+        {"kegg/R00015.rxn", "MAX", 25, 3},
+        {"rhea/10006.rxn", "MIN", 6, 3}
+    };
+
+    @Test
+    public void testFragmentsOnReactions() throws Exception {
+        for (Object[] row : FRAGMENTS) {
+            String name = (String) row[0];
+            ReactionMechanismTool tool = map(name);
+            BondChangeCalculator calculator = tool.getSelectedSolution().getBondChangeCalculator();
+            assertEquals(name, row[1], tool.getSelectedSolution().getAlgorithmID().toString());
+            assertEquals(name, row[2], calculator.getTotalSmallestFragmentSize());
+            assertEquals(name, row[3], calculator.getTotalFragmentCount());
+        }
+    }
+
+    /*
+     * The formed/cleaved and order change fingerprints of the reaction
+     * centres of each mapping are the same in every mode, the reaction centre
+     * fingerprints with the stereo changes are the same once the stereo
+     * changes are computed
+     */
+    @Test
+    public void testReactionCentersOnFirstAccess() throws Exception {
+        for (Object[] row : FRAGMENTS) {
+            String name = (String) row[0];
+            Map<IMappingAlgorithm, BondChangeCalculator> full = calculators(map(name, FULL));
+            Map<IMappingAlgorithm, BondChangeCalculator> bondChanges = calculators(map(name, BOND_CHANGES));
+            Map<IMappingAlgorithm, BondChangeCalculator> stereo = calculators(map(name, STEREO));
+            assertFalse(name, full.isEmpty());
+            assertEquals(name, full.keySet(), bondChanges.keySet());
+            assertEquals(name, full.keySet(), stereo.keySet());
+            for (IMappingAlgorithm algorithm : full.keySet()) {
+                String id = name + " " + algorithm;
+                BondChangeCalculator expected = full.get(algorithm);
+                for (BondChangeCalculator lazy : new BondChangeCalculator[]{bondChanges.get(algorithm), stereo.get(algorithm)}) {
+                    assertEquals(id + " formed/cleaved",
+                            features(expected.getReactionCenterFormedCleavedFingerprint()),
+                            features(lazy.getReactionCenterFormedCleavedFingerprint()));
+                    assertEquals(id + " order changes",
+                            features(expected.getReactionCenterOrderChangeFingerprint()),
+                            features(lazy.getReactionCenterOrderChangeFingerprint()));
+                    assertEquals(id + " second access",
+                            features(expected.getReactionCenterFormedCleavedFingerprint()),
+                            features(lazy.getReactionCenterFormedCleavedFingerprint()));
+                }
+                BondChangeCalculator lazy = stereo.get(algorithm);
+                assertEquals(id + " stereo changes",
+                        features(expected.getReactionCenterStereoChangeFingerprint()),
+                        features(lazy.getReactionCenterStereoChangeFingerprint()));
+                assertEquals(id + " reaction centres",
+                        features(expected.getReactionCenterWFingerprint()),
+                        features(lazy.getReactionCenterWFingerprint()));
+                assertEquals(id + " fragments",
+                        expected.getReactionCenterFragmentList().size(),
+                        lazy.getReactionCenterFragmentList().size());
+            }
+        }
+    }
+
+    private static Map<IMappingAlgorithm, BondChangeCalculator> calculators(ReactionMechanismTool tool) {
+        Map<IMappingAlgorithm, BondChangeCalculator> calculators = new EnumMap<>(IMappingAlgorithm.class);
+        for (MappingSolution solution : tool.getAllSolutions()) {
+            calculators.put(solution.getAlgorithmID(), solution.getBondChangeCalculator());
+        }
+        return calculators;
+    }
+
+    private static Map<Integer, TreeSet<String>> features(Map<Integer, IPatternFingerprinter> fingerprints) {
+        Map<Integer, TreeSet<String>> features = new TreeMap<>();
+        for (Map.Entry<Integer, IPatternFingerprinter> e : fingerprints.entrySet()) {
+            features.put(e.getKey(), features(e.getValue()));
+        }
+        return features;
+    }
+
+    private static TreeSet<String> features(IPatternFingerprinter fingerprint) {
+        TreeSet<String> patterns = new TreeSet<>();
+        for (IFeature feature : fingerprint.getFeatures()) {
+            patterns.add(feature.getPattern() + "=" + feature.getWeight());
+        }
+        return patterns;
+    }
+
+    private ReactionMechanismTool map(String name) throws Exception {
+        return map(name, FULL);
+    }
+
+    private ReactionMechanismTool map(String name, EnumBondChangeMode mode) throws Exception {
+        return new ReactionMechanismTool(readNamed("rxn/" + name), true, false, false, true, false, new StandardizeReaction(),
+                Deadline.current(), mode);
+    }
+}
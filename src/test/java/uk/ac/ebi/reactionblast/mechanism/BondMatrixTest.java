@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package uk.ac.ebi.reactionblast.mechanism;
+
+import java.util.ArrayList;
+import static java.util.Collections.sort;
+import java.util.List;
+import java.util.Random;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import static org.openscience.smsd.BundledReactions.readNamed;
+import uk.ac.ebi.reactionblast.tools.EBIMatrix;
+import uk.ac.ebi.reactionblast.tools.SparseMatrix;
+import uk.ac.ebi.reactionblast.tools.StandardizeReaction;
+
+/**
+ * The BE and R matrices of bundled reactions, compared with the values of the
+ * dense matrices: size, non zero entry count and hash of the sorted entries
+ * (by atom ID, L for the lone pair row and column) of the educt and product
+ * BE matrices, and the same plus the absolute change count of the R matrix.
+ *
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public class BondMatrixTest {
+
+    private static final String[][] EXPECTED = {
+        {"kegg/R00004.rxn", "MIN", "11,45,-1816150605", "11,45,-461623573", "11,6,-2116959002,6"},
+        {"kegg/R00008.rxn", "MIN", "7,27,1922966752", "7,27,126015393", "7,1,2077864594,1"},
+        {"kegg/R00013.rxn", "MAX", "6,23,-674829287", "6,23,-1159734790", "6,3,2088943342,3"},
+        {"rhea/10005.rxn", "MIN", "11,49,-1008929738", "11,49,1104803456", "11,8,-1396432711,8"},
+        {"rhea/10009.rxn", "MIN", "20,83,-1089626916", "20,83,-846206128", "20,8,245300703,8"},
+        {"kegg/R03627.rxn", "MIN", "21,98,1007398923", "21,98,-1239331317", "21,6,531154642,6"},
+        {"kegg/R01081.rxn", "MIN", "11,51,231757717", "11,50,-2120096695", "11,8,903811901,8"}
+    };
+
+    @Test
+    public void testMatricesOnReactions() throws Exception {
+        for (String[] row : EXPECTED) {
+            String name = "rxn/" + row[0];
+            ReactionMechanismTool tool = new ReactionMechanismTool(readNamed(name), true, false, false, true, false,
+                    new StandardizeReaction());
+            BondChangeCalculator calculator = tool.getSelectedSolution().getBondChangeCalculator();
+            assertEquals(name, row[1], tool.getSelectedSolution().getAlgorithmID().toString());
+            assertEquals(name, row[2], digest(calculator.getEductBEMatrix()));
+            assertEquals(name, row[3], digest(calculator.getProductBEMatrix()));
+            assertEquals(name, row[4], digest(calculator.getRMatrix()));
+            assertDense(name, calculator.getEductBEMatrix());
+            assertDense(name, calculator.getProductBEMatrix());
+            assertDense(name, calculator.getRMatrix());
+            RMatrix r = calculator.getRMatrix();
+            for (int i = 0; i < r.getRowDimension() - 1; i++) {
+                for (int j = 0; j < r.getColumnDimension() - 1; j++) {
+                    assertEquals(name, (int) r.getValue(i, j), r.getValueByReactantAtoms(
+                            r.getReactantAtom(i).getID(), r.getReactantAtom(j).getID()));
+                    assertEquals(name, (int) r.getValue(i, j), r.getValueByProductAtoms(
+                            r.getProductAtom(i).getID(), r.getProductAtom(j).getID()));
+                }
+            }
+        }
+    }
+
+    /*
+     * Pivots and swaps give the same matrix as on the dense storage
+     */
+    @Test
+    public void testSparseAgainstDense() throws Exception {
+        Random random = new Random(17);
+        int n = 12;
+        SparseMatrix sparse = new SparseMatrix(n, n);
+        EBIMatrix dense = new EBIMatrix(n, n);
+        for (int k = 0; k < 40; k++) {
+            int i = random.nextInt(n);
+            int j = random.nextInt(n);
+            double value = random.nextInt(4);
+            assertTrue(sparse.setValue(i, j, value));
+            dense.setValue(i, j, value);
+        }
+        for (int k = 0; k < 30; k++) {
+            int a = random.nextInt(n);
+            int b = random.nextInt(n);
+            switch (k % 3) {
+                case 0:
+                    sparse.pivot(a, b);
+                    dense.pivot(a, b);
+                    break;
+                case 1:
+                    sparse.swapRows(a, b);
+                    dense.swapRows(a, b);
+                    break;
+                default:
+                    sparse.swapColumns(a, b);
+                    dense.swapColumns(a, b);
+            }
+            for (int i = 0; i < n; i++) {
+                assertArrayEquals(dense.getArray()[i], sparse.getArray()[i], 0.);
+            }
+        }
+        int nonZero = 0;
+        for (double[] row : dense.getArray()) {
+            for (double v : row) {
+                nonZero += v != 0. ? 1 : 0;
+            }
+        }
+        assertEquals(nonZero, sparse.getEntryCount());
+        assertEquals(dense.toString(), sparse.toString());
+        assertEquals(dense.times(dense).trace(), sparse.times(sparse).trace(), 0.);
+        assertEquals(-1., sparse.getValue(n, 0), 0.);
+    }
+
+    /*
+     * Only the non zero entries are stored and the dense copy holds the same
+     * values
+     */
+    private static void assertDense(String name, SparseMatrix matrix) {
+        double[][] dense = matrix.getArray();
+        int nonZero = 0;
+        for (int i = 0; i < matrix.getRowDimension(); i++) {
+            for (int j = 0; j < matrix.getColumnDimension(); j++) {
+                assertEquals(name, dense[i][j], matrix.getValue(i, j), 0.);
+                nonZero += dense[i][j] != 0. ? 1 : 0;
+            }
+        }
+        assertEquals(name, nonZero, matrix.getEntryCount());
+    }
+
+    private static String digest(BEMatrix m) throws Exception {
+        List<String> entries = new ArrayList<>();
+        int n = m.getRowDimension();
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < m.getColumnDimension(); j++) {
+                double v = m.getValue(i, j);
+                if (v != 0) {
+                    entries.add((i < n - 1 ? m.getAtom(i).getID() : "L") + "/"
+                            + (j < n - 1 ? m.getAtom(j).getID() : "L") + "=" + v);
+                }
+            }
+        }
+        sort(entries);
+        return n + "," + entries.size() + "," + entries.hashCode();
+    }
+
+    private static String digest(RMatrix m) throws Exception {
+        List<String> entries = new ArrayList<>();
+        int n = m.getRowDimension();
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < m.getColumnDimension(); j++) {
+                double v = m.getValue(i, j);
+                if (v != 0) {
+                    entries.add(m.getReactantAtom(i).getID() + "/" + m.getReactantAtom(j).getID() + "=" + v);
+                }
+            }
+        }
+        sort(entries);
+        return n + "," + entries.size() + "," + entries.hashCode() + "," + m.getAbsChanges();
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package uk.ac.ebi.reactionblast.mechanism;
+
+import java.util.HashMap;
+import java.util.Map;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.openscience.cdk.Reaction;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IMapping;
+import org.openscience.cdk.interfaces.IReaction;
+import static org.openscience.smsd.BundledReactions.readNamed;
+import uk.ac.ebi.reactionblast.mapping.CallableAtomMappingTool;
+import uk.ac.ebi.reactionblast.mapping.Reactor;
+import uk.ac.ebi.reactionblast.mapping.interfaces.IMappingAlgorithm;
+import static uk.ac.ebi.reactionblast.mechanism.ReactionMechanismTool.getMappingKey;
+import static uk.ac.ebi.reactionblast.mechanism.interfaces.EnumBondChangeMode.FULL;
+import uk.ac.ebi.reactionblast.tools.StandardizeReaction;
+
+/**
+ * Keys used to compute the bond changes once per distinct mapping: the
+ * models with the same key have the same bond changes, and the key does not
+ * depend on the order of the molecules.
+ *
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public class ReactionMechanismToolTest {
+
+    private static final String[] REACTIONS = {
+        "kegg/R00004.rxn",
+        "kegg/R00008.rxn",
+        "kegg/R00013.rxn",
+        "rhea/10005.rxn",
+        "rhea/10009.rxn"
+    };
+
+    @Test
+    public void testModelsWithTheSameKeyHaveTheSameBondChanges() throws Exception {
+        int shared = 0;
+        for (String name : REACTIONS) {
+            Map<IMappingAlgorithm, Reactor> solutions = new CallableAtomMappingTool(
+                    readNamed("rxn/" + name), new StandardizeReaction(), true, false).getSolutions();
+            Map<String, BondChangeCalculator> seen = new HashMap<>();
+            for (IMappingAlgorithm algorithm : solutions.keySet()) {
+                IReaction mapped = solutions.get(algorithm).getReactionWithAtomAtomMapping();
+                String key = getMappingKey(mapped);
+                assertNotNull(name + " " + algorithm, key);
+                BondChangeCalculator bcc = new BondChangeCalculator(mapped);
+                bcc.computeBondChanges(false, false, FULL);
+                BondChangeCalculator other = seen.putIfAbsent(key, bcc);
+                if (other != null) {
+                    shared++;
+                    assertEquals(name + " " + algorithm, other.getFormedCleavedWFingerprint(),
+                            bcc.getFormedCleavedWFingerprint());
+                    assertEquals(name + " " + algorithm, other.getOrderChangesWFingerprint(),
+                            bcc.getOrderChangesWFingerprint());
+                    assertEquals(name + " " + algorithm, other.getStereoChangesWFingerprint(),
+                            bcc.getStereoChangesWFingerprint());
+                    assertEquals(name + " " + algorithm, other.getTotalFragmentCount(),
+                            bcc.getTotalFragmentCount());
+                }
+            }
+        }
+        assertTrue("no two models gave the same mapping", shared > 0);
+    }
+
+    @Test
+    public void testKeyDoesNotDependOnMoleculeOrder() throws Exception {
+        for (String name : REACTIONS) {
+            Map<IMappingAlgorithm, Reactor> solutions = new CallableAtomMappingTool(
+                    readNamed("rxn/" + name), new StandardizeReaction(), true, false).getSolutions();
+            for (Reactor reactor : solutions.values()) {
+                IReaction mapped = reactor.getReactionWithAtomAtomMapping();
+                IReaction reversed = new Reaction();
+                for (int i = mapped.getReactantCount() - 1; i >= 0; i--) {
+                    reversed.addReactant(mapped.getReactants().getAtomContainer(i));
+                }
+                for (int i = mapped.getProductCount() - 1; i >= 0; i--) {
+                    reversed.addProduct(mapped.getProducts().getAtomContainer(i));
+                }
+                for (IMapping mapping : mapped.mappings()) {
+                    reversed.addMapping(mapping);
+                }
+                assertEquals(name, getMappingKey(mapped), getMappingKey(reversed));
+            }
+        }
+    }
+
+    /*
+     * The pairs not modified by a round keep their MCS: reactions mapped in
+     * several rounds send fewer pairs to the MCS than with every pair
+     * recomputed in every round, and get the same mappings
+     */
+    @Test
+    public void testUnmodifiedPairsAreReused() throws Exception {
+        for (String name : new String[]{"kegg/R00004.rxn", "rhea/10009.rxn"}) {
+            ReactionMechanismTool recomputed;
+            try {
+                System.setProperty("rdt.mcs.reuse", "false");
+                recomputed = new ReactionMechanismTool(readNamed("rxn/" + name), true, false, false, true);
+            } finally {
+                System.clearProperty("rdt.mcs.reuse");
+            }
+            ReactionMechanismTool reused = new ReactionMechanismTool(readNamed("rxn/" + name), true, false, false, true);
+            assertTrue(name + " " + reused.getMCSPairCount() + " MCS pairs",
+                    reused.getMCSPairCount() < recomputed.getMCSPairCount());
+
+            Map<IMappingAlgorithm, String> expected = new HashMap<>();
+            for (MappingSolution solution : recomputed.getAllSolutions()) {
+                expected.put(solution.getAlgorithmID(), mapping(solution));
+            }
+            assertEquals(name, expected.size(), reused.getAllSolutions().size());
+            for (MappingSolution solution : reused.getAllSolutions()) {
+                assertEquals(name + " " + solution.getAlgorithmID(),
+                        expected.get(solution.getAlgorithmID()), mapping(solution));
+            }
+        }
+    }
+
+    /*
+     * Atom labels of the mapped reaction, in the order of the molecules and
+     * atoms
+     */
+    private static String mapping(MappingSolution solution) throws Exception {
+        IReaction mapped = solution.getReactor().getReactionWithAtomAtomMapping();
+        StringBuilder sb = new StringBuilder();
+        for (IAtomContainer mol : mapped.getReactants().atomContainers()) {
+            for (IAtom atom : mol.atoms()) {
+                sb.append(atom.getSymbol()).append(atom.getID()).append(' ');
+            }
+        }
+        sb.append(">>");
+        for (IAtomContainer mol : mapped.getProducts().atomContainers()) {
+            for (IAtom atom : mol.atoms()) {
+                sb.append(' ').append(atom.getSymbol()).append(atom.getID());
+            }
+        }
+        return sb.toString();
+    }
+}
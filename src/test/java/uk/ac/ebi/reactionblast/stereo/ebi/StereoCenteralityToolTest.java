@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2018-2020. BioInception Labs Pvt. Ltd.
+ */
+package uk.ac.ebi.reactionblast.stereo.ebi;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import org.junit.After;
+import org.junit.Test;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.layout.StructureDiagramGenerator;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+import org.openscience.cdk.smiles.SmilesParser;
+import org.openscience.smsd.tools.Deadline;
+import uk.ac.ebi.centres.Centre;
+import uk.ac.ebi.centres.cdk.CDKCentreProvider;
+import uk.ac.ebi.centres.cdk.CDKManager;
+import uk.ac.ebi.centres.cdk.CDKPerceptor;
+import uk.ac.ebi.centres.exception.WarpCoreEjection;
+import uk.ac.ebi.centres.priority.AtomicNumberRule;
+import uk.ac.ebi.reactionblast.stereo.IStereoAndConformation;
+
+/**
+ * The stereo perception stops inside a centre once its deadline expires, and
+ * a perception which fails or runs out of time leaves the atoms unassigned.
+ *
+ * @author Syed Asad Rahman <asad.rahman at bioinceptionlabs.com>
+ */
+public class StereoCenteralityToolTest {
+
+    private static final String SMILES = "C/C=C/CC";
+
+    @After
+    public void clearDeadline() {
+        Deadline.set(null);
+    }
+
+    @Test
+    public void testPerception() throws Exception {
+        Map<IAtom, IStereoAndConformation> chirality
+                = StereoCenteralityTool.getChirality2D(molecule(), new CDKPerceptor());
+        assertEquals(IStereoAndConformation.E, chirality.get(molecule(chirality).getAtom(1)));
+        assertEquals(IStereoAndConformation.E, chirality.get(molecule(chirality).getAtom(2)));
+    }
+
+    @Test
+    public void testExpiredDeadline() throws Exception {
+        IAtomContainer mol = molecule();
+        Deadline.set(Deadline.after(0, TimeUnit.MILLISECONDS));
+        Map<IAtom, IStereoAndConformation> chirality
+                = StereoCenteralityTool.getChirality2D(mol, new CDKPerceptor());
+        assertFalse(chirality.containsValue(IStereoAndConformation.E));
+        assertEquals(Boolean.TRUE, mol.getProperty(StereoCenteralityTool.PERCEPTION_TIMEOUT));
+    }
+
+    /*
+     * The digraph expansion and the ligand comparisons check the deadline of
+     * the thread
+     */
+    @Test
+    public void testDeadlineInsideCentre() throws Exception {
+        IAtomContainer mol = molecule();
+        Collection<Centre<IAtom>> centres = new CDKCentreProvider(mol).getCentres(new CDKManager(mol));
+        assertEquals(1, centres.size());
+        Centre<IAtom> centre = centres.iterator().next();
+        Deadline.set(Deadline.after(0, TimeUnit.MILLISECONDS));
+        try {
+            centre.getLigands();
+            fail("the digraph was expanded after the deadline");
+        } catch (WarpCoreEjection ex) {
+        }
+        try {
+            new AtomicNumberRule<IAtom>(IAtom::getAtomicNumber).compare(new ArrayList<>(), new ArrayList<>());
+            fail("the ligands were compared after the deadline");
+        } catch (WarpCoreEjection ex) {
+        }
+    }
+
+    /*
+     * Errors of the perception are not passed on to the mapping
+     */
+    @Test
+    public void testFailedPerception() throws Exception {
+        CDKPerceptor failing = new CDKPerceptor() {
+            @Override
+            public void perceive(IAtomContainer container) {
+                throw new StackOverflowError();
+            }
+        };
+        Map<IAtom, IStereoAndConformation> chirality = StereoCenteralityTool.getChirality2D(molecule(), failing);
+        assertEquals(5, chirality.size());
+        assertFalse(chirality.containsValue(IStereoAndConformation.E));
+        assertNull(molecule(chirality).getProperty(StereoCenteralityTool.PERCEPTION_TIMEOUT));
+    }
+
+    private static IAtomContainer molecule() throws Exception {
+        IAtomContainer mol = new SmilesParser(SilentChemObjectBuilder.getInstance()).parseSmiles(SMILES);
+        StructureDiagramGenerator sdg = new StructureDiagramGenerator();
+        sdg.generateCoordinates(mol);
+        return mol;
+    }
+
+    private static IAtomContainer molecule(Map<IAtom, IStereoAndConformation> chirality) {
+        return chirality.keySet().iterator().next().getContainer();
+    }
+}